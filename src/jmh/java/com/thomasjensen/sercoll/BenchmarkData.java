@@ -0,0 +1,52 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+/**
+ * Test data shared by the benchmarks.
+ *
+ * @author Thomas Jensen
+ */
+final class BenchmarkData
+{
+    /** number of elements in each collection */
+    static final int SIZE = 100;
+
+    /** an element which is contained in each collection, but is not the identical instance */
+    static final String PROBE = new String(key(SIZE / 2));
+
+
+
+    private BenchmarkData()
+    {
+        super();
+    }
+
+
+
+    static String key(final int pIndex)
+    {
+        return "key" + (1000 + pIndex);
+    }
+
+
+
+    /**
+     * Enum used as key type of the enum maps.
+     */
+    enum Hobbit
+    {
+        FRODO, SAM, MERRY, PIPPIN, BILBO;
+    }
+}
@@ -0,0 +1,165 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Allocation benchmarks of the factory methods in {@link SerializableCollections}. Run with the GC profiler, see the
+ * <code>jmhAllocation</code> Gradle task.
+ *
+ * @author Thomas Jensen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class CollectionsBenchmark
+{
+    private String[] values;
+
+    private SerializableArrayList<String> list;
+
+    private SerializableHashSet<String> set;
+
+    private SerializableTreeSet<String> sortedSet;
+
+    private SerializableHashMap<String, Integer> map;
+
+
+
+    @Setup
+    public void setUp()
+    {
+        values = new String[BenchmarkData.SIZE];
+        map = new SerializableHashMap<String, Integer>();
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            values[i] = BenchmarkData.key(i);
+            map.put(values[i], Integer.valueOf(i));
+        }
+        list = new SerializableArrayList<String>(map.keySet());
+        set = new SerializableHashSet<String>(map.keySet());
+        sortedSet = new SerializableTreeSet<String>(map.keySet());
+    }
+
+
+
+    @Benchmark
+    public Object asList()
+    {
+        return SerializableCollections.asList(values);
+    }
+
+
+
+    @Benchmark
+    public Object asSet()
+    {
+        return SerializableCollections.asSet(values);
+    }
+
+
+
+    @Benchmark
+    public Object emptyList()
+    {
+        return SerializableCollections.emptyList();
+    }
+
+
+
+    @Benchmark
+    public Object emptySet()
+    {
+        return SerializableCollections.emptySet();
+    }
+
+
+
+    @Benchmark
+    public Object emptyMap()
+    {
+        return SerializableCollections.emptyMap();
+    }
+
+
+
+    @Benchmark
+    public Object singleton()
+    {
+        return SerializableCollections.singleton(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object singletonList()
+    {
+        return SerializableCollections.singletonList(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object singletonMap()
+    {
+        return SerializableCollections.singletonMap(BenchmarkData.PROBE, Integer.valueOf(1));
+    }
+
+
+
+    @Benchmark
+    public Object unmodifiableList()
+    {
+        return SerializableCollections.unmodifiableList(list);
+    }
+
+
+
+    @Benchmark
+    public Object unmodifiableSet()
+    {
+        return SerializableCollections.unmodifiableSet(set);
+    }
+
+
+
+    @Benchmark
+    public Object unmodifiableSortedSet()
+    {
+        return SerializableCollections.unmodifiableSortedSet(sortedSet);
+    }
+
+
+
+    @Benchmark
+    public Object unmodifiableMap()
+    {
+        return SerializableCollections.unmodifiableMap(map);
+    }
+}
@@ -0,0 +1,119 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Throughput benchmarks of reading and writing the golden serialized files in
+ * <code>src/test/resources/golden</code>. Run via the <code>checkThroughput</code> Gradle task.
+ * <p/>
+ * When golden files are added for a new version, add the version to the parameters.
+ *
+ * @author Thomas Jensen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class GoldenFileBenchmark
+{
+    @Param({"1.0.0-SNAPSHOT"})
+    private String version;
+
+    @Param({"SerializableArrayList", "SerializableLazyArrayList", "SerializableArrayDeque", "SerializablePriorityQueue",
+        "SerializableConcurrentLinkedQueue", "SerializableArrayBlockingQueue", "SerializableHashSet",
+        "SerializableLinkedHashSet", "SerializableTreeSet", "SerializableTreeSet-comparator", "SerializableHashMap",
+        "SerializableTreeMap", "SerializableEnumMap", "SerializableEnumSet", "SerializableLruMap",
+        "SerializableExpiringMap", "SerializableUnmodifiableArrayList", "SerializableUnmodifiableHashSet",
+        "SerializableUnmodifiableTreeSet", "SerializableOrderStatisticTreeSet",
+        "SerializableUnmodifiableSortedArraySet", "SerializableUnmodifiableSortedArrayMap", "SerializableBiMap",
+        "SerializableSnapshotHashMap", "SerializableListMultimap", "SerializableSetMultimap",
+        "SerializableRoaringBitmap", "SerializableUnmodifiableHashMap", "SerializableUnmodifiableEntrySet"})
+    private String sample;
+
+    private byte[] goldenBytes;
+
+    private Object goldenObject;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+
+
+    @Setup
+    public void setUp()
+        throws IOException, ClassNotFoundException
+    {
+        final InputStream is = getClass().getResourceAsStream("/golden/" + version + '/' + sample + ".ser");
+        if (is == null) {
+            throw new IOException("golden file not found: " + version + '/' + sample);
+        }
+        try {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[4096];
+            for (int len = is.read(chunk); len >= 0; len = is.read(chunk)) {
+                bos.write(chunk, 0, len);
+            }
+            goldenBytes = bos.toByteArray();
+        }
+        finally {
+            is.close();
+        }
+        goldenObject = read();
+    }
+
+
+
+    @Benchmark
+    public Object read()
+        throws IOException, ClassNotFoundException
+    {
+        final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(goldenBytes));
+        return ois.readObject();
+    }
+
+
+
+    @Benchmark
+    public int write()
+        throws IOException
+    {
+        buffer.reset();
+        final ObjectOutputStream oos = new ObjectOutputStream(buffer);
+        oos.writeObject(goldenObject);
+        oos.flush();
+        return buffer.size();
+    }
+}
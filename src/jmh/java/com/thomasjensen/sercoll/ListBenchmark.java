@@ -0,0 +1,168 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Allocation benchmarks of the read operations and views of the sercoll lists. Run with the GC profiler, see the
+ * <code>jmhAllocation</code> Gradle task.
+ *
+ * @author Thomas Jensen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class ListBenchmark
+{
+    private SerializableArrayList<String> arrayList;
+
+    private SerializableUnmodifiableArrayList<String> unmodifiableList;
+
+    private SerializableLazyArrayList<String> lazyList;
+
+
+
+    @Setup
+    public void setUp()
+    {
+        arrayList = new SerializableArrayList<String>();
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            arrayList.add(BenchmarkData.key(i));
+        }
+        unmodifiableList = new SerializableUnmodifiableArrayList<String>(arrayList);
+        lazyList = new SerializableLazyArrayList<String>(arrayList);
+    }
+
+
+
+    @Benchmark
+    public String arrayListGet()
+    {
+        return arrayList.get(BenchmarkData.SIZE / 2);
+    }
+
+
+
+    @Benchmark
+    public boolean arrayListContains()
+    {
+        return arrayList.contains(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public void arrayListIterate(final Blackhole pBlackhole)
+    {
+        for (String s : arrayList) {
+            pBlackhole.consume(s);
+        }
+    }
+
+
+
+    @Benchmark
+    public Object arrayListSubList()
+    {
+        return arrayList.subList(1, BenchmarkData.SIZE / 2);
+    }
+
+
+
+    @Benchmark
+    public String unmodifiableListGet()
+    {
+        return unmodifiableList.get(BenchmarkData.SIZE / 2);
+    }
+
+
+
+    @Benchmark
+    public boolean unmodifiableListContains()
+    {
+        return unmodifiableList.contains(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public void unmodifiableListIterate(final Blackhole pBlackhole)
+    {
+        for (String s : unmodifiableList) {
+            pBlackhole.consume(s);
+        }
+    }
+
+
+
+    @Benchmark
+    public void unmodifiableListListIterator(final Blackhole pBlackhole)
+    {
+        for (Iterator<String> iter = unmodifiableList.listIterator(); iter.hasNext();) {
+            pBlackhole.consume(iter.next());
+        }
+    }
+
+
+
+    @Benchmark
+    public Object unmodifiableListSubList()
+    {
+        return unmodifiableList.subList(1, BenchmarkData.SIZE / 2);
+    }
+
+
+
+    @Benchmark
+    public String lazyListGet()
+    {
+        return lazyList.get(BenchmarkData.SIZE / 2);
+    }
+
+
+
+    @Benchmark
+    public void lazyListIterate(final Blackhole pBlackhole)
+    {
+        for (String s : lazyList) {
+            pBlackhole.consume(s);
+        }
+    }
+
+
+
+    @Benchmark
+    public Object lazyListSubList()
+    {
+        return lazyList.subList(1, BenchmarkData.SIZE / 2);
+    }
+}
@@ -0,0 +1,531 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Allocation benchmarks of the read operations and views of the sercoll maps. Run with the GC profiler, see the
+ * <code>jmhAllocation</code> Gradle task.
+ *
+ * @author Thomas Jensen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class MapBenchmark
+{
+    private SerializableHashMap<String, Integer> hashMap;
+
+    private SerializableUnmodifiableHashMap<String, Integer> unmodifiableHashMap;
+
+    private SerializableTreeMap<String, Integer> treeMap;
+
+    private SerializableUnmodifiableSortedArrayMap<String, Integer> sortedArrayMap;
+
+    private SerializableBiMap<String, Integer> biMap;
+
+    private SerializableListMultimap<String, Integer> listMultimap;
+
+    private SerializableSetMultimap<String, Integer> setMultimap;
+
+    private SerializableHashMap<String, SerializableArrayList<Integer>> nestedListMap;
+
+    private SerializableEnumMap<BenchmarkData.Hobbit, Integer> enumMap;
+
+    private SerializableLruMap<String, Integer> lruMap;
+
+    private SerializableExpiringMap<String, Integer> expiringMap;
+
+    private SerializableSnapshotHashMap<String, Integer> snapshotHashMap;
+
+
+
+    @Setup
+    public void setUp()
+    {
+        hashMap = new SerializableHashMap<String, Integer>();
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            hashMap.put(BenchmarkData.key(i), Integer.valueOf(i));
+        }
+        unmodifiableHashMap = new SerializableUnmodifiableHashMap<String, Integer>(hashMap);
+        treeMap = new SerializableTreeMap<String, Integer>(hashMap);
+        sortedArrayMap = new SerializableUnmodifiableSortedArrayMap<String, Integer>(hashMap);
+        biMap = new SerializableBiMap<String, Integer>(hashMap);
+        listMultimap = new SerializableListMultimap<String, Integer>();
+        nestedListMap = new SerializableHashMap<String, SerializableArrayList<Integer>>();
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            final String key = BenchmarkData.key(BenchmarkData.SIZE / 2 + i % (BenchmarkData.SIZE / 4));
+            listMultimap.put(key, Integer.valueOf(i));
+            if (!nestedListMap.containsKey(key)) {
+                nestedListMap.put(key, new SerializableArrayList<Integer>());
+            }
+            nestedListMap.get(key).add(Integer.valueOf(i));
+        }
+        setMultimap = new SerializableSetMultimap<String, Integer>(listMultimap);
+        lruMap = new SerializableLruMap<String, Integer>(BenchmarkData.SIZE);
+        lruMap.putAll(hashMap);
+        expiringMap = new SerializableExpiringMap<String, Integer>(TimeUnit.HOURS.toMillis(1L));
+        expiringMap.putAll(hashMap);
+        snapshotHashMap = new SerializableSnapshotHashMap<String, Integer>(hashMap);
+        enumMap = new SerializableEnumMap<BenchmarkData.Hobbit, Integer>(BenchmarkData.Hobbit.class);
+        for (BenchmarkData.Hobbit hobbit : BenchmarkData.Hobbit.values()) {
+            enumMap.put(hobbit, Integer.valueOf(hobbit.ordinal()));
+        }
+    }
+
+
+
+    @Benchmark
+    public Integer hashMapGet()
+    {
+        return hashMap.get(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public boolean hashMapContainsKey()
+    {
+        return hashMap.containsKey(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object hashMapKeySet()
+    {
+        return hashMap.keySet();
+    }
+
+
+
+    @Benchmark
+    public Object hashMapValues()
+    {
+        return hashMap.values();
+    }
+
+
+
+    @Benchmark
+    public void hashMapIterateKeys(final Blackhole pBlackhole)
+    {
+        for (String k : hashMap.keySet()) {
+            pBlackhole.consume(k);
+        }
+    }
+
+
+
+    @Benchmark
+    public void hashMapIterateEntries(final Blackhole pBlackhole)
+    {
+        for (Map.Entry<String, Integer> e : hashMap.entrySet()) {
+            pBlackhole.consume(e);
+        }
+    }
+
+
+
+    @Benchmark
+    public Integer unmodifiableHashMapGet()
+    {
+        return unmodifiableHashMap.get(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public boolean unmodifiableHashMapContainsKey()
+    {
+        return unmodifiableHashMap.containsKey(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object unmodifiableHashMapKeySet()
+    {
+        return unmodifiableHashMap.keySet();
+    }
+
+
+
+    @Benchmark
+    public Object unmodifiableHashMapValues()
+    {
+        return unmodifiableHashMap.values();
+    }
+
+
+
+    @Benchmark
+    public void unmodifiableHashMapIterateKeys(final Blackhole pBlackhole)
+    {
+        for (String k : unmodifiableHashMap.keySet()) {
+            pBlackhole.consume(k);
+        }
+    }
+
+
+
+    @Benchmark
+    public void unmodifiableHashMapIterateEntries(final Blackhole pBlackhole)
+    {
+        for (Map.Entry<String, Integer> e : unmodifiableHashMap.entrySet()) {
+            pBlackhole.consume(e);
+        }
+    }
+
+
+
+    @Benchmark
+    public void unmodifiableHashMapForEachEntry(final Blackhole pBlackhole)
+    {
+        unmodifiableHashMap.forEachEntry(new EntryVisitor<String, Integer>()
+        {
+            @Override
+            public void visit(final String pKey, final Integer pValue)
+            {
+                pBlackhole.consume(pValue);
+            }
+        });
+    }
+
+
+
+    @Benchmark
+    public void unmodifiableHashMapEntryCursor(final Blackhole pBlackhole)
+    {
+        for (EntryCursor<String, Integer> cursor = unmodifiableHashMap.entryCursor(); cursor.advance();) {
+            pBlackhole.consume(cursor.value());
+        }
+    }
+
+
+
+    @Benchmark
+    public int unmodifiableHashMapHashCode()
+    {
+        return unmodifiableHashMap.hashCode();
+    }
+
+
+
+    @Benchmark
+    public Integer treeMapGet()
+    {
+        return treeMap.get(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public boolean treeMapContainsKey()
+    {
+        return treeMap.containsKey(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object treeMapKeySet()
+    {
+        return treeMap.keySet();
+    }
+
+
+
+    @Benchmark
+    public Object treeMapValues()
+    {
+        return treeMap.values();
+    }
+
+
+
+    @Benchmark
+    public void treeMapIterateKeys(final Blackhole pBlackhole)
+    {
+        for (String k : treeMap.keySet()) {
+            pBlackhole.consume(k);
+        }
+    }
+
+
+
+    @Benchmark
+    public void treeMapIterateEntries(final Blackhole pBlackhole)
+    {
+        for (Map.Entry<String, Integer> e : treeMap.entrySet()) {
+            pBlackhole.consume(e);
+        }
+    }
+
+
+
+    @Benchmark
+    public String treeMapFirstKey()
+    {
+        return treeMap.firstKey();
+    }
+
+
+
+    @Benchmark
+    public Object treeMapHeadMap()
+    {
+        return treeMap.headMap(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object treeMapTailMap()
+    {
+        return treeMap.tailMap(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object treeMapSubMap()
+    {
+        return treeMap.subMap(BenchmarkData.key(1), BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Integer biMapGet()
+    {
+        return biMap.get(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public String biMapInverseGet()
+    {
+        return biMap.inverse().get(Integer.valueOf(BenchmarkData.SIZE / 2));
+    }
+
+
+
+    @Benchmark
+    public boolean biMapContainsValue()
+    {
+        return biMap.containsValue(Integer.valueOf(BenchmarkData.SIZE / 2));
+    }
+
+
+
+    @Benchmark
+    public boolean hashMapContainsValue()
+    {
+        return hashMap.containsValue(Integer.valueOf(BenchmarkData.SIZE / 2));
+    }
+
+
+
+    @Benchmark
+    public void listMultimapIterateGroup(final Blackhole pBlackhole)
+    {
+        for (Integer v : listMultimap.get(BenchmarkData.PROBE)) {
+            pBlackhole.consume(v);
+        }
+    }
+
+
+
+    @Benchmark
+    public void nestedListMapIterateGroup(final Blackhole pBlackhole)
+    {
+        for (Integer v : nestedListMap.get(BenchmarkData.PROBE)) {
+            pBlackhole.consume(v);
+        }
+    }
+
+
+
+    @Benchmark
+    public boolean setMultimapContainsEntry()
+    {
+        return setMultimap.containsEntry(BenchmarkData.PROBE, Integer.valueOf(BenchmarkData.SIZE / 2));
+    }
+
+
+
+    @Benchmark
+    public Integer sortedArrayMapGet()
+    {
+        return sortedArrayMap.get(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public void sortedArrayMapIterateKeys(final Blackhole pBlackhole)
+    {
+        for (String k : sortedArrayMap.keySet()) {
+            pBlackhole.consume(k);
+        }
+    }
+
+
+
+    @Benchmark
+    public Object sortedArrayMapHeadMap()
+    {
+        return sortedArrayMap.headMap(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object sortedArrayMapSubMap()
+    {
+        return sortedArrayMap.subMap(BenchmarkData.key(1), BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Integer enumMapGet()
+    {
+        return enumMap.get(BenchmarkData.Hobbit.MERRY);
+    }
+
+
+
+    @Benchmark
+    public boolean enumMapContainsKey()
+    {
+        return enumMap.containsKey(BenchmarkData.Hobbit.MERRY);
+    }
+
+
+
+    @Benchmark
+    public Object enumMapKeySet()
+    {
+        return enumMap.keySet();
+    }
+
+
+
+    @Benchmark
+    public Object enumMapValues()
+    {
+        return enumMap.values();
+    }
+
+
+
+    @Benchmark
+    public void enumMapIterateKeys(final Blackhole pBlackhole)
+    {
+        for (BenchmarkData.Hobbit k : enumMap.keySet()) {
+            pBlackhole.consume(k);
+        }
+    }
+
+
+
+    @Benchmark
+    public void enumMapIterateEntries(final Blackhole pBlackhole)
+    {
+        for (Map.Entry<BenchmarkData.Hobbit, Integer> e : enumMap.entrySet()) {
+            pBlackhole.consume(e);
+        }
+    }
+
+
+
+    @Benchmark
+    public Integer lruMapGet()
+    {
+        return lruMap.get(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public void lruMapIterateEntries(final Blackhole pBlackhole)
+    {
+        for (Map.Entry<String, Integer> e : lruMap.entrySet()) {
+            pBlackhole.consume(e);
+        }
+    }
+
+
+
+    @Benchmark
+    public Integer expiringMapGet()
+    {
+        return expiringMap.get(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public void expiringMapIterateEntries(final Blackhole pBlackhole)
+    {
+        for (Map.Entry<String, Integer> e : expiringMap.entrySet()) {
+            pBlackhole.consume(e);
+        }
+    }
+
+
+
+    @Benchmark
+    public Integer snapshotHashMapGet()
+    {
+        return snapshotHashMap.get(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Integer snapshotHashMapPut()
+    {
+        return snapshotHashMap.put(BenchmarkData.PROBE, snapshotHashMap.get(BenchmarkData.PROBE));
+    }
+
+
+
+    @Benchmark
+    public Integer hashMapPut()
+    {
+        return hashMap.put(BenchmarkData.PROBE, hashMap.get(BenchmarkData.PROBE));
+    }
+}
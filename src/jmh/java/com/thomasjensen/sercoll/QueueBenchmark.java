@@ -0,0 +1,173 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Allocation benchmarks of the sercoll queues, compared to a list used as a queue and a tree set used as a priority
+ * queue. Run with the GC profiler, see the
+ * <code>jmhAllocation</code> Gradle task.
+ *
+ * @author Thomas Jensen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class QueueBenchmark
+{
+    private SerializableArrayDeque<String> arrayDeque;
+
+    private SerializableArrayList<String> arrayList;
+
+    private SerializablePriorityQueue<String> priorityQueue;
+
+    private SerializablePriorityQueue<String> indexedPriorityQueue;
+
+    private SerializableTreeSet<String> treeSet;
+
+    private SerializableConcurrentLinkedQueue<String> concurrentLinkedQueue;
+
+    private SerializableArrayBlockingQueue<String> arrayBlockingQueue;
+
+
+
+    @Setup
+    public void setUp()
+    {
+        arrayDeque = new SerializableArrayDeque<String>();
+        arrayList = new SerializableArrayList<String>();
+        priorityQueue = new SerializablePriorityQueue<String>();
+        indexedPriorityQueue =
+            new SerializablePriorityQueue<String>(SerializablePriorityQueue.DEFAULT_ARITY, null, true);
+        treeSet = new SerializableTreeSet<String>();
+        concurrentLinkedQueue = new SerializableConcurrentLinkedQueue<String>();
+        arrayBlockingQueue = new SerializableArrayBlockingQueue<String>(BenchmarkData.SIZE);
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            arrayDeque.addLast(BenchmarkData.key(i));
+            arrayList.add(BenchmarkData.key(i));
+            priorityQueue.add(BenchmarkData.key(i));
+            indexedPriorityQueue.add(BenchmarkData.key(i));
+            treeSet.add(BenchmarkData.key(i));
+            concurrentLinkedQueue.add(BenchmarkData.key(i));
+            arrayBlockingQueue.add(BenchmarkData.key(i));
+        }
+    }
+
+
+
+    @Benchmark
+    public String arrayDequePollOffer()
+    {
+        final String result = arrayDeque.pollFirst();
+        arrayDeque.offerLast(result);
+        return result;
+    }
+
+
+
+    @Benchmark
+    public String arrayListRemoveFirstAdd()
+    {
+        final String result = arrayList.remove(0);
+        arrayList.add(result);
+        return result;
+    }
+
+
+
+    @Benchmark
+    public void arrayDequeIterate(final Blackhole pBlackhole)
+    {
+        for (String s : arrayDeque) {
+            pBlackhole.consume(s);
+        }
+    }
+
+
+
+    @Benchmark
+    public String priorityQueuePollOffer()
+    {
+        final String result = priorityQueue.poll();
+        priorityQueue.offer(result);
+        return result;
+    }
+
+
+
+    @Benchmark
+    public String treeSetPollFirstAdd()
+    {
+        final String result = treeSet.pollFirst();
+        treeSet.add(result);
+        return result;
+    }
+
+
+
+    @Benchmark
+    public boolean indexedPriorityQueueRemoveOffer()
+    {
+        final boolean result = indexedPriorityQueue.remove(BenchmarkData.PROBE);
+        indexedPriorityQueue.offer(BenchmarkData.PROBE);
+        return result;
+    }
+
+
+
+    @Benchmark
+    public boolean priorityQueueRemoveOffer()
+    {
+        final boolean result = priorityQueue.remove(BenchmarkData.PROBE);
+        priorityQueue.offer(BenchmarkData.PROBE);
+        return result;
+    }
+
+
+
+    @Benchmark
+    public String concurrentLinkedQueuePollOffer()
+    {
+        final String result = concurrentLinkedQueue.poll();
+        concurrentLinkedQueue.offer(result);
+        return result;
+    }
+
+
+
+    @Benchmark
+    public String arrayBlockingQueuePollOffer()
+    {
+        final String result = arrayBlockingQueue.poll();
+        arrayBlockingQueue.offer(result);
+        return result;
+    }
+}
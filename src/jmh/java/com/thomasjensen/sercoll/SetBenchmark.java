@@ -0,0 +1,344 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Allocation benchmarks of the read operations and views of the sercoll sets. Run with the GC profiler, see the
+ * <code>jmhAllocation</code> Gradle task.
+ *
+ * @author Thomas Jensen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class SetBenchmark
+{
+    private SerializableHashSet<String> hashSet;
+
+    private SerializableUnmodifiableHashSet<String> unmodifiableHashSet;
+
+    private SerializableTreeSet<String> treeSet;
+
+    private SerializableUnmodifiableTreeSet<String> unmodifiableTreeSet;
+
+    private SerializableUnmodifiableSortedArraySet<String> sortedArraySet;
+
+    private SerializableOrderStatisticTreeSet<String> orderStatisticSet;
+
+    private SerializableEnumSet<BenchmarkData.Hobbit> enumSet;
+
+    private SerializableEnumSet<BenchmarkData.Hobbit> otherEnumSet;
+
+    private SerializableRoaringBitmap roaringBitmap;
+
+
+
+    @Setup
+    public void setUp()
+    {
+        hashSet = new SerializableHashSet<String>();
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            hashSet.add(BenchmarkData.key(i));
+        }
+        unmodifiableHashSet = new SerializableUnmodifiableHashSet<String>(hashSet);
+        treeSet = new SerializableTreeSet<String>(hashSet);
+        unmodifiableTreeSet = new SerializableUnmodifiableTreeSet<String>(hashSet);
+        sortedArraySet = new SerializableUnmodifiableSortedArraySet<String>(hashSet);
+        orderStatisticSet = new SerializableOrderStatisticTreeSet<String>(hashSet);
+        enumSet = SerializableEnumSet.allOf(BenchmarkData.Hobbit.class);
+        otherEnumSet = new SerializableEnumSet<BenchmarkData.Hobbit>(enumSet);
+        roaringBitmap = new SerializableRoaringBitmap();
+        for (int i = 0; i < BenchmarkData.SIZE; i++) {
+            roaringBitmap.add(i * BenchmarkData.SIZE);
+        }
+    }
+
+
+
+    @Benchmark
+    public boolean hashSetContains()
+    {
+        return hashSet.contains(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public void hashSetIterate(final Blackhole pBlackhole)
+    {
+        for (String s : hashSet) {
+            pBlackhole.consume(s);
+        }
+    }
+
+
+
+    @Benchmark
+    public boolean unmodifiableHashSetContains()
+    {
+        return unmodifiableHashSet.contains(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public void unmodifiableHashSetIterate(final Blackhole pBlackhole)
+    {
+        for (String s : unmodifiableHashSet) {
+            pBlackhole.consume(s);
+        }
+    }
+
+
+
+    @Benchmark
+    public int unmodifiableHashSetHashCode()
+    {
+        return unmodifiableHashSet.hashCode();
+    }
+
+
+
+    @Benchmark
+    public boolean treeSetContains()
+    {
+        return treeSet.contains(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public void treeSetIterate(final Blackhole pBlackhole)
+    {
+        for (String s : treeSet) {
+            pBlackhole.consume(s);
+        }
+    }
+
+
+
+    @Benchmark
+    public String treeSetFirst()
+    {
+        return treeSet.first();
+    }
+
+
+
+    @Benchmark
+    public Object treeSetHeadSet()
+    {
+        return treeSet.headSet(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object treeSetTailSet()
+    {
+        return treeSet.tailSet(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object treeSetSubSet()
+    {
+        return treeSet.subSet(BenchmarkData.key(1), BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public boolean unmodifiableTreeSetContains()
+    {
+        return unmodifiableTreeSet.contains(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public void unmodifiableTreeSetIterate(final Blackhole pBlackhole)
+    {
+        for (String s : unmodifiableTreeSet) {
+            pBlackhole.consume(s);
+        }
+    }
+
+
+
+    @Benchmark
+    public String unmodifiableTreeSetFirst()
+    {
+        return unmodifiableTreeSet.first();
+    }
+
+
+
+    @Benchmark
+    public Object unmodifiableTreeSetHeadSet()
+    {
+        return unmodifiableTreeSet.headSet(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object unmodifiableTreeSetTailSet()
+    {
+        return unmodifiableTreeSet.tailSet(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object unmodifiableTreeSetSubSet()
+    {
+        return unmodifiableTreeSet.subSet(BenchmarkData.key(1), BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public boolean sortedArraySetContains()
+    {
+        return sortedArraySet.contains(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public void sortedArraySetIterate(final Blackhole pBlackhole)
+    {
+        for (String s : sortedArraySet) {
+            pBlackhole.consume(s);
+        }
+    }
+
+
+
+    @Benchmark
+    public Object sortedArraySetHeadSet()
+    {
+        return sortedArraySet.headSet(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public Object sortedArraySetSubSet()
+    {
+        return sortedArraySet.subSet(BenchmarkData.key(1), BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public boolean orderStatisticSetContains()
+    {
+        return orderStatisticSet.contains(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public int orderStatisticSetRank()
+    {
+        return orderStatisticSet.rank(BenchmarkData.PROBE);
+    }
+
+
+
+    @Benchmark
+    public String orderStatisticSetSelect()
+    {
+        return orderStatisticSet.select(BenchmarkData.SIZE / 2);
+    }
+
+
+
+    @Benchmark
+    public int orderStatisticSetCountInRange()
+    {
+        return orderStatisticSet.countInRange(BenchmarkData.key(1), true, BenchmarkData.PROBE, false);
+    }
+
+
+
+    @Benchmark
+    public int treeSetRank()
+    {
+        return treeSet.headSet(BenchmarkData.PROBE).size();
+    }
+
+
+
+    @Benchmark
+    public boolean enumSetContains()
+    {
+        return enumSet.contains(BenchmarkData.Hobbit.MERRY);
+    }
+
+
+
+    @Benchmark
+    public void enumSetIterate(final Blackhole pBlackhole)
+    {
+        for (BenchmarkData.Hobbit h : enumSet) {
+            pBlackhole.consume(h);
+        }
+    }
+
+
+
+    @Benchmark
+    public boolean enumSetContainsAll()
+    {
+        return enumSet.containsAll(otherEnumSet);
+    }
+
+
+
+    @Benchmark
+    public boolean roaringBitmapContains()
+    {
+        return roaringBitmap.contains(BenchmarkData.SIZE * BenchmarkData.SIZE / 2);
+    }
+
+
+
+    @Benchmark
+    public Integer roaringBitmapCeiling()
+    {
+        return roaringBitmap.ceiling(Integer.valueOf(BenchmarkData.SIZE + 1));
+    }
+}
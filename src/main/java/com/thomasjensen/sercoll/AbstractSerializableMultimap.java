@@ -0,0 +1,802 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * Base class of the multimaps, which stores the groups of values compactly.
+ * <p/>
+ * The groups are the values of a <code>HashMap</code>. A group of one value is stored inline, which means that the
+ * value itself is the value of the hash map entry. Larger groups are a {@link Group}, which keeps its values in an
+ * array that grows by half of its size, starting at two elements. After deserialization or {@link #trimToSize()},
+ * the arrays are exactly as large as the groups. The groups of set multimaps with more than
+ * {@value #INDEX_THRESHOLD} values additionally have a hash set index, so that membership tests don't degrade into a
+ * linear search.
+ * <p/>
+ * The serialized form is the number of keys, followed by each key, the number of its values, and the values.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+abstract class AbstractSerializableMultimap<K extends Serializable, V extends Serializable>
+    implements SerializableMultimap<K, V>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** the group size above which the groups of a set multimap are indexed */
+    static final int INDEX_THRESHOLD = 8;
+
+    /** maps each key to its group, which is either a single value or a {@link Group} */
+    private transient HashMap<K, Object> iGroups = new HashMap<K, Object>();
+
+    /** total number of values */
+    private transient int iSize;
+
+    /** incremented on every structural modification, for the fail-fast iterators */
+    private transient int iModCount;
+
+
+
+    /**
+     * Determine the semantics of the groups.
+     *
+     * @return <code>true</code> if a group may contain the same value more than once
+     */
+    abstract boolean permitsDuplicates();
+
+
+
+    /**
+     * A group of two or more values.
+     */
+    static final class Group
+    {
+        private Object[] iValues;
+
+        private int iSize;
+
+        /** the values as a hash set, or <code>null</code> if the group is not indexed */
+        private HashSet<Object> iIndex;
+
+
+
+        Group(@Nonnull final Object[] pValues, final int pSize)
+        {
+            iValues = pValues;
+            iSize = pSize;
+        }
+
+
+
+        @Nonnull
+        Group copy()
+        {
+            final Group result = new Group(Arrays.copyOf(iValues, iSize), iSize);
+            if (iIndex != null) {
+                result.iIndex = new HashSet<Object>(iIndex);
+            }
+            return result;
+        }
+
+
+
+        void buildIndex()
+        {
+            iIndex = new HashSet<Object>(Arrays.asList(iValues).subList(0, iSize));
+        }
+    }
+
+
+
+    static int groupSize(@Nullable final Object pGroup)
+    {
+        if (pGroup == null) {
+            return 0;
+        }
+        return pGroup instanceof Group ? ((Group) pGroup).iSize : 1;
+    }
+
+
+
+    @Nonnull
+    static Object valueAt(@Nonnull final Object pGroup, final int pIndex)
+    {
+        return pGroup instanceof Group ? ((Group) pGroup).iValues[pIndex] : pGroup;
+    }
+
+
+
+    static int indexOf(@Nullable final Object pGroup, @Nullable final Object pValue)
+    {
+        if (pGroup == null || pValue == null) {
+            return -1;
+        }
+        if (pGroup instanceof Group) {
+            final Group group = (Group) pGroup;
+            if (group.iIndex != null && !group.iIndex.contains(pValue)) {
+                return -1;
+            }
+            for (int i = 0; i < group.iSize; i++) {
+                if (pValue.equals(group.iValues[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        return pValue.equals(pGroup) ? 0 : -1;
+    }
+
+
+
+    private static boolean groupContains(@Nullable final Object pGroup, @Nullable final Object pValue)
+    {
+        if (pGroup instanceof Group && ((Group) pGroup).iIndex != null) {
+            return ((Group) pGroup).iIndex.contains(pValue);
+        }
+        return indexOf(pGroup, pValue) >= 0;
+    }
+
+
+
+    @CheckForNull
+    final Object group(@Nullable final Object pKey)
+    {
+        return iGroups.get(pKey);
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the number of structural modifications, for the fail-fast iterators of views
+     */
+    final int modCount()
+    {
+        return iModCount;
+    }
+
+
+
+    private static void checkIndex(final int pIndex, final int pSize)
+    {
+        if (pIndex < 0 || pIndex >= pSize) {
+            throw new IndexOutOfBoundsException("Index: " + pIndex + ", Size: " + pSize);
+        }
+    }
+
+
+
+    /**
+     * Returns the value at the given position in the group of a key.
+     *
+     * @param pKey the key
+     * @param pIndex the position of the value in the group
+     * @return the value
+     * @throws IndexOutOfBoundsException the index is out of range
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    final V getAt(@Nullable final Object pKey, final int pIndex)
+    {
+        final Object group = iGroups.get(pKey);
+        checkIndex(pIndex, groupSize(group));
+        return (V) valueAt(group, pIndex);
+    }
+
+
+
+    /**
+     * Inserts a value into the group of a key, without checking for duplicates.
+     *
+     * @param pKey the key
+     * @param pIndex the position of the new value in the group
+     * @param pValue the value
+     * @throws IndexOutOfBoundsException the index is out of range
+     */
+    final void insertAt(@Nullable final K pKey, final int pIndex, @Nonnull final V pValue)
+    {
+        if (pValue == null) {
+            throw new NullPointerException("pValue");
+        }
+        final Object group = iGroups.get(pKey);
+        final int size = groupSize(group);
+        if (pIndex < 0 || pIndex > size) {
+            throw new IndexOutOfBoundsException("Index: " + pIndex + ", Size: " + size);
+        }
+        if (size == 0) {
+            iGroups.put(pKey, pValue);
+        }
+        else if (size == 1) {
+            final Object[] values = pIndex == 0 ? new Object[]{pValue, group} : new Object[]{group, pValue};
+            iGroups.put(pKey, new Group(values, 2));
+        }
+        else {
+            final Group g = (Group) group;
+            if (g.iSize == g.iValues.length) {
+                g.iValues = Arrays.copyOf(g.iValues, g.iSize + Math.max(g.iSize >> 1, 1));
+            }
+            System.arraycopy(g.iValues, pIndex, g.iValues, pIndex + 1, g.iSize - pIndex);
+            g.iValues[pIndex] = pValue;
+            g.iSize++;
+            if (g.iIndex != null) {
+                g.iIndex.add(pValue);
+            }
+            else if (!permitsDuplicates() && g.iSize > INDEX_THRESHOLD) {
+                g.buildIndex();
+            }
+        }
+        iSize++;
+        iModCount++;
+    }
+
+
+
+    /**
+     * Replaces the value at the given position in the group of a key, without checking for duplicates.
+     *
+     * @param pKey the key
+     * @param pIndex the position of the value in the group
+     * @param pValue the new value
+     * @return the old value
+     * @throws IndexOutOfBoundsException the index is out of range
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    final V setAt(@Nullable final K pKey, final int pIndex, @Nonnull final V pValue)
+    {
+        if (pValue == null) {
+            throw new NullPointerException("pValue");
+        }
+        final Object group = iGroups.get(pKey);
+        checkIndex(pIndex, groupSize(group));
+        if (group instanceof Group) {
+            final Group g = (Group) group;
+            final V result = (V) g.iValues[pIndex];
+            g.iValues[pIndex] = pValue;
+            if (g.iIndex != null) {
+                g.iIndex.remove(result);
+                g.iIndex.add(pValue);
+            }
+            return result;
+        }
+        iGroups.put(pKey, pValue);
+        return (V) group;
+    }
+
+
+
+    /**
+     * Removes the value at the given position from the group of a key.
+     *
+     * @param pKey the key
+     * @param pIndex the position of the value in the group
+     * @return the removed value
+     * @throws IndexOutOfBoundsException the index is out of range
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    final V removeAt(@Nullable final Object pKey, final int pIndex)
+    {
+        final Object group = iGroups.get(pKey);
+        checkIndex(pIndex, groupSize(group));
+        final V result;
+        if (group instanceof Group) {
+            final Group g = (Group) group;
+            result = (V) g.iValues[pIndex];
+            System.arraycopy(g.iValues, pIndex + 1, g.iValues, pIndex, g.iSize - pIndex - 1);
+            g.iValues[--g.iSize] = null;
+            if (g.iIndex != null) {
+                g.iIndex.remove(result);
+            }
+            if (g.iSize == 1) {
+                iGroups.put((K) pKey, g.iValues[0]);  // the key is equal to a key of this multimap
+            }
+        }
+        else {
+            result = (V) group;
+            iGroups.remove(pKey);
+        }
+        iSize--;
+        iModCount++;
+        return result;
+    }
+
+
+
+    /**
+     * Removes the group of a key.
+     *
+     * @param pKey the key
+     * @return the values of the removed group, which is empty if the key was not present
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    final List<V> removeGroup(@Nullable final Object pKey)
+    {
+        if (!iGroups.containsKey(pKey)) {
+            return Collections.emptyList();
+        }
+        final Object group = iGroups.remove(pKey);
+        final Object[] values;
+        if (group instanceof Group) {
+            values = Arrays.copyOf(((Group) group).iValues, ((Group) group).iSize);
+        }
+        else {
+            values = new Object[]{group};
+        }
+        iSize -= values.length;
+        iModCount++;
+        return (List<V>) (List<?>) Arrays.asList(values);
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return iSize;
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        return iSize == 0;
+    }
+
+
+
+    @Override
+    public boolean containsKey(@Nullable final Object pKey)
+    {
+        return iGroups.containsKey(pKey);
+    }
+
+
+
+    @Override
+    public boolean containsValue(@Nullable final Object pValue)
+    {
+        for (final Object group : iGroups.values()) {
+            if (groupContains(group, pValue)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+
+    @Override
+    public boolean containsEntry(@Nullable final Object pKey, @Nullable final Object pValue)
+    {
+        return groupContains(iGroups.get(pKey), pValue);
+    }
+
+
+
+    @Override
+    public boolean put(@Nullable final K pKey, @Nonnull final V pValue)
+    {
+        final Object group = iGroups.get(pKey);
+        if (!permitsDuplicates() && groupContains(group, pValue)) {
+            return false;
+        }
+        insertAt(pKey, groupSize(group), pValue);
+        return true;
+    }
+
+
+
+    @Override
+    public boolean putAll(@Nullable final K pKey, @Nonnull final Collection<? extends V> pValues)
+    {
+        boolean result = false;
+        for (final V value : pValues) {
+            result |= put(pKey, value);
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public boolean remove(@Nullable final Object pKey, @Nullable final Object pValue)
+    {
+        final int index = indexOf(iGroups.get(pKey), pValue);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(pKey, index);
+        return true;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        if (iSize > 0) {
+            iGroups.clear();
+            iSize = 0;
+            iModCount++;
+        }
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableSet<K> keySet()
+    {
+        return new KeySet();
+    }
+
+
+
+    /**
+     * Shrinks the arrays of all groups to the number of values they contain, and drops their unused capacity.
+     */
+    public void trimToSize()
+    {
+        for (final Object group : iGroups.values()) {
+            if (group instanceof Group) {
+                final Group g = (Group) group;
+                if (g.iSize < g.iValues.length) {
+                    g.iValues = Arrays.copyOf(g.iValues, g.iSize);
+                }
+            }
+        }
+    }
+
+
+
+    @Override
+    public boolean equals(@Nullable final Object pOther)
+    {
+        if (pOther == this) {
+            return true;
+        }
+        if (pOther == null || pOther.getClass() != getClass()) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        final AbstractSerializableMultimap<K, V> other = (AbstractSerializableMultimap<K, V>) pOther;
+        if (other.iSize != iSize || other.iGroups.size() != iGroups.size()) {
+            return false;
+        }
+        for (final K key : iGroups.keySet()) {
+            if (!other.containsKey(key) || !get(key).equals(other.get(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    @Override
+    public int hashCode()
+    {
+        int result = 0;
+        for (final K key : iGroups.keySet()) {
+            result += (key != null ? key.hashCode() : 0) ^ get(key).hashCode();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder sb = new StringBuilder("{");
+        for (final K key : iGroups.keySet()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=').append(get(key));
+        }
+        return sb.append('}').toString();
+    }
+
+
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public AbstractSerializableMultimap<K, V> clone()
+    {
+        try {
+            final AbstractSerializableMultimap<K, V> result = (AbstractSerializableMultimap<K, V>) super.clone();
+            result.iGroups = new HashMap<K, Object>(iGroups);
+            for (final Map.Entry<K, Object> entry : result.iGroups.entrySet()) {
+                if (entry.getValue() instanceof Group) {
+                    entry.setValue(((Group) entry.getValue()).copy());
+                }
+            }
+            result.iModCount = 0;
+            return result;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new InternalError(e.toString());
+        }
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        pOut.writeInt(iGroups.size());
+        for (final Map.Entry<K, Object> entry : iGroups.entrySet()) {
+            final Object group = entry.getValue();
+            final int size = groupSize(group);
+            pOut.writeObject(entry.getKey());
+            pOut.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                pOut.writeObject(valueAt(group, i));
+            }
+        }
+        SerializationMonitor.writeFinished(this, iSize);
+    }
+
+
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        final int keyCount = pIn.readInt();
+        if (keyCount < 0) {
+            throw new InvalidObjectException("negative key count: " + keyCount);
+        }
+        iGroups = new HashMap<K, Object>(Math.max((int) (keyCount / 0.75f) + 1, 16));
+        for (int k = 0; k < keyCount; k++) {
+            final K key = (K) pIn.readObject();
+            final int size = pIn.readInt();
+            if (size <= 0) {
+                throw new InvalidObjectException("invalid group size: " + size);
+            }
+            final Object[] values = new Object[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = pIn.readObject();
+                if (values[i] == null) {
+                    throw new InvalidObjectException("null value");
+                }
+            }
+            Object group = values[0];
+            if (size > 1) {
+                final Group g = new Group(values, size);
+                if (!permitsDuplicates()) {
+                    g.buildIndex();
+                    if (g.iIndex.size() != size) {
+                        throw new InvalidObjectException("duplicate value in group of key " + key);
+                    }
+                    if (size <= INDEX_THRESHOLD) {
+                        g.iIndex = null;
+                    }
+                }
+                group = g;
+            }
+            if (iGroups.put(key, group) != null) {
+                throw new InvalidObjectException("duplicate key: " + key);
+            }
+            iSize += size;
+        }
+        SerializationMonitor.readFinished(this, iSize);
+    }
+
+
+
+    /**
+     * Iterates over the group of a key. The group is looked up again after every modification.
+     */
+    final class GroupIterator
+        implements Iterator<V>
+    {
+        private final Object iKey;
+
+        /** the group, if it has more than one value (a group of one value may be replaced by {@link #setAt}) */
+        private Group iGroup;
+
+        private int iNext = 0;
+
+        private int iLast = -1;
+
+        private int iExpectedModCount = iModCount;
+
+
+
+        GroupIterator(@Nullable final Object pKey)
+        {
+            iKey = pKey;
+            cacheGroup();
+        }
+
+
+
+        private void cacheGroup()
+        {
+            final Object group = iGroups.get(iKey);
+            iGroup = group instanceof Group ? (Group) group : null;
+        }
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iNext < (iGroup != null ? iGroup.iSize : groupSize(iGroups.get(iKey)));
+        }
+
+
+
+        @Override
+        @Nonnull
+        @SuppressWarnings("unchecked")
+        public V next()
+        {
+            if (iModCount != iExpectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            final Object group = iGroup != null ? iGroup : iGroups.get(iKey);
+            if (iNext >= groupSize(group)) {
+                throw new NoSuchElementException();
+            }
+            iLast = iNext++;
+            return (V) valueAt(group, iLast);
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            if (iLast < 0) {
+                throw new IllegalStateException();
+            }
+            if (iModCount != iExpectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(iKey, iLast);
+            iNext = iLast;
+            iLast = -1;
+            iExpectedModCount = iModCount;
+            cacheGroup();
+        }
+    }
+
+
+
+    /**
+     * A view of the keys, which is serialized as a copy.
+     */
+    private final class KeySet
+        extends AbstractSet<K>
+        implements SerializableSet<K>
+    {
+        private static final long serialVersionUID = 1L;
+
+
+
+        @Override
+        public int size()
+        {
+            return iGroups.size();
+        }
+
+
+
+        @Override
+        public boolean contains(@Nullable final Object pKey)
+        {
+            return iGroups.containsKey(pKey);
+        }
+
+
+
+        @Override
+        public boolean remove(@Nullable final Object pKey)
+        {
+            return !removeGroup(pKey).isEmpty();
+        }
+
+
+
+        @Override
+        public void clear()
+        {
+            AbstractSerializableMultimap.this.clear();
+        }
+
+
+
+        @Override
+        @Nonnull
+        public Iterator<K> iterator()
+        {
+            final Iterator<Map.Entry<K, Object>> iter = iGroups.entrySet().iterator();
+            return new Iterator<K>()
+            {
+                private Map.Entry<K, Object> iLast;
+
+
+
+                @Override
+                public boolean hasNext()
+                {
+                    return iter.hasNext();
+                }
+
+
+
+                @Override
+                public K next()
+                {
+                    iLast = iter.next();
+                    return iLast.getKey();
+                }
+
+
+
+                @Override
+                public void remove()
+                {
+                    if (iLast == null) {
+                        throw new IllegalStateException();
+                    }
+                    final int size = groupSize(iLast.getValue());
+                    iter.remove();
+                    iSize -= size;
+                    iModCount++;
+                    iLast = null;
+                }
+            };
+        }
+
+
+
+        private Object writeReplace()
+        {
+            return new SerializableHashSet<K>(this);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+
+/**
+ * Support for the immutable collections which compute their hash code on first use and keep it in a transient field.
+ * A field value of <code>0</code> means that the hash code was not computed yet. The contents of these collections
+ * never change, so a racy single check is enough.
+ * <p/>
+ * Two instances of the same such class can sometimes be found unequal by their sizes and cached hash codes alone.
+ * This is only valid if <code>equals()</code> of the class is based on <code>equals()</code> of the elements. It is
+ * not valid for sorted collections, because their comparator may be inconsistent with <code>equals()</code>.
+ *
+ * @author Thomas Jensen
+ */
+final class CachedHashCode
+{
+    private CachedHashCode()
+    {
+        super();
+    }
+
+
+
+    /**
+     * Determine whether two collections of the same class are unequal, judging only by their sizes and their cached
+     * hash codes.
+     *
+     * @param pSize size of the first collection
+     * @param pHashCode cached hash code of the first collection, or <code>0</code> if not computed yet
+     * @param pOtherSize size of the second collection
+     * @param pOtherHashCode cached hash code of the second collection, or <code>0</code> if not computed yet
+     * @return <code>true</code> if the collections are certainly unequal, <code>false</code> if their elements must be
+     * compared
+     */
+    static boolean provesUnequal(final int pSize, final int pHashCode, final int pOtherSize, final int pOtherHashCode)
+    {
+        return pSize != pOtherSize || (pHashCode != 0 && pOtherHashCode != 0 && pHashCode != pOtherHashCode);
+    }
+}
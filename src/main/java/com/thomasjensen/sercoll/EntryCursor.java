@@ -0,0 +1,62 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+/**
+ * A cursor over the entries of a map. In contrast to an {@link java.util.Iterator Iterator} over the entry set, a
+ * cursor does not hand out an entry object for each element. Instead, the current key and value are read from the
+ * cursor itself.
+ * <p/>
+ * Usage:<pre>
+ * EntryCursor&lt;String, Integer&gt; cursor = map.entryCursor();
+ * while (cursor.advance()) {
+ *     doSomething(cursor.key(), cursor.value());
+ * }</pre>
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ * @see EntryTraversable#entryCursor
+ */
+public interface EntryCursor<K, V>
+{
+    /**
+     * Moves the cursor to the next entry. A new cursor is positioned before the first entry, so this method must be
+     * called before the first entry can be read.
+     *
+     * @return <code>true</code> if the cursor is now positioned on an entry, <code>false</code> if there are no more
+     * entries
+     */
+    boolean advance();
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the key of the entry the cursor is positioned on
+     * @throws java.util.NoSuchElementException the cursor is not positioned on an entry
+     */
+    K key();
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the value of the entry the cursor is positioned on
+     * @throws java.util.NoSuchElementException the cursor is not positioned on an entry
+     */
+    V value();
+}
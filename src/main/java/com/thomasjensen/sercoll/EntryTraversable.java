@@ -0,0 +1,47 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import javax.annotation.Nonnull;
+
+
+/**
+ * Implemented by the immutable maps of sercoll in order to offer traversal of their entries without going through
+ * entry objects. The entry set of an immutable map holds an unmodifiable copy of every entry, so that the map's own
+ * entries cannot be changed through it, and iterating it needs a wrapping iterator. The methods of this interface
+ * traverse the map itself and pass keys and values directly, without allocating anything per entry.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public interface EntryTraversable<K, V>
+{
+    /**
+     * Calls the given visitor once for each entry of the map, in the order of the map's entry set.
+     *
+     * @param pVisitor the visitor
+     */
+    void forEachEntry(@Nonnull EntryVisitor<? super K, ? super V> pVisitor);
+
+
+
+    /**
+     * Creates a new cursor over the entries of the map, in the order of the map's entry set.
+     *
+     * @return a new cursor, positioned before the first entry
+     */
+    @Nonnull
+    EntryCursor<K, V> entryCursor();
+}
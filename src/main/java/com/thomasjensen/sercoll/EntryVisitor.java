@@ -0,0 +1,33 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+/**
+ * Callback which receives the key and the value of each entry of a map, without an entry object being handed out.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ * @see EntryTraversable#forEachEntry
+ */
+public interface EntryVisitor<K, V>
+{
+    /**
+     * Called once for each entry of the map.
+     *
+     * @param pKey the key of the entry
+     * @param pValue the value of the entry
+     */
+    void visit(K pKey, V pValue);
+}
@@ -0,0 +1,58 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Moves a finished file into place, replacing the previous version of the file.
+ * <p/>
+ * Java 6 offers no atomic replacement of an existing file. {@link File#renameTo(File)} replaces atomically on POSIX
+ * file systems, but fails on Windows when the target exists. In that case, the target is deleted first, so that
+ * there is a short moment during which neither version of the file exists under its name. The Java 9 layer of the
+ * multi-release JAR replaces this class with a variant that uses an atomic move.
+ *
+ * @author Thomas Jensen
+ */
+final class FileReplacer
+{
+    private FileReplacer()
+    {
+        super();
+    }
+
+
+
+    /**
+     * Renames the source file to the target file, replacing the target file if it exists.
+     *
+     * @param pSource the finished file
+     * @param pTarget the file to replace
+     * @throws IOException the file could not be renamed
+     */
+    static void replace(@Nonnull final File pSource, @Nonnull final File pTarget)
+        throws IOException
+    {
+        if (pSource.renameTo(pTarget)) {
+            return;
+        }
+        if (pTarget.exists() && pTarget.delete() && pSource.renameTo(pTarget)) {
+            return;
+        }
+        throw new IOException("failed to rename " + pSource + " to " + pTarget);
+    }
+}
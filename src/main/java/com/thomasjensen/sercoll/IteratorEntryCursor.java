@@ -0,0 +1,89 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Implementation of {@link EntryCursor} which reads the entries from an entry set iterator. The iterator must hand
+ * out the map's own entry objects, so that nothing is allocated per entry.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+final class IteratorEntryCursor<K, V>
+    implements EntryCursor<K, V>
+{
+    @Nonnull
+    private final Iterator<Map.Entry<K, V>> iter;
+
+    private Map.Entry<K, V> current = null;
+
+
+
+    /**
+     * Constructor.
+     *
+     * @param pIter iterator over the entries of a map which is not modified while the cursor is in use
+     */
+    IteratorEntryCursor(@Nonnull final Iterator<Map.Entry<K, V>> pIter)
+    {
+        iter = pIter;
+    }
+
+
+
+    @Override
+    public boolean advance()
+    {
+        if (iter.hasNext()) {
+            current = iter.next();
+            return true;
+        }
+        current = null;
+        return false;
+    }
+
+
+
+    @Override
+    public K key()
+    {
+        return currentEntry().getKey();
+    }
+
+
+
+    @Override
+    public V value()
+    {
+        return currentEntry().getValue();
+    }
+
+
+
+    @Nonnull
+    private Map.Entry<K, V> currentEntry()
+    {
+        if (current == null) {
+            throw new NoSuchElementException();
+        }
+        return current;
+    }
+}
@@ -0,0 +1,127 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Deserializes the elements which a {@link SerializableLazyArrayList} keeps as bytes, using the settings of the stream
+ * from which the list was read.
+ * <p/>
+ * Classes are resolved through the thread context class loader which was current when the list was read. If that
+ * fails, the default mechanism of {@link ObjectInputStream} is used. A custom <code>resolveClass()</code> of the outer
+ * stream is not applied. Java 6 to 8 offer no public API to obtain the filter of a stream, so the process-wide
+ * serialization filter (if any) applies, but not a filter which was set on the outer stream only. The Java 9 layer of
+ * the multi-release JAR replaces this class with a variant that also applies the filter of the outer stream.
+ *
+ * @author Thomas Jensen
+ */
+final class LazyElementReader
+{
+    /** the class loader to try first, or <code>null</code> to use the default mechanism only */
+    @CheckForNull
+    private final ClassLoader iClassLoader;
+
+
+
+    private LazyElementReader(@CheckForNull final ClassLoader pClassLoader)
+    {
+        super();
+        iClassLoader = pClassLoader;
+    }
+
+
+
+    /**
+     * Creates a reader for the elements of a list which is being read from the given stream.
+     *
+     * @param pIn the stream from which the list is being read
+     * @return a new reader
+     */
+    @Nonnull
+    static LazyElementReader of(@Nonnull final ObjectInputStream pIn)
+    {
+        return new LazyElementReader(Thread.currentThread().getContextClassLoader());
+    }
+
+
+
+    /**
+     * Deserializes one element.
+     *
+     * @param pPayload the buffer which holds the element
+     * @param pOffset offset of the element's bytes in the buffer
+     * @param pLength number of bytes of the element
+     * @return the element
+     * @throws IOException the bytes could not be read, or were rejected
+     * @throws ClassNotFoundException the class of an object in the element's object graph was not found
+     */
+    Object read(@Nonnull final byte[] pPayload, final int pOffset, final int pLength)
+        throws IOException, ClassNotFoundException
+    {
+        final ObjectInputStream ois = new ElementInputStream(new ByteArrayInputStream(pPayload, pOffset, pLength),
+            iClassLoader);
+        try {
+            return ois.readObject();
+        }
+        finally {
+            ois.close();
+        }
+    }
+
+
+
+    /**
+     * The stream from which a single element is read.
+     */
+    private static final class ElementInputStream
+        extends ObjectInputStream
+    {
+        @CheckForNull
+        private final ClassLoader iClassLoader;
+
+
+
+        ElementInputStream(@Nonnull final InputStream pIn, @CheckForNull final ClassLoader pClassLoader)
+            throws IOException
+        {
+            super(pIn);
+            iClassLoader = pClassLoader;
+        }
+
+
+
+        @Override
+        protected Class<?> resolveClass(@Nonnull final ObjectStreamClass pDesc)
+            throws IOException, ClassNotFoundException
+        {
+            if (iClassLoader != null) {
+                try {
+                    return Class.forName(pDesc.getName(), false, iClassLoader);
+                }
+                catch (ClassNotFoundException e) {
+                    // fall back to the default mechanism, which also handles primitive types
+                }
+            }
+            return super.resolveClass(pDesc);
+        }
+    }
+}
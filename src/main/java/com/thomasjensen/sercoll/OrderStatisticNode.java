@@ -0,0 +1,214 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.Comparator;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A node of the AVL tree of a {@link SerializableOrderStatisticTreeSet}, along with the operations on the tree. The
+ * operations work on subtrees, and return the new root of the subtree, which may be a different node.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+final class OrderStatisticNode<E>
+{
+    E iElement;
+
+    OrderStatisticNode<E> iLeft;
+
+    OrderStatisticNode<E> iRight;
+
+    /** number of nodes in the subtree rooted at this node */
+    private int iSize;
+
+    /** height of the subtree rooted at this node, which is <code>1</code> for a leaf */
+    private int iHeight;
+
+
+
+    private OrderStatisticNode(@Nonnull final E pElement)
+    {
+        iElement = pElement;
+    }
+
+
+
+    static int size(@Nullable final OrderStatisticNode<?> pNode)
+    {
+        return pNode != null ? pNode.iSize : 0;
+    }
+
+
+
+    private static int height(@Nullable final OrderStatisticNode<?> pNode)
+    {
+        return pNode != null ? pNode.iHeight : 0;
+    }
+
+
+
+    @Nonnull
+    private static <E> OrderStatisticNode<E> update(@Nonnull final OrderStatisticNode<E> pNode)
+    {
+        pNode.iSize = 1 + size(pNode.iLeft) + size(pNode.iRight);
+        pNode.iHeight = 1 + Math.max(height(pNode.iLeft), height(pNode.iRight));
+        return pNode;
+    }
+
+
+
+    @Nonnull
+    private static <E> OrderStatisticNode<E> rotateRight(@Nonnull final OrderStatisticNode<E> pNode)
+    {
+        final OrderStatisticNode<E> left = pNode.iLeft;
+        pNode.iLeft = left.iRight;
+        left.iRight = update(pNode);
+        return update(left);
+    }
+
+
+
+    @Nonnull
+    private static <E> OrderStatisticNode<E> rotateLeft(@Nonnull final OrderStatisticNode<E> pNode)
+    {
+        final OrderStatisticNode<E> right = pNode.iRight;
+        pNode.iRight = right.iLeft;
+        right.iLeft = update(pNode);
+        return update(right);
+    }
+
+
+
+    /**
+     * Restore the AVL property of a subtree whose children differ in height by at most two, and update its size.
+     *
+     * @param pNode the root of the subtree
+     * @return the new root of the subtree
+     */
+    @Nonnull
+    private static <E> OrderStatisticNode<E> rebalance(@Nonnull final OrderStatisticNode<E> pNode)
+    {
+        update(pNode);
+        final int balance = height(pNode.iLeft) - height(pNode.iRight);
+        if (balance > 1) {
+            if (height(pNode.iLeft.iLeft) < height(pNode.iLeft.iRight)) {
+                pNode.iLeft = rotateLeft(pNode.iLeft);
+            }
+            return rotateRight(pNode);
+        }
+        if (balance < -1) {
+            if (height(pNode.iRight.iRight) < height(pNode.iRight.iLeft)) {
+                pNode.iRight = rotateRight(pNode.iRight);
+            }
+            return rotateLeft(pNode);
+        }
+        return pNode;
+    }
+
+
+
+    @Nonnull
+    static <E> OrderStatisticNode<E> insert(@Nullable final OrderStatisticNode<E> pNode, @Nonnull final E pElement,
+        @Nonnull final Comparator<Object> pComparator)
+    {
+        if (pNode == null) {
+            return update(new OrderStatisticNode<E>(pElement));
+        }
+        final int cmp = pComparator.compare(pElement, pNode.iElement);
+        if (cmp < 0) {
+            pNode.iLeft = insert(pNode.iLeft, pElement, pComparator);
+        }
+        else if (cmp > 0) {
+            pNode.iRight = insert(pNode.iRight, pElement, pComparator);
+        }
+        else {
+            return pNode;
+        }
+        return rebalance(pNode);
+    }
+
+
+
+    @CheckForNull
+    static <E> OrderStatisticNode<E> delete(@Nullable final OrderStatisticNode<E> pNode,
+        @Nullable final Object pElement, @Nonnull final Comparator<Object> pComparator)
+    {
+        if (pNode == null) {
+            return null;
+        }
+        final int cmp = pComparator.compare(pElement, pNode.iElement);
+        if (cmp < 0) {
+            pNode.iLeft = delete(pNode.iLeft, pElement, pComparator);
+        }
+        else if (cmp > 0) {
+            pNode.iRight = delete(pNode.iRight, pElement, pComparator);
+        }
+        else {
+            if (pNode.iLeft == null) {
+                return pNode.iRight;
+            }
+            if (pNode.iRight == null) {
+                return pNode.iLeft;
+            }
+            OrderStatisticNode<E> successor = pNode.iRight;
+            while (successor.iLeft != null) {
+                successor = successor.iLeft;
+            }
+            pNode.iElement = successor.iElement;
+            pNode.iRight = deleteFirst(pNode.iRight);
+        }
+        return rebalance(pNode);
+    }
+
+
+
+    @CheckForNull
+    static <E> OrderStatisticNode<E> deleteFirst(@Nonnull final OrderStatisticNode<E> pNode)
+    {
+        if (pNode.iLeft == null) {
+            return pNode.iRight;
+        }
+        pNode.iLeft = deleteFirst(pNode.iLeft);
+        return rebalance(pNode);
+    }
+
+
+
+    /**
+     * Build a perfectly balanced tree from sorted elements.
+     *
+     * @param pElements the elements, sorted and without duplicates
+     * @param pFrom index of the first element
+     * @param pTo index after the last element
+     * @return the root of the tree
+     */
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    static <E> OrderStatisticNode<E> build(@Nonnull final Object[] pElements, final int pFrom, final int pTo)
+    {
+        if (pFrom >= pTo) {
+            return null;
+        }
+        final int mid = (pFrom + pTo) >>> 1;
+        final OrderStatisticNode<E> result = new OrderStatisticNode<E>((E) pElements[mid]);
+        result.iLeft = build(pElements, pFrom, mid);
+        result.iRight = build(pElements, mid + 1, pTo);
+        return update(result);
+    }
+}
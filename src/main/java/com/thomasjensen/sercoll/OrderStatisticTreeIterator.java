@@ -0,0 +1,164 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * Iterates over the tree of a {@link SerializableOrderStatisticTreeSet} in either direction, keeping the path to the
+ * next node on a stack.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+final class OrderStatisticTreeIterator<E extends Serializable>
+    implements Iterator<E>
+{
+    private final SerializableOrderStatisticTreeSet<E> iSet;
+
+    private final boolean iAscending;
+
+    /** the nodes whose elements are returned next, with the next one on top */
+    private final Deque<OrderStatisticNode<E>> iStack = new ArrayDeque<OrderStatisticNode<E>>();
+
+    private int iExpectedModCount;
+
+    /** the element last returned by {@link #next()}, or <code>null</code> if it cannot be removed */
+    private E iLast;
+
+
+
+    OrderStatisticTreeIterator(@Nonnull final SerializableOrderStatisticTreeSet<E> pSet, final boolean pAscending)
+    {
+        iSet = pSet;
+        iAscending = pAscending;
+        iExpectedModCount = pSet.iModCount;
+        push(iSet.iRoot);
+    }
+
+
+
+    /**
+     * Creates an ascending iterator which starts at the given element.
+     *
+     * @param pSet the set
+     * @param pStart the first element returned, which is contained in the set
+     */
+    OrderStatisticTreeIterator(@Nonnull final SerializableOrderStatisticTreeSet<E> pSet, @Nonnull final E pStart)
+    {
+        iSet = pSet;
+        iAscending = true;
+        iExpectedModCount = pSet.iModCount;
+        seek(pStart, true);
+    }
+
+
+
+    /**
+     * Push the given node and its descendants towards the first node in iteration order.
+     *
+     * @param pNode the root of a subtree
+     */
+    private void push(@Nullable final OrderStatisticNode<E> pNode)
+    {
+        OrderStatisticNode<E> node = pNode;
+        while (node != null) {
+            iStack.push(node);
+            node = iAscending ? node.iLeft : node.iRight;
+        }
+    }
+
+
+
+    /**
+     * Rebuild the stack so that it leads to the first element after (or at) the given element.
+     *
+     * @param pElement the element
+     * @param pInclusive <code>true</code> to start at an equal element
+     */
+    private void seek(@Nonnull final E pElement, final boolean pInclusive)
+    {
+        final Comparator<Object> comparator = iSet.naturalOrComparator();
+        iStack.clear();
+        OrderStatisticNode<E> node = iSet.iRoot;
+        while (node != null) {
+            int cmp = comparator.compare(node.iElement, pElement);
+            if (!iAscending) {
+                cmp = -cmp;
+            }
+            if (cmp > 0 || (cmp == 0 && pInclusive)) {
+                iStack.push(node);
+                if (cmp == 0) {
+                    break;
+                }
+                node = iAscending ? node.iLeft : node.iRight;
+            }
+            else {
+                node = iAscending ? node.iRight : node.iLeft;
+            }
+        }
+    }
+
+
+
+    @Override
+    public boolean hasNext()
+    {
+        return !iStack.isEmpty();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public E next()
+    {
+        if (iSet.iModCount != iExpectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (iStack.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        final OrderStatisticNode<E> node = iStack.pop();
+        push(iAscending ? node.iRight : node.iLeft);
+        iLast = node.iElement;
+        return iLast;
+    }
+
+
+
+    @Override
+    public void remove()
+    {
+        if (iLast == null) {
+            throw new IllegalStateException();
+        }
+        if (iSet.iModCount != iExpectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        iSet.remove(iLast);
+        seek(iLast, false);  // the removal may have rotated the path to the next node
+        iExpectedModCount = iSet.iModCount;
+        iLast = null;
+    }
+}
@@ -0,0 +1,278 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A {@link RoaringContainer} which is a sorted array of values.
+ *
+ * @author Thomas Jensen
+ */
+final class RoaringArrayContainer
+    extends RoaringContainer
+{
+    char[] iValues;
+
+    int iCardinality;
+
+
+
+    RoaringArrayContainer(@Nonnull final char[] pValues, final int pCardinality)
+    {
+        super();
+        iValues = pValues;
+        iCardinality = pCardinality;
+    }
+
+
+
+    @Nonnull
+    static RoaringArrayContainer of(final int pValue)
+    {
+        final RoaringArrayContainer result = new RoaringArrayContainer(new char[INITIAL_ARRAY_CAPACITY], 1);
+        result.iValues[0] = (char) pValue;
+        return result;
+    }
+
+
+
+    private int indexOf(final int pValue)
+    {
+        return Arrays.binarySearch(iValues, 0, iCardinality, (char) pValue);
+    }
+
+
+
+    @Override
+    int cardinality()
+    {
+        return iCardinality;
+    }
+
+
+
+    @Override
+    boolean contains(final int pValue)
+    {
+        return indexOf(pValue) >= 0;
+    }
+
+
+
+    @Override
+    @Nonnull
+    RoaringContainer add(final int pValue)
+    {
+        int index = indexOf(pValue);
+        if (index >= 0) {
+            return this;
+        }
+        if (iCardinality == MAX_ARRAY_SIZE) {
+            return toBitmapContainer().add(pValue);
+        }
+        index = -index - 1;
+        if (iCardinality == iValues.length) {
+            iValues = Arrays.copyOf(iValues, Math.min(MAX_ARRAY_SIZE, iValues.length * 2));
+        }
+        System.arraycopy(iValues, index, iValues, index + 1, iCardinality - index);
+        iValues[index] = (char) pValue;
+        iCardinality++;
+        return this;
+    }
+
+
+
+    @Override
+    @Nonnull
+    RoaringContainer remove(final int pValue)
+    {
+        final int index = indexOf(pValue);
+        if (index >= 0) {
+            System.arraycopy(iValues, index + 1, iValues, index, iCardinality - index - 1);
+            iCardinality--;
+        }
+        return this;
+    }
+
+
+
+    @Override
+    int ceiling(final int pValue)
+    {
+        if (pValue > MAX_VALUE) {
+            return -1;
+        }
+        final int index = indexOf(Math.max(0, pValue));
+        if (index >= 0) {
+            return iValues[index];
+        }
+        final int insertion = -index - 1;
+        return insertion < iCardinality ? iValues[insertion] : -1;
+    }
+
+
+
+    @Override
+    int floor(final int pValue)
+    {
+        if (pValue < 0) {
+            return -1;
+        }
+        final int index = indexOf(Math.min(MAX_VALUE, pValue));
+        if (index >= 0) {
+            return iValues[index];
+        }
+        final int insertion = -index - 1;
+        return insertion > 0 ? iValues[insertion - 1] : -1;
+    }
+
+
+
+    @Override
+    int runCount()
+    {
+        int result = 0;
+        for (int i = 0; i < iCardinality; i++) {
+            if (i == 0 || iValues[i] != iValues[i - 1] + 1) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    RoaringContainer copy()
+    {
+        return new RoaringArrayContainer(Arrays.copyOf(iValues, Math.max(iCardinality, 1)), iCardinality);
+    }
+
+
+
+    /**
+     * Keep the values which are (or are not) contained in another container.
+     *
+     * @param pOther the other container
+     * @param pContained <code>true</code> to keep the values contained in the other container
+     * @return a new container
+     */
+    @Nonnull
+    RoaringArrayContainer filter(@Nonnull final RoaringContainer pOther, final boolean pContained)
+    {
+        final char[] values = new char[Math.max(iCardinality, 1)];
+        int count = 0;
+        for (int i = 0; i < iCardinality; i++) {
+            if (pOther.contains(iValues[i]) == pContained) {
+                values[count++] = iValues[i];
+            }
+        }
+        return new RoaringArrayContainer(values, count);
+    }
+
+
+
+    @Nonnull
+    static RoaringArrayContainer intersect(@Nonnull final RoaringArrayContainer pFirst,
+        @Nonnull final RoaringArrayContainer pSecond)
+    {
+        final char[] values = new char[Math.max(1, Math.min(pFirst.iCardinality, pSecond.iCardinality))];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < pFirst.iCardinality && j < pSecond.iCardinality) {
+            final char a = pFirst.iValues[i];
+            final char b = pSecond.iValues[j];
+            if (a < b) {
+                i++;
+            }
+            else if (a > b) {
+                j++;
+            }
+            else {
+                values[count++] = a;
+                i++;
+                j++;
+            }
+        }
+        return new RoaringArrayContainer(values, count);
+    }
+
+
+
+    @Nonnull
+    static RoaringContainer union(@Nonnull final RoaringArrayContainer pFirst,
+        @Nonnull final RoaringArrayContainer pSecond)
+    {
+        final char[] values = new char[pFirst.iCardinality + pSecond.iCardinality];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < pFirst.iCardinality || j < pSecond.iCardinality) {
+            if (j == pSecond.iCardinality
+                || (i < pFirst.iCardinality && pFirst.iValues[i] < pSecond.iValues[j]))
+            {
+                values[count++] = pFirst.iValues[i++];
+            }
+            else {
+                if (i < pFirst.iCardinality && pFirst.iValues[i] == pSecond.iValues[j]) {
+                    i++;
+                }
+                values[count++] = pSecond.iValues[j++];
+            }
+        }
+        final RoaringArrayContainer result = new RoaringArrayContainer(values, count);
+        return count > MAX_ARRAY_SIZE ? result.toBitmapContainer() : result;
+    }
+
+
+
+    @Override
+    void writeData(@Nonnull final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.writeShort(iCardinality);
+        for (int i = 0; i < iCardinality; i++) {
+            pOut.writeChar(iValues[i]);
+        }
+    }
+
+
+
+    @Nonnull
+    static RoaringArrayContainer readData(@Nonnull final ObjectInputStream pIn)
+        throws IOException
+    {
+        final int cardinality = pIn.readUnsignedShort();
+        if (cardinality > MAX_ARRAY_SIZE) {
+            throw new InvalidObjectException("array container too large: " + cardinality);
+        }
+        final char[] values = new char[Math.max(cardinality, 1)];
+        for (int i = 0; i < cardinality; i++) {
+            values[i] = pIn.readChar();
+            if (i > 0 && values[i] <= values[i - 1]) {
+                throw new InvalidObjectException("array container not sorted");
+            }
+        }
+        return new RoaringArrayContainer(values, cardinality);
+    }
+}
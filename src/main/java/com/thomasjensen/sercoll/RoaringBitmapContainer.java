@@ -0,0 +1,213 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A {@link RoaringContainer} with one bit for each possible value.
+ *
+ * @author Thomas Jensen
+ */
+final class RoaringBitmapContainer
+    extends RoaringContainer
+{
+    final long[] iWords;
+
+    int iCardinality;
+
+
+
+    RoaringBitmapContainer()
+    {
+        this(new long[BITMAP_LONGS]);
+    }
+
+
+
+    private RoaringBitmapContainer(@Nonnull final long[] pWords)
+    {
+        super();
+        iWords = pWords;
+    }
+
+
+
+    @Nonnull
+    RoaringBitmapContainer recount()
+    {
+        int cardinality = 0;
+        for (final long word : iWords) {
+            cardinality += Long.bitCount(word);
+        }
+        iCardinality = cardinality;
+        return this;
+    }
+
+
+
+    /**
+     * Convert the container to an array container if that is smaller.
+     *
+     * @return the container which holds the values
+     */
+    @Nonnull
+    RoaringContainer repair()
+    {
+        return iCardinality <= MAX_ARRAY_SIZE ? toArrayContainer() : this;
+    }
+
+
+
+    @Override
+    int cardinality()
+    {
+        return iCardinality;
+    }
+
+
+
+    @Override
+    boolean contains(final int pValue)
+    {
+        return (iWords[pValue >>> WORD_SHIFT] & (1L << pValue)) != 0L;
+    }
+
+
+
+    @Override
+    @Nonnull
+    RoaringContainer add(final int pValue)
+    {
+        final long before = iWords[pValue >>> WORD_SHIFT];
+        final long after = before | (1L << pValue);
+        if (after != before) {
+            iWords[pValue >>> WORD_SHIFT] = after;
+            iCardinality++;
+        }
+        return this;
+    }
+
+
+
+    @Override
+    @Nonnull
+    RoaringContainer remove(final int pValue)
+    {
+        final long before = iWords[pValue >>> WORD_SHIFT];
+        final long after = before & ~(1L << pValue);
+        if (after != before) {
+            iWords[pValue >>> WORD_SHIFT] = after;
+            iCardinality--;
+            return repair();
+        }
+        return this;
+    }
+
+
+
+    @Override
+    int ceiling(final int pValue)
+    {
+        if (pValue > MAX_VALUE) {
+            return -1;
+        }
+        final int value = Math.max(0, pValue);
+        int index = value >>> WORD_SHIFT;
+        long word = iWords[index] & (-1L << value);
+        while (word == 0L) {
+            index++;
+            if (index == BITMAP_LONGS) {
+                return -1;
+            }
+            word = iWords[index];
+        }
+        return (index << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+    }
+
+
+
+    @Override
+    int floor(final int pValue)
+    {
+        if (pValue < 0) {
+            return -1;
+        }
+        final int value = Math.min(MAX_VALUE, pValue);
+        int index = value >>> WORD_SHIFT;
+        long word = iWords[index] & (-1L >>> (Long.SIZE - 1 - (value & (Long.SIZE - 1))));
+        while (word == 0L) {
+            index--;
+            if (index < 0) {
+                return -1;
+            }
+            word = iWords[index];
+        }
+        return (index << WORD_SHIFT) + Long.SIZE - 1 - Long.numberOfLeadingZeros(word);
+    }
+
+
+
+    @Override
+    int runCount()
+    {
+        int result = 0;
+        long previousTopBit = 0L;
+        for (final long word : iWords) {
+            // a run starts at every set bit whose lower neighbor is not set
+            result += Long.bitCount(word & ~((word << 1) | previousTopBit));
+            previousTopBit = word >>> (Long.SIZE - 1);
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    RoaringContainer copy()
+    {
+        final RoaringBitmapContainer result = new RoaringBitmapContainer(iWords.clone());
+        result.iCardinality = iCardinality;
+        return result;
+    }
+
+
+
+    @Override
+    void writeData(@Nonnull final ObjectOutputStream pOut)
+        throws IOException
+    {
+        for (final long word : iWords) {
+            pOut.writeLong(word);
+        }
+    }
+
+
+
+    @Nonnull
+    static RoaringBitmapContainer readData(@Nonnull final ObjectInputStream pIn)
+        throws IOException
+    {
+        final RoaringBitmapContainer result = new RoaringBitmapContainer();
+        for (int i = 0; i < BITMAP_LONGS; i++) {
+            result.iWords[i] = pIn.readLong();
+        }
+        return result.recount();
+    }
+}
@@ -0,0 +1,125 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Iterates over the containers of a {@link SerializableRoaringBitmap} and their values, in either direction.
+ *
+ * @author Thomas Jensen
+ */
+final class RoaringBitmapIterator
+    implements Iterator<Integer>
+{
+    private final SerializableRoaringBitmap iBitmap;
+
+    private final boolean iAscending;
+
+    private int iExpectedModCount;
+
+    /** index of the container of the next value */
+    private int iIndex;
+
+    /** the lower half of the next value, or -1 if there is none */
+    private int iNext;
+
+    /** the value last returned by {@link #next()} */
+    private int iLast;
+
+    private boolean iCanRemove;
+
+
+
+    RoaringBitmapIterator(@Nonnull final SerializableRoaringBitmap pBitmap, final boolean pAscending)
+    {
+        iBitmap = pBitmap;
+        iAscending = pAscending;
+        iExpectedModCount = pBitmap.iModCount;
+        iIndex = pAscending ? 0 : iBitmap.iContainerCount - 1;
+        iNext = -1;
+        if (iBitmap.iContainerCount > 0) {
+            iNext = pAscending ? iBitmap.iContainers[iIndex].ceiling(0)
+                : iBitmap.iContainers[iIndex].floor(RoaringContainer.MAX_VALUE);
+        }
+    }
+
+
+
+    @Override
+    public boolean hasNext()
+    {
+        return iNext >= 0;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Integer next()
+    {
+        if (iBitmap.iModCount != iExpectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (iNext < 0) {
+            throw new NoSuchElementException();
+        }
+        iLast = SerializableRoaringBitmap.valueOf(iBitmap.iKeys[iIndex], iNext);
+        iCanRemove = true;
+        advance(iNext);
+        return Integer.valueOf(iLast);
+    }
+
+
+
+    private void advance(final int pFrom)
+    {
+        if (iAscending) {
+            iNext = iBitmap.iContainers[iIndex].ceiling(pFrom + 1);
+            if (iNext < 0 && ++iIndex < iBitmap.iContainerCount) {
+                iNext = iBitmap.iContainers[iIndex].ceiling(0);
+            }
+        }
+        else {
+            iNext = iBitmap.iContainers[iIndex].floor(pFrom - 1);
+            if (iNext < 0 && --iIndex >= 0) {
+                iNext = iBitmap.iContainers[iIndex].floor(RoaringContainer.MAX_VALUE);
+            }
+        }
+    }
+
+
+
+    @Override
+    public void remove()
+    {
+        if (!iCanRemove) {
+            throw new IllegalStateException();
+        }
+        if (iBitmap.iModCount != iExpectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        final int containerCount = iBitmap.iContainerCount;
+        iBitmap.remove(iLast);
+        if (iAscending && iBitmap.iContainerCount < containerCount) {
+            iIndex--;  // the container of the removed value is gone, so the next container moved down
+        }
+        iExpectedModCount = iBitmap.iModCount;
+        iCanRemove = false;
+    }
+}
@@ -0,0 +1,371 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A set of 16 bit values, which holds the lower halves of the elements of a {@link SerializableRoaringBitmap} that
+ * share the same upper half. There are three kinds of containers:
+ * <ul>
+ * <li>a {@link RoaringArrayContainer} is a sorted array of values, for up to {@link #MAX_ARRAY_SIZE} values,</li>
+ * <li>a {@link RoaringBitmapContainer} has one bit for each of the 65536 possible values, for more values,</li>
+ * <li>a {@link RoaringRunContainer} is a sorted array of runs of consecutive values, which is smaller for clustered
+ * values. Run containers are created by {@link #optimize()} and when reading a serialized bitmap. They are converted
+ * to one of the other kinds when they are modified or combined with other containers.</li>
+ * </ul>
+ * Modifying operations return the container which holds the result, which may be a new container of a different kind.
+ * The set operations never modify their arguments.
+ *
+ * @author Thomas Jensen
+ */
+abstract class RoaringContainer
+{
+    /** maximum number of values in an array container; above this, a bitmap is smaller */
+    static final int MAX_ARRAY_SIZE = 4096;
+
+    /** largest value in a container */
+    static final int MAX_VALUE = 0xffff;
+
+    /** number of <code>long</code>s in a bitmap container */
+    static final int BITMAP_LONGS = (MAX_VALUE + 1) / Long.SIZE;
+
+    /** log2 of the number of bits in a <code>long</code> */
+    static final int WORD_SHIFT = 6;
+
+    /** size of a serialized bitmap container in bytes */
+    private static final int BITMAP_BYTES = BITMAP_LONGS * (Long.SIZE / Byte.SIZE);
+
+    private static final int CHAR_BYTES = Character.SIZE / Byte.SIZE;
+
+    static final int INITIAL_ARRAY_CAPACITY = 4;
+
+    private static final byte TYPE_ARRAY = 0;
+
+    private static final byte TYPE_BITMAP = 1;
+
+    private static final byte TYPE_RUN = 2;
+
+
+
+    abstract int cardinality();
+
+
+
+    abstract boolean contains(int pValue);
+
+
+
+    /**
+     * Add a value.
+     *
+     * @param pValue the value
+     * @return the container which holds the result, which may be this one
+     */
+    @Nonnull
+    abstract RoaringContainer add(int pValue);
+
+
+
+    /**
+     * Remove a value.
+     *
+     * @param pValue the value
+     * @return the container which holds the result, which may be this one, and which may be empty
+     */
+    @Nonnull
+    abstract RoaringContainer remove(int pValue);
+
+
+
+    /**
+     * Find the smallest value greater than or equal to the given value.
+     *
+     * @param pValue the value, which may be outside the range of container values
+     * @return the value found, or -1 if there is none
+     */
+    abstract int ceiling(int pValue);
+
+
+
+    /**
+     * Find the largest value less than or equal to the given value.
+     *
+     * @param pValue the value, which may be outside the range of container values
+     * @return the value found, or -1 if there is none
+     */
+    abstract int floor(int pValue);
+
+
+
+    /**
+     * Count the runs of consecutive values.
+     *
+     * @return the number of runs
+     */
+    abstract int runCount();
+
+
+
+    @Nonnull
+    abstract RoaringContainer copy();
+
+
+
+    abstract void writeData(@Nonnull ObjectOutputStream pOut)
+        throws IOException;
+
+
+
+    /**
+     * Convert a run container to an array or bitmap container.
+     *
+     * @return a container which is not a run container
+     */
+    @Nonnull
+    RoaringContainer materialize()
+    {
+        return this;
+    }
+
+
+
+    /**
+     * Choose the smallest kind of container for the values of this container.
+     *
+     * @return a container with the same values, which may be this one
+     */
+    @Nonnull
+    final RoaringContainer optimize()
+    {
+        final int cardinality = cardinality();
+        final int arrayBytes = cardinality <= MAX_ARRAY_SIZE ? cardinality * CHAR_BYTES : Integer.MAX_VALUE;
+        final int runCount = runCount();
+        final int runBytes = runCount * 2 * CHAR_BYTES;
+        if (runBytes < arrayBytes && runBytes < BITMAP_BYTES) {
+            return this instanceof RoaringRunContainer ? this : RoaringRunContainer.of(this, runCount);
+        }
+        final RoaringContainer result = materialize();
+        return result instanceof RoaringBitmapContainer ? ((RoaringBitmapContainer) result).repair() : result;
+    }
+
+
+
+    final boolean sameValues(@Nonnull final RoaringContainer pOther)
+    {
+        if (cardinality() != pOther.cardinality()) {
+            return false;
+        }
+        for (int v = ceiling(0); v >= 0; v = ceiling(v + 1)) {
+            if (!pOther.contains(v)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    @Nonnull
+    final RoaringArrayContainer toArrayContainer()
+    {
+        final RoaringArrayContainer result = new RoaringArrayContainer(new char[cardinality()], 0);
+        for (int v = ceiling(0); v >= 0; v = ceiling(v + 1)) {
+            result.iValues[result.iCardinality++] = (char) v;
+        }
+        return result;
+    }
+
+
+
+    @Nonnull
+    final RoaringBitmapContainer toBitmapContainer()
+    {
+        final RoaringBitmapContainer result = new RoaringBitmapContainer();
+        for (int v = ceiling(0); v >= 0; v = ceiling(v + 1)) {
+            result.iWords[v >>> WORD_SHIFT] |= 1L << v;
+        }
+        result.iCardinality = cardinality();
+        return result;
+    }
+
+
+
+    /**
+     * Create a container with the values of this container which lie in the given range.
+     *
+     * @param pFrom smallest value to include
+     * @param pTo largest value to include
+     * @return a new container, which may be empty
+     */
+    @Nonnull
+    final RoaringContainer range(final int pFrom, final int pTo)
+    {
+        RoaringContainer result = new RoaringArrayContainer(new char[INITIAL_ARRAY_CAPACITY], 0);
+        for (int v = ceiling(pFrom); v >= 0 && v <= pTo; v = ceiling(v + 1)) {
+            result = result.add(v);
+        }
+        return result;
+    }
+
+
+
+    final void write(@Nonnull final ObjectOutputStream pOut)
+        throws IOException
+    {
+        final RoaringContainer optimized = optimize();
+        if (optimized instanceof RoaringArrayContainer) {
+            pOut.writeByte(TYPE_ARRAY);
+        }
+        else if (optimized instanceof RoaringBitmapContainer) {
+            pOut.writeByte(TYPE_BITMAP);
+        }
+        else {
+            pOut.writeByte(TYPE_RUN);
+        }
+        optimized.writeData(pOut);
+    }
+
+
+
+    @Nonnull
+    static RoaringContainer read(@Nonnull final ObjectInputStream pIn)
+        throws IOException
+    {
+        final byte type = pIn.readByte();
+        final RoaringContainer result;
+        if (type == TYPE_ARRAY) {
+            result = RoaringArrayContainer.readData(pIn);
+        }
+        else if (type == TYPE_BITMAP) {
+            result = RoaringBitmapContainer.readData(pIn);
+        }
+        else if (type == TYPE_RUN) {
+            result = RoaringRunContainer.readData(pIn);
+        }
+        else {
+            throw new InvalidObjectException("unknown container type: " + type);
+        }
+        if (result.cardinality() == 0) {
+            throw new InvalidObjectException("empty container");
+        }
+        return result;
+    }
+
+
+
+    /**
+     * Intersection of two containers.
+     *
+     * @param pFirst a container
+     * @param pSecond another container
+     * @return a new container, which may be empty
+     */
+    @Nonnull
+    static RoaringContainer and(@Nonnull final RoaringContainer pFirst, @Nonnull final RoaringContainer pSecond)
+    {
+        final RoaringContainer first = pFirst.materialize();
+        final RoaringContainer second = pSecond.materialize();
+        if (first instanceof RoaringBitmapContainer && second instanceof RoaringBitmapContainer) {
+            final long[] a = ((RoaringBitmapContainer) first).iWords;
+            final long[] b = ((RoaringBitmapContainer) second).iWords;
+            final RoaringBitmapContainer result = new RoaringBitmapContainer();
+            for (int i = 0; i < BITMAP_LONGS; i++) {
+                result.iWords[i] = a[i] & b[i];
+            }
+            return result.recount().repair();
+        }
+        if (first instanceof RoaringArrayContainer && second instanceof RoaringArrayContainer) {
+            return RoaringArrayContainer.intersect((RoaringArrayContainer) first, (RoaringArrayContainer) second);
+        }
+        final RoaringArrayContainer array =
+            (RoaringArrayContainer) (first instanceof RoaringArrayContainer ? first : second);
+        final RoaringContainer bitmap = first instanceof RoaringArrayContainer ? second : first;
+        return array.filter(bitmap, true);
+    }
+
+
+
+    /**
+     * Union of two containers.
+     *
+     * @param pFirst a container
+     * @param pSecond another container
+     * @return a new container
+     */
+    @Nonnull
+    static RoaringContainer or(@Nonnull final RoaringContainer pFirst, @Nonnull final RoaringContainer pSecond)
+    {
+        final RoaringContainer first = pFirst.materialize();
+        final RoaringContainer second = pSecond.materialize();
+        if (first instanceof RoaringBitmapContainer && second instanceof RoaringBitmapContainer) {
+            final long[] a = ((RoaringBitmapContainer) first).iWords;
+            final long[] b = ((RoaringBitmapContainer) second).iWords;
+            final RoaringBitmapContainer result = new RoaringBitmapContainer();
+            for (int i = 0; i < BITMAP_LONGS; i++) {
+                result.iWords[i] = a[i] | b[i];
+            }
+            return result.recount();
+        }
+        if (first instanceof RoaringArrayContainer && second instanceof RoaringArrayContainer) {
+            return RoaringArrayContainer.union((RoaringArrayContainer) first, (RoaringArrayContainer) second);
+        }
+        final RoaringArrayContainer array =
+            (RoaringArrayContainer) (first instanceof RoaringArrayContainer ? first : second);
+        final RoaringBitmapContainer result =
+            (RoaringBitmapContainer) (first instanceof RoaringArrayContainer ? second : first).copy();
+        for (int i = 0; i < array.iCardinality; i++) {
+            result.iWords[array.iValues[i] >>> WORD_SHIFT] |= 1L << array.iValues[i];
+        }
+        return result.recount();
+    }
+
+
+
+    /**
+     * Difference of two containers.
+     *
+     * @param pFirst a container
+     * @param pSecond the container whose values are removed from the first
+     * @return a new container, which may be empty
+     */
+    @Nonnull
+    static RoaringContainer andNot(@Nonnull final RoaringContainer pFirst, @Nonnull final RoaringContainer pSecond)
+    {
+        final RoaringContainer first = pFirst.materialize();
+        final RoaringContainer second = pSecond.materialize();
+        if (first instanceof RoaringArrayContainer) {
+            return ((RoaringArrayContainer) first).filter(second, false);
+        }
+        final RoaringBitmapContainer result = (RoaringBitmapContainer) first.copy();
+        if (second instanceof RoaringBitmapContainer) {
+            final long[] b = ((RoaringBitmapContainer) second).iWords;
+            for (int i = 0; i < BITMAP_LONGS; i++) {
+                result.iWords[i] &= ~b[i];
+            }
+        }
+        else {
+            final RoaringArrayContainer array = (RoaringArrayContainer) second;
+            for (int i = 0; i < array.iCardinality; i++) {
+                result.iWords[array.iValues[i] >>> WORD_SHIFT] &= ~(1L << array.iValues[i]);
+            }
+        }
+        return result.recount().repair();
+    }
+}
@@ -0,0 +1,241 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A {@link RoaringContainer} which holds runs of consecutive values, each stored as its first value and its length
+ * minus one.
+ *
+ * @author Thomas Jensen
+ */
+final class RoaringRunContainer
+    extends RoaringContainer
+{
+    /** pairs of first value and length minus one */
+    private final char[] iRuns;
+
+    private final int iRunCount;
+
+    private final int iCardinality;
+
+
+
+    private RoaringRunContainer(@Nonnull final char[] pRuns, final int pRunCount)
+    {
+        super();
+        iRuns = pRuns;
+        iRunCount = pRunCount;
+        int cardinality = 0;
+        for (int i = 0; i < pRunCount; i++) {
+            cardinality += iRuns[2 * i + 1] + 1;
+        }
+        iCardinality = cardinality;
+    }
+
+
+
+    @Nonnull
+    static RoaringRunContainer of(@Nonnull final RoaringContainer pContainer, final int pRunCount)
+    {
+        final char[] runs = new char[2 * pRunCount];
+        int count = 0;
+        int start = pContainer.ceiling(0);
+        while (start >= 0) {
+            int end = start;
+            int next = pContainer.ceiling(end + 1);
+            while (next == end + 1) {
+                end = next;
+                next = pContainer.ceiling(end + 1);
+            }
+            runs[2 * count] = (char) start;
+            runs[2 * count + 1] = (char) (end - start);
+            count++;
+            start = next;
+        }
+        return new RoaringRunContainer(runs, count);
+    }
+
+
+
+    private int start(final int pRun)
+    {
+        return iRuns[2 * pRun];
+    }
+
+
+
+    private int end(final int pRun)
+    {
+        return iRuns[2 * pRun] + iRuns[2 * pRun + 1];
+    }
+
+
+
+    /**
+     * Find the last run which starts at or before the given value.
+     *
+     * @param pValue the value
+     * @return index of the run, or -1 if all runs start after the value
+     */
+    private int runBefore(final int pValue)
+    {
+        int low = 0;
+        int high = iRunCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (start(mid) <= pValue) {
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+
+
+    @Override
+    int cardinality()
+    {
+        return iCardinality;
+    }
+
+
+
+    @Override
+    boolean contains(final int pValue)
+    {
+        final int run = runBefore(pValue);
+        return run >= 0 && pValue <= end(run);
+    }
+
+
+
+    @Override
+    @Nonnull
+    RoaringContainer add(final int pValue)
+    {
+        return contains(pValue) ? this : materialize().add(pValue);
+    }
+
+
+
+    @Override
+    @Nonnull
+    RoaringContainer remove(final int pValue)
+    {
+        return contains(pValue) ? materialize().remove(pValue) : this;
+    }
+
+
+
+    @Override
+    int ceiling(final int pValue)
+    {
+        final int run = runBefore(pValue);
+        if (run >= 0 && pValue <= end(run)) {
+            return pValue;
+        }
+        return run + 1 < iRunCount ? start(run + 1) : -1;
+    }
+
+
+
+    @Override
+    int floor(final int pValue)
+    {
+        final int run = runBefore(pValue);
+        if (run < 0) {
+            return -1;
+        }
+        return Math.min(pValue, end(run));
+    }
+
+
+
+    @Override
+    int runCount()
+    {
+        return iRunCount;
+    }
+
+
+
+    @Override
+    @Nonnull
+    RoaringContainer materialize()
+    {
+        if (iCardinality <= MAX_ARRAY_SIZE) {
+            return toArrayContainer();
+        }
+        final RoaringBitmapContainer result = new RoaringBitmapContainer();
+        for (int i = 0; i < iRunCount; i++) {
+            for (int v = start(i); v <= end(i); v++) {
+                result.iWords[v >>> WORD_SHIFT] |= 1L << v;
+            }
+        }
+        result.iCardinality = iCardinality;
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    RoaringContainer copy()
+    {
+        return this;  // immutable
+    }
+
+
+
+    @Override
+    void writeData(@Nonnull final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.writeShort(iRunCount);
+        for (int i = 0; i < 2 * iRunCount; i++) {
+            pOut.writeChar(iRuns[i]);
+        }
+    }
+
+
+
+    @Nonnull
+    static RoaringRunContainer readData(@Nonnull final ObjectInputStream pIn)
+        throws IOException
+    {
+        final int runCount = pIn.readUnsignedShort();
+        final char[] runs = new char[2 * runCount];
+        int previousEnd = -2;
+        for (int i = 0; i < runCount; i++) {
+            runs[2 * i] = pIn.readChar();
+            runs[2 * i + 1] = pIn.readChar();
+            final int end = runs[2 * i] + runs[2 * i + 1];
+            if (runs[2 * i] <= previousEnd + 1 || end > MAX_VALUE) {
+                throw new InvalidObjectException("invalid run container");
+            }
+            previousEnd = end;
+        }
+        return new RoaringRunContainer(runs, runCount);
+    }
+}
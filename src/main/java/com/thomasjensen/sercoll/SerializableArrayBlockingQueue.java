@@ -0,0 +1,800 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A serializable bounded blocking queue for any number of producers and consumers, backed by a ring buffer. The
+ * non-blocking operations are lock-free: each slot of the buffer carries a sequence number which tells producers and
+ * consumers whether the slot is free or filled in the current round, so that claiming a slot takes a single
+ * compare-and-set on the head or tail position. The lock is only used by threads which must wait because the queue is
+ * empty or full, and by the threads which wake them.
+ * <p/>
+ * This queue can be serialized while producers and consumers keep going. The elements are read from the buffer into
+ * a snapshot without locking, and a slot is included only if its sequence number shows that it held the same element
+ * before and after reading it. The snapshot is weakly consistent: it contains the elements in queue order, each of
+ * which was present at some point during serialization, and elements added or removed concurrently may or may not be
+ * included. The iterators work on such a snapshot as well, so they never throw
+ * <code>ConcurrentModificationException</code>.
+ * <p/>
+ * {@link #remove(Object)}, the bulk removal methods and the iterators' <code>remove()</code> replace the element in
+ * its slot by a marker, which consumers skip. Unlike in <code>ArrayBlockingQueue</code>, the slot is not freed right
+ * away, but when the marker reaches the head of the queue, so until then it still counts against the capacity. See
+ * {@link #remove(Object)} for details.
+ * <p/>
+ * The serialized form is the capacity, followed by the number of elements in the snapshot and the elements in queue
+ * order. This queue does not permit <code>null</code> elements.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+public final class SerializableArrayBlockingQueue<E extends Serializable>
+    extends AbstractQueue<E>
+    implements BlockingQueue<E>, SerializableQueue<E>
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** put into the slot of a removed element, which consumers skip */
+    private static final Object REMOVED = new Object();
+
+    /** the maximum number of elements */
+    private final int iCapacity;
+
+    /** the elements; slot <i>p % capacity</i> holds the element at position <i>p</i> */
+    private transient AtomicReferenceArray<Object> iBuffer;
+
+    /** per slot, <i>2p</i> if the slot is free for the element at position <i>p</i>, or <i>2p + 1</i> once filled */
+    private transient AtomicLongArray iSequences;
+
+    /** position of the next element to poll */
+    private transient AtomicLong iHead;
+
+    /** position of the next element to offer */
+    private transient AtomicLong iTail;
+
+    /** number of slots holding {@link #REMOVED}, which are not counted by {@link #size()} */
+    private transient AtomicInteger iRemovedCount;
+
+    /** guards the conditions; taken only by threads which wait, and by threads which wake them */
+    private transient ReentrantLock iLock;
+
+    private transient Condition iNotEmpty;
+
+    private transient Condition iNotFull;
+
+    /** number of threads waiting on {@link #iNotEmpty}; modified only while holding the lock */
+    private transient volatile int iWaitingConsumers;
+
+    /** number of threads waiting on {@link #iNotFull}; modified only while holding the lock */
+    private transient volatile int iWaitingProducers;
+
+
+
+    /**
+     * Constructs an empty queue with the given capacity.
+     *
+     * @param pCapacity the maximum number of elements
+     * @throws IllegalArgumentException the capacity is less than 1
+     */
+    public SerializableArrayBlockingQueue(final int pCapacity)
+    {
+        super();
+        if (pCapacity < 1) {
+            throw new IllegalArgumentException("invalid capacity: " + pCapacity);
+        }
+        iCapacity = pCapacity;
+        init();
+    }
+
+
+
+    /**
+     * Constructs a queue with the given capacity which contains the elements of the specified collection, in the order
+     * in which they are returned by the collection's iterator.
+     *
+     * @param pCapacity the maximum number of elements
+     * @param pCollection the collection whose elements are to be placed into the queue
+     * @throws IllegalArgumentException the capacity is less than 1, or less than the size of the collection
+     */
+    public SerializableArrayBlockingQueue(final int pCapacity, @Nonnull final Collection<? extends E> pCollection)
+    {
+        this(pCapacity);
+        for (final E element : pCollection) {
+            if (!offer(element)) {
+                throw new IllegalArgumentException("collection exceeds capacity " + pCapacity);
+            }
+        }
+    }
+
+
+
+    private void init()
+    {
+        iBuffer = new AtomicReferenceArray<Object>(iCapacity);
+        iSequences = new AtomicLongArray(iCapacity);
+        for (int i = 0; i < iCapacity; i++) {
+            iSequences.set(i, 2L * i);
+        }
+        iHead = new AtomicLong();
+        iTail = new AtomicLong();
+        iRemovedCount = new AtomicInteger();
+        iLock = new ReentrantLock();
+        iNotEmpty = iLock.newCondition();
+        iNotFull = iLock.newCondition();
+    }
+
+
+
+    private int slot(final long pPosition)
+    {
+        return (int) (pPosition % iCapacity);
+    }
+
+
+
+    /**
+     * Add the given element at the tail of the queue, unless the queue is full. Does not wake waiting consumers.
+     *
+     * @param pElement the element
+     * @return <code>true</code> if the element was added
+     */
+    private boolean enqueue(@Nonnull final E pElement)
+    {
+        long position = iTail.get();
+        while (true) {
+            final int slot = slot(position);
+            final long diff = iSequences.get(slot) - 2 * position;
+            if (diff == 0) {
+                if (iTail.compareAndSet(position, position + 1)) {
+                    iBuffer.lazySet(slot, pElement);
+                    // a volatile write, so that a consumer about to wait either sees the element or is seen waiting
+                    iSequences.set(slot, 2 * position + 1);
+                    return true;
+                }
+                position = iTail.get();
+            }
+            else if (diff < 0) {
+                return false;  // the slot still holds the element from the previous round
+            }
+            else {
+                position = iTail.get();  // another producer has claimed the slot
+            }
+        }
+    }
+
+
+
+    /**
+     * Remove the element at the head of the queue, if any, skipping removed elements and freeing the slots of those
+     * which follow it. Does not wake waiting producers unless removed elements were skipped.
+     *
+     * @return the element, or <code>null</code> if the queue is empty
+     */
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    private E dequeue()
+    {
+        boolean skipped = false;
+        long position = iHead.get();
+        while (true) {
+            final int slot = slot(position);
+            final long diff = iSequences.get(slot) - (2 * position + 1);
+            if (diff == 0) {
+                if (iHead.compareAndSet(position, position + 1)) {
+                    // an atomic exchange, so that a concurrent remove() either replaced the element before, or fails
+                    final Object element = iBuffer.getAndSet(slot, null);
+                    iSequences.set(slot, 2 * (position + iCapacity));
+                    if (element != REMOVED) {
+                        if (iRemovedCount.get() > 0) {
+                            skipRemovedAtHead();
+                        }
+                        return (E) element;
+                    }
+                    iRemovedCount.decrementAndGet();
+                    if (!skipped) {
+                        skipped = true;
+                        signalNotFull();
+                    }
+                }
+                position = iHead.get();
+            }
+            else if (diff < 0) {
+                return null;  // the slot has not been filled yet
+            }
+            else {
+                position = iHead.get();  // another consumer has taken the element
+            }
+        }
+    }
+
+
+
+    private void signalNotEmpty()
+    {
+        if (iWaitingConsumers > 0) {
+            iLock.lock();
+            try {
+                iNotEmpty.signal();
+            }
+            finally {
+                iLock.unlock();
+            }
+        }
+    }
+
+
+
+    private void signalNotFull()
+    {
+        if (iWaitingProducers > 0) {
+            iLock.lock();
+            try {
+                iNotFull.signal();
+            }
+            finally {
+                iLock.unlock();
+            }
+        }
+    }
+
+
+
+    /**
+     * Called by a waiting consumer which stops waiting, while holding the lock. The consumer may have consumed a
+     * signal without taking an element, because it timed out or was interrupted, so the signal is passed on.
+     */
+    private void propagateNotEmpty()
+    {
+        if (iWaitingConsumers > 0 && size() > 0) {
+            iNotEmpty.signal();
+        }
+    }
+
+
+
+    /**
+     * Called by a waiting producer which stops waiting, while holding the lock. The producer may have consumed a
+     * signal without adding its element, because it timed out or was interrupted, so the signal is passed on.
+     */
+    private void propagateNotFull()
+    {
+        if (iWaitingProducers > 0 && occupiedSlots() < iCapacity) {
+            iNotFull.signal();
+        }
+    }
+
+
+
+    @Override
+    public boolean offer(@Nonnull final E pElement)
+    {
+        if (pElement == null) {
+            throw new NullPointerException();
+        }
+        if (enqueue(pElement)) {
+            signalNotEmpty();
+            return true;
+        }
+        return false;
+    }
+
+
+
+    @Override
+    public void put(@Nonnull final E pElement)
+        throws InterruptedException
+    {
+        if (!offer(pElement)) {
+            iLock.lockInterruptibly();
+            try {
+                iWaitingProducers++;
+                try {
+                    while (!enqueue(pElement)) {
+                        iNotFull.await();
+                    }
+                }
+                finally {
+                    iWaitingProducers--;
+                    propagateNotFull();
+                }
+            }
+            finally {
+                iLock.unlock();
+            }
+            signalNotEmpty();
+        }
+    }
+
+
+
+    @Override
+    public boolean offer(@Nonnull final E pElement, final long pTimeout, @Nonnull final TimeUnit pUnit)
+        throws InterruptedException
+    {
+        if (offer(pElement)) {
+            return true;
+        }
+        long nanos = pUnit.toNanos(pTimeout);
+        iLock.lockInterruptibly();
+        try {
+            iWaitingProducers++;
+            try {
+                while (!enqueue(pElement)) {
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    nanos = iNotFull.awaitNanos(nanos);
+                }
+            }
+            finally {
+                iWaitingProducers--;
+                propagateNotFull();
+            }
+        }
+        finally {
+            iLock.unlock();
+        }
+        signalNotEmpty();
+        return true;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E poll()
+    {
+        final E result = dequeue();
+        if (result != null) {
+            signalNotFull();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public E take()
+        throws InterruptedException
+    {
+        E result = poll();
+        if (result == null) {
+            iLock.lockInterruptibly();
+            try {
+                iWaitingConsumers++;
+                try {
+                    while ((result = dequeue()) == null) {
+                        iNotEmpty.await();
+                    }
+                }
+                finally {
+                    iWaitingConsumers--;
+                    propagateNotEmpty();
+                }
+            }
+            finally {
+                iLock.unlock();
+            }
+            signalNotFull();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E poll(final long pTimeout, @Nonnull final TimeUnit pUnit)
+        throws InterruptedException
+    {
+        E result = poll();
+        if (result == null) {
+            long nanos = pUnit.toNanos(pTimeout);
+            iLock.lockInterruptibly();
+            try {
+                iWaitingConsumers++;
+                try {
+                    while ((result = dequeue()) == null) {
+                        if (nanos <= 0) {
+                            return null;
+                        }
+                        nanos = iNotEmpty.awaitNanos(nanos);
+                    }
+                }
+                finally {
+                    iWaitingConsumers--;
+                    propagateNotEmpty();
+                }
+            }
+            finally {
+                iLock.unlock();
+            }
+            signalNotFull();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public E peek()
+    {
+        while (true) {
+            final long head = iHead.get();
+            for (long position = head; iSequences.get(slot(position)) == 2 * position + 1; position++) {
+                final Object element = iBuffer.get(slot(position));
+                if (element != null && element != REMOVED && iSequences.get(slot(position)) == 2 * position + 1) {
+                    return (E) element;
+                }
+            }
+            if (head == iHead.get()) {
+                return null;
+            }
+        }
+    }
+
+
+
+    /**
+     * Count the slots which are filled, including those of removed elements which consumers have not yet skipped.
+     *
+     * @return the number of slots which are not free
+     */
+    private int occupiedSlots()
+    {
+        while (true) {
+            final long head = iHead.get();
+            final long tail = iTail.get();
+            if (head == iHead.get()) {
+                return (int) Math.max(0, Math.min(iCapacity, tail - head));
+            }
+        }
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return Math.max(0, occupiedSlots() - iRemovedCount.get());
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+
+
+    /**
+     * Removes a single instance of the given element from this queue, if it is present. Concurrent producers and
+     * consumers are not blocked.
+     * <p/>
+     * The element is replaced in its slot by a marker, which consumers skip. Unlike in
+     * <code>ArrayBlockingQueue</code>, the slot is freed only when the marker reaches the head of the queue. So after
+     * an element has been removed from the middle of a full queue, {@link #size()} is less than the capacity, but
+     * {@link #offer offer()} still fails and {@link #remainingCapacity()} is still <code>0</code> until consumers
+     * have reached the slot. Removing the element at the head of the queue frees its slot immediately.
+     *
+     * @param pElement element to be removed from this queue, if present
+     * @return <code>true</code> if this queue changed as a result of the call
+     */
+    @Override
+    public boolean remove(@CheckForNull final Object pElement)
+    {
+        return pElement != null && removeElement(pElement, false);
+    }
+
+
+
+    /**
+     * Replace the first occurrence of the given element by {@link #REMOVED}, and free the slots at the head of the
+     * queue which hold removed elements.
+     *
+     * @param pElement the element
+     * @param pIdentity <code>true</code> to look for the same instance, <code>false</code> for an equal one
+     * @return <code>true</code> if the element was found and removed
+     */
+    private boolean removeElement(@Nonnull final Object pElement, final boolean pIdentity)
+    {
+        final long head = iHead.get();
+        final long tail = iTail.get();
+        for (long position = Math.max(head, tail - iCapacity); position < tail; position++) {
+            final int slot = slot(position);
+            if (iSequences.get(slot) == 2 * position + 1) {
+                final Object element = iBuffer.get(slot);
+                if (element != null && element != REMOVED && (pIdentity ? element == pElement
+                    : pElement.equals(element)) && iBuffer.compareAndSet(slot, element, REMOVED))
+                {
+                    iRemovedCount.incrementAndGet();
+                    skipRemovedAtHead();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+
+    /**
+     * Free the slots at the head of the queue which hold removed elements, so that producers can reuse them.
+     */
+    private void skipRemovedAtHead()
+    {
+        boolean skipped = false;
+        while (true) {
+            final long position = iHead.get();
+            final int slot = slot(position);
+            if (iSequences.get(slot) != 2 * position + 1 || iBuffer.get(slot) != REMOVED) {
+                break;
+            }
+            if (iHead.compareAndSet(position, position + 1)) {
+                iBuffer.lazySet(slot, null);
+                iSequences.set(slot, 2 * (position + iCapacity));
+                iRemovedCount.decrementAndGet();
+                skipped = true;
+            }
+        }
+        if (skipped) {
+            signalNotFull();
+        }
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the maximum number of elements
+     */
+    public int getCapacity()
+    {
+        return iCapacity;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The slots of removed elements count as occupied until consumers have reached them, see {@link #remove(Object)}.
+     */
+    @Override
+    public int remainingCapacity()
+    {
+        return iCapacity - occupiedSlots();
+    }
+
+
+
+    @Override
+    public int drainTo(@Nonnull final Collection<? super E> pTarget)
+    {
+        return drainTo(pTarget, Integer.MAX_VALUE);
+    }
+
+
+
+    @Override
+    public int drainTo(@Nonnull final Collection<? super E> pTarget, final int pMaxElements)
+    {
+        if (pTarget == this) {
+            throw new IllegalArgumentException("cannot drain a queue into itself");
+        }
+        int count = 0;
+        E element;
+        while (count < pMaxElements && (element = dequeue()) != null) {
+            pTarget.add(element);
+            count++;
+        }
+        if (count > 0) {
+            signalNotFull();
+        }
+        return count;
+    }
+
+
+
+    /**
+     * Take a weakly consistent snapshot of the elements without blocking producers or consumers.
+     *
+     * @return the elements in queue order
+     */
+    @Nonnull
+    private List<Object> snapshot()
+    {
+        final long head = iHead.get();
+        final long tail = iTail.get();
+        final List<Object> result = new ArrayList<Object>((int) Math.max(0, Math.min(iCapacity, tail - head)));
+        for (long position = Math.max(head, tail - iCapacity); position < tail; position++) {
+            final int slot = slot(position);
+            if (iSequences.get(slot) == 2 * position + 1) {
+                final Object element = iBuffer.get(slot);
+                // if the sequence number is unchanged, the slot was not consumed and refilled while we read it
+                if (element != null && element != REMOVED && iSequences.get(slot) == 2 * position + 1) {
+                    result.add(element);
+                }
+            }
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Object[] toArray()
+    {
+        return snapshot().toArray();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public <T> T[] toArray(@Nonnull final T[] pArray)
+    {
+        return snapshot().toArray(pArray);
+    }
+
+
+
+    /**
+     * Returns an iterator over a weakly consistent snapshot of the elements in this queue, in queue order. The
+     * iterator's <code>remove()</code> removes the element last returned from this queue, if it is still present,
+     * like {@link #remove(Object)} does.
+     *
+     * @return the iterator
+     */
+    @Override
+    @Nonnull
+    public Iterator<E> iterator()
+    {
+        return new SnapshotIterator(snapshot());
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        final List<Object> elements = snapshot();
+        pOut.writeInt(elements.size());
+        for (final Object element : elements) {
+            pOut.writeObject(element);
+        }
+        SerializationMonitor.writeFinished(this, elements.size());
+    }
+
+
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        if (iCapacity < 1) {
+            throw new InvalidObjectException("invalid capacity: " + iCapacity);
+        }
+        final int size = pIn.readInt();
+        if (size < 0 || size > iCapacity) {
+            throw new InvalidObjectException("invalid size: " + size);
+        }
+        init();
+        for (int i = 0; i < size; i++) {
+            final Object element = pIn.readObject();
+            if (element == null) {
+                throw new InvalidObjectException("null element");
+            }
+            enqueue((E) element);
+        }
+        SerializationMonitor.readFinished(this, size);
+    }
+
+
+
+    /**
+     * Iterates over a snapshot of the elements, and removes elements from the queue.
+     */
+    private final class SnapshotIterator
+        implements Iterator<E>
+    {
+        private final List<Object> iElements;
+
+        private int iNext = 0;
+
+        /** the element last returned by {@link #next()}, or <code>null</code> if it cannot be removed */
+        private Object iLast = null;
+
+
+
+        SnapshotIterator(@Nonnull final List<Object> pElements)
+        {
+            iElements = pElements;
+        }
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iNext < iElements.size();
+        }
+
+
+
+        @Override
+        @Nonnull
+        @SuppressWarnings("unchecked")
+        public E next()
+        {
+            if (iNext >= iElements.size()) {
+                throw new NoSuchElementException();
+            }
+            iLast = iElements.get(iNext++);
+            return (E) iLast;
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            if (iLast == null) {
+                throw new IllegalStateException();
+            }
+            removeElement(iLast, true);
+            iLast = null;
+        }
+    }
+}
@@ -0,0 +1,696 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A serializable deque backed by a ring buffer, which adds and removes elements at both ends in amortized constant
+ * time. In contrast to a list used as a queue, whose <code>remove(0)</code> shifts all remaining elements, polling
+ * from the head of this deque only moves the head index. Like <code>java.util.ArrayDeque</code>, this deque does
+ * not permit <code>null</code> elements, and its capacity is a power of two which doubles when the buffer is full.
+ * The iterators are fail-fast.
+ * <p/>
+ * The serialized form is the number of elements followed by the elements from head to tail. The unused capacity of
+ * the buffer is not written. On deserialization, the buffer is allocated just large enough for the elements.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+public final class SerializableArrayDeque<E extends Serializable>
+    extends AbstractCollection<E>
+    implements SerializableDeque<E>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** the smallest capacity of the buffer */
+    private static final int MIN_CAPACITY = 8;
+
+    /** the buffer, whose length is a power of two; unused slots are <code>null</code> */
+    private transient Object[] iElements;
+
+    /** index of the first element */
+    private transient int iHead;
+
+    /** index after the last element, which equals {@link #iHead} if the deque is empty */
+    private transient int iTail;
+
+    /** incremented on every modification, for the fail-fast iterators */
+    private transient int iModCount;
+
+
+
+    /**
+     * Constructs an empty deque with an initial capacity of 16 elements.
+     */
+    public SerializableArrayDeque()
+    {
+        this(16);
+    }
+
+
+
+    /**
+     * Constructs an empty deque with room for the specified number of elements.
+     *
+     * @param pNumElements the expected number of elements
+     */
+    public SerializableArrayDeque(final int pNumElements)
+    {
+        super();
+        iElements = new Object[capacityFor(pNumElements)];
+    }
+
+
+
+    /**
+     * Constructs a deque containing the elements of the specified collection, in the order in which they are returned
+     * by the collection's iterator.
+     *
+     * @param pCollection the collection whose elements are to be placed into the deque
+     */
+    public SerializableArrayDeque(@Nonnull final Collection<? extends E> pCollection)
+    {
+        this(pCollection.size());
+        addAll(pCollection);
+    }
+
+
+
+    /**
+     * Compute the smallest power of two which is large enough to hold the given number of elements, leaving one slot
+     * free so that a full buffer can be told apart from an empty one.
+     *
+     * @param pNumElements the number of elements
+     * @return the capacity
+     */
+    private static int capacityFor(final int pNumElements)
+    {
+        if (pNumElements >= 1 << 30) {
+            return 1 << 30;
+        }
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(pNumElements) << 1);
+    }
+
+
+
+    private int mask()
+    {
+        return iElements.length - 1;
+    }
+
+
+
+    private void doubleCapacity()
+    {
+        final int capacity = iElements.length;
+        if (capacity >= 1 << 30) {
+            throw new IllegalStateException("Deque too big");
+        }
+        final Object[] elements = new Object[capacity << 1];
+        final int headPart = capacity - iHead;
+        System.arraycopy(iElements, iHead, elements, 0, headPart);
+        System.arraycopy(iElements, 0, elements, headPart, iHead);
+        iElements = elements;
+        iHead = 0;
+        iTail = capacity;
+    }
+
+
+
+    @Override
+    public void addFirst(@Nonnull final E pElement)
+    {
+        if (pElement == null) {
+            throw new NullPointerException();
+        }
+        iHead = (iHead - 1) & mask();
+        iElements[iHead] = pElement;
+        iModCount++;
+        if (iHead == iTail) {
+            doubleCapacity();
+        }
+    }
+
+
+
+    @Override
+    public void addLast(@Nonnull final E pElement)
+    {
+        if (pElement == null) {
+            throw new NullPointerException();
+        }
+        iElements[iTail] = pElement;
+        iTail = (iTail + 1) & mask();
+        iModCount++;
+        if (iTail == iHead) {
+            doubleCapacity();
+        }
+    }
+
+
+
+    @Override
+    public boolean offerFirst(@Nonnull final E pElement)
+    {
+        addFirst(pElement);
+        return true;
+    }
+
+
+
+    @Override
+    public boolean offerLast(@Nonnull final E pElement)
+    {
+        addLast(pElement);
+        return true;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public E pollFirst()
+    {
+        final E result = (E) iElements[iHead];
+        if (result != null) {
+            iElements[iHead] = null;
+            iHead = (iHead + 1) & mask();
+            iModCount++;
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public E pollLast()
+    {
+        final int index = (iTail - 1) & mask();
+        final E result = (E) iElements[index];
+        if (result != null) {
+            iElements[index] = null;
+            iTail = index;
+            iModCount++;
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public E removeFirst()
+    {
+        final E result = pollFirst();
+        if (result == null) {
+            throw new NoSuchElementException();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public E removeLast()
+    {
+        final E result = pollLast();
+        if (result == null) {
+            throw new NoSuchElementException();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public E peekFirst()
+    {
+        return (E) iElements[iHead];
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public E peekLast()
+    {
+        return (E) iElements[(iTail - 1) & mask()];
+    }
+
+
+
+    @Override
+    @Nonnull
+    public E getFirst()
+    {
+        final E result = peekFirst();
+        if (result == null) {
+            throw new NoSuchElementException();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public E getLast()
+    {
+        final E result = peekLast();
+        if (result == null) {
+            throw new NoSuchElementException();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public boolean removeFirstOccurrence(@Nullable final Object pObject)
+    {
+        if (pObject != null) {
+            final int mask = mask();
+            for (int i = iHead; i != iTail; i = (i + 1) & mask) {
+                if (pObject.equals(iElements[i])) {
+                    delete(i);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+
+    @Override
+    public boolean removeLastOccurrence(@Nullable final Object pObject)
+    {
+        if (pObject != null) {
+            final int mask = mask();
+            for (int i = (iTail - 1) & mask; i != ((iHead - 1) & mask); i = (i - 1) & mask) {
+                if (pObject.equals(iElements[i])) {
+                    delete(i);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+
+    /**
+     * Remove the element at the given buffer index by moving the elements behind it one slot towards the head.
+     *
+     * @param pIndex index into the buffer
+     */
+    private void delete(final int pIndex)
+    {
+        final int mask = mask();
+        int i = pIndex;
+        for (int next = (i + 1) & mask; next != iTail; next = (next + 1) & mask) {
+            iElements[i] = iElements[next];
+            i = next;
+        }
+        iElements[i] = null;
+        iTail = i;
+        iModCount++;
+    }
+
+
+
+    @Override
+    public boolean add(@Nonnull final E pElement)
+    {
+        addLast(pElement);
+        return true;
+    }
+
+
+
+    @Override
+    public boolean offer(@Nonnull final E pElement)
+    {
+        addLast(pElement);
+        return true;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public E remove()
+    {
+        return removeFirst();
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E poll()
+    {
+        return pollFirst();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public E element()
+    {
+        return getFirst();
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E peek()
+    {
+        return peekFirst();
+    }
+
+
+
+    @Override
+    public void push(@Nonnull final E pElement)
+    {
+        addFirst(pElement);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public E pop()
+    {
+        return removeFirst();
+    }
+
+
+
+    @Override
+    public boolean remove(@Nullable final Object pObject)
+    {
+        return removeFirstOccurrence(pObject);
+    }
+
+
+
+    @Override
+    public boolean contains(@Nullable final Object pObject)
+    {
+        if (pObject != null) {
+            final int mask = mask();
+            for (int i = iHead; i != iTail; i = (i + 1) & mask) {
+                if (pObject.equals(iElements[i])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return (iTail - iHead) & mask();
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        return iHead == iTail;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        if (iHead != iTail) {
+            final int mask = mask();
+            for (int i = iHead; i != iTail; i = (i + 1) & mask) {
+                iElements[i] = null;
+            }
+            iHead = 0;
+            iTail = 0;
+            iModCount++;
+        }
+    }
+
+
+
+    @Override
+    public int drainTo(@Nonnull final Collection<? super E> pTarget)
+    {
+        return drainTo(pTarget, Integer.MAX_VALUE);
+    }
+
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(@Nonnull final Collection<? super E> pTarget, final int pMaxElements)
+    {
+        if (pTarget == this) {
+            throw new IllegalArgumentException("cannot drain a deque into itself");
+        }
+        final int count = Math.min(Math.max(pMaxElements, 0), size());
+        final int mask = mask();
+        for (int i = 0; i < count; i++) {
+            pTarget.add((E) iElements[iHead]);
+            iElements[iHead] = null;
+            iHead = (iHead + 1) & mask;
+        }
+        if (count > 0) {
+            iModCount++;
+        }
+        return count;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Object[] toArray()
+    {
+        final Object[] result = new Object[size()];
+        copyTo(result);
+        return result;
+    }
+
+
+
+    /**
+     * Copy the elements from head to tail into the given array, which must be large enough.
+     *
+     * @param pTarget the target array
+     */
+    private void copyTo(@Nonnull final Object[] pTarget)
+    {
+        if (iHead <= iTail) {
+            System.arraycopy(iElements, iHead, pTarget, 0, iTail - iHead);
+        }
+        else {
+            final int headPart = iElements.length - iHead;
+            System.arraycopy(iElements, iHead, pTarget, 0, headPart);
+            System.arraycopy(iElements, 0, pTarget, headPart, iTail);
+        }
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Iterator<E> iterator()
+    {
+        return new DequeIterator(true);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Iterator<E> descendingIterator()
+    {
+        return new DequeIterator(false);
+    }
+
+
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public SerializableArrayDeque<E> clone()
+    {
+        try {
+            final SerializableArrayDeque<E> result = (SerializableArrayDeque<E>) super.clone();
+            result.iElements = iElements.clone();
+            result.iModCount = 0;
+            return result;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new InternalError(e.toString());
+        }
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        final int size = size();
+        pOut.writeInt(size);
+        final int mask = mask();
+        for (int i = iHead; i != iTail; i = (i + 1) & mask) {
+            pOut.writeObject(iElements[i]);
+        }
+        SerializationMonitor.writeFinished(this, size);
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        final int size = pIn.readInt();
+        if (size < 0 || size >= 1 << 30) {
+            throw new InvalidObjectException("invalid size: " + size);
+        }
+        iElements = new Object[capacityFor(size)];
+        for (int i = 0; i < size; i++) {
+            iElements[i] = pIn.readObject();
+            if (iElements[i] == null) {
+                throw new InvalidObjectException("null element");
+            }
+        }
+        iHead = 0;
+        iTail = size;
+        SerializationMonitor.readFinished(this, size);
+    }
+
+
+
+    /**
+     * Iterates over the buffer in either direction.
+     */
+    private final class DequeIterator
+        implements Iterator<E>
+    {
+        private final boolean iAscending;
+
+        /** buffer index of the next element */
+        private int iNext;
+
+        /** number of elements not returned yet */
+        private int iRemaining = size();
+
+        /** buffer index of the element last returned by {@link #next()}, or <code>-1</code> */
+        private int iLast = -1;
+
+        private int iExpectedModCount = iModCount;
+
+
+
+        DequeIterator(final boolean pAscending)
+        {
+            iAscending = pAscending;
+            iNext = pAscending ? iHead : (iTail - 1) & mask();
+        }
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iRemaining > 0;
+        }
+
+
+
+        @Override
+        @Nonnull
+        @SuppressWarnings("unchecked")
+        public E next()
+        {
+            if (iModCount != iExpectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (iRemaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            iLast = iNext;
+            iNext = (iAscending ? iNext + 1 : iNext - 1) & mask();
+            iRemaining--;
+            return (E) iElements[iLast];
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            if (iLast < 0) {
+                throw new IllegalStateException();
+            }
+            if (iModCount != iExpectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            delete(iLast);
+            if (iAscending) {
+                iNext = iLast;  // the following elements have moved one slot towards the head
+            }
+            iLast = -1;
+            iExpectedModCount = iModCount;
+        }
+    }
+}
@@ -0,0 +1,555 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A serializable map whose values are unique as well as its keys, so that it can be looked up in both directions.
+ * The {@link #inverse()} map is a live view, which maps the values back to the keys. It is created in constant time,
+ * and modifications of either map are visible in the other.
+ * <p/>
+ * Both directions are backed by a <code>HashMap</code>, so that all lookups take constant time. Keys and values may be
+ * <code>null</code>. {@link #put put()} throws an <code>IllegalArgumentException</code> if the value is already
+ * associated with a different key; use {@link #forcePut forcePut()} to replace that association instead. The key set,
+ * the values, and the entry set are live views as well. Removing elements from them removes the entries from both
+ * directions. When a view is serialized, a copy is written.
+ * <p/>
+ * The serialized form contains only one direction, namely the number of entries followed by each key and value. The
+ * reverse direction is rebuilt on deserialization. When the inverse map is serialized, it is written as a standalone
+ * map in its own direction.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public final class SerializableBiMap<K extends Serializable, V extends Serializable>
+    extends AbstractMap<K, V>
+    implements SerializableMap<K, V>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** maps the keys to the values */
+    private transient HashMap<K, V> iForward;
+
+    /** maps the values to the keys */
+    private transient HashMap<V, K> iBackward;
+
+    /** the inverse view, which shares the hash maps with this map, or <code>null</code> if not created yet */
+    private transient SerializableBiMap<V, K> iInverse;
+
+
+
+    /**
+     * Constructs a new, empty bidirectional map.
+     */
+    public SerializableBiMap()
+    {
+        this(new HashMap<K, V>(), new HashMap<V, K>(), null);
+    }
+
+
+
+    /**
+     * Constructs a new bidirectional map with the same mappings as the specified map.
+     *
+     * @param pMap the map whose mappings are to be placed in this map
+     * @throws IllegalArgumentException the map contains the same value more than once
+     */
+    public SerializableBiMap(@Nonnull final Map<? extends K, ? extends V> pMap)
+    {
+        this(new HashMap<K, V>(capacityFor(pMap.size())), new HashMap<V, K>(capacityFor(pMap.size())), null);
+        putAll(pMap);
+    }
+
+
+
+    private SerializableBiMap(@Nonnull final HashMap<K, V> pForward, @Nonnull final HashMap<V, K> pBackward,
+        @Nullable final SerializableBiMap<V, K> pInverse)
+    {
+        super();
+        iForward = pForward;
+        iBackward = pBackward;
+        iInverse = pInverse;
+    }
+
+
+
+    private static int capacityFor(final int pSize)
+    {
+        return Math.max((int) (pSize / 0.75f) + 1, 16);
+    }
+
+
+
+    private static boolean equal(@Nullable final Object pFirst, @Nullable final Object pSecond)
+    {
+        return pFirst == null ? pSecond == null : pFirst.equals(pSecond);
+    }
+
+
+
+    /**
+     * Returns the inverse view of this map, which maps each value to its key. The inverse of the inverse is this map.
+     *
+     * @return the inverse view
+     */
+    @Nonnull
+    public SerializableBiMap<V, K> inverse()
+    {
+        if (iInverse == null) {
+            iInverse = new SerializableBiMap<V, K>(iBackward, iForward, this);
+        }
+        return iInverse;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return iForward.size();
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        return iForward.isEmpty();
+    }
+
+
+
+    @Override
+    public boolean containsKey(@Nullable final Object pKey)
+    {
+        return iForward.containsKey(pKey);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * In contrast to other maps, this takes constant time.
+     */
+    @Override
+    public boolean containsValue(@Nullable final Object pValue)
+    {
+        return iBackward.containsKey(pValue);
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public V get(@Nullable final Object pKey)
+    {
+        return iForward.get(pKey);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException the value is already associated with a different key
+     */
+    @Override
+    @CheckForNull
+    public V put(@Nullable final K pKey, @Nullable final V pValue)
+    {
+        return put(pKey, pValue, false);
+    }
+
+
+
+    /**
+     * Associates the specified value with the specified key, removing any entry which has the same value but a
+     * different key.
+     *
+     * @param pKey key with which the specified value is to be associated
+     * @param pValue value to be associated with the specified key
+     * @return the previous value associated with the key, or <code>null</code> if there was none
+     */
+    @CheckForNull
+    public V forcePut(@Nullable final K pKey, @Nullable final V pValue)
+    {
+        return put(pKey, pValue, true);
+    }
+
+
+
+    @CheckForNull
+    private V put(@Nullable final K pKey, @Nullable final V pValue, final boolean pForce)
+    {
+        final boolean hasKey = iForward.containsKey(pKey);
+        if (hasKey && equal(iForward.get(pKey), pValue)) {
+            return pValue;
+        }
+        if (iBackward.containsKey(pValue)) {
+            if (!pForce) {
+                throw new IllegalArgumentException("value already present: " + pValue);
+            }
+            iForward.remove(iBackward.remove(pValue));
+        }
+        final V result = iForward.put(pKey, pValue);
+        if (hasKey) {
+            iBackward.remove(result);
+        }
+        iBackward.put(pValue, pKey);
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public V remove(@Nullable final Object pKey)
+    {
+        if (!iForward.containsKey(pKey)) {
+            return null;
+        }
+        final V result = iForward.remove(pKey);
+        iBackward.remove(result);
+        return result;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        iForward.clear();
+        iBackward.clear();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableSet<K> keySet()
+    {
+        return new KeySet();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Since the values are unique, the values are a set, which is the key set of the {@link #inverse()} view.
+     */
+    @Override
+    @Nonnull
+    public SerializableSet<V> values()
+    {
+        return inverse().keySet();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        return new EntrySet();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableBiMap<K, V> clone()
+    {
+        return new SerializableBiMap<K, V>(this);
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        pOut.writeInt(iForward.size());
+        for (final Map.Entry<K, V> entry : iForward.entrySet()) {
+            pOut.writeObject(entry.getKey());
+            pOut.writeObject(entry.getValue());
+        }
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        final int size = pIn.readInt();
+        if (size < 0) {
+            throw new InvalidObjectException("negative size: " + size);
+        }
+        iForward = new HashMap<K, V>(capacityFor(size));
+        iBackward = new HashMap<V, K>(capacityFor(size));
+        for (int i = 0; i < size; i++) {
+            final K key = (K) pIn.readObject();
+            final V value = (V) pIn.readObject();
+            if (iForward.containsKey(key)) {
+                throw new InvalidObjectException("duplicate key: " + key);
+            }
+            if (iBackward.containsKey(value)) {
+                throw new InvalidObjectException("duplicate value: " + value);
+            }
+            iForward.put(key, value);
+            iBackward.put(value, key);
+        }
+        SerializationMonitor.readFinished(this, size());
+    }
+
+
+
+    /**
+     * The live key set, which is serialized as a {@link SerializableHashSet}.
+     */
+    private final class KeySet
+        extends AbstractSet<K>
+        implements SerializableSet<K>
+    {
+        private static final long serialVersionUID = 1L;
+
+
+
+        @Override
+        public int size()
+        {
+            return iForward.size();
+        }
+
+
+
+        @Override
+        public boolean contains(@Nullable final Object pKey)
+        {
+            return iForward.containsKey(pKey);
+        }
+
+
+
+        @Override
+        public boolean remove(@Nullable final Object pKey)
+        {
+            if (!iForward.containsKey(pKey)) {
+                return false;
+            }
+            SerializableBiMap.this.remove(pKey);
+            return true;
+        }
+
+
+
+        @Override
+        public void clear()
+        {
+            SerializableBiMap.this.clear();
+        }
+
+
+
+        @Override
+        @Nonnull
+        public Iterator<K> iterator()
+        {
+            final Iterator<Map.Entry<K, V>> iter = new EntryIterator();
+            return new Iterator<K>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return iter.hasNext();
+                }
+
+
+
+                @Override
+                public K next()
+                {
+                    return iter.next().getKey();
+                }
+
+
+
+                @Override
+                public void remove()
+                {
+                    iter.remove();
+                }
+            };
+        }
+
+
+
+        private Object writeReplace()
+        {
+            return new SerializableHashSet<K>(this);
+        }
+    }
+
+
+
+    /**
+     * The live entry set.
+     */
+    private final class EntrySet
+        extends AbstractSet<Map.Entry<K, V>>
+    {
+        @Override
+        public int size()
+        {
+            return iForward.size();
+        }
+
+
+
+        @Override
+        public boolean contains(@Nullable final Object pObject)
+        {
+            if (!(pObject instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) pObject;
+            return iForward.containsKey(entry.getKey()) && equal(iForward.get(entry.getKey()), entry.getValue());
+        }
+
+
+
+        @Override
+        public boolean remove(@Nullable final Object pObject)
+        {
+            if (!contains(pObject)) {
+                return false;
+            }
+            SerializableBiMap.this.remove(((Map.Entry<?, ?>) pObject).getKey());
+            return true;
+        }
+
+
+
+        @Override
+        public void clear()
+        {
+            SerializableBiMap.this.clear();
+        }
+
+
+
+        @Override
+        @Nonnull
+        public Iterator<Map.Entry<K, V>> iterator()
+        {
+            return new EntryIterator();
+        }
+    }
+
+
+
+    /**
+     * Iterates over the entries of the forward map, keeping the backward map in sync on removal and on
+     * {@link Map.Entry#setValue setValue()}.
+     */
+    private final class EntryIterator
+        implements Iterator<Map.Entry<K, V>>
+    {
+        private final Iterator<Map.Entry<K, V>> iIter = iForward.entrySet().iterator();
+
+        private Map.Entry<K, V> iLast;
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iIter.hasNext();
+        }
+
+
+
+        @Override
+        @Nonnull
+        public Map.Entry<K, V> next()
+        {
+            final Map.Entry<K, V> entry = iIter.next();
+            iLast = entry;
+            return new SimpleEntry<K, V>(entry)
+            {
+                private static final long serialVersionUID = 1L;
+
+
+
+                @Override
+                public V setValue(final V pValue)
+                {
+                    final V oldValue = getValue();
+                    if (equal(oldValue, pValue)) {
+                        return oldValue;
+                    }
+                    if (iBackward.containsKey(pValue)) {
+                        throw new IllegalArgumentException("value already present: " + pValue);
+                    }
+                    entry.setValue(pValue);
+                    iBackward.remove(oldValue);
+                    iBackward.put(pValue, entry.getKey());
+                    return super.setValue(pValue);
+                }
+            };
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            if (iLast == null) {
+                throw new IllegalStateException();
+            }
+            iIter.remove();
+            iBackward.remove(iLast.getValue());
+            iLast = null;
+        }
+    }
+}
@@ -284,6 +284,50 @@ public final class SerializableCollections
 
 
 
+    /**
+     * Estimates the number of bytes which the given collection occupies when serialized, without actually serializing
+     * all of it. This is useful for deciding where a collection should be stored before it is written.
+     * <p/>
+     * The result is exact if the collection is small, or if all elements are strings, boxed primitives, enum
+     * constants, or <code>null</code>. Otherwise, the size of the remaining elements is extrapolated from a sample of
+     * them, which are serialized into a counting stream. Collections which serialize their elements in a form of
+     * their own, such as {@link SerializableRoaringBitmap} and {@link SerializableLazyArrayList}, are serialized
+     * completely into a counting stream.
+     *
+     * @param pCollection the collection
+     * @return the estimated number of bytes written by {@link java.io.ObjectOutputStream#writeObject} when the
+     * collection is the only object written to a new stream, including the stream header
+     * @throws IllegalArgumentException the collection or one of its elements turns out not to be serializable
+     */
+    public static long estimateSerializedSize(@Nonnull final SerializableCollection<?> pCollection)
+    {
+        return SerializedSizeEstimator.estimate(pCollection);
+    }
+
+
+
+    /**
+     * Estimates the number of bytes which the given map occupies when serialized, without actually serializing all of
+     * it. This is useful for deciding where a map should be stored before it is written.
+     * <p/>
+     * The result is exact if the map is small, or if all keys and values are strings, boxed primitives, enum
+     * constants, or <code>null</code>. Otherwise, the size of the remaining keys and values is extrapolated from a
+     * sample of them, which are serialized into a counting stream. Maps which write more than their keys and values,
+     * such as {@link SerializableExpiringMap}, or fewer, such as a {@link SerializableLruMap} with a serialized entry
+     * limit, are serialized completely into a counting stream.
+     *
+     * @param pMap the map
+     * @return the estimated number of bytes written by {@link java.io.ObjectOutputStream#writeObject} when the map is
+     * the only object written to a new stream, including the stream header
+     * @throws IllegalArgumentException the map or one of its keys or values turns out not to be serializable
+     */
+    public static long estimateSerializedSize(@Nonnull final SerializableMap<?, ?> pMap)
+    {
+        return SerializedSizeEstimator.estimate(pMap);
+    }
+
+
+
     private SerializableCollections()
     {
         super();
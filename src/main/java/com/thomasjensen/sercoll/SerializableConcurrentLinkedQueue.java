@@ -0,0 +1,121 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A serializable unbounded, non-blocking, thread-safe queue based on {@link ConcurrentLinkedQueue}. Serializing the
+ * queue does not stop producers or consumers: the elements are written while traversing the queue with a weakly
+ * consistent iterator, so the stream contains the elements in queue order, each of which was present at some point
+ * during serialization. Elements added or removed concurrently may or may not be included.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+public class SerializableConcurrentLinkedQueue<E extends Serializable>
+    extends ConcurrentLinkedQueue<E>
+    implements SerializableQueue<E>
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+
+
+    /**
+     * Constructs an empty queue.
+     */
+    public SerializableConcurrentLinkedQueue()
+    {
+        super();
+    }
+
+
+
+    /**
+     * Constructs a queue containing the elements of the specified collection, in the order in which they are returned
+     * by the collection's iterator.
+     *
+     * @param pCollection the collection whose elements are to be placed into the queue
+     */
+    public SerializableConcurrentLinkedQueue(@Nonnull final Collection<? extends E> pCollection)
+    {
+        super(pCollection);
+    }
+
+
+
+    @Override
+    public int drainTo(@Nonnull final Collection<? super E> pTarget)
+    {
+        return drainTo(pTarget, Integer.MAX_VALUE);
+    }
+
+
+
+    @Override
+    public int drainTo(@Nonnull final Collection<? super E> pTarget, final int pMaxElements)
+    {
+        if (pTarget == this) {
+            throw new IllegalArgumentException("cannot drain a queue into itself");
+        }
+        int count = 0;
+        E element;
+        while (count < pMaxElements && (element = poll()) != null) {
+            pTarget.add(element);
+            count++;
+        }
+        return count;
+    }
+
+
+
+    /**
+     * Notifies the {@link SerializationMonitor} that this collection is about to be written. Subclasses which
+     * override this method should call it.
+     *
+     * @return this collection
+     */
+    protected Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        // size() traverses the queue, so count only if somebody is listening
+        SerializationMonitor.writeFinished(this, SerializationMonitor.isEnabled() ? size() : 0);
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, SerializationMonitor.isEnabled() ? size() : 0);
+    }
+}
@@ -13,14 +13,23 @@ package com.thomasjensen.sercoll;
  * the specific language governing permissions and limitations under the License.
  */
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.EnumMap;
+import java.util.Iterator;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 
 
 /**
  * Same as an {@link EnumMap}, except that this class promises to be fully serializable.
+ * <p/>
+ * The map is written in the serialized form of <code>EnumMap</code>, so values may refer back to the map.
  *
  * @author Thomas Jensen
  * @param <K> key type
@@ -33,6 +42,10 @@ public class SerializableEnumMap<K extends Enum<K>, V extends Serializable>
     /** serialVersionUID */
     private static final long serialVersionUID = 1L;
 
+    /** the class object of the key type, which <code>EnumMap</code> does not expose; lazy after deserialization */
+    @CheckForNull
+    private transient Class<K> iKeyType;
+
 
 
     /**
@@ -44,6 +57,7 @@ public class SerializableEnumMap<K extends Enum<K>, V extends Serializable>
     public SerializableEnumMap(@Nonnull final Class<K> pKeyType)
     {
         super(pKeyType);
+        iKeyType = pKeyType;
     }
 
 
@@ -58,6 +72,40 @@ public class SerializableEnumMap<K extends Enum<K>, V extends Serializable>
     public SerializableEnumMap(@Nonnull final EnumMap<K, V> pMap)
     {
         super(pMap);
+        iKeyType = keyTypeOf(pMap);
+    }
+
+
+
+    /**
+     * Determine the key type of an enum map.
+     *
+     * @param pMap an enum map
+     * @param <K> key type
+     * @return the class object of the key type
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private static <K extends Enum<K>> Class<K> keyTypeOf(@Nonnull final EnumMap<K, ?> pMap)
+    {
+        if (pMap instanceof SerializableEnumMap && ((SerializableEnumMap<K, ?>) pMap).iKeyType != null) {
+            return ((SerializableEnumMap<K, ?>) pMap).iKeyType;
+        }
+        if (!pMap.isEmpty()) {
+            return pMap.entrySet().iterator().next().getKey().getDeclaringClass();
+        }
+
+        // An empty EnumMap reveals its key type only in its serialized form. Only writing is needed, so no class
+        // is ever resolved by name.
+        try {
+            final KeyTypeWriter writer = new KeyTypeWriter(new ByteArrayOutputStream());
+            writer.writeObject(new EnumMap<K, Object>(pMap));
+            writer.close();
+            return (Class<K>) writer.getKeyType();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("failed to determine key type of empty EnumMap", e);
+        }
     }
 
 
@@ -71,11 +119,30 @@ public class SerializableEnumMap<K extends Enum<K>, V extends Serializable>
 
 
 
+    /**
+     * Returns a live view of the keys of this map, which is backed by the map like the key set of an
+     * <code>EnumMap</code>. The view supports the bitwise bulk operations of a {@link SerializableEnumSet}, but as
+     * it computes its bit vector from the map for each bulk operation, these take time linear in the size of the map.
+     * When it is serialized, a copy of the keys is written.
+     *
+     * @return the key set
+     */
     @Override
     @Nonnull
-    public SerializableSet<K> keySet()
+    public SerializableEnumSet<K> keySet()
     {
-        return new SerializableHashSet<K>(super.keySet());
+        if (iKeyType == null) {
+            iKeyType = keyTypeOf(this);
+        }
+        return new SerializableEnumMapKeySet<K>(this, iKeyType);
+    }
+
+
+
+    @Nonnull
+    Iterator<K> keyIterator()
+    {
+        return super.keySet().iterator();
     }
 
 
@@ -86,4 +153,74 @@ public class SerializableEnumMap<K extends Enum<K>, V extends Serializable>
     {
         return new SerializableArrayList<V>(super.values());
     }
+
+
+
+    /**
+     * Notifies the {@link SerializationMonitor} that this collection is about to be written. Subclasses which
+     * override this method should call it.
+     *
+     * @return this collection
+     */
+    protected Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, size());
+    }
+
+
+
+    /**
+     * Writes an <code>EnumMap</code> and remembers the first enum class it encounters, which is the key type.
+     */
+    private static final class KeyTypeWriter
+        extends ObjectOutputStream
+    {
+        private Class<?> iKeyType = null;
+
+
+
+        KeyTypeWriter(@Nonnull final OutputStream pOut)
+            throws IOException
+        {
+            super(pOut);
+        }
+
+
+
+        @Override
+        protected void annotateClass(final Class<?> pClass)
+            throws IOException
+        {
+            if (iKeyType == null && pClass.isEnum()) {
+                iKeyType = pClass;
+            }
+        }
+
+
+
+        @CheckForNull
+        Class<?> getKeyType()
+        {
+            return iKeyType;
+        }
+    }
 }
@@ -0,0 +1,140 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.Iterator;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * The live key set of a {@link SerializableEnumMap}. Changes to the map are visible in the set, and removing keys
+ * from the set removes them from the map. Adding keys is not supported. The bit vector for the bulk operations is
+ * computed from the map for each operation, so unlike in a {@link SerializableEnumSet}, they take time linear in the
+ * size of the map. A view is serialized as a copy, which is a plain {@link SerializableEnumSet}.
+ *
+ * @param <K> key type
+ * @author Thomas Jensen
+ */
+final class SerializableEnumMapKeySet<K extends Enum<K>>
+    extends SerializableEnumSet<K>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final SerializableEnumMap<K, ?> iMap;
+
+
+
+    SerializableEnumMapKeySet(@Nonnull final SerializableEnumMap<K, ?> pMap, @Nonnull final Class<K> pKeyType)
+    {
+        super(pKeyType, false);
+        iMap = pMap;
+    }
+
+
+
+    @Override
+    @Nonnull
+    long[] words()
+    {
+        final long[] result = new long[wordCount()];
+        final Iterator<K> iter = iMap.keyIterator();
+        while (iter.hasNext()) {
+            final int ordinal = iter.next().ordinal();
+            result[ordinal / Long.SIZE] |= 1L << ordinal;
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return iMap.size();
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        return iMap.isEmpty();
+    }
+
+
+
+    @Override
+    public boolean contains(@Nullable final Object pObject)
+    {
+        return iMap.containsKey(pObject);
+    }
+
+
+
+    @Override
+    public boolean add(@Nonnull final K pElement)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    public boolean remove(@Nullable final Object pObject)
+    {
+        final int oldSize = iMap.size();
+        iMap.remove(pObject);
+        return iMap.size() != oldSize;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        iMap.clear();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Iterator<K> iterator()
+    {
+        return iMap.keyIterator();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableEnumSet<K> clone()
+    {
+        return new SerializableEnumSet<K>(this);
+    }
+
+
+
+    /**
+     * Replaces the view with a copy of the keys. The copy notifies the {@link SerializationMonitor}.
+     *
+     * @return a copy of this set
+     */
+    @Override
+    protected Object writeReplace()
+    {
+        return new SerializableEnumSet<K>(this);
+    }
+}
@@ -0,0 +1,547 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A serializable set of enum constants, similar to {@link java.util.EnumSet}.
+ * <p/>
+ * The set is a bit vector: the element with ordinal <i>i</i> is present if bit <i>i</i> is set. An enum with up to 64
+ * constants needs a single <code>long</code>. <code>contains()</code>, <code>add()</code>, and <code>remove()</code>
+ * take constant time. When the argument is a <code>SerializableEnumSet</code> of the same enum,
+ * <code>containsAll()</code>, <code>addAll()</code>, <code>removeAll()</code>, <code>retainAll()</code>, and
+ * <code>equals()</code> are bitwise operations on whole words. Iterators return the elements in ordinal order; they
+ * are not fail-fast.
+ * <p/>
+ * The serialized form is the enum class and the bit vector, so its size does not depend on the number of elements.
+ * Elements are identified by their ordinals, so constants may be added to the end of the enum without breaking
+ * serialized sets, but they must not be reordered or removed.
+ *
+ * @param <E> enum type
+ * @author Thomas Jensen
+ * @see SerializableEnumMap#keySet()
+ */
+public class SerializableEnumSet<E extends Enum<E>>
+    extends AbstractSet<E>
+    implements SerializableSet<E>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** log2 of the number of bits in a <code>long</code> */
+    private static final int WORD_SHIFT = 6;
+
+    /** the enum class */
+    private final Class<E> iElementType;
+
+    /** the elements as a bit vector indexed by ordinal; <code>null</code> in views which keep them elsewhere */
+    private long[] iBits;
+
+    /** the constants of the enum, indexed by ordinal */
+    private transient E[] iUniverse;
+
+
+
+    /**
+     * Constructs an empty set.
+     *
+     * @param pElementType the class object of the element type
+     * @throws NullPointerException if <tt>pElementType</tt> is null
+     * @throws IllegalArgumentException if <tt>pElementType</tt> is not an enum class
+     */
+    public SerializableEnumSet(@Nonnull final Class<E> pElementType)
+    {
+        this(pElementType, true);
+    }
+
+
+
+    /**
+     * Constructs a set containing the elements of the given collection.
+     *
+     * @param pElementType the class object of the element type
+     * @param pCollection the elements
+     * @throws NullPointerException if one of the arguments or one of the elements is null
+     * @throws IllegalArgumentException if <tt>pElementType</tt> is not an enum class
+     */
+    public SerializableEnumSet(@Nonnull final Class<E> pElementType, @Nonnull final Collection<? extends E> pCollection)
+    {
+        this(pElementType, true);
+        addAll(pCollection);
+    }
+
+
+
+    /**
+     * Constructs a set with the same element type and elements as the given set.
+     *
+     * @param pSet the set to copy
+     * @throws NullPointerException if <tt>pSet</tt> is null
+     */
+    public SerializableEnumSet(@Nonnull final SerializableEnumSet<E> pSet)
+    {
+        super();
+        iElementType = pSet.iElementType;
+        iUniverse = pSet.iUniverse;
+        iBits = pSet.words().clone();
+    }
+
+
+
+    /**
+     * Constructor for views, which keep their elements elsewhere and override all methods which access them.
+     *
+     * @param pElementType the class object of the element type
+     * @param pHasBits <code>false</code> if the set is a view
+     */
+    SerializableEnumSet(@Nonnull final Class<E> pElementType, final boolean pHasBits)
+    {
+        super();
+        iElementType = pElementType;
+        iUniverse = universe(pElementType);
+        iBits = pHasBits ? new long[wordCount()] : null;
+    }
+
+
+
+    /**
+     * Creates a set containing all constants of the given enum.
+     *
+     * @param pElementType the class object of the element type
+     * @param <E> enum type
+     * @return a new set
+     * @throws NullPointerException if <tt>pElementType</tt> is null
+     * @throws IllegalArgumentException if <tt>pElementType</tt> is not an enum class
+     */
+    @Nonnull
+    public static <E extends Enum<E>> SerializableEnumSet<E> allOf(@Nonnull final Class<E> pElementType)
+    {
+        final SerializableEnumSet<E> result = new SerializableEnumSet<E>(pElementType);
+        for (int i = 0; i < result.iUniverse.length; i++) {
+            result.iBits[i >>> WORD_SHIFT] |= 1L << i;
+        }
+        return result;
+    }
+
+
+
+    @Nonnull
+    private static <E extends Enum<E>> E[] universe(@Nonnull final Class<E> pElementType)
+    {
+        final E[] result = pElementType.getEnumConstants();
+        if (result == null) {
+            throw new IllegalArgumentException("not an enum class: " + pElementType.getName());
+        }
+        return result;
+    }
+
+
+
+    final int wordCount()
+    {
+        return (iUniverse.length + Long.SIZE - 1) >>> WORD_SHIFT;
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the class object of the element type
+     */
+    @Nonnull
+    public Class<E> getElementType()
+    {
+        return iElementType;
+    }
+
+
+
+    /**
+     * Returns the elements as a bit vector indexed by ordinal, with {@link #wordCount()} words. The array must not be
+     * modified.
+     *
+     * @return the bit vector
+     */
+    @Nonnull
+    long[] words()
+    {
+        return iBits;
+    }
+
+
+
+    /**
+     * Returns the bit vector of the given collection, if it is a set of the same enum.
+     *
+     * @param pCollection a collection
+     * @return the bit vector, or <code>null</code> if the bulk operation must look at the elements one by one
+     */
+    @CheckForNull
+    private long[] wordsOf(@Nonnull final Collection<?> pCollection)
+    {
+        if (pCollection instanceof SerializableEnumSet
+            && ((SerializableEnumSet<?>) pCollection).iElementType == iElementType)
+        {
+            return ((SerializableEnumSet<?>) pCollection).words();
+        }
+        return null;
+    }
+
+
+
+    /**
+     * Determine the ordinal of the given object, if it is a constant of the element type.
+     *
+     * @param pObject an object
+     * @return the ordinal, or -1 if the object cannot be an element of this set
+     */
+    final int ordinalOf(@Nullable final Object pObject)
+    {
+        if (pObject == null) {
+            return -1;
+        }
+        final Class<?> clazz = pObject.getClass();
+        if (clazz != iElementType && clazz.getSuperclass() != iElementType) {
+            return -1;
+        }
+        return ((Enum<?>) pObject).ordinal();
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        int result = 0;
+        for (final long word : iBits) {
+            result += Long.bitCount(word);
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (final long word : iBits) {
+            if (word != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    @Override
+    public boolean contains(@Nullable final Object pObject)
+    {
+        final int ordinal = ordinalOf(pObject);
+        return ordinal >= 0 && (iBits[ordinal >>> WORD_SHIFT] & (1L << ordinal)) != 0L;
+    }
+
+
+
+    @Override
+    public boolean add(@Nonnull final E pElement)
+    {
+        final int ordinal = ordinalOf(pElement);
+        if (ordinal < 0) {
+            if (pElement == null) {
+                throw new NullPointerException("pElement was null");
+            }
+            throw new ClassCastException(pElement.getClass() + " != " + iElementType);
+        }
+        final long before = iBits[ordinal >>> WORD_SHIFT];
+        iBits[ordinal >>> WORD_SHIFT] = before | (1L << ordinal);
+        return iBits[ordinal >>> WORD_SHIFT] != before;
+    }
+
+
+
+    @Override
+    public boolean remove(@Nullable final Object pObject)
+    {
+        final int ordinal = ordinalOf(pObject);
+        if (ordinal < 0) {
+            return false;
+        }
+        final long before = iBits[ordinal >>> WORD_SHIFT];
+        iBits[ordinal >>> WORD_SHIFT] = before & ~(1L << ordinal);
+        return iBits[ordinal >>> WORD_SHIFT] != before;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        Arrays.fill(iBits, 0L);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Iterator<E> iterator()
+    {
+        return new BitIterator();
+    }
+
+
+
+    @Override
+    public boolean containsAll(@Nonnull final Collection<?> pCollection)
+    {
+        final long[] other = wordsOf(pCollection);
+        if (other == null) {
+            return super.containsAll(pCollection);
+        }
+        final long[] words = words();
+        for (int i = 0; i < words.length; i++) {
+            if ((other[i] & ~words[i]) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    @Override
+    public boolean addAll(@Nonnull final Collection<? extends E> pCollection)
+    {
+        final long[] other = wordsOf(pCollection);
+        if (other == null || iBits == null) {
+            return super.addAll(pCollection);
+        }
+        boolean result = false;
+        for (int i = 0; i < iBits.length; i++) {
+            final long before = iBits[i];
+            iBits[i] = before | other[i];
+            result |= iBits[i] != before;
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public boolean removeAll(@Nonnull final Collection<?> pCollection)
+    {
+        final long[] other = wordsOf(pCollection);
+        if (other == null || iBits == null) {
+            return super.removeAll(pCollection);
+        }
+        boolean result = false;
+        for (int i = 0; i < iBits.length; i++) {
+            final long before = iBits[i];
+            iBits[i] = before & ~other[i];
+            result |= iBits[i] != before;
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public boolean retainAll(@Nonnull final Collection<?> pCollection)
+    {
+        final long[] other = wordsOf(pCollection);
+        if (other == null || iBits == null) {
+            return super.retainAll(pCollection);
+        }
+        boolean result = false;
+        for (int i = 0; i < iBits.length; i++) {
+            final long before = iBits[i];
+            iBits[i] = before & other[i];
+            result |= iBits[i] != before;
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public boolean equals(@Nullable final Object pOther)
+    {
+        if (pOther instanceof Collection) {
+            final long[] other = wordsOf((Collection<?>) pOther);
+            if (other != null) {
+                return Arrays.equals(words(), other);
+            }
+        }
+        return super.equals(pOther);
+    }
+
+
+
+    @Override
+    public int hashCode()
+    {
+        return super.hashCode();  // sum of the hash codes of the elements, as required by Set
+    }
+
+
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public SerializableEnumSet<E> clone()
+    {
+        try {
+            final SerializableEnumSet<E> result = (SerializableEnumSet<E>) super.clone();
+            result.iBits = iBits.clone();
+            return result;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new InternalError(e.getMessage());  // cannot happen, we are Cloneable
+        }
+    }
+
+
+
+    /**
+     * Notifies the {@link SerializationMonitor} that this collection is about to be written. Subclasses which
+     * override this method should call it.
+     *
+     * @return this collection
+     */
+    protected Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        if (iElementType == null || iBits == null) {
+            throw new InvalidObjectException("element type or bits missing");
+        }
+        try {
+            iUniverse = universe(iElementType);
+        }
+        catch (IllegalArgumentException e) {
+            throw new InvalidObjectException(e.getMessage());
+        }
+        // constants may have been added to the enum since the set was written, but not removed
+        for (int i = iUniverse.length; i < iBits.length * Long.SIZE; i++) {
+            if ((iBits[i >>> WORD_SHIFT] & (1L << i)) != 0L) {
+                throw new InvalidObjectException("no constant with ordinal " + i + " in " + iElementType.getName());
+            }
+        }
+        iBits = Arrays.copyOf(iBits, wordCount());
+        SerializationMonitor.readFinished(this, size());
+    }
+
+
+
+    /**
+     * Iterates over the set bits in ordinal order.
+     */
+    private final class BitIterator
+        implements Iterator<E>
+    {
+        private int iNext;
+
+        private int iLast = -1;
+
+
+
+        BitIterator()
+        {
+            iNext = nextOrdinal(0);
+        }
+
+
+
+        private int nextOrdinal(final int pFrom)
+        {
+            int wordIndex = pFrom >>> WORD_SHIFT;
+            if (wordIndex >= iBits.length) {
+                return -1;
+            }
+            long word = iBits[wordIndex] & (-1L << pFrom);
+            while (word == 0L) {
+                wordIndex++;
+                if (wordIndex == iBits.length) {
+                    return -1;
+                }
+                word = iBits[wordIndex];
+            }
+            return (wordIndex << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+        }
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iNext >= 0;
+        }
+
+
+
+        @Override
+        public E next()
+        {
+            if (iNext < 0) {
+                throw new NoSuchElementException();
+            }
+            iLast = iNext;
+            iNext = nextOrdinal(iNext + 1);
+            return iUniverse[iLast];
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            if (iLast < 0) {
+                throw new IllegalStateException();
+            }
+            iBits[iLast >>> WORD_SHIFT] &= ~(1L << iLast);
+            iLast = -1;
+        }
+    }
+}
@@ -0,0 +1,640 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A serializable map whose entries expire after a time to live.
+ * <p/>
+ * Every entry has its own time to live, which is given to {@link #put(Serializable, Serializable, long) put()}, or
+ * the default time to live of the map. Expired entries are invisible to all operations. They are removed
+ * incrementally by a hierarchical timer wheel, which is advanced on every operation of the map, so there is never a
+ * scan of all entries. The wheel has five levels of 64 slots each, with a resolution of one millisecond on the lowest
+ * level. An entry is moved to a lower level when its slot on a higher level comes due, so every entry is touched at
+ * most a few times before it expires. When the map is not used for a while, {@link #cleanUp()} can be called to
+ * release expired entries.
+ * <p/>
+ * The expiry times are absolute times of the system clock. They are serialized along with the entries, so that
+ * entries keep their expiry times across serialization. Entries which are already expired when the map is written
+ * are not written, and entries which expired in the meantime are dropped when the map is read.
+ * <p/>
+ * Like in {@link SerializableHashMap}, the key set and the values are serializable copies. The entries of the entry
+ * set are immutable, but entries may be removed via its iterator.
+ * <p/>
+ * <b>Caution:</b> This map modifies its internal state on every access, including <code>get()</code>. Concurrent
+ * access must always be synchronized externally, even if all threads only read.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public final class SerializableExpiringMap<K extends Serializable, V extends Serializable>
+    extends AbstractMap<K, V>
+    implements SerializableMap<K, V>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** number of levels of the timer wheel */
+    private static final int LEVELS = 5;
+
+    /** number of bits of a time covered by the slots of one level */
+    private static final int SLOT_BITS = 6;
+
+    /** number of slots per level */
+    private static final int WHEEL_SIZE = 1 << SLOT_BITS;
+
+    private static final int SLOT_MASK = WHEEL_SIZE - 1;
+
+    /** slot number of an entry which is not in the timer wheel */
+    private static final int UNSCHEDULED = -1;
+
+    /** the time to live of entries added by {@link #put(Serializable, Serializable)}, in milliseconds */
+    private final long iDefaultTtl;
+
+    private final Clock iClock;
+
+    private transient HashMap<K, Node<K, V>> iEntries;
+
+    /** the first entry of each slot of the timer wheel, level by level */
+    private transient Node<K, V>[] iSlots;
+
+    /** the time up to which the timer wheel has been advanced */
+    private transient long iCurrentTime;
+
+
+
+    /**
+     * Constructs an empty map.
+     *
+     * @param pDefaultTtl the time to live of entries which are added without giving a time to live, in milliseconds
+     * @throws IllegalArgumentException the time to live is not positive
+     */
+    public SerializableExpiringMap(final long pDefaultTtl)
+    {
+        this(pDefaultTtl, SystemClock.INSTANCE);
+    }
+
+
+
+    SerializableExpiringMap(final long pDefaultTtl, @Nonnull final Clock pClock)
+    {
+        super();
+        checkTtl(pDefaultTtl);
+        iDefaultTtl = pDefaultTtl;
+        iClock = pClock;
+        init();
+    }
+
+
+
+    private void init()
+    {
+        iEntries = new HashMap<K, Node<K, V>>();
+        iSlots = newSlots();
+        iCurrentTime = iClock.currentTimeMillis();
+    }
+
+
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V>[] newSlots()
+    {
+        return (Node<K, V>[]) new Node<?, ?>[LEVELS * WHEEL_SIZE];
+    }
+
+
+
+    private static void checkTtl(final long pTtl)
+    {
+        if (pTtl <= 0) {
+            throw new IllegalArgumentException("time to live must be positive: " + pTtl);
+        }
+    }
+
+
+
+    public long getDefaultTtl()
+    {
+        return iDefaultTtl;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        cleanUp();
+        return iEntries.size();
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public V get(@Nullable final Object pKey)
+    {
+        final Node<K, V> node = getNode(pKey);
+        return node != null ? node.iValue : null;
+    }
+
+
+
+    @Override
+    public boolean containsKey(@Nullable final Object pKey)
+    {
+        return getNode(pKey) != null;
+    }
+
+
+
+    @CheckForNull
+    private Node<K, V> getNode(@Nullable final Object pKey)
+    {
+        cleanUp();
+        return iEntries.get(pKey);
+    }
+
+
+
+    /**
+     * Returns the time when the entry for the given key expires.
+     *
+     * @param pKey the key
+     * @return the expiry time in milliseconds since the epoch, or <code>0</code> if the map does not contain the key
+     */
+    public long getExpiryTime(@Nullable final Object pKey)
+    {
+        final Node<K, V> node = getNode(pKey);
+        return node != null ? node.iDeadline : 0L;
+    }
+
+
+
+    /**
+     * Associates the specified value with the specified key in this map, using the default time to live of the map.
+     *
+     * @param pKey key with which the specified value is to be associated
+     * @param pValue value to be associated with the specified key
+     * @return the previous value associated with <code>pKey</code>, or <code>null</code> if there was no mapping
+     */
+    @Override
+    @CheckForNull
+    public V put(@Nullable final K pKey, @Nullable final V pValue)
+    {
+        return put(pKey, pValue, iDefaultTtl);
+    }
+
+
+
+    /**
+     * Associates the specified value with the specified key in this map. The entry expires after the given time.
+     *
+     * @param pKey key with which the specified value is to be associated
+     * @param pValue value to be associated with the specified key
+     * @param pTtl the time to live of the entry, in milliseconds
+     * @return the previous value associated with <code>pKey</code>, or <code>null</code> if there was no mapping
+     * @throws IllegalArgumentException the time to live is not positive
+     */
+    @CheckForNull
+    public V put(@Nullable final K pKey, @Nullable final V pValue, final long pTtl)
+    {
+        checkTtl(pTtl);
+        cleanUp();
+        final long deadline = iCurrentTime + Math.min(pTtl, Long.MAX_VALUE - iCurrentTime);
+        Node<K, V> node = iEntries.get(pKey);
+        V result = null;
+        if (node == null) {
+            node = new Node<K, V>(pKey);
+            iEntries.put(pKey, node);
+        }
+        else {
+            result = node.iValue;
+            unschedule(node);
+        }
+        node.iValue = pValue;
+        node.iDeadline = deadline;
+        schedule(node);
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public V remove(@Nullable final Object pKey)
+    {
+        cleanUp();
+        final Node<K, V> node = iEntries.remove(pKey);
+        if (node == null) {
+            return null;
+        }
+        unschedule(node);
+        return node.iValue;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        iEntries.clear();
+        iSlots = newSlots();
+    }
+
+
+
+    /**
+     * Remove the entries which have expired by now. This happens automatically on every operation of the map, so
+     * calling this method is only necessary in order to release the memory of expired entries while the map is not
+     * used.
+     */
+    public void cleanUp()
+    {
+        advance(iClock.currentTimeMillis());
+    }
+
+
+
+    /**
+     * Advance the timer wheel to the given time, expiring all entries which are due. Afterwards, the map contains no
+     * expired entries, because every entry is in a slot which comes due before or at its expiry time.
+     *
+     * @param pNow the current time
+     */
+    private void advance(final long pNow)
+    {
+        final long previous = iCurrentTime;
+        if (pNow <= previous) {
+            return;  // no time passed, or the clock was set back
+        }
+        iCurrentTime = pNow;
+        for (int level = 0; level < LEVELS; level++) {
+            final int shift = level * SLOT_BITS;
+            final long previousTicks = previous >>> shift;
+            final long currentTicks = pNow >>> shift;
+            if (currentTicks == previousTicks) {
+                break;  // the higher levels did not move either
+            }
+            final long ticks = Math.min(currentTicks - previousTicks, WHEEL_SIZE);
+            for (long t = 1; t <= ticks; t++) {
+                expireSlot(level * WHEEL_SIZE + (int) ((previousTicks + t) & SLOT_MASK));
+            }
+        }
+    }
+
+
+
+    private void expireSlot(final int pSlot)
+    {
+        Node<K, V> node = iSlots[pSlot];
+        iSlots[pSlot] = null;
+        while (node != null) {
+            final Node<K, V> next = node.iNext;
+            node.iPrevious = null;
+            node.iNext = null;
+            node.iSlot = UNSCHEDULED;
+            if (node.iDeadline <= iCurrentTime) {
+                iEntries.remove(node.iKey);
+            }
+            else {
+                schedule(node);
+            }
+            node = next;
+        }
+    }
+
+
+
+    /**
+     * Put an entry in the slot which comes due before or at its deadline, on the lowest level which covers the time
+     * until then.
+     *
+     * @param pNode the entry, which must not be scheduled already
+     */
+    private void schedule(@Nonnull final Node<K, V> pNode)
+    {
+        final long delta = pNode.iDeadline - iCurrentTime;
+        int level = 0;
+        while (level < LEVELS - 1 && (delta >>> ((level + 1) * SLOT_BITS)) != 0) {
+            level++;
+        }
+        final int slot = level * WHEEL_SIZE + (int) ((pNode.iDeadline >>> (level * SLOT_BITS)) & SLOT_MASK);
+        final Node<K, V> head = iSlots[slot];
+        pNode.iSlot = slot;
+        pNode.iNext = head;
+        if (head != null) {
+            head.iPrevious = pNode;
+        }
+        iSlots[slot] = pNode;
+    }
+
+
+
+    private void unschedule(@Nonnull final Node<K, V> pNode)
+    {
+        if (pNode.iSlot == UNSCHEDULED) {
+            return;
+        }
+        if (pNode.iPrevious != null) {
+            pNode.iPrevious.iNext = pNode.iNext;
+        }
+        else {
+            iSlots[pNode.iSlot] = pNode.iNext;
+        }
+        if (pNode.iNext != null) {
+            pNode.iNext.iPrevious = pNode.iPrevious;
+        }
+        pNode.iPrevious = null;
+        pNode.iNext = null;
+        pNode.iSlot = UNSCHEDULED;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The entry set is a view which skips expired entries. Its entries are immutable.
+     */
+    @Override
+    @Nonnull
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<K, V>>()
+        {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator()
+            {
+                cleanUp();
+                return new EntryIterator();
+            }
+
+
+
+            @Override
+            public int size()
+            {
+                return SerializableExpiringMap.this.size();
+            }
+
+
+
+            @Override
+            public void clear()
+            {
+                SerializableExpiringMap.this.clear();
+            }
+        };
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableSet<K> keySet()
+    {
+        final SerializableHashSet<K> result = new SerializableHashSet<K>();
+        for (final Map.Entry<K, V> entry : entrySet()) {
+            result.add(entry.getKey());
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableCollection<V> values()
+    {
+        final SerializableArrayList<V> result = new SerializableArrayList<V>();
+        for (final Map.Entry<K, V> entry : entrySet()) {
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public SerializableExpiringMap<K, V> clone()
+    {
+        try {
+            final SerializableExpiringMap<K, V> result = (SerializableExpiringMap<K, V>) super.clone();
+            result.init();
+            for (final Node<K, V> node : iEntries.values()) {
+                if (node.iDeadline > result.iCurrentTime) {
+                    result.insert(node.iKey, node.iValue, node.iDeadline);
+                }
+            }
+            return result;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new InternalError(e.getMessage());  // cannot happen, we are Cloneable
+        }
+    }
+
+
+
+    private void insert(@Nullable final K pKey, @Nullable final V pValue, final long pDeadline)
+    {
+        final Node<K, V> node = new Node<K, V>(pKey);
+        node.iValue = pValue;
+        node.iDeadline = pDeadline;
+        iEntries.put(pKey, node);
+        schedule(node);
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        final long now = iClock.currentTimeMillis();
+        int count = 0;
+        for (final Node<K, V> node : iEntries.values()) {
+            if (node.iDeadline > now) {
+                count++;
+            }
+        }
+        pOut.writeInt(count);
+        for (final Node<K, V> node : iEntries.values()) {
+            if (node.iDeadline > now) {
+                pOut.writeObject(node.iKey);
+                pOut.writeObject(node.iValue);
+                pOut.writeLong(node.iDeadline);
+            }
+        }
+        SerializationMonitor.writeFinished(this, count);
+    }
+
+
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        if (iDefaultTtl <= 0 || iClock == null) {
+            throw new InvalidObjectException("invalid default time to live or clock");
+        }
+        final int count = pIn.readInt();
+        if (count < 0) {
+            throw new InvalidObjectException("negative size: " + count);
+        }
+        init();
+        for (int i = 0; i < count; i++) {
+            final K key = (K) pIn.readObject();
+            final V value = (V) pIn.readObject();
+            final long deadline = pIn.readLong();
+            if (deadline > iCurrentTime) {
+                insert(key, value, deadline);
+            }
+        }
+        SerializationMonitor.readFinished(this, iEntries.size());
+    }
+
+
+
+    /**
+     * The source of the current time. Replaceable for testing.
+     */
+    interface Clock
+        extends Serializable
+    {
+        /**
+         * Getter.
+         *
+         * @return the current time in milliseconds since the epoch
+         */
+        long currentTimeMillis();
+    }
+
+
+
+    /**
+     * The system clock.
+     */
+    private enum SystemClock
+        implements Clock
+    {
+        /** the singleton instance */
+        INSTANCE;
+
+
+
+        @Override
+        public long currentTimeMillis()
+        {
+            return System.currentTimeMillis();
+        }
+    }
+
+
+
+    /**
+     * An entry of the map, which is also a member of a doubly linked list of the entries in a slot of the timer wheel.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class Node<K, V>
+    {
+        private final K iKey;
+
+        private V iValue;
+
+        /** the time when the entry expires */
+        private long iDeadline;
+
+        private int iSlot = UNSCHEDULED;
+
+        private Node<K, V> iPrevious;
+
+        private Node<K, V> iNext;
+
+
+
+        Node(@Nullable final K pKey)
+        {
+            iKey = pKey;
+        }
+    }
+
+
+
+    /**
+     * Iterates over the entries. It is created right after the timer wheel was advanced, so that no entry is expired.
+     */
+    private final class EntryIterator
+        implements Iterator<Map.Entry<K, V>>
+    {
+        private final Iterator<Node<K, V>> iDelegate = iEntries.values().iterator();
+
+        private Node<K, V> iLastNode = null;
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iDelegate.hasNext();
+        }
+
+
+
+        @Override
+        public Map.Entry<K, V> next()
+        {
+            iLastNode = iDelegate.next();
+            return new AbstractMap.SimpleImmutableEntry<K, V>(iLastNode.iKey, iLastNode.iValue);
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            iDelegate.remove();
+            unschedule(iLastNode);
+            iLastNode = null;
+        }
+    }
+}
@@ -13,6 +13,9 @@ package com.thomasjensen.sercoll;
  * the specific language governing permissions and limitations under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
@@ -111,4 +114,36 @@ public class SerializableHashMap<K extends Serializable, V extends Serializable>
     {
         return new SerializableArrayList<V>(super.values());
     }
+
+
+
+    /**
+     * Notifies the {@link SerializationMonitor} that this collection is about to be written. Subclasses which
+     * override this method should call it.
+     *
+     * @return this collection
+     */
+    protected Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, size());
+    }
 }
@@ -0,0 +1,814 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A read-only sorted map which answers queries from the indexed format written by {@link #write write()} or
+ * {@link SerializableTreeMap#writeIndexed}, without deserializing the entire map.
+ * <p/>
+ * The indexed format stores the entries in key order, in blocks of a fixed number of entries. Each block is
+ * serialized separately. At the end of the data, a sparse index lists the first key and the offset of each block, so
+ * that {@link #get get()}, {@link #containsKey containsKey()}, {@link #ceilingKey ceilingKey()},
+ * {@link #floorKey floorKey()} and {@link #subMap subMap()} only deserialize the index and the blocks which may
+ * contain the requested keys. Opening a map deserializes only the index.
+ * <p/>
+ * Maps are opened from a {@link ByteBuffer}, or from a file, which is memory-mapped so that the operating system
+ * only reads the pages which are accessed. The most recently used block is cached. All other operations which need
+ * the entire map, such as iteration, {@link #keySet()} and {@link #values()}, read all blocks one after the other.
+ * As in {@link SerializableTreeMap}, the submaps, the key set, and the values are serializable copies.
+ * <p/>
+ * Instances are thread-safe. When an instance is serialized, it is written as a {@link SerializableTreeMap} with
+ * the same contents.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public final class SerializableIndexedSortedMap<K extends Serializable, V extends Serializable>
+    extends AbstractMap<K, V>
+    implements SerializableSortedMap<K, V>
+{
+    /** the number of entries per block used by {@link SerializableTreeMap#writeIndexed} */
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** marks the start and the end of the indexed format ("SCIX") */
+    private static final int MAGIC = 0x53434958;
+
+    private static final int FORMAT_VERSION = 1;
+
+    /** number of bytes before the first block: magic and format version */
+    private static final int HEADER_LENGTH = 8;
+
+    /** number of bytes after the index: offset and length of the index, and magic */
+    private static final int TRAILER_LENGTH = 16;
+
+    /** the indexed format, starting at position 0; only accessed via absolute positions or duplicates */
+    private final transient ByteBuffer iBuffer;
+
+    private final transient SerializableComparator<? super K> iComparator;
+
+    private final transient int iSize;
+
+    /** the first key of each block */
+    private final transient Object[] iFirstKeys;
+
+    /** the offset of each block, plus the offset of the index as the end of the last block */
+    private final transient int[] iBlockOffsets;
+
+    /** the block which was read last */
+    private transient volatile Block<K, V> iCachedBlock;
+
+
+
+    private SerializableIndexedSortedMap(@Nonnull final ByteBuffer pBuffer,
+        @Nullable final SerializableComparator<? super K> pComparator, final int pSize,
+        @Nonnull final Object[] pFirstKeys, @Nonnull final int[] pBlockOffsets)
+    {
+        super();
+        iBuffer = pBuffer;
+        iComparator = pComparator;
+        iSize = pSize;
+        iFirstKeys = pFirstKeys;
+        iBlockOffsets = pBlockOffsets;
+    }
+
+
+
+    /**
+     * Write the given map in the indexed format.
+     *
+     * @param pMap the map to write
+     * @param pOut the stream to write to, which is flushed, but not closed
+     * @param pBlockSize the number of entries per block; smaller blocks make point lookups cheaper, larger blocks
+     *          make the file smaller
+     * @param <K> key type
+     * @param <V> value type
+     * @throws IOException writing to the stream failed
+     * @throws IllegalArgumentException the block size is not positive
+     */
+    public static <K extends Serializable, V extends Serializable> void write(
+        @Nonnull final SerializableSortedMap<K, ? extends V> pMap, @Nonnull final OutputStream pOut,
+        final int pBlockSize)
+        throws IOException
+    {
+        if (pBlockSize < 1) {
+            throw new IllegalArgumentException("pBlockSize must be positive: " + pBlockSize);
+        }
+        final DataOutputStream out = new DataOutputStream(pOut);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+
+        final int size = pMap.size();
+        final int blockCount = (int) ((size + (long) pBlockSize - 1) / pBlockSize);
+        final Object[] firstKeys = new Object[blockCount];
+        final long[] blockOffsets = new long[blockCount];
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final Iterator<? extends Map.Entry<K, ? extends V>> iter = pMap.entrySet().iterator();
+        long offset = HEADER_LENGTH;
+        for (int b = 0; b < blockCount; b++) {
+            final int entryCount = Math.min(pBlockSize, size - b * pBlockSize);
+            buffer.reset();
+            final ObjectOutputStream oos = new ObjectOutputStream(buffer);
+            oos.writeInt(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                final Map.Entry<K, ? extends V> entry = iter.next();
+                if (i == 0) {
+                    firstKeys[b] = entry.getKey();
+                }
+                oos.writeObject(entry.getKey());
+                oos.writeObject(entry.getValue());
+            }
+            oos.close();
+            blockOffsets[b] = offset;
+            buffer.writeTo(out);
+            offset += buffer.size();
+        }
+
+        buffer.reset();
+        final ObjectOutputStream oos = new ObjectOutputStream(buffer);
+        oos.writeObject(pMap.comparator());
+        oos.writeInt(size);
+        oos.writeObject(firstKeys);
+        oos.writeObject(blockOffsets);
+        oos.close();
+        buffer.writeTo(out);
+        out.writeLong(offset);
+        out.writeInt(buffer.size());
+        out.writeInt(MAGIC);
+        out.flush();
+    }
+
+
+
+    /**
+     * Open a map from a buffer which contains the indexed format. The format must start at the position of the buffer
+     * and end at its limit. Only the index is read; the buffer is accessed again by later queries, so it must not be
+     * modified while the map is in use. The position of the given buffer is not changed.
+     *
+     * @param pBuffer the buffer
+     * @param <K> key type
+     * @param <V> value type
+     * @return a read-only map on the buffer
+     * @throws IOException the buffer does not contain the indexed format, or the index could not be read
+     * @throws ClassNotFoundException the class of the comparator or of a key in the index was not found
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public static <K extends Serializable, V extends Serializable> SerializableIndexedSortedMap<K, V> open(
+        @Nonnull final ByteBuffer pBuffer)
+        throws IOException, ClassNotFoundException
+    {
+        final ByteBuffer buffer = pBuffer.slice();
+        final int length = buffer.capacity();
+        if (length < HEADER_LENGTH + TRAILER_LENGTH || buffer.getInt(0) != MAGIC
+            || buffer.getInt(length - Integer.SIZE / Byte.SIZE) != MAGIC)
+        {
+            throw new StreamCorruptedException("not in indexed sorted map format");
+        }
+        final int version = buffer.getInt(Integer.SIZE / Byte.SIZE);
+        if (version != FORMAT_VERSION) {
+            throw new StreamCorruptedException("unsupported format version: " + version);
+        }
+        final long indexOffset = buffer.getLong(length - TRAILER_LENGTH);
+        final int indexLength = buffer.getInt(length - TRAILER_LENGTH + Long.SIZE / Byte.SIZE);
+        if (indexOffset < HEADER_LENGTH || indexLength < 0 || indexOffset + indexLength != length - TRAILER_LENGTH) {
+            throw new StreamCorruptedException("invalid index position: " + indexOffset + ", length " + indexLength);
+        }
+
+        final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(
+            read(buffer, (int) indexOffset, indexLength)));
+        try {
+            final SerializableComparator<? super K> comparator = (SerializableComparator<? super K>) ois.readObject();
+            final int size = ois.readInt();
+            final Object[] firstKeys = (Object[]) ois.readObject();
+            final long[] offsets = (long[]) ois.readObject();
+            if (size < 0 || firstKeys.length != offsets.length || firstKeys.length > size) {
+                throw new StreamCorruptedException("inconsistent index");
+            }
+            final int[] blockOffsets = new int[offsets.length + 1];
+            for (int b = 0; b < offsets.length; b++) {
+                if (offsets[b] < HEADER_LENGTH || offsets[b] >= indexOffset
+                    || (b > 0 && offsets[b] <= offsets[b - 1]))
+                {
+                    throw new StreamCorruptedException("invalid offset of block " + b + ": " + offsets[b]);
+                }
+                blockOffsets[b] = (int) offsets[b];
+            }
+            blockOffsets[offsets.length] = (int) indexOffset;
+            return new SerializableIndexedSortedMap<K, V>(buffer, comparator, size, firstKeys, blockOffsets);
+        }
+        catch (ClassCastException e) {
+            throw new StreamCorruptedException("invalid index: " + e.getMessage());
+        }
+        finally {
+            ois.close();
+        }
+    }
+
+
+
+    /**
+     * Open a map from a file which contains the indexed format. The file is mapped into memory, and only the index is
+     * read. The file must not be modified while the map is in use.
+     *
+     * @param pFile the file
+     * @param <K> key type
+     * @param <V> value type
+     * @return a read-only map on the file
+     * @throws IOException the file could not be mapped, or does not contain the indexed format
+     * @throws ClassNotFoundException the class of the comparator or of a key in the index was not found
+     */
+    @Nonnull
+    public static <K extends Serializable, V extends Serializable> SerializableIndexedSortedMap<K, V> open(
+        @Nonnull final File pFile)
+        throws IOException, ClassNotFoundException
+    {
+        final RandomAccessFile raf = new RandomAccessFile(pFile, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("file too large: " + pFile);
+            }
+            // the mapping remains valid after the file is closed
+            return SerializableIndexedSortedMap.<K, V>open(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                channel.size()));
+        }
+        finally {
+            raf.close();
+        }
+    }
+
+
+
+    @Nonnull
+    private static byte[] read(@Nonnull final ByteBuffer pBuffer, final int pOffset, final int pLength)
+    {
+        final ByteBuffer view = pBuffer.duplicate();
+        view.position(pOffset);
+        final byte[] result = new byte[pLength];
+        view.get(result);
+        return result;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return iSize;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public V get(@Nullable final Object pKey)
+    {
+        final K key = castKey(pKey);
+        final int b = findBlock(key);
+        if (b >= 0) {
+            final Block<K, V> block = readBlock(b);
+            final int i = block.indexOf(key, naturalOrComparator());
+            if (i >= 0) {
+                return block.getValue(i);
+            }
+        }
+        return null;
+    }
+
+
+
+    @Override
+    public boolean containsKey(@Nullable final Object pKey)
+    {
+        final K key = castKey(pKey);
+        final int b = findBlock(key);
+        return b >= 0 && readBlock(b).indexOf(key, naturalOrComparator()) >= 0;
+    }
+
+
+
+    /**
+     * Returns the least key greater than or equal to the given key, or <code>null</code> if there is no such key.
+     * At most one block is read.
+     *
+     * @param pKey the key
+     * @return the least key greater than or equal to <code>pKey</code>, or <code>null</code> if there is no such key
+     * @throws ClassCastException if the specified key cannot be compared with the keys currently in the map
+     * @throws NullPointerException if the specified key is <code>null</code> and this map uses natural ordering
+     */
+    @CheckForNull
+    public K ceilingKey(@Nonnull final K pKey)
+    {
+        final int b = findBlock(pKey);
+        if (b < 0) {
+            return iFirstKeys.length > 0 ? firstKeyOf(0) : null;
+        }
+        final Block<K, V> block = readBlock(b);
+        final int i = block.indexOf(pKey, naturalOrComparator());
+        if (i >= 0) {
+            return block.getKey(i);
+        }
+        final int insertionPoint = -i - 1;
+        if (insertionPoint < block.size()) {
+            return block.getKey(insertionPoint);
+        }
+        return b + 1 < iFirstKeys.length ? firstKeyOf(b + 1) : null;
+    }
+
+
+
+    /**
+     * Returns the greatest key less than or equal to the given key, or <code>null</code> if there is no such key.
+     * At most one block is read.
+     *
+     * @param pKey the key
+     * @return the greatest key less than or equal to <code>pKey</code>, or <code>null</code> if there is no such key
+     * @throws ClassCastException if the specified key cannot be compared with the keys currently in the map
+     * @throws NullPointerException if the specified key is <code>null</code> and this map uses natural ordering
+     */
+    @CheckForNull
+    public K floorKey(@Nonnull final K pKey)
+    {
+        final int b = findBlock(pKey);
+        if (b < 0) {
+            return null;
+        }
+        final Block<K, V> block = readBlock(b);
+        final int i = block.indexOf(pKey, naturalOrComparator());
+        // the first key of the block is not greater than pKey, so the insertion point is at least 1
+        return block.getKey(i >= 0 ? i : -i - 2);
+    }
+
+
+
+    @Override
+    public SerializableComparator<? super K> comparator()
+    {
+        return iComparator;
+    }
+
+
+
+    @Override
+    public K firstKey()
+    {
+        if (iSize == 0) {
+            throw new NoSuchElementException();
+        }
+        return firstKeyOf(0);
+    }
+
+
+
+    @Override
+    public K lastKey()
+    {
+        if (iSize == 0) {
+            throw new NoSuchElementException();
+        }
+        final Block<K, V> block = readBlock(iFirstKeys.length - 1);
+        return block.getKey(block.size() - 1);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The submap is a copy, which is created by reading only the blocks which overlap the given range.
+     */
+    @Override
+    public SerializableSortedMap<K, V> subMap(final K pFromKey, final K pToKey)
+    {
+        if (compare(pFromKey, pToKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return copyRange(pFromKey, true, pToKey, true);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The submap is a copy, which is created by reading only the blocks which overlap the given range.
+     */
+    @Override
+    public SerializableSortedMap<K, V> headMap(final K pToKey)
+    {
+        return copyRange(null, false, pToKey, true);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The submap is a copy, which is created by reading only the blocks which overlap the given range.
+     */
+    @Override
+    public SerializableSortedMap<K, V> tailMap(final K pFromKey)
+    {
+        return copyRange(pFromKey, true, null, false);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The key set is a copy, which is created by reading all blocks.
+     */
+    @Override
+    @Nonnull
+    public SerializableSortedSet<K> keySet()
+    {
+        final SerializableTreeSet<K> result = new SerializableTreeSet<K>(iComparator);
+        for (int b = 0; b < iFirstKeys.length; b++) {
+            final Block<K, V> block = readBlock(b);
+            for (int i = 0; i < block.size(); i++) {
+                result.add(block.getKey(i));
+            }
+        }
+        return result;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The values are a copy, which is created by reading all blocks.
+     */
+    @Override
+    @Nonnull
+    public SerializableCollection<V> values()
+    {
+        final SerializableArrayList<V> result = new SerializableArrayList<V>(iSize);
+        for (int b = 0; b < iFirstKeys.length; b++) {
+            final Block<K, V> block = readBlock(b);
+            for (int i = 0; i < block.size(); i++) {
+                result.add(block.getValue(i));
+            }
+        }
+        return result;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The entry set is a read-only view, whose iterator reads the blocks one after the other.
+     */
+    @Override
+    @Nonnull
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<K, V>>()
+        {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator()
+            {
+                return new EntryIterator();
+            }
+
+
+
+            @Override
+            public int size()
+            {
+                return iSize;
+            }
+        };
+    }
+
+
+
+    @SuppressWarnings("unchecked")
+    private K firstKeyOf(final int pBlockNumber)
+    {
+        return (K) iFirstKeys[pBlockNumber];
+    }
+
+
+
+    /**
+     * Same as {@link Arrays#binarySearch(Object[], Object, Comparator)}, but for arrays whose component type is not
+     * the type of the key.
+     *
+     * @param pArray the array to search, sorted by the given comparator
+     * @param pKey the key to search for
+     * @param pComparator the comparator
+     * @param <T> key type
+     * @return the index of the key, or <code>(-(insertion point) - 1)</code> if the key is not present
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> int binarySearch(@Nonnull final Object[] pArray, final T pKey,
+        @Nonnull final Comparator<? super T> pComparator)
+    {
+        int low = 0;
+        int high = pArray.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int cmp = pComparator.compare((T) pArray[mid], pKey);
+            if (cmp < 0) {
+                low = mid + 1;
+            }
+            else if (cmp > 0) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+
+
+    @SuppressWarnings("unchecked")
+    private K castKey(@Nullable final Object pKey)
+    {
+        return (K) pKey;
+    }
+
+
+
+    private int compare(final K pLeft, final K pRight)
+    {
+        return naturalOrComparator().compare(pLeft, pRight);
+    }
+
+
+
+    /**
+     * Find the block which would contain the given key.
+     *
+     * @param pKey the key
+     * @return the index of the last block whose first key is less than or equal to the given key, or -1 if the key
+     *          is less than all keys of the map
+     */
+    private int findBlock(final K pKey)
+    {
+        if (pKey == null && iComparator == null) {
+            throw new NullPointerException();
+        }
+        final int b = binarySearch(iFirstKeys, pKey, naturalOrComparator());
+        return b >= 0 ? b : -b - 2;
+    }
+
+
+
+    @Nonnull
+    private Comparator<? super K> naturalOrComparator()
+    {
+        if (iComparator != null) {
+            return iComparator;
+        }
+        return NaturalOrder.INSTANCE;
+    }
+
+
+
+    @Nonnull
+    private SerializableTreeMap<K, V> copyRange(@Nullable final K pFromKey, final boolean pHasFrom,
+        @Nullable final K pToKey, final boolean pHasTo)
+    {
+        final SerializableTreeMap<K, V> result = new SerializableTreeMap<K, V>(iComparator);
+        for (int b = pHasFrom ? Math.max(0, findBlock(pFromKey)) : 0; b < iFirstKeys.length; b++) {
+            if (pHasTo && compare(firstKeyOf(b), pToKey) >= 0) {
+                break;
+            }
+            final Block<K, V> block = readBlock(b);
+            for (int i = 0; i < block.size(); i++) {
+                final K key = block.getKey(i);
+                if (pHasTo && compare(key, pToKey) >= 0) {
+                    break;
+                }
+                if (!pHasFrom || compare(key, pFromKey) >= 0) {
+                    result.put(key, block.getValue(i));
+                }
+            }
+        }
+        return result;
+    }
+
+
+
+    @Nonnull
+    private Block<K, V> readBlock(final int pBlockNumber)
+    {
+        final Block<K, V> cached = iCachedBlock;
+        if (cached != null && cached.getNumber() == pBlockNumber) {
+            return cached;
+        }
+        final int offset = iBlockOffsets[pBlockNumber];
+        final byte[] bytes = read(iBuffer, offset, iBlockOffsets[pBlockNumber + 1] - offset);
+        try {
+            final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            try {
+                final int entryCount = ois.readInt();
+                final Object[] keys = new Object[entryCount];
+                final Object[] values = new Object[entryCount];
+                for (int i = 0; i < entryCount; i++) {
+                    keys[i] = ois.readObject();
+                    values[i] = ois.readObject();
+                }
+                final Block<K, V> result = new Block<K, V>(pBlockNumber, keys, values);
+                iCachedBlock = result;
+                return result;
+            }
+            finally {
+                ois.close();
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("failed to read block " + pBlockNumber + ": " + e.getMessage(), e);
+        }
+        catch (ClassNotFoundException e) {
+            throw new IllegalStateException("failed to read block " + pBlockNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+
+
+    private Object writeReplace()
+    {
+        return new SerializableTreeMap<K, V>(this);
+    }
+
+
+
+    /**
+     * The deserialized entries of one block. Instances are immutable.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    private static final class Block<K, V>
+    {
+        private final int iNumber;
+
+        private final Object[] iKeys;
+
+        private final Object[] iValues;
+
+
+
+        Block(final int pNumber, @Nonnull final Object[] pKeys, @Nonnull final Object[] pValues)
+        {
+            iNumber = pNumber;
+            iKeys = pKeys;
+            iValues = pValues;
+        }
+
+
+
+        int getNumber()
+        {
+            return iNumber;
+        }
+
+
+
+        int size()
+        {
+            return iKeys.length;
+        }
+
+
+
+        @SuppressWarnings("unchecked")
+        K getKey(final int pIndex)
+        {
+            return (K) iKeys[pIndex];
+        }
+
+
+
+        @SuppressWarnings("unchecked")
+        V getValue(final int pIndex)
+        {
+            return (V) iValues[pIndex];
+        }
+
+
+
+        int indexOf(final K pKey, @Nonnull final Comparator<? super K> pComparator)
+        {
+            return binarySearch(iKeys, pKey, pComparator);
+        }
+    }
+
+
+
+    /**
+     * Iterates over the entries, reading one block after the other.
+     */
+    private final class EntryIterator
+        implements Iterator<Map.Entry<K, V>>
+    {
+        private Block<K, V> iBlock = null;
+
+        private int iNextIndex = 0;
+
+        private int iReturned = 0;
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iReturned < iSize;
+        }
+
+
+
+        @Override
+        public Map.Entry<K, V> next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (iBlock == null || iNextIndex >= iBlock.size()) {
+                iBlock = readBlock(iBlock == null ? 0 : iBlock.getNumber() + 1);
+                iNextIndex = 0;
+            }
+            final Map.Entry<K, V> result = new AbstractMap.SimpleImmutableEntry<K, V>(iBlock.getKey(iNextIndex),
+                iBlock.getValue(iNextIndex));
+            iNextIndex++;
+            iReturned++;
+            return result;
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+
+
+    /**
+     * Compares keys by their natural ordering.
+     */
+    private static final class NaturalOrder
+        implements Comparator<Object>
+    {
+        static final NaturalOrder INSTANCE = new NaturalOrder();
+
+
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compare(final Object pLeft, final Object pRight)
+        {
+            return ((Comparable<Object>) pLeft).compareTo(pRight);
+        }
+    }
+}
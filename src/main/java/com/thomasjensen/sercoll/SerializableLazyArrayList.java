@@ -0,0 +1,401 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.RandomAccess;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A serializable list which defers the deserialization of its elements until they are accessed.
+ * <p/>
+ * Each element is serialized into its own block of bytes. When the list is read from a stream, the blocks are only
+ * copied into a single byte array, along with a table of their offsets. Element <i>i</i> is deserialized on the first
+ * call to {@link #get get(i)} (which includes iteration), and then cached. Elements which were never accessed are
+ * written again by copying their bytes. So when only the first few elements of a large list are read, deserialization
+ * costs little more than copying the bytes.
+ * <p/>
+ * <b>Object identity:</b> Every element is written to and read from a separate object stream. Therefore, each element
+ * forms an object graph of its own. Objects which are referenced by several elements, or by an element and by other
+ * parts of the enclosing object graph, are duplicated on deserialization, so that an element may end up referencing
+ * a copy of an object instead of the object itself. An element must not reference the list itself; writing such a
+ * list fails with a {@link NotSerializableException}. Use a {@link SerializableArrayList} if the elements share
+ * objects.
+ * <p/>
+ * <b>Deserialization filters:</b> An element which is accessed after the list was read is no longer deserialized by
+ * the stream which read the list. Its classes are resolved through the thread context class loader which was current
+ * when the list was read, not through a custom <code>resolveClass()</code> of that stream. On Java 9 and later, the
+ * <code>ObjectInputFilter</code> of that stream is applied to the element. On earlier versions of Java, only the
+ * process-wide serialization filter is applied. Also, an element which is never accessed is never checked by any
+ * filter.
+ * <p/>
+ * <b>Size:</b> Every element block carries its own stream header and class descriptors, so the serialized form is
+ * larger than that of a {@link SerializableArrayList} whose elements share class descriptors. For many small
+ * elements, it can be about twice as large. Also, the bytes of a deserialized list stay in memory as long as one of
+ * its elements was not accessed.
+ * <p/>
+ * <b>Caution:</b> Unlike an {@link ArrayList}, this list modifies its internal state on read access. Concurrent access
+ * must always be synchronized externally, even if all threads only read. A failure to deserialize an element is
+ * reported as an {@link IllegalStateException} when the element is accessed.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+public final class SerializableLazyArrayList<E extends Serializable>
+    extends AbstractList<E>
+    implements SerializableList<E>, RandomAccess, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** length written for a <code>null</code> element */
+    private static final int NULL_LENGTH = -1;
+
+    /** the elements, each of which is either deserialized already or a {@link RawElement} */
+    private transient ArrayList<Object> slots;
+
+    /** <code>true</code> while this list is being written, in order to detect elements which reference the list */
+    private transient boolean writing = false;
+
+
+
+    /**
+     * Constructs an empty list.
+     */
+    public SerializableLazyArrayList()
+    {
+        super();
+        slots = new ArrayList<Object>();
+    }
+
+
+
+    /**
+     * Constructs an empty list with the specified initial capacity.
+     *
+     * @param pInitialCapacity the initial capacity of the list
+     * @throws IllegalArgumentException if the specified initial capacity is negative
+     */
+    public SerializableLazyArrayList(final int pInitialCapacity)
+    {
+        super();
+        slots = new ArrayList<Object>(pInitialCapacity);
+    }
+
+
+
+    /**
+     * Constructs a list containing the elements of the specified collection, in the order they are returned by the
+     * collection's iterator.
+     *
+     * @param pCollection the collection whose elements are to be placed into this list
+     * @throws NullPointerException if the specified collection is null
+     */
+    public SerializableLazyArrayList(@Nonnull final Collection<? extends E> pCollection)
+    {
+        super();
+        slots = new ArrayList<Object>(pCollection);
+    }
+
+
+
+    private SerializableLazyArrayList(@Nonnull final ArrayList<Object> pSlots)
+    {
+        super();
+        slots = pSlots;
+    }
+
+
+
+    @Override
+    public E get(final int pIndex)
+    {
+        final Object slot = slots.get(pIndex);
+        final E result = this.<E>materialize(slot);
+        if (slot instanceof RawElement) {
+            slots.set(pIndex, result);
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return slots.size();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * An element which is still kept as bytes is deserialized in order to be returned. If that fails, the list is not
+     * changed.
+     */
+    @Override
+    public E set(final int pIndex, final E pElement)
+    {
+        final E result = this.<E>materialize(slots.get(pIndex));
+        slots.set(pIndex, pElement);
+        return result;
+    }
+
+
+
+    @Override
+    public void add(final int pIndex, final E pElement)
+    {
+        slots.add(pIndex, pElement);
+        modCount++;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * An element which is still kept as bytes is deserialized in order to be returned. If that fails, the list is not
+     * changed.
+     */
+    @Override
+    public E remove(final int pIndex)
+    {
+        final E result = this.<E>materialize(slots.get(pIndex));
+        slots.remove(pIndex);
+        modCount++;
+        return result;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        slots.clear();
+        modCount++;
+    }
+
+
+
+    /**
+     * Determine whether the element at the given position is available as an object. This is the case for all
+     * elements which were added to the list, and for those elements of a deserialized list which were accessed.
+     *
+     * @param pIndex index of the element
+     * @return <code>true</code> if the element is deserialized, <code>false</code> if it is still kept as bytes
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public boolean isMaterialized(final int pIndex)
+    {
+        return !(slots.get(pIndex) instanceof RawElement);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The returned list is a lazy copy of the given range; elements which were not deserialized yet are not
+     * deserialized by this method.
+     */
+    @Override
+    @Nonnull
+    public SerializableList<E> subList(final int pFromIndex, final int pToIndex)
+    {
+        return new SerializableLazyArrayList<E>(new ArrayList<Object>(slots.subList(pFromIndex, pToIndex)));
+    }
+
+
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public SerializableLazyArrayList<E> clone()
+    {
+        try {
+            final SerializableLazyArrayList<E> result = (SerializableLazyArrayList<E>) super.clone();
+            result.slots = new ArrayList<Object>(slots);
+            return result;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new InternalError(e.getMessage());  // cannot happen, we are Cloneable
+        }
+    }
+
+
+
+    @SuppressWarnings("unchecked")
+    private <T> T materialize(@CheckForNull final Object pSlot)
+    {
+        return (T) (pSlot instanceof RawElement ? ((RawElement) pSlot).deserialize() : pSlot);
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        if (writing) {
+            throw new NotSerializableException(getClass().getName() + " (an element references the list)");
+        }
+        writing = true;
+        try {
+            writeElements(pOut);
+        }
+        finally {
+            writing = false;
+        }
+        SerializationMonitor.writeFinished(this, slots.size());
+    }
+
+
+
+    private void writeElements(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        pOut.writeInt(slots.size());
+        ByteArrayOutputStream buffer = null;
+        for (final Object slot : slots) {
+            if (slot == null) {
+                pOut.writeInt(NULL_LENGTH);
+            }
+            else if (slot instanceof RawElement) {
+                ((RawElement) slot).writeTo(pOut);
+            }
+            else {
+                if (buffer == null) {
+                    buffer = new ByteArrayOutputStream();
+                }
+                buffer.reset();
+                final ObjectOutputStream oos = new ObjectOutputStream(buffer);
+                oos.writeObject(slot);
+                oos.close();
+                pOut.writeInt(buffer.size());
+                buffer.writeTo(pOut);
+            }
+        }
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        final int size = pIn.readInt();
+        if (size < 0) {
+            throw new InvalidObjectException("negative size: " + size);
+        }
+        final int[] offsets = new int[size];
+        final int[] lengths = new int[size];
+        byte[] payload = new byte[0];
+        int payloadSize = 0;
+        for (int i = 0; i < size; i++) {
+            final int length = pIn.readInt();
+            if (length < NULL_LENGTH) {
+                throw new InvalidObjectException("invalid length of element " + i + ": " + length);
+            }
+            lengths[i] = length;
+            offsets[i] = payloadSize;
+            if (length > 0) {
+                if (payloadSize + length > payload.length) {
+                    final byte[] newPayload = new byte[Math.max(payloadSize + length, payload.length * 2)];
+                    System.arraycopy(payload, 0, newPayload, 0, payloadSize);
+                    payload = newPayload;
+                }
+                pIn.readFully(payload, payloadSize, length);
+                payloadSize += length;
+            }
+        }
+        final LazyElementReader reader = LazyElementReader.of(pIn);
+        slots = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(lengths[i] == NULL_LENGTH ? null : new RawElement(reader, payload, offsets[i], lengths[i]));
+        }
+        SerializationMonitor.readFinished(this, size);
+    }
+
+
+
+    /**
+     * An element which was not deserialized yet. Instances are immutable and may be shared between lists.
+     */
+    private static final class RawElement
+    {
+        private final LazyElementReader iReader;
+
+        private final byte[] iPayload;
+
+        private final int iOffset;
+
+        private final int iLength;
+
+
+
+        RawElement(@Nonnull final LazyElementReader pReader, @Nonnull final byte[] pPayload, final int pOffset,
+            final int pLength)
+        {
+            iReader = pReader;
+            iPayload = pPayload;
+            iOffset = pOffset;
+            iLength = pLength;
+        }
+
+
+
+        Object deserialize()
+        {
+            try {
+                return iReader.read(iPayload, iOffset, iLength);
+            }
+            catch (IOException e) {
+                throw new IllegalStateException("failed to deserialize list element: " + e.getMessage(), e);
+            }
+            catch (ClassNotFoundException e) {
+                throw new IllegalStateException("failed to deserialize list element: " + e.getMessage(), e);
+            }
+        }
+
+
+
+        void writeTo(@Nonnull final ObjectOutputStream pOut)
+            throws IOException
+        {
+            pOut.writeInt(iLength);
+            pOut.write(iPayload, iOffset, iLength);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Same as a {@link LinkedHashSet}, except that this class promises to be fully serializable. Like in a
+ * <code>LinkedHashSet</code>, the elements are iterated, and serialized, in insertion order.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+public class SerializableLinkedHashSet<E extends Serializable>
+    extends LinkedHashSet<E>
+    implements SerializableSet<E>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+
+
+    /**
+     * Constructs a new, empty linked hash set with the default initial capacity (16) and load factor (0.75).
+     */
+    public SerializableLinkedHashSet()
+    {
+        super();
+    }
+
+
+
+    /**
+     * Constructs a new linked hash set with the same elements as the specified collection, in the iteration order of
+     * the collection. The linked hash set is created with an initial capacity sufficient to hold the elements in the
+     * specified collection and the default load factor (0.75).
+     *
+     * @param pCollection the collection whose elements are to be placed into this set
+     * @throws NullPointerException if the specified collection is null
+     */
+    public SerializableLinkedHashSet(@Nonnull final Collection<? extends E> pCollection)
+    {
+        super(pCollection);
+    }
+
+
+
+    /**
+     * Constructs a new, empty linked hash set with the specified initial capacity and load factor.
+     *
+     * @param pInitialCapacity the initial capacity of the linked hash set
+     * @param pLoadFactor the load factor of the linked hash set
+     * @throws IllegalArgumentException if the initial capacity is less than zero, or if the load factor is nonpositive
+     */
+    public SerializableLinkedHashSet(final int pInitialCapacity, final float pLoadFactor)
+    {
+        super(pInitialCapacity, pLoadFactor);
+    }
+
+
+
+    /**
+     * Constructs a new, empty linked hash set with the specified initial capacity and the default load factor (0.75).
+     *
+     * @param pInitialCapacity the initial capacity of the linked hash set
+     * @throws IllegalArgumentException if the initial capacity is less than zero
+     */
+    public SerializableLinkedHashSet(final int pInitialCapacity)
+    {
+        super(pInitialCapacity);
+    }
+
+
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public SerializableLinkedHashSet<E> clone()
+    {
+        return (SerializableLinkedHashSet<E>) super.clone();
+    }
+
+
+
+    /**
+     * Notifies the {@link SerializationMonitor} that this collection is about to be written. Subclasses which
+     * override this method should call it.
+     *
+     * @return this collection
+     */
+    protected Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, size());
+    }
+}
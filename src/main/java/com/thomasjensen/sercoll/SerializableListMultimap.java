@@ -0,0 +1,351 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A serializable multimap whose groups are lists, which keep the values in insertion order and may contain the same
+ * value more than once. This is a compact replacement for a
+ * <code>SerializableHashMap&lt;K, SerializableArrayList&lt;V&gt;&gt;</code>: A key with a single value costs no more
+ * than a map entry, and larger groups have no list object of their own and no default capacity. The serialized form
+ * is a flat stream of each key, the number of its values, and the values.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public final class SerializableListMultimap<K extends Serializable, V extends Serializable>
+    extends AbstractSerializableMultimap<K, V>
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+
+
+    /**
+     * Constructs a new, empty multimap.
+     */
+    public SerializableListMultimap()
+    {
+        super();
+    }
+
+
+
+    /**
+     * Constructs a new multimap with the same key-value pairs as the specified multimap.
+     *
+     * @param pMultimap the multimap whose key-value pairs are to be placed in this multimap
+     */
+    public SerializableListMultimap(@Nonnull final SerializableMultimap<? extends K, ? extends V> pMultimap)
+    {
+        super();
+        copyFrom(pMultimap);
+    }
+
+
+
+    private <K2 extends K> void copyFrom(@Nonnull final SerializableMultimap<K2, ? extends V> pMultimap)
+    {
+        for (final K2 key : pMultimap.keySet()) {
+            putAll(key, pMultimap.get(key));
+        }
+    }
+
+
+
+    @Override
+    boolean permitsDuplicates()
+    {
+        return true;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The view is a list, which supports all optional operations.
+     */
+    @Override
+    @Nonnull
+    public SerializableList<V> get(@Nullable final K pKey)
+    {
+        return new GroupList(pKey);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableList<V> removeAll(@Nullable final Object pKey)
+    {
+        return new SerializableArrayList<V>(removeGroup(pKey));
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableListMultimap<K, V> clone()
+    {
+        return (SerializableListMultimap<K, V>) super.clone();
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    /**
+     * The live list view of the group of a key, which is serialized as a {@link SerializableArrayList}.
+     */
+    private final class GroupList
+        extends AbstractList<V>
+        implements SerializableList<V>, RandomAccess
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final K iKey;
+
+
+
+        GroupList(@Nullable final K pKey)
+        {
+            iKey = pKey;
+        }
+
+
+
+        @Override
+        public int size()
+        {
+            return groupSize(group(iKey));
+        }
+
+
+
+        @Override
+        public V get(final int pIndex)
+        {
+            return getAt(iKey, pIndex);
+        }
+
+
+
+        @Override
+        public V set(final int pIndex, @Nonnull final V pValue)
+        {
+            return setAt(iKey, pIndex, pValue);
+        }
+
+
+
+        @Override
+        public void add(final int pIndex, @Nonnull final V pValue)
+        {
+            insertAt(iKey, pIndex, pValue);
+        }
+
+
+
+        @Override
+        public V remove(final int pIndex)
+        {
+            return removeAt(iKey, pIndex);
+        }
+
+
+
+        @Override
+        public boolean contains(@Nullable final Object pValue)
+        {
+            return containsEntry(iKey, pValue);
+        }
+
+
+
+        @Override
+        public int indexOf(@Nullable final Object pValue)
+        {
+            return AbstractSerializableMultimap.indexOf(group(iKey), pValue);
+        }
+
+
+
+        @Override
+        public void clear()
+        {
+            removeGroup(iKey);
+        }
+
+
+
+        @Override
+        @Nonnull
+        public Iterator<V> iterator()
+        {
+            return new GroupIterator(iKey);
+        }
+
+
+
+        @Override
+        @Nonnull
+        public ListIterator<V> listIterator(final int pIndex)
+        {
+            return new GroupListIterator(super.listIterator(pIndex));
+        }
+
+
+
+        @Override
+        @Nonnull
+        public SerializableList<V> subList(final int pFromIndex, final int pToIndex)
+        {
+            return new SerializableArrayList<V>(super.subList(pFromIndex, pToIndex));
+        }
+
+
+
+        private Object writeReplace()
+        {
+            return new SerializableArrayList<V>(this);
+        }
+    
+
+
+
+        /**
+         * Checks the mod count of the multimap, so that the list iterator is fail-fast like {@link GroupIterator}
+         * even though the modification was made through another view.
+         */
+        private final class GroupListIterator
+            implements ListIterator<V>
+        {
+            private final ListIterator<V> iDelegate;
+
+            private int iExpectedModCount = modCount();
+
+
+
+            GroupListIterator(@Nonnull final ListIterator<V> pDelegate)
+            {
+                iDelegate = pDelegate;
+            }
+
+
+
+            private void checkForComodification()
+            {
+                if (modCount() != iExpectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+
+
+
+            @Override
+            public boolean hasNext()
+            {
+                return iDelegate.hasNext();
+            }
+
+
+
+            @Override
+            public V next()
+            {
+                checkForComodification();
+                return iDelegate.next();
+            }
+
+
+
+            @Override
+            public boolean hasPrevious()
+            {
+                return iDelegate.hasPrevious();
+            }
+
+
+
+            @Override
+            public V previous()
+            {
+                checkForComodification();
+                return iDelegate.previous();
+            }
+
+
+
+            @Override
+            public int nextIndex()
+            {
+                return iDelegate.nextIndex();
+            }
+
+
+
+            @Override
+            public int previousIndex()
+            {
+                return iDelegate.previousIndex();
+            }
+
+
+
+            @Override
+            public void remove()
+            {
+                checkForComodification();
+                iDelegate.remove();
+                iExpectedModCount = modCount();
+            }
+
+
+
+            @Override
+            public void set(@Nonnull final V pValue)
+            {
+                checkForComodification();
+                iDelegate.set(pValue);
+            }
+
+
+
+            @Override
+            public void add(@Nonnull final V pValue)
+            {
+                checkForComodification();
+                iDelegate.add(pValue);
+                iExpectedModCount = modCount();
+            }
+        }
+    }
+}
@@ -0,0 +1,556 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A serializable map of bounded size, which evicts its least recently used entries.
+ * <p/>
+ * The map is bounded by a maximum number of entries, or by a maximum total weight of its entries as determined by a
+ * {@link SerializableWeigher}. When a <code>put()</code> exceeds the bound, the least recently used entries are
+ * evicted until the map is within its bound again. An entry is used by {@link #get get()} and by
+ * <code>put()</code>; other operations, including iteration and {@link #containsKey containsKey()}, do not change the
+ * order of the entries. All of these operations run in constant time.
+ * <p/>
+ * In order to keep serialized snapshots small, the number of entries which are serialized can be limited by
+ * {@link #setSerializedEntryLimit}. Only the most recently used entries are serialized then; the others are dropped
+ * from the snapshot, but not from this map. The counters of hits, misses, and evictions are not serialized.
+ * <p/>
+ * The entry set iterates from the least recently used entry to the most recently used one. Its entries are
+ * immutable, but entries may be removed via its iterator. Like in {@link SerializableHashMap}, the key set and the
+ * values are serializable copies.
+ * <p/>
+ * <b>Caution:</b> Like a {@link LinkedHashMap} in access order, this map modifies its internal state on
+ * <code>get()</code>. Concurrent access must always be synchronized externally, even if all threads only read.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public final class SerializableLruMap<K extends Serializable, V extends Serializable>
+    extends AbstractMap<K, V>
+    implements SerializableMap<K, V>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** initial capacity of the backing hash map, the JDK default */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** load factor of the backing hash map, the JDK default */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** the maximum number of entries */
+    private final int iMaxSize;
+
+    /** the maximum total weight of the entries */
+    private final long iMaxWeight;
+
+    /** determines the weight of the entries; <code>null</code> if every entry has the weight 1 */
+    private final SerializableWeigher<? super K, ? super V> iWeigher;
+
+    /** the maximum number of entries written when this map is serialized */
+    private int iSerializedEntryLimit = Integer.MAX_VALUE;
+
+    /** the entries in access order, least recently used first */
+    private transient LinkedHashMap<K, WeightedValue<V>> iEntries;
+
+    private transient long iWeight;
+
+    private transient long iHitCount;
+
+    private transient long iMissCount;
+
+    private transient long iEvictionCount;
+
+
+
+    /**
+     * Constructs an empty map which holds at most the given number of entries.
+     *
+     * @param pMaxSize the maximum number of entries
+     * @throws IllegalArgumentException the maximum size is not positive
+     */
+    public SerializableLruMap(final int pMaxSize)
+    {
+        this(pMaxSize, Long.MAX_VALUE, null);
+    }
+
+
+
+    /**
+     * Constructs an empty map whose entries weigh at most the given total weight.
+     *
+     * @param pMaxWeight the maximum total weight of the entries
+     * @param pWeigher determines the weight of the entries
+     * @throws IllegalArgumentException the maximum weight is negative, or the weigher is <code>null</code>
+     */
+    public SerializableLruMap(final long pMaxWeight, @Nonnull final SerializableWeigher<? super K, ? super V> pWeigher)
+    {
+        this(Integer.MAX_VALUE, pMaxWeight, pWeigher);
+        if (pWeigher == null) {
+            throw new IllegalArgumentException("pWeigher was null");
+        }
+    }
+
+
+
+    private SerializableLruMap(final int pMaxSize, final long pMaxWeight,
+        @Nullable final SerializableWeigher<? super K, ? super V> pWeigher)
+    {
+        super();
+        if (pMaxSize < 1) {
+            throw new IllegalArgumentException("pMaxSize must be positive: " + pMaxSize);
+        }
+        if (pMaxWeight < 0) {
+            throw new IllegalArgumentException("pMaxWeight must not be negative: " + pMaxWeight);
+        }
+        iMaxSize = pMaxSize;
+        iMaxWeight = pMaxWeight;
+        iWeigher = pWeigher;
+        iEntries = newEntries(0);
+    }
+
+
+
+    @Nonnull
+    private static <K, V> LinkedHashMap<K, WeightedValue<V>> newEntries(final int pExpectedSize)
+    {
+        final int capacity = Math.max(INITIAL_CAPACITY, (int) (pExpectedSize / LOAD_FACTOR) + 1);
+        return new LinkedHashMap<K, WeightedValue<V>>(capacity, LOAD_FACTOR, true);
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return iEntries.size();
+    }
+
+
+
+    /**
+     * Returns the value to which the specified key is mapped, or <code>null</code> if this map contains no mapping
+     * for the key. A found entry becomes the most recently used entry, and is counted as a hit. Otherwise, a miss is
+     * counted.
+     *
+     * @param pKey the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or <code>null</code> if this map contains no mapping
+     *          for the key
+     */
+    @Override
+    @CheckForNull
+    public V get(@Nullable final Object pKey)
+    {
+        final WeightedValue<V> entry = iEntries.get(pKey);
+        if (entry == null) {
+            iMissCount++;
+            return null;
+        }
+        iHitCount++;
+        return entry.getValue();
+    }
+
+
+
+    @Override
+    public boolean containsKey(@Nullable final Object pKey)
+    {
+        return iEntries.containsKey(pKey);
+    }
+
+
+
+    /**
+     * Associates the specified value with the specified key in this map, and makes the entry the most recently used
+     * one. Then, the least recently used entries are evicted until the map is within its bounds. If the weight of the
+     * new entry alone exceeds the maximum weight, the new entry is evicted, too.
+     *
+     * @param pKey key with which the specified value is to be associated
+     * @param pValue value to be associated with the specified key
+     * @return the previous value associated with <code>pKey</code>, or <code>null</code> if there was no mapping
+     * @throws IllegalArgumentException the weigher returned a negative weight
+     */
+    @Override
+    @CheckForNull
+    public V put(@Nullable final K pKey, @Nullable final V pValue)
+    {
+        final long weight = iWeigher != null ? iWeigher.weigh(pKey, pValue) : 1L;
+        if (weight < 0) {
+            throw new IllegalArgumentException("negative weight " + weight + " of key " + pKey);
+        }
+        final WeightedValue<V> previous = iEntries.put(pKey, new WeightedValue<V>(pValue, weight));
+        iWeight += weight;
+        if (previous != null) {
+            iWeight -= previous.getWeight();
+        }
+        while (iEntries.size() > iMaxSize || iWeight > iMaxWeight) {
+            evictEldest();
+        }
+        return previous != null ? previous.getValue() : null;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public V remove(@Nullable final Object pKey)
+    {
+        final WeightedValue<V> removed = iEntries.remove(pKey);
+        if (removed == null) {
+            return null;
+        }
+        iWeight -= removed.getWeight();
+        return removed.getValue();
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        iEntries.clear();
+        iWeight = 0L;
+    }
+
+
+
+    private void evictEldest()
+    {
+        final Iterator<WeightedValue<V>> iter = iEntries.values().iterator();
+        iWeight -= iter.next().getWeight();
+        iter.remove();
+        iEvictionCount++;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The entry set iterates from the least recently used entry to the most recently used one. Its entries are
+     * immutable.
+     */
+    @Override
+    @Nonnull
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<K, V>>()
+        {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator()
+            {
+                return new EntryIterator();
+            }
+
+
+
+            @Override
+            public int size()
+            {
+                return iEntries.size();
+            }
+
+
+
+            @Override
+            public void clear()
+            {
+                SerializableLruMap.this.clear();
+            }
+        };
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableSet<K> keySet()
+    {
+        return new SerializableHashSet<K>(iEntries.keySet());
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableCollection<V> values()
+    {
+        final SerializableArrayList<V> result = new SerializableArrayList<V>(iEntries.size());
+        for (final WeightedValue<V> entry : iEntries.values()) {
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+
+
+
+    public int getMaxSize()
+    {
+        return iMaxSize;
+    }
+
+
+
+    public long getMaxWeight()
+    {
+        return iMaxWeight;
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the total weight of the entries, which equals the number of entries if this map has no weigher
+     */
+    public long getWeight()
+    {
+        return iWeight;
+    }
+
+
+
+    public long getHitCount()
+    {
+        return iHitCount;
+    }
+
+
+
+    public long getMissCount()
+    {
+        return iMissCount;
+    }
+
+
+
+    public long getEvictionCount()
+    {
+        return iEvictionCount;
+    }
+
+
+
+    /**
+     * Set the counters of hits, misses, and evictions to zero.
+     */
+    public void resetStatistics()
+    {
+        iHitCount = 0L;
+        iMissCount = 0L;
+        iEvictionCount = 0L;
+    }
+
+
+
+    public int getSerializedEntryLimit()
+    {
+        return iSerializedEntryLimit;
+    }
+
+
+
+    /**
+     * Limit the number of entries written when this map is serialized. Only the most recently used entries are
+     * written. By default, all entries are written.
+     *
+     * @param pSerializedEntryLimit the maximum number of entries to serialize, or {@link Integer#MAX_VALUE} for all
+     * @throws IllegalArgumentException the limit is negative
+     */
+    public void setSerializedEntryLimit(final int pSerializedEntryLimit)
+    {
+        if (pSerializedEntryLimit < 0) {
+            throw new IllegalArgumentException("pSerializedEntryLimit must not be negative: " + pSerializedEntryLimit);
+        }
+        iSerializedEntryLimit = pSerializedEntryLimit;
+    }
+
+
+
+    /**
+     * Create an empty map with the same bounds, weigher and serialized entry limit as this one.
+     *
+     * @return the new map
+     */
+    @Nonnull
+    SerializableLruMap<K, V> emptyCopy()
+    {
+        final SerializableLruMap<K, V> result = new SerializableLruMap<K, V>(iMaxSize, iMaxWeight, iWeigher);
+        result.iSerializedEntryLimit = iSerializedEntryLimit;
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public SerializableLruMap<K, V> clone()
+    {
+        try {
+            final SerializableLruMap<K, V> result = (SerializableLruMap<K, V>) super.clone();
+            result.iEntries = newEntries(iEntries.size());
+            result.iEntries.putAll(iEntries);
+            return result;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new InternalError(e.getMessage());  // cannot happen, we are Cloneable
+        }
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        final int count = Math.min(iEntries.size(), iSerializedEntryLimit);
+        pOut.writeInt(count);
+        int skip = iEntries.size() - count;
+        for (final Map.Entry<K, WeightedValue<V>> entry : iEntries.entrySet()) {
+            if (skip > 0) {
+                skip--;
+            }
+            else {
+                pOut.writeObject(entry.getKey());
+                pOut.writeObject(entry.getValue().getValue());
+            }
+        }
+        SerializationMonitor.writeFinished(this, count);
+    }
+
+
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        if (iMaxSize < 1 || iMaxWeight < 0 || iSerializedEntryLimit < 0) {
+            throw new InvalidObjectException("invalid bounds");
+        }
+        final int count = pIn.readInt();
+        if (count < 0) {
+            throw new InvalidObjectException("negative size: " + count);
+        }
+        iEntries = newEntries(Math.min(count, iMaxSize));
+        for (int i = 0; i < count; i++) {
+            final K key = (K) pIn.readObject();
+            put(key, (V) pIn.readObject());
+        }
+        SerializationMonitor.readFinished(this, count);
+    }
+
+
+
+    /**
+     * A value along with the weight of its entry. Instances are immutable.
+     *
+     * @param <V> value type
+     */
+    private static final class WeightedValue<V>
+    {
+        private final V iValue;
+
+        private final long iWeight;
+
+
+
+        WeightedValue(@Nullable final V pValue, final long pWeight)
+        {
+            iValue = pValue;
+            iWeight = pWeight;
+        }
+
+
+
+        V getValue()
+        {
+            return iValue;
+        }
+
+
+
+        long getWeight()
+        {
+            return iWeight;
+        }
+    }
+
+
+
+    /**
+     * Iterates over the entries from the least recently used one, without changing the order.
+     */
+    private final class EntryIterator
+        implements Iterator<Map.Entry<K, V>>
+    {
+        private final Iterator<Map.Entry<K, WeightedValue<V>>> iDelegate = iEntries.entrySet().iterator();
+
+        private WeightedValue<V> iLast = null;
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iDelegate.hasNext();
+        }
+
+
+
+        @Override
+        public Map.Entry<K, V> next()
+        {
+            final Map.Entry<K, WeightedValue<V>> entry = iDelegate.next();
+            iLast = entry.getValue();
+            return new AbstractMap.SimpleImmutableEntry<K, V>(entry.getKey(), iLast.getValue());
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            iDelegate.remove();
+            iWeight -= iLast.getWeight();
+            iLast = null;
+        }
+    }
+}
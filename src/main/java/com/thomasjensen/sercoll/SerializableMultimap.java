@@ -0,0 +1,156 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.Collection;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A serializable collection which maps keys to groups of values. Unlike in a map of collections, each key is present
+ * only as long as its group contains at least one value. Keys may be <code>null</code>, values may not.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public interface SerializableMultimap<K extends Serializable, V extends Serializable>
+    extends Serializable
+{
+    /**
+     * Getter.
+     *
+     * @return the number of key-value pairs, which is the total number of values in all groups
+     */
+    int size();
+
+
+
+    /**
+     * Getter.
+     *
+     * @return <code>true</code> if this multimap contains no key-value pairs
+     */
+    boolean isEmpty();
+
+
+
+    /**
+     * Determine if there is a group for the given key.
+     *
+     * @param pKey the key
+     * @return <code>true</code> if at least one value is associated with the key
+     */
+    boolean containsKey(@Nullable Object pKey);
+
+
+
+    /**
+     * Determine if the given value is associated with any key.
+     *
+     * @param pValue the value
+     * @return <code>true</code> if any group contains the value
+     */
+    boolean containsValue(@Nullable Object pValue);
+
+
+
+    /**
+     * Determine if the given value is associated with the given key.
+     *
+     * @param pKey the key
+     * @param pValue the value
+     * @return <code>true</code> if the group of the key contains the value
+     */
+    boolean containsEntry(@Nullable Object pKey, @Nullable Object pValue);
+
+
+
+    /**
+     * Returns a view of the values associated with the given key. The view is live, even if the key is not present
+     * yet: values added to the view are added to this multimap, and vice versa. When the view is serialized, a copy
+     * of its values is written.
+     *
+     * @param pKey the key
+     * @return the view of the group of the key
+     */
+    @Nonnull
+    SerializableCollection<V> get(@Nullable K pKey);
+
+
+
+    /**
+     * Associates a value with a key.
+     *
+     * @param pKey the key
+     * @param pValue the value
+     * @return <code>true</code> if this multimap changed as a result of the call
+     * @throws NullPointerException the value is <code>null</code>
+     */
+    boolean put(@Nullable K pKey, @Nonnull V pValue);
+
+
+
+    /**
+     * Associates the given values with a key.
+     *
+     * @param pKey the key
+     * @param pValues the values
+     * @return <code>true</code> if this multimap changed as a result of the call
+     * @throws NullPointerException one of the values is <code>null</code>
+     */
+    boolean putAll(@Nullable K pKey, @Nonnull Collection<? extends V> pValues);
+
+
+
+    /**
+     * Removes one association of the given value with the given key.
+     *
+     * @param pKey the key
+     * @param pValue the value
+     * @return <code>true</code> if this multimap changed as a result of the call
+     */
+    boolean remove(@Nullable Object pKey, @Nullable Object pValue);
+
+
+
+    /**
+     * Removes all values associated with the given key.
+     *
+     * @param pKey the key
+     * @return a copy of the removed values, which is empty if the key was not present
+     */
+    @Nonnull
+    SerializableCollection<V> removeAll(@Nullable Object pKey);
+
+
+
+    /**
+     * Removes all key-value pairs from this multimap.
+     */
+    void clear();
+
+
+
+    /**
+     * Returns a view of the keys which have at least one value associated with them. Removing a key from the view
+     * removes its entire group. When the view is serialized, a copy of its keys is written.
+     *
+     * @return the key set view
+     */
+    @Nonnull
+    SerializableSet<K> keySet();
+}
@@ -0,0 +1,685 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A serializable navigable set which answers order statistic queries in O(log n) time: the {@link #rank rank} of an
+ * element, the element with a given rank ({@link #select select()}), and the number of elements in a range
+ * ({@link #countInRange countInRange()}). With a {@link SerializableTreeSet}, these queries require iterating, or
+ * copying a subset.
+ * <p/>
+ * The set is an AVL tree, each of whose nodes knows the size of its subtree. All other operations have the same
+ * complexity as in a <code>TreeSet</code>. Like the other navigable sets of this library, {@link #subSet subSet()},
+ * {@link #headSet headSet()}, {@link #tailSet tailSet()}, and {@link #descendingSet()} return copies. Since the copies
+ * are built from sorted elements, they take time proportional to their size. The iterators are fail-fast. The set
+ * does not permit <code>null</code> elements.
+ * <p/>
+ * The serialized form is the comparator, the number of elements, and the elements in ascending order. On
+ * deserialization, the tree is built in linear time from the sorted elements, perfectly balanced, with the subtree
+ * sizes computed along the way.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+public final class SerializableOrderStatisticTreeSet<E extends Serializable>
+    extends AbstractSet<E>
+    implements SerializableNavigableSet<E>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** the ordering of the elements, or <code>null</code> for their natural ordering */
+    private SerializableComparator<? super E> iComparator;
+
+    transient OrderStatisticNode<E> iRoot;
+
+    /** incremented on every modification, for the fail-fast iterators */
+    transient int iModCount;
+
+
+
+    /**
+     * Constructs a new, empty set, sorted according to the natural ordering of its elements.
+     */
+    public SerializableOrderStatisticTreeSet()
+    {
+        this((SerializableComparator<? super E>) null);
+    }
+
+
+
+    /**
+     * Constructs a new, empty set, sorted according to the specified comparator.
+     *
+     * @param pComparator the comparator that will be used to order this set; if <code>null</code>, the natural ordering
+     *          of the elements will be used
+     */
+    public SerializableOrderStatisticTreeSet(@Nullable final SerializableComparator<? super E> pComparator)
+    {
+        super();
+        iComparator = pComparator;
+    }
+
+
+
+    /**
+     * Constructs a new set containing the elements in the specified collection, sorted according to the natural
+     * ordering of its elements.
+     *
+     * @param pCollection collection whose elements will comprise the new set
+     */
+    public SerializableOrderStatisticTreeSet(@Nonnull final Collection<? extends E> pCollection)
+    {
+        this((SerializableComparator<? super E>) null);
+        addAll(pCollection);
+    }
+
+
+
+    /**
+     * Constructs a new set containing the same elements and using the same ordering as the specified sorted set.
+     *
+     * @param pSortedSet sorted set whose elements will comprise the new set
+     */
+    public SerializableOrderStatisticTreeSet(@Nonnull final SerializableSortedSet<E> pSortedSet)
+    {
+        this(pSortedSet.comparator());
+        addAll(pSortedSet);
+    }
+
+
+
+    @Nonnull
+    Comparator<Object> naturalOrComparator()
+    {
+        return SerializableUnmodifiableSortedArraySet.naturalOrComparator(iComparator);
+    }
+
+
+
+    @Nonnull
+    private SerializableOrderStatisticTreeSet<E> copyOf(@Nonnull final Object[] pElements,
+        @Nullable final SerializableComparator<? super E> pComparator)
+    {
+        final SerializableOrderStatisticTreeSet<E> result = new SerializableOrderStatisticTreeSet<E>(pComparator);
+        result.iRoot = OrderStatisticNode.build(pElements, 0, pElements.length);
+        return result;
+    }
+
+
+
+    @Override
+    public boolean add(@Nonnull final E pElement)
+    {
+        if (iRoot == null) {
+            naturalOrComparator().compare(pElement, pElement);  // type and null check
+        }
+        final int oldSize = size();
+        iRoot = OrderStatisticNode.insert(iRoot, pElement, naturalOrComparator());
+        if (size() != oldSize) {
+            iModCount++;
+            return true;
+        }
+        return false;
+    }
+
+
+
+    @Override
+    public boolean addAll(@Nonnull final Collection<? extends E> pCollection)
+    {
+        if (iRoot == null && pCollection instanceof SortedSet
+            && equal(((SortedSet<?>) pCollection).comparator(), iComparator) && !pCollection.isEmpty())
+        {
+            final Object[] elements = pCollection.toArray();
+            iRoot = OrderStatisticNode.build(elements, 0, elements.length);
+            iModCount++;
+            return true;
+        }
+        return super.addAll(pCollection);
+    }
+
+
+
+    private static boolean equal(@Nullable final Object pFirst, @Nullable final Object pSecond)
+    {
+        return pFirst == null ? pSecond == null : pFirst.equals(pSecond);
+    }
+
+
+
+    @Override
+    public boolean remove(@Nullable final Object pObject)
+    {
+        final int oldSize = size();
+        iRoot = OrderStatisticNode.delete(iRoot, pObject, naturalOrComparator());
+        if (size() != oldSize) {
+            iModCount++;
+            return true;
+        }
+        return false;
+    }
+
+
+
+    @Override
+    public boolean contains(@Nullable final Object pObject)
+    {
+        final Comparator<Object> comparator = naturalOrComparator();
+        OrderStatisticNode<E> node = iRoot;
+        while (node != null) {
+            final int cmp = comparator.compare(pObject, node.iElement);
+            if (cmp == 0) {
+                return true;
+            }
+            node = cmp < 0 ? node.iLeft : node.iRight;
+        }
+        return false;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return OrderStatisticNode.size(iRoot);
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        return iRoot == null;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        if (iRoot != null) {
+            iRoot = null;
+            iModCount++;
+        }
+    }
+
+
+
+    /**
+     * Returns the number of elements which are less than the given element. This is the index which the element has,
+     * or would have, in the iteration order.
+     *
+     * @param pElement the element, which need not be contained in this set
+     * @return the number of smaller elements
+     */
+    public int rank(@Nonnull final E pElement)
+    {
+        return countBelow(pElement, false);
+    }
+
+
+
+    /**
+     * Count the elements which are less than (or equal to) the given element.
+     *
+     * @param pElement the element
+     * @param pInclusive <code>true</code> to count an equal element
+     * @return the count
+     */
+    private int countBelow(@Nonnull final E pElement, final boolean pInclusive)
+    {
+        final Comparator<Object> comparator = naturalOrComparator();
+        int result = 0;
+        OrderStatisticNode<E> node = iRoot;
+        while (node != null) {
+            final int cmp = comparator.compare(pElement, node.iElement);
+            if (cmp < 0 || (cmp == 0 && !pInclusive)) {
+                node = node.iLeft;
+            }
+            else {
+                result += OrderStatisticNode.size(node.iLeft) + 1;
+                node = node.iRight;
+            }
+        }
+        return result;
+    }
+
+
+
+    /**
+     * Returns the element with the given rank, which is the element at the given index in the iteration order.
+     *
+     * @param pIndex the index, starting at <code>0</code> for the first element
+     * @return the element
+     * @throws IndexOutOfBoundsException the index is negative or not less than the size of this set
+     */
+    @Nonnull
+    public E select(final int pIndex)
+    {
+        if (pIndex < 0 || pIndex >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + pIndex + ", Size: " + size());
+        }
+        int index = pIndex;
+        OrderStatisticNode<E> node = iRoot;
+        while (true) {
+            final int leftSize = OrderStatisticNode.size(node.iLeft);
+            if (index < leftSize) {
+                node = node.iLeft;
+            }
+            else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.iRight;
+            }
+            else {
+                return node.iElement;
+            }
+        }
+    }
+
+
+
+    /**
+     * Returns the number of elements in the given range, which is the size of the corresponding
+     * {@link #subSet(Serializable, boolean, Serializable, boolean) subSet()}, without creating it.
+     *
+     * @param pFromElement low endpoint of the range
+     * @param pFromInclusive <code>true</code> if the low endpoint is to be included in the range
+     * @param pToElement high endpoint of the range
+     * @param pToInclusive <code>true</code> if the high endpoint is to be included in the range
+     * @return the number of elements in the range
+     * @throws IllegalArgumentException <code>pFromElement</code> is greater than <code>pToElement</code>
+     */
+    public int countInRange(@Nonnull final E pFromElement, final boolean pFromInclusive, @Nonnull final E pToElement,
+        final boolean pToInclusive)
+    {
+        if (naturalOrComparator().compare(pFromElement, pToElement) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        final int result = countBelow(pToElement, pToInclusive) - countBelow(pFromElement, !pFromInclusive);
+        return Math.max(0, result);
+    }
+
+
+
+    /**
+     * Find the node of the first element above (or at) the given element.
+     *
+     * @param pElement the element
+     * @param pInclusive <code>true</code> to accept an equal element
+     * @return the node, or <code>null</code> if there is none
+     */
+    @CheckForNull
+    private OrderStatisticNode<E> nodeAbove(@Nonnull final E pElement, final boolean pInclusive)
+    {
+        final Comparator<Object> comparator = naturalOrComparator();
+        OrderStatisticNode<E> result = null;
+        OrderStatisticNode<E> node = iRoot;
+        while (node != null) {
+            final int cmp = comparator.compare(pElement, node.iElement);
+            if (cmp < 0 || (cmp == 0 && pInclusive)) {
+                result = node;
+                if (cmp == 0) {
+                    break;
+                }
+                node = node.iLeft;
+            }
+            else {
+                node = node.iRight;
+            }
+        }
+        return result;
+    }
+
+
+
+    /**
+     * Find the node of the last element below (or at) the given element.
+     *
+     * @param pElement the element
+     * @param pInclusive <code>true</code> to accept an equal element
+     * @return the node, or <code>null</code> if there is none
+     */
+    @CheckForNull
+    private OrderStatisticNode<E> nodeBelow(@Nonnull final E pElement, final boolean pInclusive)
+    {
+        final Comparator<Object> comparator = naturalOrComparator();
+        OrderStatisticNode<E> result = null;
+        OrderStatisticNode<E> node = iRoot;
+        while (node != null) {
+            final int cmp = comparator.compare(pElement, node.iElement);
+            if (cmp > 0 || (cmp == 0 && pInclusive)) {
+                result = node;
+                if (cmp == 0) {
+                    break;
+                }
+                node = node.iRight;
+            }
+            else {
+                node = node.iLeft;
+            }
+        }
+        return result;
+    }
+
+
+
+    @CheckForNull
+    private static <E> E elementOf(@Nullable final OrderStatisticNode<E> pNode)
+    {
+        return pNode != null ? pNode.iElement : null;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E lower(@Nonnull final E pElement)
+    {
+        return elementOf(nodeBelow(pElement, false));
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E floor(@Nonnull final E pElement)
+    {
+        return elementOf(nodeBelow(pElement, true));
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E ceiling(@Nonnull final E pElement)
+    {
+        return elementOf(nodeAbove(pElement, true));
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E higher(@Nonnull final E pElement)
+    {
+        return elementOf(nodeAbove(pElement, false));
+    }
+
+
+
+    @Override
+    @Nonnull
+    public E first()
+    {
+        if (iRoot == null) {
+            throw new NoSuchElementException();
+        }
+        OrderStatisticNode<E> node = iRoot;
+        while (node.iLeft != null) {
+            node = node.iLeft;
+        }
+        return node.iElement;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public E last()
+    {
+        if (iRoot == null) {
+            throw new NoSuchElementException();
+        }
+        OrderStatisticNode<E> node = iRoot;
+        while (node.iRight != null) {
+            node = node.iRight;
+        }
+        return node.iElement;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E pollFirst()
+    {
+        if (iRoot == null) {
+            return null;
+        }
+        final E result = first();
+        iRoot = OrderStatisticNode.deleteFirst(iRoot);
+        iModCount++;
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E pollLast()
+    {
+        if (iRoot == null) {
+            return null;
+        }
+        final E result = last();
+        remove(result);
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public SerializableComparator<? super E> comparator()
+    {
+        return iComparator;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Iterator<E> iterator()
+    {
+        return new OrderStatisticTreeIterator<E>(this, true);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Iterator<E> descendingIterator()
+    {
+        return new OrderStatisticTreeIterator<E>(this, false);
+    }
+
+
+
+    /**
+     * Copy the elements from the given index range into an array, using the order statistics to skip the rest.
+     *
+     * @param pFrom index of the first element
+     * @param pTo index after the last element
+     * @return the elements, in ascending order
+     */
+    @Nonnull
+    private Object[] elements(final int pFrom, final int pTo)
+    {
+        final Object[] result = new Object[Math.max(0, pTo - pFrom)];
+        if (result.length > 0) {
+            final Iterator<E> iter = new OrderStatisticTreeIterator<E>(this, select(pFrom));
+            for (int i = 0; i < result.length; i++) {
+                result[i] = iter.next();
+            }
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Object[] toArray()
+    {
+        return elements(0, size());
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The descending set is a copy, whose comparator imposes the reverse ordering.
+     */
+    @Override
+    @Nonnull
+    public SerializableOrderStatisticTreeSet<E> descendingSet()
+    {
+        final Object[] elements = toArray();
+        for (int i = 0, j = elements.length - 1; i < j; i++, j--) {
+            final Object temp = elements[i];
+            elements[i] = elements[j];
+            elements[j] = temp;
+        }
+        return copyOf(elements, SerializableReverseComparator.reverse(iComparator));
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableOrderStatisticTreeSet<E> subSet(@Nonnull final E pFromElement, final boolean pFromInclusive,
+        @Nonnull final E pToElement, final boolean pToInclusive)
+    {
+        if (naturalOrComparator().compare(pFromElement, pToElement) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return copyOf(elements(countBelow(pFromElement, !pFromInclusive), countBelow(pToElement, pToInclusive)),
+            iComparator);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableOrderStatisticTreeSet<E> headSet(@Nonnull final E pToElement, final boolean pInclusive)
+    {
+        return copyOf(elements(0, countBelow(pToElement, pInclusive)), iComparator);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableOrderStatisticTreeSet<E> tailSet(@Nonnull final E pFromElement, final boolean pInclusive)
+    {
+        return copyOf(elements(countBelow(pFromElement, !pInclusive), size()), iComparator);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableOrderStatisticTreeSet<E> subSet(@Nonnull final E pFromElement, @Nonnull final E pToElement)
+    {
+        return subSet(pFromElement, true, pToElement, false);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableOrderStatisticTreeSet<E> headSet(@Nonnull final E pToElement)
+    {
+        return headSet(pToElement, false);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableOrderStatisticTreeSet<E> tailSet(@Nonnull final E pFromElement)
+    {
+        return tailSet(pFromElement, true);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableOrderStatisticTreeSet<E> clone()
+    {
+        return copyOf(toArray(), iComparator);
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        pOut.writeInt(size());
+        for (final E element : this) {
+            pOut.writeObject(element);
+        }
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        final int size = pIn.readInt();
+        if (size < 0) {
+            throw new InvalidObjectException("negative size: " + size);
+        }
+        final Comparator<Object> comparator = naturalOrComparator();
+        final Object[] elements = new Object[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = pIn.readObject();
+            if (elements[i] == null || (i > 0 && comparator.compare(elements[i - 1], elements[i]) >= 0)) {
+                throw new InvalidObjectException("elements not in ascending order");
+            }
+        }
+        iRoot = OrderStatisticNode.build(elements, 0, size);
+        SerializationMonitor.readFinished(this, size());
+    }
+}
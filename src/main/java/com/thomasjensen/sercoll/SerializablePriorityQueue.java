@@ -0,0 +1,768 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A serializable priority queue backed by a d-ary heap in an array. The head of the queue is the least element with
+ * respect to the natural ordering of the elements or to a {@link SerializableComparator}. Offering and polling take
+ * O(log n) time without allocating, in contrast to a sorted set, which allocates a tree node per element and must
+ * rebalance. A higher arity makes the heap flatter, so that an offer compares fewer elements, while a poll compares
+ * more siblings per level; the default arity of 4 is a good compromise for most element types. The arity is a power
+ * of two, so that navigating the heap takes shifts instead of divisions.
+ * <p/>
+ * In <em>indexed</em> mode, the queue additionally keeps a hash index from each element to its position in the heap.
+ * Then {@link #remove(Object)}, {@link #contains(Object)} and {@link #decreaseKey(Object) decreaseKey()} take
+ * O(log n) time instead of O(n), at the cost of one small object per element. An indexed queue cannot contain
+ * equal elements twice. The <code>equals()</code> and <code>hashCode()</code> of an indexed element must not depend on
+ * its priority.
+ * <p/>
+ * This queue does not permit <code>null</code> elements. Its iterators return the elements in heap order, not in
+ * priority order, and they are fail-fast. Like <code>java.util.PriorityQueue</code>, this queue uses the identity
+ * based <code>equals()</code> of <code>Object</code>.
+ * <p/>
+ * The serialized form is the arity, the indexed flag and the comparator, followed by the number of elements and the
+ * elements in heap order. Since the heap array is written as it is, deserialization only verifies the heap order
+ * and does not need to re-heapify.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+public final class SerializablePriorityQueue<E extends Serializable>
+    extends AbstractQueue<E>
+    implements SerializableQueue<E>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** the arity used by the constructors which do not specify one */
+    public static final int DEFAULT_ARITY = 4;
+
+    /** the largest supported arity */
+    public static final int MAX_ARITY = 64;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** the number of children of each node in the heap */
+    private final int iArity;
+
+    /** flag indicating that the positions of the elements are indexed */
+    private final boolean iIndexed;
+
+    /** the comparator, or <code>null</code> for the natural ordering of the elements */
+    private final SerializableComparator<? super E> iComparator;
+
+    /** binary logarithm of {@link #iArity}, so that the heap index arithmetic needs no division */
+    private transient int iShift;
+
+    /** the heap; the children of the element at index <i>i</i> are at <i>i * arity + 1</i> and following */
+    private transient Object[] iHeap;
+
+    /** the positions of the heap elements, parallel to {@link #iHeap}; <code>null</code> if not indexed */
+    private transient Slot[] iSlots;
+
+    /** maps each element to its position in the heap; <code>null</code> if not indexed */
+    private transient HashMap<Object, Slot> iIndex;
+
+    private transient int iSize;
+
+    /** incremented on every modification, for the fail-fast iterators */
+    private transient int iModCount;
+
+
+
+    /**
+     * Constructs an empty queue which orders its elements by their natural ordering.
+     */
+    public SerializablePriorityQueue()
+    {
+        this(DEFAULT_ARITY, null, false);
+    }
+
+
+
+    /**
+     * Constructs an empty queue which orders its elements by the given comparator.
+     *
+     * @param pComparator the comparator, or <code>null</code> for the natural ordering of the elements
+     */
+    public SerializablePriorityQueue(@Nullable final SerializableComparator<? super E> pComparator)
+    {
+        this(DEFAULT_ARITY, pComparator, false);
+    }
+
+
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param pArity the number of children of each node in the heap, a power of two from 2 to {@link #MAX_ARITY}
+     * @param pComparator the comparator, or <code>null</code> for the natural ordering of the elements
+     * @param pIndexed <code>true</code> to index the positions of the elements, which makes {@link #remove(Object)},
+     *          {@link #contains(Object)} and {@link #decreaseKey(Object)} run in O(log n) time and rejects duplicate
+     *          elements
+     * @throws IllegalArgumentException the arity is out of range
+     */
+    public SerializablePriorityQueue(final int pArity, @Nullable final SerializableComparator<? super E> pComparator,
+        final boolean pIndexed)
+    {
+        super();
+        if (!isValidArity(pArity)) {
+            throw new IllegalArgumentException("invalid arity: " + pArity);
+        }
+        iArity = pArity;
+        iShift = Integer.numberOfTrailingZeros(pArity);
+        iComparator = pComparator;
+        iIndexed = pIndexed;
+        iHeap = new Object[DEFAULT_CAPACITY];
+        if (pIndexed) {
+            iSlots = new Slot[DEFAULT_CAPACITY];
+            iIndex = new HashMap<Object, Slot>();
+        }
+    }
+
+
+
+    private static boolean isValidArity(final int pArity)
+    {
+        return pArity >= 2 && pArity <= MAX_ARITY && Integer.bitCount(pArity) == 1;
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the number of children of each node in the heap
+     */
+    public int getArity()
+    {
+        return iArity;
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return flag indicating that the positions of the elements are indexed
+     */
+    public boolean isIndexed()
+    {
+        return iIndexed;
+    }
+
+
+
+    /**
+     * Returns the comparator used to order the elements in this queue.
+     *
+     * @return the comparator, or <code>null</code> if the elements are ordered by their natural ordering
+     */
+    @CheckForNull
+    public SerializableComparator<? super E> comparator()
+    {
+        return iComparator;
+    }
+
+
+
+    @Nonnull
+    private Comparator<Object> naturalOrComparator()
+    {
+        return SerializableUnmodifiableSortedArraySet.naturalOrComparator(iComparator);
+    }
+
+
+
+    @Override
+    public boolean offer(@Nonnull final E pElement)
+    {
+        if (pElement == null) {
+            throw new NullPointerException();
+        }
+        if (iSize == 0) {
+            naturalOrComparator().compare(pElement, pElement);  // type check
+        }
+        Slot slot = null;
+        if (iIndex != null) {
+            if (iIndex.containsKey(pElement)) {
+                throw new IllegalArgumentException("element already present in indexed queue: " + pElement);
+            }
+            slot = new Slot();
+            iIndex.put(pElement, slot);
+        }
+        if (iSize == iHeap.length) {
+            grow();
+        }
+        iModCount++;
+        siftUp(iSize++, pElement, slot);
+        return true;
+    }
+
+
+
+    private void grow()
+    {
+        final int capacity = iHeap.length;
+        if (capacity == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Queue too big");
+        }
+        final int newCapacity = (int) Math.min(Integer.MAX_VALUE, capacity + Math.max(capacity >> 1, 4L));
+        iHeap = Arrays.copyOf(iHeap, newCapacity);
+        if (iSlots != null) {
+            iSlots = Arrays.copyOf(iSlots, newCapacity);
+        }
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public E poll()
+    {
+        if (iSize == 0) {
+            return null;
+        }
+        final E result = (E) iHeap[0];
+        if (iIndex != null) {
+            iIndex.remove(result);
+        }
+        iModCount++;
+        final int last = --iSize;
+        final Object moved = iHeap[last];
+        final Slot movedSlot = slotAt(last);
+        clearAt(last);
+        if (last > 0) {
+            siftUp(descendFromRoot(), moved, movedSlot);
+        }
+        return result;
+    }
+
+
+
+    /**
+     * Move the hole left at the root by a poll down to a leaf, always pulling up the least child. The element which
+     * fills the hole is usually one of the largest, so it is cheaper to sift it up from the leaf afterwards than to
+     * compare it on every level on the way down.
+     *
+     * @return heap index of the hole, which is a leaf
+     */
+    private int descendFromRoot()
+    {
+        final Comparator<Object> comparator = naturalOrComparator();
+        final int lastParent = iSize >= 2 ? (iSize - 2) >> iShift : -1;
+        int hole = 0;
+        while (hole <= lastParent) {
+            final int firstChild = (hole << iShift) + 1;
+            final int endChild = Math.min(firstChild + iArity, iSize);
+            int least = firstChild;
+            for (int child = firstChild + 1; child < endChild; child++) {
+                if (comparator.compare(iHeap[child], iHeap[least]) < 0) {
+                    least = child;
+                }
+            }
+            place(hole, iHeap[least], slotAt(least));
+            hole = least;
+        }
+        return hole;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public E peek()
+    {
+        return (E) iHeap[0];
+    }
+
+
+
+    @Override
+    public boolean contains(@Nullable final Object pObject)
+    {
+        return indexOf(pObject) >= 0;
+    }
+
+
+
+    @Override
+    public boolean remove(@Nullable final Object pObject)
+    {
+        final int index = indexOf(pObject);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+
+
+    /**
+     * Restores the position of the given element after its priority has changed. Call this method after an element of
+     * this queue was modified so that it compares lower, and this method moves it towards the head of the queue. An
+     * element which now compares higher is moved away from the head instead. This takes O(log n) time in indexed mode,
+     * and O(n) time otherwise, because the element must first be found.
+     *
+     * @param pElement an element of this queue whose priority has changed
+     * @return <code>true</code> if the element was found in this queue
+     */
+    public boolean decreaseKey(@Nonnull final E pElement)
+    {
+        final int index = indexOf(pElement);
+        if (index < 0) {
+            return false;
+        }
+        iModCount++;
+        final Object element = iHeap[index];
+        final Slot slot = slotAt(index);
+        if (siftUp(index, element, slot) == index) {
+            siftDown(index, element, slot);
+        }
+        return true;
+    }
+
+
+
+    private int indexOf(@Nullable final Object pObject)
+    {
+        if (pObject != null) {
+            if (iIndex != null) {
+                final Slot slot = iIndex.get(pObject);
+                return slot != null ? slot.iPosition : -1;
+            }
+            for (int i = 0; i < iSize; i++) {
+                if (pObject.equals(iHeap[i])) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+
+
+    /**
+     * Remove the element at the given heap index. The last element of the heap takes its place and is moved down, or
+     * up if it is smaller than the parent of the removed element.
+     *
+     * @param pIndex heap index of the element to remove
+     * @return the element previously last in the heap if it was moved up to before the given index, so that an
+     *          iterator would miss it, else <code>null</code>
+     */
+    @CheckForNull
+    private Object removeAt(final int pIndex)
+    {
+        if (iIndex != null) {
+            iIndex.remove(iHeap[pIndex]);
+        }
+        iModCount++;
+        final int last = --iSize;
+        if (last == pIndex) {
+            clearAt(last);
+            return null;
+        }
+        final Object moved = iHeap[last];
+        final Slot movedSlot = slotAt(last);
+        clearAt(last);
+        if (siftDown(pIndex, moved, movedSlot) == pIndex && siftUp(pIndex, moved, movedSlot) != pIndex) {
+            return moved;
+        }
+        return null;
+    }
+
+
+
+    @CheckForNull
+    private Slot slotAt(final int pIndex)
+    {
+        return iSlots != null ? iSlots[pIndex] : null;
+    }
+
+
+
+    private void clearAt(final int pIndex)
+    {
+        iHeap[pIndex] = null;
+        if (iSlots != null) {
+            iSlots[pIndex] = null;
+        }
+    }
+
+
+
+    private void place(final int pIndex, @Nonnull final Object pElement, @Nullable final Slot pSlot)
+    {
+        iHeap[pIndex] = pElement;
+        if (pSlot != null) {
+            iSlots[pIndex] = pSlot;
+            pSlot.iPosition = pIndex;
+        }
+    }
+
+
+
+    /**
+     * Move the given element from the given heap index towards the root until its parent is not greater.
+     *
+     * @param pIndex the heap index at which the element is to be placed, whose slot is free
+     * @param pElement the element
+     * @param pSlot the slot of the element, or <code>null</code> if not indexed
+     * @return the heap index at which the element was placed
+     */
+    private int siftUp(final int pIndex, @Nonnull final Object pElement, @Nullable final Slot pSlot)
+    {
+        final Comparator<Object> comparator = naturalOrComparator();
+        int index = pIndex;
+        while (index > 0) {
+            final int parent = (index - 1) >> iShift;
+            final Object parentElement = iHeap[parent];
+            if (comparator.compare(pElement, parentElement) >= 0) {
+                break;
+            }
+            place(index, parentElement, slotAt(parent));
+            index = parent;
+        }
+        place(index, pElement, pSlot);
+        return index;
+    }
+
+
+
+    /**
+     * Move the given element from the given heap index away from the root until none of its children is smaller.
+     *
+     * @param pIndex the heap index at which the element is to be placed, whose slot is free
+     * @param pElement the element
+     * @param pSlot the slot of the element, or <code>null</code> if not indexed
+     * @return the heap index at which the element was placed
+     */
+    private int siftDown(final int pIndex, @Nonnull final Object pElement, @Nullable final Slot pSlot)
+    {
+        final Comparator<Object> comparator = naturalOrComparator();
+        final int lastParent = iSize >= 2 ? (iSize - 2) >> iShift : -1;
+        int index = pIndex;
+        while (index <= lastParent) {
+            final int firstChild = (index << iShift) + 1;
+            final int endChild = Math.min(firstChild + iArity, iSize);
+            int least = firstChild;
+            for (int child = firstChild + 1; child < endChild; child++) {
+                if (comparator.compare(iHeap[child], iHeap[least]) < 0) {
+                    least = child;
+                }
+            }
+            if (comparator.compare(pElement, iHeap[least]) <= 0) {
+                break;
+            }
+            place(index, iHeap[least], slotAt(least));
+            index = least;
+        }
+        place(index, pElement, pSlot);
+        return index;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return iSize;
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        return iSize == 0;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        if (iSize > 0) {
+            Arrays.fill(iHeap, 0, iSize, null);
+            if (iSlots != null) {
+                Arrays.fill(iSlots, 0, iSize, null);
+                iIndex.clear();
+            }
+            iSize = 0;
+            iModCount++;
+        }
+    }
+
+
+
+    @Override
+    public int drainTo(@Nonnull final Collection<? super E> pTarget)
+    {
+        return drainTo(pTarget, Integer.MAX_VALUE);
+    }
+
+
+
+    @Override
+    public int drainTo(@Nonnull final Collection<? super E> pTarget, final int pMaxElements)
+    {
+        if (pTarget == this) {
+            throw new IllegalArgumentException("cannot drain a queue into itself");
+        }
+        final int count = Math.min(Math.max(pMaxElements, 0), iSize);
+        for (int i = 0; i < count; i++) {
+            pTarget.add(poll());
+        }
+        return count;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Object[] toArray()
+    {
+        return Arrays.copyOf(iHeap, iSize);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Iterator<E> iterator()
+    {
+        return new HeapIterator();
+    }
+
+
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public SerializablePriorityQueue<E> clone()
+    {
+        try {
+            final SerializablePriorityQueue<E> result = (SerializablePriorityQueue<E>) super.clone();
+            result.iHeap = iHeap.clone();
+            result.iModCount = 0;
+            if (iIndexed) {
+                result.buildIndex();
+            }
+            return result;
+        }
+        catch (CloneNotSupportedException e) {
+            throw new InternalError(e.toString());
+        }
+    }
+
+
+
+    /**
+     * Create the slots and the index for the elements in the heap.
+     *
+     * @return <code>false</code> if the heap contains equal elements, in which case the index is incomplete
+     */
+    private boolean buildIndex()
+    {
+        iSlots = new Slot[iHeap.length];
+        iIndex = new HashMap<Object, Slot>(Math.max(DEFAULT_CAPACITY, (int) (iSize / 0.75f) + 1));
+        for (int i = 0; i < iSize; i++) {
+            final Slot slot = new Slot();
+            slot.iPosition = i;
+            iSlots[i] = slot;
+            if (iIndex.put(iHeap[i], slot) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        pOut.writeInt(iSize);
+        for (int i = 0; i < iSize; i++) {
+            pOut.writeObject(iHeap[i]);
+        }
+        SerializationMonitor.writeFinished(this, iSize);
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        if (!isValidArity(iArity)) {
+            throw new InvalidObjectException("invalid arity: " + iArity);
+        }
+        iShift = Integer.numberOfTrailingZeros(iArity);
+        final int size = pIn.readInt();
+        if (size < 0) {
+            throw new InvalidObjectException("negative size: " + size);
+        }
+        final Comparator<Object> comparator = naturalOrComparator();
+        final Object[] heap = new Object[Math.max(size, 1)];
+        for (int i = 0; i < size; i++) {
+            heap[i] = pIn.readObject();
+            if (heap[i] == null) {
+                throw new InvalidObjectException("null element");
+            }
+            if (i > 0 && comparator.compare(heap[i], heap[(i - 1) >> iShift]) < 0) {
+                throw new InvalidObjectException("heap order violated at index " + i);
+            }
+        }
+        iHeap = heap;
+        iSize = size;
+        if (iIndexed && !buildIndex()) {
+            throw new InvalidObjectException("duplicate element in indexed queue");
+        }
+        SerializationMonitor.readFinished(this, size);
+    }
+
+
+
+    /**
+     * The position of an element in the heap, kept up to date as the element moves.
+     */
+    private static final class Slot
+    {
+        private int iPosition;
+    }
+
+
+
+    /**
+     * Iterates over the heap array. When removing an element causes the last element of the heap to move up to
+     * before the cursor, that element is remembered and returned at the end, like <code>java.util.PriorityQueue</code>
+     * does.
+     */
+    private final class HeapIterator
+        implements Iterator<E>
+    {
+        /** heap index of the next element */
+        private int iCursor;
+
+        /** heap index of the element last returned by {@link #next()}, or <code>-1</code> */
+        private int iLast = -1;
+
+        /** elements which moved to before the cursor and have not been returned yet */
+        private List<Object> iMissed;
+
+        /** the element last returned from {@link #iMissed}, or <code>null</code> */
+        private Object iLastMissed;
+
+        private int iExpectedModCount = iModCount;
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iCursor < iSize || (iMissed != null && !iMissed.isEmpty());
+        }
+
+
+
+        @Override
+        @Nonnull
+        @SuppressWarnings("unchecked")
+        public E next()
+        {
+            if (iModCount != iExpectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (iCursor < iSize) {
+                iLast = iCursor++;
+                return (E) iHeap[iLast];
+            }
+            if (iMissed != null && !iMissed.isEmpty()) {
+                iLast = -1;
+                iLastMissed = iMissed.remove(iMissed.size() - 1);
+                return (E) iLastMissed;
+            }
+            throw new NoSuchElementException();
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            if (iModCount != iExpectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (iLast >= 0) {
+                final Object moved = removeAt(iLast);
+                iLast = -1;
+                if (moved == null) {
+                    iCursor--;
+                }
+                else {
+                    if (iMissed == null) {
+                        iMissed = new ArrayList<Object>();
+                    }
+                    iMissed.add(moved);
+                }
+            }
+            else if (iLastMissed != null) {
+                for (int i = 0; i < iSize; i++) {
+                    if (iHeap[i] == iLastMissed) {
+                        removeAt(i);
+                        break;
+                    }
+                }
+                iLastMissed = null;
+            }
+            else {
+                throw new IllegalStateException();
+            }
+            iExpectedModCount = iModCount;
+        }
+    }
+}
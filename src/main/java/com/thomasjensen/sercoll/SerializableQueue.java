@@ -0,0 +1,54 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Queue;
+import javax.annotation.Nonnull;
+
+
+/**
+ * A serializable {@link Queue}. This means that the implementation of the queue as well as its elements are declared
+ * to be {@link java.io.Serializable}.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+public interface SerializableQueue<E extends Serializable>
+    extends Queue<E>, SerializableCollection<E>
+{
+    /**
+     * Removes all elements from this queue and adds them to the given collection, in the order in which they would
+     * have been polled.
+     *
+     * @param pTarget the collection to transfer the elements to
+     * @return the number of elements transferred
+     * @throws IllegalArgumentException the target collection is this queue
+     */
+    int drainTo(@Nonnull Collection<? super E> pTarget);
+
+
+
+    /**
+     * Removes at most the given number of elements from this queue and adds them to the given collection, in the
+     * order in which they would have been polled.
+     *
+     * @param pTarget the collection to transfer the elements to
+     * @param pMaxElements the maximum number of elements to transfer
+     * @return the number of elements transferred
+     * @throws IllegalArgumentException the target collection is this queue
+     */
+    int drainTo(@Nonnull Collection<? super E> pTarget, int pMaxElements);
+}
@@ -0,0 +1,96 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * Imposes the reverse of the ordering of another serializable comparator, or of the natural ordering. Used for the
+ * descending sets, which are copies in reverse order.
+ *
+ * @param <T> value type
+ * @author Thomas Jensen
+ */
+final class SerializableReverseComparator<T>
+    implements SerializableComparator<T>
+{
+    private static final long serialVersionUID = 1L;
+
+    /** the ordering which is reversed, or <code>null</code> for the natural ordering */
+    private final SerializableComparator<? super T> iComparator;
+
+
+
+    private SerializableReverseComparator(@Nullable final SerializableComparator<? super T> pComparator)
+    {
+        super();
+        iComparator = pComparator;
+    }
+
+
+
+    /**
+     * Returns a comparator which imposes the reverse ordering of the given comparator. Reversing a reverse comparator
+     * returns the original comparator.
+     *
+     * @param pComparator the ordering to reverse, or <code>null</code> for the natural ordering
+     * @param <T> value type
+     * @return the reverse ordering, or <code>null</code> if that is the natural ordering
+     */
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    static <T> SerializableComparator<T> reverse(@Nullable final SerializableComparator<T> pComparator)
+    {
+        if (pComparator instanceof SerializableReverseComparator) {
+            // a comparator of a supertype of T can compare Ts
+            return (SerializableComparator<T>) ((SerializableReverseComparator<T>) pComparator).iComparator;
+        }
+        return new SerializableReverseComparator<T>(pComparator);
+    }
+
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int compare(@Nonnull final T pFirst, @Nonnull final T pSecond)
+    {
+        if (iComparator != null) {
+            return iComparator.compare(pSecond, pFirst);
+        }
+        return ((Comparable<Object>) pSecond).compareTo(pFirst);
+    }
+
+
+
+    @Override
+    public boolean equals(@Nullable final Object pOther)
+    {
+        if (!(pOther instanceof SerializableReverseComparator)) {
+            return false;
+        }
+        final SerializableComparator<?> other = ((SerializableReverseComparator<?>) pOther).iComparator;
+        return iComparator != null ? iComparator.equals(other) : other == null;
+    }
+
+
+
+    @Override
+    public int hashCode()
+    {
+        return iComparator != null ? ~iComparator.hashCode() : -1;
+    }
+}
@@ -0,0 +1,902 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A compressed serializable set of <code>int</code> values, which is much smaller than a set of boxed integers.
+ * <p/>
+ * The set is a <i>roaring bitmap</i>: the values are split into chunks of 65536 by their upper 16 bits, and the lower
+ * 16 bits of the values in each chunk are kept in a container of the most compact kind. Sparse chunks are sorted
+ * arrays of <code>char</code>s, dense chunks are bitmaps of 8 KB, and chunks of consecutive values become lists of runs
+ * after {@link #runOptimize()}. Membership tests cost a binary search among the chunks plus one lookup in a
+ * container. The set operations {@link #and and}, {@link #or or} and {@link #andNot andNot} combine whole containers;
+ * two bitmaps are combined one <code>long</code> at a time, in simple loops which the JIT compiler can vectorize. The
+ * bulk operations {@link #addAll addAll()}, {@link #retainAll retainAll()} and {@link #removeAll removeAll()} use them
+ * when the argument is a roaring bitmap, too.
+ * <p/>
+ * The elements are ordered by their natural ordering, so {@link #comparator()} returns <code>null</code>. Like the
+ * other navigable sets of this library, the set returns <em>copies</em> from {@link #subSet subSet()},
+ * {@link #headSet headSet()}, {@link #tailSet tailSet()}, and {@link #descendingSet()}, not views. The iterators are
+ * fail-fast. The set does not permit <code>null</code> values.
+ * <p/>
+ * The serialized form is the sequence of containers, each written in the most compact of the three kinds, so a
+ * bitmap is always written as if {@link #runOptimize()} had been called.
+ *
+ * @author Thomas Jensen
+ */
+public final class SerializableRoaringBitmap
+    extends AbstractSet<Integer>
+    implements SerializableNavigableSet<Integer>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** number of bits of a value which are kept in a container */
+    private static final int LOW_BITS = 16;
+
+    /** flips the sign bit of the upper half, so that the unsigned keys sort like the signed values */
+    private static final int KEY_SIGN = 0x8000;
+
+    private static final int INITIAL_CAPACITY = 4;
+
+
+
+    /** the upper halves of the values in each container, with the sign bit flipped, sorted */
+    transient char[] iKeys;
+
+    /** the containers, in the same order as the keys */
+    transient RoaringContainer[] iContainers;
+
+    /** number of containers in use */
+    transient int iContainerCount;
+
+    /** incremented on every modification, for the fail-fast iterators */
+    transient int iModCount;
+
+
+
+    /**
+     * Constructs a new, empty set.
+     */
+    public SerializableRoaringBitmap()
+    {
+        super();
+        iKeys = new char[INITIAL_CAPACITY];
+        iContainers = new RoaringContainer[INITIAL_CAPACITY];
+    }
+
+
+
+    /**
+     * Constructs a new set containing the elements in the specified collection.
+     *
+     * @param pCollection the collection whose elements are to be placed into this set
+     * @throws NullPointerException if the specified collection is <code>null</code> or contains <code>null</code>
+     */
+    public SerializableRoaringBitmap(@Nonnull final Collection<? extends Integer> pCollection)
+    {
+        this();
+        addAll(pCollection);
+    }
+
+
+
+    /**
+     * Creates a new set containing the given values.
+     *
+     * @param pValues the values
+     * @return a new set
+     */
+    @Nonnull
+    public static SerializableRoaringBitmap of(@Nonnull final int... pValues)
+    {
+        final SerializableRoaringBitmap result = new SerializableRoaringBitmap();
+        for (final int value : pValues) {
+            result.add(value);
+        }
+        return result;
+    }
+
+
+
+    private static char keyOf(final int pValue)
+    {
+        return (char) ((pValue >>> LOW_BITS) ^ KEY_SIGN);
+    }
+
+
+
+    private static int lowOf(final int pValue)
+    {
+        return pValue & RoaringContainer.MAX_VALUE;
+    }
+
+
+
+    static int valueOf(final char pKey, final int pLow)
+    {
+        return ((pKey ^ KEY_SIGN) << LOW_BITS) | pLow;
+    }
+
+
+
+    private int indexOf(final char pKey)
+    {
+        return Arrays.binarySearch(iKeys, 0, iContainerCount, pKey);
+    }
+
+
+
+    private void insertContainer(final int pIndex, final char pKey, @Nonnull final RoaringContainer pContainer)
+    {
+        if (iContainerCount == iKeys.length) {
+            final int capacity = Math.max(INITIAL_CAPACITY, iKeys.length * 2);
+            iKeys = Arrays.copyOf(iKeys, capacity);
+            iContainers = Arrays.copyOf(iContainers, capacity);
+        }
+        System.arraycopy(iKeys, pIndex, iKeys, pIndex + 1, iContainerCount - pIndex);
+        System.arraycopy(iContainers, pIndex, iContainers, pIndex + 1, iContainerCount - pIndex);
+        iKeys[pIndex] = pKey;
+        iContainers[pIndex] = pContainer;
+        iContainerCount++;
+    }
+
+
+
+    private void removeContainer(final int pIndex)
+    {
+        System.arraycopy(iKeys, pIndex + 1, iKeys, pIndex, iContainerCount - pIndex - 1);
+        System.arraycopy(iContainers, pIndex + 1, iContainers, pIndex, iContainerCount - pIndex - 1);
+        iContainerCount--;
+        iContainers[iContainerCount] = null;
+    }
+
+
+
+    private void appendContainer(final char pKey, @Nonnull final RoaringContainer pContainer)
+    {
+        if (pContainer.cardinality() > 0) {
+            insertContainer(iContainerCount, pKey, pContainer);
+        }
+    }
+
+
+
+    /**
+     * Adds the specified value to this set if it is not already present.
+     *
+     * @param pValue the value
+     * @return <code>true</code> if the set did not already contain the value
+     */
+    public boolean add(final int pValue)
+    {
+        final char key = keyOf(pValue);
+        final int index = indexOf(key);
+        if (index < 0) {
+            insertContainer(-index - 1, key, RoaringArrayContainer.of(lowOf(pValue)));
+            iModCount++;
+            return true;
+        }
+        final RoaringContainer container = iContainers[index];
+        final int oldCardinality = container.cardinality();
+        iContainers[index] = container.add(lowOf(pValue));
+        if (iContainers[index].cardinality() != oldCardinality) {
+            iModCount++;
+            return true;
+        }
+        return false;
+    }
+
+
+
+    @Override
+    public boolean add(@Nonnull final Integer pValue)
+    {
+        return add(pValue.intValue());
+    }
+
+
+
+    /**
+     * Removes the specified value from this set if it is present.
+     *
+     * @param pValue the value
+     * @return <code>true</code> if the set contained the value
+     */
+    public boolean remove(final int pValue)
+    {
+        final int index = indexOf(keyOf(pValue));
+        if (index < 0) {
+            return false;
+        }
+        final RoaringContainer container = iContainers[index];
+        final int oldCardinality = container.cardinality();
+        final RoaringContainer result = container.remove(lowOf(pValue));
+        if (result.cardinality() == oldCardinality) {
+            return false;
+        }
+        if (result.cardinality() == 0) {
+            removeContainer(index);
+        }
+        else {
+            iContainers[index] = result;
+        }
+        iModCount++;
+        return true;
+    }
+
+
+
+    @Override
+    public boolean remove(@Nullable final Object pObject)
+    {
+        return pObject instanceof Integer && remove(((Integer) pObject).intValue());
+    }
+
+
+
+    /**
+     * Returns <code>true</code> if this set contains the specified value.
+     *
+     * @param pValue the value
+     * @return <code>true</code> if this set contains the value
+     */
+    public boolean contains(final int pValue)
+    {
+        final int index = indexOf(keyOf(pValue));
+        return index >= 0 && iContainers[index].contains(lowOf(pValue));
+    }
+
+
+
+    @Override
+    public boolean contains(@Nullable final Object pObject)
+    {
+        return pObject instanceof Integer && contains(((Integer) pObject).intValue());
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        int result = 0;
+        for (int i = 0; i < iContainerCount; i++) {
+            result += iContainers[i].cardinality();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        return iContainerCount == 0;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        if (iContainerCount > 0) {
+            Arrays.fill(iContainers, 0, iContainerCount, null);
+            iContainerCount = 0;
+            iModCount++;
+        }
+    }
+
+
+
+    /**
+     * Converts the containers of consecutive values to lists of runs, where that makes them smaller. The set is
+     * converted back as it is modified.
+     *
+     * @return <code>true</code> if any container was converted
+     */
+    public boolean runOptimize()
+    {
+        boolean result = false;
+        for (int i = 0; i < iContainerCount; i++) {
+            final RoaringContainer optimized = iContainers[i].optimize();
+            if (optimized != iContainers[i]) {
+                iContainers[i] = optimized;
+                result = true;
+            }
+        }
+        return result;
+    }
+
+
+
+    /**
+     * Computes the intersection of two sets.
+     *
+     * @param pFirst a set
+     * @param pSecond another set
+     * @return a new set which contains the values contained in both sets
+     */
+    @Nonnull
+    public static SerializableRoaringBitmap and(@Nonnull final SerializableRoaringBitmap pFirst,
+        @Nonnull final SerializableRoaringBitmap pSecond)
+    {
+        final SerializableRoaringBitmap result = new SerializableRoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < pFirst.iContainerCount && j < pSecond.iContainerCount) {
+            final char key = pFirst.iKeys[i];
+            if (key < pSecond.iKeys[j]) {
+                i++;
+            }
+            else if (key > pSecond.iKeys[j]) {
+                j++;
+            }
+            else {
+                result.appendContainer(key, RoaringContainer.and(pFirst.iContainers[i++], pSecond.iContainers[j++]));
+            }
+        }
+        return result;
+    }
+
+
+
+    /**
+     * Computes the union of two sets.
+     *
+     * @param pFirst a set
+     * @param pSecond another set
+     * @return a new set which contains the values contained in either set
+     */
+    @Nonnull
+    public static SerializableRoaringBitmap or(@Nonnull final SerializableRoaringBitmap pFirst,
+        @Nonnull final SerializableRoaringBitmap pSecond)
+    {
+        final SerializableRoaringBitmap result = new SerializableRoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < pFirst.iContainerCount || j < pSecond.iContainerCount) {
+            if (j == pSecond.iContainerCount
+                || (i < pFirst.iContainerCount && pFirst.iKeys[i] < pSecond.iKeys[j]))
+            {
+                result.appendContainer(pFirst.iKeys[i], pFirst.iContainers[i++].copy());
+            }
+            else if (i == pFirst.iContainerCount || pFirst.iKeys[i] > pSecond.iKeys[j]) {
+                result.appendContainer(pSecond.iKeys[j], pSecond.iContainers[j++].copy());
+            }
+            else {
+                result.appendContainer(pFirst.iKeys[i],
+                    RoaringContainer.or(pFirst.iContainers[i++], pSecond.iContainers[j++]));
+            }
+        }
+        return result;
+    }
+
+
+
+    /**
+     * Computes the difference of two sets.
+     *
+     * @param pFirst a set
+     * @param pSecond the set whose values are not included in the result
+     * @return a new set which contains the values contained in the first set but not in the second
+     */
+    @Nonnull
+    public static SerializableRoaringBitmap andNot(@Nonnull final SerializableRoaringBitmap pFirst,
+        @Nonnull final SerializableRoaringBitmap pSecond)
+    {
+        final SerializableRoaringBitmap result = new SerializableRoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < pFirst.iContainerCount; i++) {
+            final char key = pFirst.iKeys[i];
+            while (j < pSecond.iContainerCount && pSecond.iKeys[j] < key) {
+                j++;
+            }
+            if (j < pSecond.iContainerCount && pSecond.iKeys[j] == key) {
+                result.appendContainer(key, RoaringContainer.andNot(pFirst.iContainers[i], pSecond.iContainers[j]));
+            }
+            else {
+                result.appendContainer(key, pFirst.iContainers[i].copy());
+            }
+        }
+        return result;
+    }
+
+
+
+    private boolean replaceWith(@Nonnull final SerializableRoaringBitmap pResult)
+    {
+        final boolean changed = !sameValues(pResult);
+        if (changed) {
+            iKeys = pResult.iKeys;
+            iContainers = pResult.iContainers;
+            iContainerCount = pResult.iContainerCount;
+            iModCount++;
+        }
+        return changed;
+    }
+
+
+
+    private boolean sameValues(@Nonnull final SerializableRoaringBitmap pOther)
+    {
+        if (iContainerCount != pOther.iContainerCount) {
+            return false;
+        }
+        for (int i = 0; i < iContainerCount; i++) {
+            if (iKeys[i] != pOther.iKeys[i] || !iContainers[i].sameValues(pOther.iContainers[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    @Override
+    public boolean addAll(@Nonnull final Collection<? extends Integer> pCollection)
+    {
+        if (pCollection instanceof SerializableRoaringBitmap) {
+            return replaceWith(or(this, (SerializableRoaringBitmap) pCollection));
+        }
+        return super.addAll(pCollection);
+    }
+
+
+
+    @Override
+    public boolean retainAll(@Nonnull final Collection<?> pCollection)
+    {
+        if (pCollection instanceof SerializableRoaringBitmap) {
+            return replaceWith(and(this, (SerializableRoaringBitmap) pCollection));
+        }
+        return super.retainAll(pCollection);
+    }
+
+
+
+    @Override
+    public boolean removeAll(@Nonnull final Collection<?> pCollection)
+    {
+        if (pCollection instanceof SerializableRoaringBitmap) {
+            return replaceWith(andNot(this, (SerializableRoaringBitmap) pCollection));
+        }
+        return super.removeAll(pCollection);
+    }
+
+
+
+    @Override
+    public boolean containsAll(@Nonnull final Collection<?> pCollection)
+    {
+        if (pCollection instanceof SerializableRoaringBitmap) {
+            final SerializableRoaringBitmap other = (SerializableRoaringBitmap) pCollection;
+            return other.sameValues(and(this, other));
+        }
+        return super.containsAll(pCollection);
+    }
+
+
+
+    @Override
+    public boolean equals(@Nullable final Object pOther)
+    {
+        if (pOther instanceof SerializableRoaringBitmap) {
+            return sameValues((SerializableRoaringBitmap) pOther);
+        }
+        return super.equals(pOther);
+    }
+
+
+
+    @Override
+    public int hashCode()
+    {
+        int result = 0;
+        for (int i = 0; i < iContainerCount; i++) {
+            final RoaringContainer container = iContainers[i];
+            final int high = valueOf(iKeys[i], 0);
+            for (int v = container.ceiling(0); v >= 0; v = container.ceiling(v + 1)) {
+                result += high | v;
+            }
+        }
+        return result;
+    }
+
+
+
+    /**
+     * Find the smallest element greater than or equal to the given value, as a <code>long</code> so that the absence
+     * of an element can be signaled.
+     *
+     * @param pValue the value, which may lie outside the <code>int</code> range
+     * @return the element, or {@link Long#MAX_VALUE} if there is none
+     */
+    private long ceilingValue(final long pValue)
+    {
+        if (pValue > Integer.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        final int value = (int) Math.max(Integer.MIN_VALUE, pValue);
+        final int index = indexOf(keyOf(value));
+        int next = -index - 1;
+        if (index >= 0) {
+            final int low = iContainers[index].ceiling(lowOf(value));
+            if (low >= 0) {
+                return valueOf(iKeys[index], low);
+            }
+            next = index + 1;
+        }
+        return next < iContainerCount ? valueOf(iKeys[next], iContainers[next].ceiling(0)) : Long.MAX_VALUE;
+    }
+
+
+
+    /**
+     * Find the largest element less than or equal to the given value.
+     *
+     * @param pValue the value, which may lie outside the <code>int</code> range
+     * @return the element, or {@link Long#MIN_VALUE} if there is none
+     */
+    private long floorValue(final long pValue)
+    {
+        if (pValue < Integer.MIN_VALUE) {
+            return Long.MIN_VALUE;
+        }
+        final int value = (int) Math.min(Integer.MAX_VALUE, pValue);
+        final int index = indexOf(keyOf(value));
+        int previous = -index - 2;
+        if (index >= 0) {
+            final int low = iContainers[index].floor(lowOf(value));
+            if (low >= 0) {
+                return valueOf(iKeys[index], low);
+            }
+            previous = index - 1;
+        }
+        return previous >= 0
+            ? valueOf(iKeys[previous], iContainers[previous].floor(RoaringContainer.MAX_VALUE)) : Long.MIN_VALUE;
+    }
+
+
+
+    @CheckForNull
+    private static Integer toElement(final long pValue)
+    {
+        return pValue == Long.MAX_VALUE || pValue == Long.MIN_VALUE ? null : Integer.valueOf((int) pValue);
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public Integer lower(@Nonnull final Integer pValue)
+    {
+        return toElement(floorValue(pValue.longValue() - 1));
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public Integer floor(@Nonnull final Integer pValue)
+    {
+        return toElement(floorValue(pValue.longValue()));
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public Integer ceiling(@Nonnull final Integer pValue)
+    {
+        return toElement(ceilingValue(pValue.longValue()));
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public Integer higher(@Nonnull final Integer pValue)
+    {
+        return toElement(ceilingValue(pValue.longValue() + 1));
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Integer first()
+    {
+        if (iContainerCount == 0) {
+            throw new NoSuchElementException();
+        }
+        return Integer.valueOf(valueOf(iKeys[0], iContainers[0].ceiling(0)));
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Integer last()
+    {
+        if (iContainerCount == 0) {
+            throw new NoSuchElementException();
+        }
+        final int index = iContainerCount - 1;
+        return Integer.valueOf(valueOf(iKeys[index], iContainers[index].floor(RoaringContainer.MAX_VALUE)));
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public Integer pollFirst()
+    {
+        if (iContainerCount == 0) {
+            return null;
+        }
+        final Integer result = first();
+        remove(result.intValue());
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public Integer pollLast()
+    {
+        if (iContainerCount == 0) {
+            return null;
+        }
+        final Integer result = last();
+        remove(result.intValue());
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public SerializableComparator<? super Integer> comparator()
+    {
+        return null;
+    }
+
+
+
+    /**
+     * Returns the elements in ascending order.
+     *
+     * @return an iterator which supports removal
+     */
+    @Override
+    @Nonnull
+    public Iterator<Integer> iterator()
+    {
+        return new RoaringBitmapIterator(this, true);
+    }
+
+
+
+    /**
+     * Returns the elements in descending order.
+     *
+     * @return an iterator which supports removal
+     */
+    @Override
+    @Nonnull
+    public Iterator<Integer> descendingIterator()
+    {
+        return new RoaringBitmapIterator(this, false);
+    }
+
+
+
+    /**
+     * Returns a copy of this set in reverse order, which is a {@link SerializableTreeSet} because the elements of a
+     * roaring bitmap are always in ascending order.
+     *
+     * @return a new set
+     */
+    @Override
+    @Nonnull
+    public SerializableNavigableSet<Integer> descendingSet()
+    {
+        final SerializableTreeSet<Integer> result = new SerializableTreeSet<Integer>(
+            SerializableReverseComparator.<Integer>reverse(null));
+        result.addAll(this);
+        return result;
+    }
+
+
+
+    /**
+     * Copy the elements in a range into a new set.
+     *
+     * @param pFrom smallest element to include
+     * @param pTo largest element to include
+     * @return a new set
+     */
+    @Nonnull
+    private SerializableRoaringBitmap range(final long pFrom, final long pTo)
+    {
+        final SerializableRoaringBitmap result = new SerializableRoaringBitmap();
+        if (pFrom > pTo || pTo < Integer.MIN_VALUE || pFrom > Integer.MAX_VALUE) {
+            return result;
+        }
+        final int from = (int) Math.max(Integer.MIN_VALUE, pFrom);
+        final int to = (int) Math.min(Integer.MAX_VALUE, pTo);
+        final char fromKey = keyOf(from);
+        final char toKey = keyOf(to);
+        for (int i = 0; i < iContainerCount; i++) {
+            final char key = iKeys[i];
+            if (key > fromKey && key < toKey) {
+                result.appendContainer(key, iContainers[i].copy());
+            }
+            else if (key == fromKey || key == toKey) {
+                final int low = key == fromKey ? lowOf(from) : 0;
+                final int high = key == toKey ? lowOf(to) : RoaringContainer.MAX_VALUE;
+                result.appendContainer(key, iContainers[i].range(low, high));
+            }
+        }
+        return result;
+    }
+
+
+
+    private static long bound(@Nonnull final Integer pValue, final boolean pInclusive, final int pExclusiveOffset)
+    {
+        return pValue.longValue() + (pInclusive ? 0 : pExclusiveOffset);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableRoaringBitmap subSet(@Nonnull final Integer pFromElement, final boolean pFromInclusive,
+        @Nonnull final Integer pToElement, final boolean pToInclusive)
+    {
+        if (pFromElement.intValue() > pToElement.intValue()) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return range(bound(pFromElement, pFromInclusive, 1), bound(pToElement, pToInclusive, -1));
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableRoaringBitmap headSet(@Nonnull final Integer pToElement, final boolean pInclusive)
+    {
+        return range(Integer.MIN_VALUE, bound(pToElement, pInclusive, -1));
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableRoaringBitmap tailSet(@Nonnull final Integer pFromElement, final boolean pInclusive)
+    {
+        return range(bound(pFromElement, pInclusive, 1), Integer.MAX_VALUE);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableRoaringBitmap subSet(@Nonnull final Integer pFromElement, @Nonnull final Integer pToElement)
+    {
+        return subSet(pFromElement, true, pToElement, false);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableRoaringBitmap headSet(@Nonnull final Integer pToElement)
+    {
+        return headSet(pToElement, false);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableRoaringBitmap tailSet(@Nonnull final Integer pFromElement)
+    {
+        return tailSet(pFromElement, true);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableRoaringBitmap clone()
+    {
+        final SerializableRoaringBitmap result;
+        try {
+            result = (SerializableRoaringBitmap) super.clone();
+        }
+        catch (CloneNotSupportedException e) {
+            throw new InternalError(e.getMessage());  // cannot happen, we are Cloneable
+        }
+        result.iKeys = iKeys.clone();
+        result.iContainers = new RoaringContainer[iContainers.length];
+        for (int i = 0; i < iContainerCount; i++) {
+            result.iContainers[i] = iContainers[i].copy();
+        }
+        result.iModCount = 0;
+        return result;
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        pOut.writeInt(iContainerCount);
+        for (int i = 0; i < iContainerCount; i++) {
+            pOut.writeChar(iKeys[i]);
+            iContainers[i].write(pOut);
+        }
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        final int containerCount = pIn.readInt();
+        if (containerCount < 0 || containerCount > RoaringContainer.MAX_VALUE + 1) {
+            throw new InvalidObjectException("invalid container count: " + containerCount);
+        }
+        iKeys = new char[Math.max(INITIAL_CAPACITY, containerCount)];
+        iContainers = new RoaringContainer[iKeys.length];
+        for (int i = 0; i < containerCount; i++) {
+            iKeys[i] = pIn.readChar();
+            if (i > 0 && iKeys[i] <= iKeys[i - 1]) {
+                throw new InvalidObjectException("container keys not sorted");
+            }
+            iContainers[i] = RoaringContainer.read(pIn);
+        }
+        iContainerCount = containerCount;
+        SerializationMonitor.readFinished(this, size());
+    }
+}
@@ -0,0 +1,204 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A serializable multimap whose groups are sets, which keep the values in insertion order and contain each value at
+ * most once. This is a compact replacement for a
+ * <code>SerializableHashMap&lt;K, SerializableHashSet&lt;V&gt;&gt;</code>: A key with a single value costs no more
+ * than a map entry, and small groups are arrays, which are searched linearly. Only groups of more than eight values
+ * are additionally indexed by a hash set. The serialized form is a flat stream of each key, the number of its values,
+ * and the values.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public final class SerializableSetMultimap<K extends Serializable, V extends Serializable>
+    extends AbstractSerializableMultimap<K, V>
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+
+
+    /**
+     * Constructs a new, empty multimap.
+     */
+    public SerializableSetMultimap()
+    {
+        super();
+    }
+
+
+
+    /**
+     * Constructs a new multimap with the same key-value pairs as the specified multimap. Duplicate values of a key
+     * are added only once.
+     *
+     * @param pMultimap the multimap whose key-value pairs are to be placed in this multimap
+     */
+    public SerializableSetMultimap(@Nonnull final SerializableMultimap<? extends K, ? extends V> pMultimap)
+    {
+        super();
+        copyFrom(pMultimap);
+    }
+
+
+
+    private <K2 extends K> void copyFrom(@Nonnull final SerializableMultimap<K2, ? extends V> pMultimap)
+    {
+        for (final K2 key : pMultimap.keySet()) {
+            putAll(key, pMultimap.get(key));
+        }
+    }
+
+
+
+    @Override
+    boolean permitsDuplicates()
+    {
+        return false;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The view is a set, which supports all optional operations.
+     */
+    @Override
+    @Nonnull
+    public SerializableSet<V> get(@Nullable final K pKey)
+    {
+        return new GroupSet(pKey);
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The copy is a {@link SerializableLinkedHashSet}, which keeps the insertion order of the values.
+     */
+    @Override
+    @Nonnull
+    public SerializableSet<V> removeAll(@Nullable final Object pKey)
+    {
+        return new SerializableLinkedHashSet<V>(removeGroup(pKey));
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableSetMultimap<K, V> clone()
+    {
+        return (SerializableSetMultimap<K, V>) super.clone();
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    /**
+     * The live set view of the group of a key, which is serialized as a {@link SerializableLinkedHashSet}, so that
+     * the copy keeps the insertion order of the group.
+     */
+    private final class GroupSet
+        extends AbstractSet<V>
+        implements SerializableSet<V>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final K iKey;
+
+
+
+        GroupSet(@Nullable final K pKey)
+        {
+            iKey = pKey;
+        }
+
+
+
+        @Override
+        public int size()
+        {
+            return groupSize(group(iKey));
+        }
+
+
+
+        @Override
+        public boolean contains(@Nullable final Object pValue)
+        {
+            return containsEntry(iKey, pValue);
+        }
+
+
+
+        @Override
+        public boolean add(@Nonnull final V pValue)
+        {
+            return put(iKey, pValue);
+        }
+
+
+
+        @Override
+        public boolean remove(@Nullable final Object pValue)
+        {
+            return SerializableSetMultimap.this.remove(iKey, pValue);
+        }
+
+
+
+        @Override
+        public void clear()
+        {
+            removeGroup(iKey);
+        }
+
+
+
+        @Override
+        @Nonnull
+        public Iterator<V> iterator()
+        {
+            return new GroupIterator(iKey);
+        }
+
+
+
+        private Object writeReplace()
+        {
+            return new SerializableLinkedHashSet<V>(this);
+        }
+    }
+}
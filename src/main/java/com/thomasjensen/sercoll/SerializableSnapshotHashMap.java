@@ -0,0 +1,527 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A serializable concurrent hash map which is serialized as an exact point-in-time snapshot, while other threads keep
+ * writing to it. Like the <code>ConcurrentHashMap</code> of Java 7, the map is divided into segments, each of which is
+ * a hash table guarded by its own lock; reads take no lock at all.
+ * <p/>
+ * Taking a snapshot <em>pins</em> the current table of every segment. For this, the locks of all segments are held
+ * at the same time, but only long enough to record the tables, so writers are stalled for a few microseconds, not for
+ * the duration of the write. While a table is pinned, a writer which is about to modify a bucket for the first time
+ * saves a copy of the bucket's chain for the snapshot. All other buckets are read from the live table, and the
+ * snapshot checks after reading each bucket that no writer has saved it in the meantime. Thus only the buckets touched
+ * during the snapshot are copied, and the snapshot sees each bucket exactly as it was when the tables were pinned.
+ * Outside of snapshots, writers update the chains in place. Growing or clearing a segment installs a new table and
+ * leaves the pinned one untouched.
+ * <p/>
+ * Serialization and {@link #snapshot()} take such snapshots; only one snapshot is taken at a time. Iterators, on the
+ * other hand, are weakly consistent, as in <code>ConcurrentHashMap</code>. Neither keys nor values may be
+ * <code>null</code>.
+ * <p/>
+ * The serialized form is the number of segments, followed by the number of entries and the keys and values of the
+ * snapshot.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public final class SerializableSnapshotHashMap<K extends Serializable, V extends Serializable>
+    extends AbstractMap<K, V>
+    implements ConcurrentMap<K, V>, SerializableMap<K, V>
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** the number of segments used by the constructors which do not specify a concurrency level */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    private static final int MIN_SEGMENT_CAPACITY = 2;
+
+    static final int MAX_SEGMENT_CAPACITY = 1 << 30;
+
+    static final float LOAD_FACTOR = 0.75f;
+
+    /** the number of segments, a power of two */
+    private final int iNumSegments;
+
+    transient SnapshotSegment[] iSegments;
+
+    /** the number of low bits of the spread hash code which are not used to select the segment */
+    private transient int iSegmentShift;
+
+    /** held while taking a snapshot, so that only one snapshot is taken at a time */
+    private transient ReentrantLock iSnapshotLock;
+
+
+
+    /**
+     * Constructs an empty map with the default concurrency level.
+     */
+    public SerializableSnapshotHashMap()
+    {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+
+
+    /**
+     * Constructs an empty map.
+     *
+     * @param pConcurrencyLevel the estimated number of concurrently writing threads, which determines the number of
+     *          segments
+     * @throws IllegalArgumentException the concurrency level is less than 1
+     */
+    public SerializableSnapshotHashMap(final int pConcurrencyLevel)
+    {
+        super();
+        if (pConcurrencyLevel < 1) {
+            throw new IllegalArgumentException("invalid concurrency level: " + pConcurrencyLevel);
+        }
+        final int numSegments = Math.min(MAX_SEGMENTS, pConcurrencyLevel);
+        iNumSegments = Integer.bitCount(numSegments) == 1 ? numSegments : Integer.highestOneBit(numSegments) << 1;
+        init(MIN_SEGMENT_CAPACITY);
+    }
+
+
+
+    /**
+     * Constructs a map with the default concurrency level which contains the mappings of the given map.
+     *
+     * @param pMap the map whose mappings are to be placed in this map
+     */
+    public SerializableSnapshotHashMap(@Nonnull final Map<? extends K, ? extends V> pMap)
+    {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+        putAll(pMap);
+    }
+
+
+
+    private void init(final int pSegmentCapacity)
+    {
+        iSegmentShift = 32 - Integer.numberOfTrailingZeros(iNumSegments);
+        iSegments = new SnapshotSegment[iNumSegments];
+        for (int i = 0; i < iNumSegments; i++) {
+            iSegments[i] = new SnapshotSegment(pSegmentCapacity);
+        }
+        iSnapshotLock = new ReentrantLock();
+    }
+
+
+
+    /**
+     * Spread the hash code of the key, so that both the high bits, which select the segment, and the low bits, which
+     * select the bucket, depend on all bits of the hash code. This is the variant of the Wang/Jenkins hash used by the
+     * <code>ConcurrentHashMap</code> of Java 7.
+     *
+     * @param pKey the key
+     * @return the spread hash code
+     */
+    private static int hash(@Nonnull final Object pKey)
+    {
+        int h = pKey.hashCode();
+        h += (h << 15) ^ 0xffffcd7d;
+        h ^= h >>> 10;
+        h += h << 3;
+        h ^= h >>> 6;
+        h += (h << 2) + (h << 14);
+        return h ^ (h >>> 16);
+    }
+
+
+
+    @Nonnull
+    private SnapshotSegment segmentFor(final int pHash)
+    {
+        return iSegments[iSegmentShift == 32 ? 0 : pHash >>> iSegmentShift];
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public V get(@Nullable final Object pKey)
+    {
+        if (pKey == null) {
+            return null;
+        }
+        final int hash = hash(pKey);
+        final SnapshotNode node = segmentFor(hash).find(pKey, hash);
+        return node != null ? (V) node.iValue : null;
+    }
+
+
+
+    @Override
+    public boolean containsKey(@Nullable final Object pKey)
+    {
+        if (pKey == null) {
+            return false;
+        }
+        final int hash = hash(pKey);
+        return segmentFor(hash).find(pKey, hash) != null;
+    }
+
+
+
+    @Override
+    public boolean containsValue(@Nullable final Object pValue)
+    {
+        if (pValue != null) {
+            for (final SnapshotSegment segment : iSegments) {
+                final AtomicReferenceArray<SnapshotNode> table = segment.iTable;
+                for (int i = 0; i < table.length(); i++) {
+                    for (SnapshotNode node = table.get(i); node != null; node = node.iNext) {
+                        if (pValue.equals(node.iValue)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public V put(@Nonnull final K pKey, @Nonnull final V pValue)
+    {
+        if (pKey == null || pValue == null) {
+            throw new NullPointerException();
+        }
+        final int hash = hash(pKey);
+        return (V) segmentFor(hash).put(pKey, hash, pValue, false);
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(@Nonnull final K pKey, @Nonnull final V pValue)
+    {
+        if (pKey == null || pValue == null) {
+            throw new NullPointerException();
+        }
+        final int hash = hash(pKey);
+        return (V) segmentFor(hash).put(pKey, hash, pValue, true);
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public V remove(@Nullable final Object pKey)
+    {
+        if (pKey == null) {
+            return null;
+        }
+        final int hash = hash(pKey);
+        return (V) segmentFor(hash).remove(pKey, hash, null);
+    }
+
+
+
+    @Override
+    public boolean remove(@Nullable final Object pKey, @Nullable final Object pValue)
+    {
+        if (pKey == null || pValue == null) {
+            return false;
+        }
+        final int hash = hash(pKey);
+        return segmentFor(hash).remove(pKey, hash, pValue) != null;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public V replace(@Nonnull final K pKey, @Nonnull final V pValue)
+    {
+        if (pKey == null || pValue == null) {
+            throw new NullPointerException();
+        }
+        final int hash = hash(pKey);
+        return (V) segmentFor(hash).replace(pKey, hash, null, pValue);
+    }
+
+
+
+    @Override
+    public boolean replace(@Nonnull final K pKey, @Nonnull final V pOldValue, @Nonnull final V pNewValue)
+    {
+        if (pKey == null || pOldValue == null || pNewValue == null) {
+            throw new NullPointerException();
+        }
+        final int hash = hash(pKey);
+        return segmentFor(hash).replace(pKey, hash, pOldValue, pNewValue) != null;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        long result = 0;
+        for (final SnapshotSegment segment : iSegments) {
+            result += segment.iCount;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, result);
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (final SnapshotSegment segment : iSegments) {
+            if (segment.iCount > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        for (final SnapshotSegment segment : iSegments) {
+            segment.clear();
+        }
+    }
+
+
+
+    /**
+     * Takes a point-in-time snapshot of this map, while other threads may keep writing to it.
+     *
+     * @return a new map containing the mappings of this map at one point in time
+     */
+    @Nonnull
+    public SerializableHashMap<K, V> snapshot()
+    {
+        final SerializableHashMap<K, V> result = new SerializableHashMap<K, V>();
+        forEachSnapshotEntry(new EntryVisitor<Object, Object>()
+        {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void visit(final Object pKey, final Object pValue)
+            {
+                result.put((K) pKey, (V) pValue);
+            }
+        });
+        return result;
+    }
+
+
+
+    /**
+     * Pin the tables of all segments, call the visitor for each entry of the pinned tables, and unpin them.
+     *
+     * @param pVisitor the visitor
+     */
+    private void forEachSnapshotEntry(@Nonnull final EntryVisitor<Object, Object> pVisitor)
+    {
+        iSnapshotLock.lock();
+        try {
+            final SnapshotPin[] pins = pin();
+            try {
+                final List<Object> keysAndValues = new ArrayList<Object>();
+                for (final SnapshotPin pin : pins) {
+                    for (int i = 0; i < pin.iTable.length(); i++) {
+                        pin.readBucket(i, keysAndValues);
+                        for (int j = 0; j < keysAndValues.size(); j += 2) {
+                            pVisitor.visit(keysAndValues.get(j), keysAndValues.get(j + 1));
+                        }
+                    }
+                }
+            }
+            finally {
+                for (final SnapshotSegment segment : iSegments) {
+                    segment.iPin = null;
+                }
+            }
+        }
+        finally {
+            iSnapshotLock.unlock();
+        }
+    }
+
+
+
+    /**
+     * Pin the current tables of all segments at the same point in time.
+     *
+     * @return the pins, one per segment
+     */
+    @Nonnull
+    private SnapshotPin[] pin()
+    {
+        final SnapshotPin[] result = new SnapshotPin[iNumSegments];
+        int locked = 0;
+        try {
+            for (final SnapshotSegment segment : iSegments) {
+                segment.lock();
+                locked++;
+            }
+            for (int i = 0; i < iNumSegments; i++) {
+                result[i] = new SnapshotPin(iSegments[i].iTable, iSegments[i].iCount);
+                iSegments[i].iPin = result[i];
+            }
+        }
+        finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                iSegments[i].unlock();
+            }
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableSet<K> keySet()
+    {
+        return new SnapshotKeySet<K, V>(this);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableCollection<V> values()
+    {
+        return new SnapshotValues<K, V>(this);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        return new SnapshotEntrySet<K, V>(this);
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        iSnapshotLock.lock();
+        try {
+            final SnapshotPin[] pins = pin();
+            try {
+                int size = 0;
+                for (final SnapshotPin pin : pins) {
+                    size += pin.iCount;
+                }
+                pOut.writeInt(size);
+                final List<Object> keysAndValues = new ArrayList<Object>();
+                for (final SnapshotPin pin : pins) {
+                    for (int i = 0; i < pin.iTable.length(); i++) {
+                        for (final Object keyOrValue : pin.readBucket(i, keysAndValues)) {
+                            pOut.writeObject(keyOrValue);
+                        }
+                    }
+                }
+                SerializationMonitor.writeFinished(this, size);
+            }
+            finally {
+                for (final SnapshotSegment segment : iSegments) {
+                    segment.iPin = null;
+                }
+            }
+        }
+        finally {
+            iSnapshotLock.unlock();
+        }
+    }
+
+
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        if (iNumSegments < 1 || iNumSegments > MAX_SEGMENTS || Integer.bitCount(iNumSegments) != 1) {
+            throw new InvalidObjectException("invalid number of segments: " + iNumSegments);
+        }
+        final int size = pIn.readInt();
+        if (size < 0) {
+            throw new InvalidObjectException("negative size: " + size);
+        }
+        init(segmentCapacityFor(size / iNumSegments));
+        for (int i = 0; i < size; i++) {
+            final K key = (K) pIn.readObject();
+            final V value = (V) pIn.readObject();
+            if (key == null || value == null) {
+                throw new InvalidObjectException("null key or value");
+            }
+            if (put(key, value) != null) {
+                throw new InvalidObjectException("duplicate key: " + key);
+            }
+        }
+        SerializationMonitor.readFinished(this, size);
+    }
+
+
+
+    private static int segmentCapacityFor(final int pNumEntries)
+    {
+        final int needed = (int) Math.min(MAX_SEGMENT_CAPACITY, (long) (pNumEntries / LOAD_FACTOR) + 1);
+        return Math.max(MIN_SEGMENT_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+    }
+}
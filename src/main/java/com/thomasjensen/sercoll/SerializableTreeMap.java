@@ -13,6 +13,10 @@ package com.thomasjensen.sercoll;
  * the specific language governing permissions and limitations under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.TreeMap;
@@ -159,4 +163,53 @@ public class SerializableTreeMap<K extends Serializable, V extends Serializable>
     {
         return new SerializableTreeMap<K, V>(super.tailMap(pFromKey));
     }
+
+
+
+    /**
+     * Write this map in an indexed format, which can be opened by {@link SerializableIndexedSortedMap#open} in order
+     * to look up single keys or ranges without deserializing the entire map. The entries are written in blocks of
+     * {@link SerializableIndexedSortedMap#DEFAULT_BLOCK_SIZE} entries.
+     *
+     * @param pOut the stream to write to, which is flushed, but not closed
+     * @throws IOException writing to the stream failed
+     * @see SerializableIndexedSortedMap#write
+     */
+    public void writeIndexed(@Nonnull final OutputStream pOut)
+        throws IOException
+    {
+        SerializableIndexedSortedMap.write(this, pOut, SerializableIndexedSortedMap.DEFAULT_BLOCK_SIZE);
+    }
+
+
+
+    /**
+     * Notifies the {@link SerializationMonitor} that this collection is about to be written. Subclasses which
+     * override this method should call it.
+     *
+     * @return this collection
+     */
+    protected Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, size());
+    }
 }
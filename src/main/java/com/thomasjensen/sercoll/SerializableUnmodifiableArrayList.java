@@ -13,6 +13,9 @@ package com.thomasjensen.sercoll;
  * the specific language governing permissions and limitations under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -24,6 +27,9 @@ import javax.annotation.Nullable;
 
 /**
  * Same as an <em>unmodifiable</em> {@link ArrayList}, except that this class promises to be fully serializable.
+ * <p/>
+ * A variant of this class for Java 9 and later is part of the multi-release JAR. Changes to the class must be
+ * applied to both variants.
  *
  * @param <E> element type
  * @author Thomas Jensen
@@ -35,6 +41,9 @@ public final class SerializableUnmodifiableArrayList<E extends Serializable>
     /** serialVersionUID */
     private static final long serialVersionUID = 1L;
 
+    /** the hash code, computed on first use because the contents never change; <code>0</code> if not computed yet */
+    private transient int ourHashCode = 0;
+
 
 
     /**
@@ -233,6 +242,21 @@ public final class SerializableUnmodifiableArrayList<E extends Serializable>
 
 
 
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pCollection ignored parameter
+     * @return never
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean retainAll(@Nonnull final Collection<?> pCollection)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
     @Override
     @Nonnull
     public ListIterator<E> listIterator()
@@ -267,4 +291,68 @@ public final class SerializableUnmodifiableArrayList<E extends Serializable>
     {
         return (SerializableUnmodifiableArrayList<E>) super.clone();
     }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The hash code is computed on first use and then cached, because the contents of this list never change.
+     */
+    @Override
+    public int hashCode()
+    {
+        int result = ourHashCode;
+        if (result == 0) {
+            result = super.hashCode();
+            ourHashCode = result;
+        }
+        return result;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Another instance of this class is found to be unequal without comparing the elements if its size or its cached
+     * hash code differs.
+     */
+    @Override
+    public boolean equals(@Nullable final Object pOther)
+    {
+        if (pOther instanceof SerializableUnmodifiableArrayList && pOther != this) {
+            final SerializableUnmodifiableArrayList<?> other = (SerializableUnmodifiableArrayList<?>) pOther;
+            if (CachedHashCode.provesUnequal(size(), ourHashCode, other.size(), other.ourHashCode)) {
+                return false;
+            }
+        }
+        return super.equals(pOther);
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, size());
+    }
 }
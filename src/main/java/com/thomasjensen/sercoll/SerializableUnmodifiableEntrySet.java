@@ -13,6 +13,9 @@ package com.thomasjensen.sercoll;
  * the specific language governing permissions and limitations under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashSet;
@@ -26,6 +29,9 @@ import javax.annotation.Nullable;
 /**
  * Same as an <em>unmodifiable</em> entry set, except that this class promises to be fully serializable. Intended only
  * for internal use by the {@link SerializableUnmodifiableHashMap}.
+ * <p/>
+ * A variant of this class for Java 9 and later is part of the multi-release JAR. Changes to the class must be
+ * applied to both variants.
  *
  * @param <K> key type
  * @param <V> value type
@@ -58,12 +64,11 @@ final class SerializableUnmodifiableEntrySet<K extends Serializable, V extends S
      * @param pEntrySet the entry set whose elements are to be placed into this entry set
      * @throws NullPointerException if the specified entry set is <code>null</code>
      */
-    @SuppressWarnings("unchecked")
     SerializableUnmodifiableEntrySet(@Nonnull final Set<? extends Map.Entry<? extends K, ? extends V>> pEntrySet)
     {
         super();
         for (Map.Entry<? extends K, ? extends V> entry : pEntrySet) {
-            super.add((Map.Entry<K, V>) entry);
+            super.add(new SerializableUnmodifiableEntry<K, V>(entry));
         }
     }
 
@@ -86,7 +91,7 @@ final class SerializableUnmodifiableEntrySet<K extends Serializable, V extends S
             @Override
             public Map.Entry<K, V> next()
             {
-                return new SerializableUnmodifiableEntry<K, V>(superIter.next());
+                return superIter.next();
             }
 
 
@@ -101,34 +106,6 @@ final class SerializableUnmodifiableEntrySet<K extends Serializable, V extends S
 
 
 
-    @Override
-    @Nonnull
-    @SuppressWarnings("unchecked")
-    public Object[] toArray()
-    {
-        Object[] result = super.toArray();
-        for (int i = 0; i < result.length; i++) {
-            result[i] = new SerializableUnmodifiableEntry<K, V>((Map.Entry<K, V>) result[i]);
-        }
-        return result;
-    }
-
-
-
-    @Override
-    @Nonnull
-    @SuppressWarnings("unchecked")
-    public <T> T[] toArray(final T[] pArray)
-    {
-        T[] result = super.toArray(pArray);
-        for (int i = 0; i < result.length; i++) {
-            result[i] = (T) new SerializableUnmodifiableEntry<K, V>((Map.Entry<K, V>) result[i]);
-        }
-        return result;
-    }
-
-
-
     /**
      * This operation is not supported by the unmodifiable collection.
      *
@@ -229,4 +206,30 @@ final class SerializableUnmodifiableEntrySet<K extends Serializable, V extends S
     {
         return (SerializableUnmodifiableEntrySet<K, V>) super.clone();
     }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, size());
+    }
 }
@@ -13,10 +13,14 @@ package com.thomasjensen.sercoll;
  * the specific language governing permissions and limitations under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 
@@ -25,6 +29,12 @@ import javax.annotation.Nullable;
  * <p/>
  * The wrapped sets are stored locally in order to improve performance. This is <code>transient</code> in order to avoid
  * double serialization. After deserialization, that local state is lazily reinitialized.
+ * <p/>
+ * The {@link #entrySet() entry set} holds its own unmodifiable copy of every entry. {@link #forEachEntry} and
+ * {@link #entryCursor()} traverse the map itself, without handing out entry objects.
+ * <p/>
+ * A variant of this class for Java 9 and later is part of the multi-release JAR. Changes to the class must be
+ * applied to both variants.
  *
  * @param <K> key type
  * @param <V> value type
@@ -32,11 +42,14 @@ import javax.annotation.Nullable;
  */
 public final class SerializableUnmodifiableHashMap<K extends Serializable, V extends Serializable>
     extends HashMap<K, V>
-    implements SerializableMap<K, V>, Cloneable
+    implements SerializableMap<K, V>, EntryTraversable<K, V>, Cloneable
 {
     /** serialVersionUID */
     private static final long serialVersionUID = 1L;
 
+    /** the hash code, computed on first use because the contents never change; <code>0</code> if not computed yet */
+    private transient int ourHashCode = 0;
+
     private transient SerializableSet<K> ourKeySet = null;
 
     private transient SerializableCollection<V> ourValueList = null;
@@ -170,6 +183,25 @@ public final class SerializableUnmodifiableHashMap<K extends Serializable, V ext
 
 
 
+    @Override
+    public void forEachEntry(@Nonnull final EntryVisitor<? super K, ? super V> pVisitor)
+    {
+        for (Map.Entry<K, V> entry : super.entrySet()) {
+            pVisitor.visit(entry.getKey(), entry.getValue());
+        }
+    }
+
+
+
+    @Override
+    @Nonnull
+    public EntryCursor<K, V> entryCursor()
+    {
+        return new IteratorEntryCursor<K, V>(super.entrySet().iterator());
+    }
+
+
+
     private SerializableSet<K> getSuperKeySet()
     {
         SerializableSet<K> result = null;
@@ -209,4 +241,68 @@ public final class SerializableUnmodifiableHashMap<K extends Serializable, V ext
         }
         return result;
     }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The hash code is computed on first use and then cached, because the contents of this map never change.
+     */
+    @Override
+    public int hashCode()
+    {
+        int result = ourHashCode;
+        if (result == 0) {
+            result = super.hashCode();
+            ourHashCode = result;
+        }
+        return result;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Another instance of this class is found to be unequal without comparing the entries if its size or its cached
+     * hash code differs.
+     */
+    @Override
+    public boolean equals(@Nullable final Object pOther)
+    {
+        if (pOther instanceof SerializableUnmodifiableHashMap && pOther != this) {
+            final SerializableUnmodifiableHashMap<?, ?> other = (SerializableUnmodifiableHashMap<?, ?>) pOther;
+            if (CachedHashCode.provesUnequal(size(), ourHashCode, other.size(), other.ourHashCode)) {
+                return false;
+            }
+        }
+        return super.equals(pOther);
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, size());
+    }
 }
@@ -0,0 +1,847 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * An immutable serializable navigable set, which keeps its elements in a sorted array.
+ * <p/>
+ * Compared to the {@link SerializableUnmodifiableTreeSet}, this set needs no tree node per element, which makes it
+ * several times smaller, and its iterators walk an array instead of chasing pointers. Lookups are binary searches.
+ * The set is intended for static sorted reference data.
+ * <p/>
+ * Unlike the other navigable sets of this library, {@link #subSet subSet()}, {@link #headSet headSet()}, and
+ * {@link #tailSet tailSet()} return <em>views</em>, which share the array of this set. They are created in O(log n)
+ * time without copying. Since the set cannot change, the views are serializable sets of their own, and their serialized
+ * form contains only the elements in their range. Bounds which lie outside the range of a view are clamped to its
+ * range. Note that a small view keeps the entire array of its set reachable; copy it if that is a concern. The
+ * {@link #descendingSet()} is a copy with the reverse ordering.
+ * <p/>
+ * The serialized form is the comparator, the number of elements, and the elements in ascending order.
+ * <p/>
+ * A variant of this class for Java 9 and later is part of the multi-release JAR. Changes to the class must be
+ * applied to both variants.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+public final class SerializableUnmodifiableSortedArraySet<E extends Serializable>
+    extends AbstractSet<E>
+    implements SerializableNavigableSet<E>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    private static final Object[] EMPTY = new Object[0];
+
+    /** the ordering of the elements, or <code>null</code> for their natural ordering */
+    private SerializableComparator<? super E> iComparator;
+
+    /** the sorted elements, possibly shared with other views */
+    private transient Object[] iElements;
+
+    /** index of the first element of this set */
+    private transient int iFrom;
+
+    /** index after the last element of this set */
+    private transient int iTo;
+
+    /** the hash code, computed on first use because the contents never change; <code>0</code> if not computed yet */
+    private transient int ourHashCode = 0;
+
+
+
+    /**
+     * Constructs the immutable empty set.
+     */
+    public SerializableUnmodifiableSortedArraySet()
+    {
+        this(EMPTY, 0, 0, null);
+    }
+
+
+
+    /**
+     * Constructor which sorts the elements of the specified collection by their natural ordering.
+     *
+     * @param pCollection a collection
+     * @throws NullPointerException if the collection contains <code>null</code>
+     * @throws ClassCastException if the elements are not mutually comparable
+     */
+    public SerializableUnmodifiableSortedArraySet(@Nonnull final Collection<? extends E> pCollection)
+    {
+        this(pCollection, null);
+    }
+
+
+
+    /**
+     * Constructor which sorts the elements of the specified collection by the given comparator. Of elements which
+     * compare as equal, the first one is kept.
+     *
+     * @param pCollection a collection
+     * @param pComparator the ordering, or <code>null</code> for the natural ordering of the elements
+     */
+    public SerializableUnmodifiableSortedArraySet(@Nonnull final Collection<? extends E> pCollection,
+        @Nullable final SerializableComparator<? super E> pComparator)
+    {
+        super();
+        iComparator = pComparator;
+        iElements = pCollection.toArray();
+        iFrom = 0;
+        final boolean sorted = pCollection instanceof SortedSet
+            && equal(((SortedSet<?>) pCollection).comparator(), pComparator);
+        if (sorted) {
+            iTo = iElements.length;
+        }
+        else {
+            Arrays.sort(iElements, naturalOrComparator());
+            iTo = removeDuplicates(iElements, naturalOrComparator());
+            if (iTo < iElements.length) {
+                iElements = Arrays.copyOf(iElements, iTo);
+            }
+        }
+    }
+
+
+
+    /**
+     * Constructor which copies the specified sorted set, retaining its ordering.
+     *
+     * @param pSortedSet the sorted set, which has a serializable comparator
+     */
+    public SerializableUnmodifiableSortedArraySet(@Nonnull final SerializableSortedSet<E> pSortedSet)
+    {
+        this(pSortedSet, pSortedSet.comparator());
+    }
+
+
+
+    /**
+     * Constructs a view of an existing array.
+     *
+     * @param pElements the elements, sorted by the comparator, without duplicates
+     * @param pFrom index of the first element of the set
+     * @param pTo index after the last element of the set
+     * @param pComparator the ordering, or <code>null</code> for the natural ordering
+     */
+    SerializableUnmodifiableSortedArraySet(@Nonnull final Object[] pElements, final int pFrom, final int pTo,
+        @Nullable final SerializableComparator<? super E> pComparator)
+    {
+        super();
+        iElements = pElements;
+        iFrom = pFrom;
+        iTo = pTo;
+        iComparator = pComparator;
+    }
+
+
+
+    private static boolean equal(@Nullable final Object pFirst, @Nullable final Object pSecond)
+    {
+        return pFirst == null ? pSecond == null : pFirst.equals(pSecond);
+    }
+
+
+
+    /**
+     * Move the distinct elements of a sorted array to its front.
+     *
+     * @param pArray the sorted array
+     * @param pComparator the ordering of the array
+     * @return the number of distinct elements
+     */
+    static int removeDuplicates(@Nonnull final Object[] pArray, @Nonnull final Comparator<Object> pComparator)
+    {
+        int result = 0;
+        for (int i = 0; i < pArray.length; i++) {
+            if (result == 0 || pComparator.compare(pArray[result - 1], pArray[i]) != 0) {
+                pArray[result++] = pArray[i];
+            }
+        }
+        Arrays.fill(pArray, result, pArray.length, null);
+        return result;
+    }
+
+
+
+    /**
+     * Returns a comparator which can compare the elements as objects.
+     *
+     * @param pComparator a comparator, or <code>null</code> for the natural ordering
+     * @return the given comparator, or the natural ordering
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    static Comparator<Object> naturalOrComparator(@Nullable final Comparator<?> pComparator)
+    {
+        return pComparator != null ? (Comparator<Object>) pComparator : NaturalOrder.INSTANCE;
+    }
+
+
+
+    @Nonnull
+    private Comparator<Object> naturalOrComparator()
+    {
+        return naturalOrComparator(iComparator);
+    }
+
+
+
+    /**
+     * Same as {@link Arrays#binarySearch(Object[], int, int, Object, Comparator)}, but for arrays whose component type
+     * is not the type of the key.
+     *
+     * @param pArray the array to search, sorted by the given comparator
+     * @param pFrom the index of the first element to search
+     * @param pTo the index after the last element to search
+     * @param pKey the key to search for
+     * @param pComparator the comparator
+     * @return the index of the key, or <code>(-(insertion point) - 1)</code> if the key is not present
+     */
+    static int binarySearch(@Nonnull final Object[] pArray, final int pFrom, final int pTo, final Object pKey,
+        @Nonnull final Comparator<Object> pComparator)
+    {
+        int low = pFrom;
+        int high = pTo - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int cmp = pComparator.compare(pArray[mid], pKey);
+            if (cmp < 0) {
+                low = mid + 1;
+            }
+            else if (cmp > 0) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+
+
+    private int indexOf(final Object pElement)
+    {
+        return binarySearch(iElements, iFrom, iTo, pElement, naturalOrComparator());
+    }
+
+
+
+    /**
+     * Find the index of the first element which is greater than (or equal to) the given element.
+     *
+     * @param pElement the element
+     * @param pInclusive <code>true</code> to include an equal element
+     * @return the index, which is {@link #iTo} if there is no such element
+     */
+    private int indexAbove(final Object pElement, final boolean pInclusive)
+    {
+        final int index = indexOf(pElement);
+        if (index >= 0) {
+            return pInclusive ? index : index + 1;
+        }
+        return -index - 1;
+    }
+
+
+
+    /**
+     * Find the index of the last element which is less than (or equal to) the given element.
+     *
+     * @param pElement the element
+     * @param pInclusive <code>true</code> to include an equal element
+     * @return the index, which is <code>iFrom - 1</code> if there is no such element
+     */
+    private int indexBelow(final Object pElement, final boolean pInclusive)
+    {
+        final int index = indexOf(pElement);
+        if (index >= 0) {
+            return pInclusive ? index : index - 1;
+        }
+        return -index - 2;
+    }
+
+
+
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    private E elementAt(final int pIndex)
+    {
+        return pIndex >= iFrom && pIndex < iTo ? (E) iElements[pIndex] : null;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return iTo - iFrom;
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        return iTo == iFrom;
+    }
+
+
+
+    /**
+     * Returns the number of elements which are less than the given element. This is the index which the element has,
+     * or would have, in the iteration order.
+     *
+     * @param pElement the element, which need not be contained in this set
+     * @return the number of smaller elements
+     */
+    public int rank(@Nonnull final E pElement)
+    {
+        return indexAbove(pElement, true) - iFrom;
+    }
+
+
+
+    /**
+     * Returns the element with the given rank, which is the element at the given index in the iteration order.
+     *
+     * @param pIndex the index, starting at <code>0</code> for the first element
+     * @return the element
+     * @throws IndexOutOfBoundsException the index is negative or not less than the size of this set
+     */
+    @Nonnull
+    public E select(final int pIndex)
+    {
+        if (pIndex < 0 || pIndex >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + pIndex + ", Size: " + size());
+        }
+        return elementAt(iFrom + pIndex);
+    }
+
+
+
+    /**
+     * Returns the number of elements in the given range, which is the size of the corresponding
+     * {@link #subSet(Serializable, boolean, Serializable, boolean) subSet()}.
+     *
+     * @param pFromElement low endpoint of the range
+     * @param pFromInclusive <code>true</code> if the low endpoint is to be included in the range
+     * @param pToElement high endpoint of the range
+     * @param pToInclusive <code>true</code> if the high endpoint is to be included in the range
+     * @return the number of elements in the range
+     * @throws IllegalArgumentException <code>pFromElement</code> is greater than <code>pToElement</code>
+     */
+    public int countInRange(@Nonnull final E pFromElement, final boolean pFromInclusive, @Nonnull final E pToElement,
+        final boolean pToInclusive)
+    {
+        if (naturalOrComparator().compare(pFromElement, pToElement) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return Math.max(0, indexBelow(pToElement, pToInclusive) + 1 - indexAbove(pFromElement, pFromInclusive));
+    }
+
+
+
+    @Override
+    public boolean contains(@Nullable final Object pObject)
+    {
+        return indexOf(pObject) >= 0;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Iterator<E> iterator()
+    {
+        return new ArrayIterator<E>(iElements, iFrom, iTo, 1);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Iterator<E> descendingIterator()
+    {
+        return new ArrayIterator<E>(iElements, iTo - 1, iFrom - 1, -1);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Object[] toArray()
+    {
+        return Arrays.copyOfRange(iElements, iFrom, iTo);
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E lower(final E pElement)
+    {
+        return elementAt(indexBelow(pElement, false));
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E floor(final E pElement)
+    {
+        return elementAt(indexBelow(pElement, true));
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E ceiling(final E pElement)
+    {
+        return elementAt(indexAbove(pElement, true));
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public E higher(final E pElement)
+    {
+        return elementAt(indexAbove(pElement, false));
+    }
+
+
+
+    @Override
+    public E first()
+    {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elementAt(iFrom);
+    }
+
+
+
+    @Override
+    public E last()
+    {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elementAt(iTo - 1);
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public SerializableComparator<? super E> comparator()
+    {
+        return iComparator;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The descending set is a copy, whose comparator imposes the reverse ordering.
+     */
+    @Override
+    @Nonnull
+    public SerializableNavigableSet<E> descendingSet()
+    {
+        final Object[] elements = new Object[size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = iElements[iTo - 1 - i];
+        }
+        return new SerializableUnmodifiableSortedArraySet<E>(elements, 0, elements.length,
+            SerializableReverseComparator.reverse(iComparator));
+    }
+
+
+
+    @Nonnull
+    private SerializableUnmodifiableSortedArraySet<E> view(final int pFrom, final int pTo)
+    {
+        return new SerializableUnmodifiableSortedArraySet<E>(iElements, pFrom, Math.max(pFrom, pTo), iComparator);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableUnmodifiableSortedArraySet<E> subSet(final E pFromElement, final boolean pFromInclusive,
+        final E pToElement, final boolean pToInclusive)
+    {
+        if (naturalOrComparator().compare(pFromElement, pToElement) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return view(indexAbove(pFromElement, pFromInclusive), indexBelow(pToElement, pToInclusive) + 1);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableUnmodifiableSortedArraySet<E> headSet(final E pToElement, final boolean pInclusive)
+    {
+        return view(iFrom, indexBelow(pToElement, pInclusive) + 1);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableUnmodifiableSortedArraySet<E> tailSet(final E pFromElement, final boolean pInclusive)
+    {
+        return view(indexAbove(pFromElement, pInclusive), iTo);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableUnmodifiableSortedArraySet<E> subSet(final E pFromElement, final E pToElement)
+    {
+        return subSet(pFromElement, true, pToElement, false);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableUnmodifiableSortedArraySet<E> headSet(final E pToElement)
+    {
+        return headSet(pToElement, false);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableUnmodifiableSortedArraySet<E> tailSet(final E pFromElement)
+    {
+        return tailSet(pFromElement, true);
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pElement ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean add(final E pElement)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pElement ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean remove(final Object pElement)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public void clear()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pCollection ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean removeAll(final Collection<?> pCollection)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pCollection ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean addAll(final Collection<? extends E> pCollection)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pCollection ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean retainAll(final Collection<?> pCollection)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public E pollFirst()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public E pollLast()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The hash code is computed on first use and then cached, because the contents of this set never change.
+     */
+    @Override
+    public int hashCode()
+    {
+        int result = ourHashCode;
+        if (result == 0) {
+            for (int i = iFrom; i < iTo; i++) {
+                result += iElements[i].hashCode();
+            }
+            ourHashCode = result;
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public SerializableUnmodifiableSortedArraySet<E> clone()
+    {
+        try {
+            return (SerializableUnmodifiableSortedArraySet<E>) super.clone();  // immutable, so the array can be shared
+        }
+        catch (CloneNotSupportedException e) {
+            throw new InternalError(e.getMessage());  // cannot happen, we are Cloneable
+        }
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        pOut.writeInt(size());
+        for (int i = iFrom; i < iTo; i++) {
+            pOut.writeObject(iElements[i]);
+        }
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        final int size = pIn.readInt();
+        if (size < 0) {
+            throw new InvalidObjectException("negative size: " + size);
+        }
+        final Comparator<Object> comparator = naturalOrComparator();
+        final Object[] elements = new Object[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = pIn.readObject();
+            if (i > 0 && comparator.compare(elements[i - 1], elements[i]) >= 0) {
+                throw new InvalidObjectException("elements not in ascending order");
+            }
+        }
+        iElements = elements;
+        iFrom = 0;
+        iTo = size;
+        SerializationMonitor.readFinished(this, size());
+    }
+
+
+
+    /**
+     * Iterates over a range of an array, in either direction.
+     *
+     * @param <T> element type
+     */
+    static final class ArrayIterator<T>
+        implements Iterator<T>
+    {
+        private final Object[] iArray;
+
+        private final int iEnd;
+
+        private final int iStep;
+
+        private int iNext;
+
+
+
+        /**
+         * Constructor.
+         *
+         * @param pArray the array
+         * @param pStart index of the first element returned
+         * @param pEnd index after the last element returned, in the direction of the iteration
+         * @param pStep <code>1</code> to iterate forward, <code>-1</code> to iterate backward
+         */
+        ArrayIterator(@Nonnull final Object[] pArray, final int pStart, final int pEnd, final int pStep)
+        {
+            iArray = pArray;
+            iNext = pStart;
+            iEnd = pEnd;
+            iStep = pStep;
+        }
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iNext != iEnd;
+        }
+
+
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next()
+        {
+            if (iNext == iEnd) {
+                throw new NoSuchElementException();
+            }
+            final T result = (T) iArray[iNext];
+            iNext += iStep;
+            return result;
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+
+
+    /**
+     * The natural ordering, for sets without a comparator.
+     */
+    private static final class NaturalOrder
+        implements Comparator<Object>
+    {
+        static final NaturalOrder INSTANCE = new NaturalOrder();
+
+
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public int compare(final Object pLeft, final Object pRight)
+        {
+            return ((Comparable<Object>) pLeft).compareTo(pRight);
+        }
+    }
+}
@@ -13,6 +13,9 @@ package com.thomasjensen.sercoll;
  * the specific language governing permissions and limitations under the License.
  */
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Iterator;
@@ -26,6 +29,9 @@ import javax.annotation.Nullable;
  * that this implementation adds the elements of the original TreeSet instead of providing a view on it. In this way,
  * the set becomes truly structurally unmodifiable, but may incur a higher runtime cost. This is required because
  * keeping a reference to a backing set would impede serializability.
+ * <p/>
+ * A variant of this class for Java 9 and later is part of the multi-release JAR. Changes to the class must be
+ * applied to both variants.
  *
  * @param <E> element type
  * @author Thomas Jensen
@@ -37,6 +43,9 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
     /** serialVersionUID */
     private static final long serialVersionUID = 1L;
 
+    /** the hash code, computed on first use because the contents never change; <code>0</code> if not computed yet */
+    private transient int ourHashCode = 0;
+
 
 
     /**
@@ -71,7 +80,10 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
      */
     public SerializableUnmodifiableTreeSet(@Nonnull final Collection<? extends E> pCollection)
     {
-        super(pCollection);
+        super();
+        for (E elem : pCollection) {
+            super.add(elem);
+        }
     }
 
 
@@ -85,7 +97,24 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
     public SerializableUnmodifiableTreeSet(@Nonnull final SerializableSortedSet<E> pSortedSet)
     {
         super(pSortedSet.comparator());
-        addAll(pSortedSet);
+        super.addAll(pSortedSet);
+    }
+
+
+
+    /**
+     * Constructor used for the views, which adds the given elements using the given ordering.
+     *
+     * @param pComparator the ordering of the new set, or <code>null</code> for the elements' natural ordering
+     * @param pElements the elements of the new set
+     */
+    private SerializableUnmodifiableTreeSet(@Nullable final SerializableComparator<? super E> pComparator,
+        @Nonnull final Collection<? extends E> pElements)
+    {
+        super(pComparator);
+        for (E elem : pElements) {
+            super.add(elem);
+        }
     }
 
 
@@ -191,6 +220,36 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
 
 
 
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public E pollFirst()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public E pollLast()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
     @Override
     @SuppressWarnings("unchecked")
     public SerializableUnmodifiableTreeSet<E> clone()
@@ -211,7 +270,8 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
     @Override
     public SerializableNavigableSet<E> descendingSet()
     {
-        return new SerializableUnmodifiableTreeSet<E>(super.descendingSet());
+        return new SerializableUnmodifiableTreeSet<E>(SerializableReverseComparator.reverse(comparator()),
+            super.descendingSet());
     }
 
 
@@ -220,8 +280,8 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
     public SerializableNavigableSet<E> subSet(final E pFromElement, final boolean pFromInclusive, final E pToElement,
         final boolean pToInclusive)
     {
-        return new SerializableUnmodifiableTreeSet<E>(super.subSet(pFromElement, pFromInclusive, pToElement,
-            pToInclusive));
+        return new SerializableUnmodifiableTreeSet<E>(comparator(), super.subSet(pFromElement, pFromInclusive,
+            pToElement, pToInclusive));
     }
 
 
@@ -229,7 +289,7 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
     @Override
     public SerializableNavigableSet<E> headSet(final E pToElement, final boolean pInclusive)
     {
-        return new SerializableUnmodifiableTreeSet<E>(super.headSet(pToElement, pInclusive));
+        return new SerializableUnmodifiableTreeSet<E>(comparator(), super.headSet(pToElement, pInclusive));
     }
 
 
@@ -237,7 +297,7 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
     @Override
     public SerializableNavigableSet<E> tailSet(final E pFromElement, final boolean pInclusive)
     {
-        return new SerializableUnmodifiableTreeSet<E>(super.tailSet(pFromElement, pInclusive));
+        return new SerializableUnmodifiableTreeSet<E>(comparator(), super.tailSet(pFromElement, pInclusive));
     }
 
 
@@ -245,7 +305,7 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
     @Override
     public SerializableSortedSet<E> subSet(final E pFromElement, final E pToElement)
     {
-        return new SerializableUnmodifiableTreeSet<E>(super.subSet(pFromElement, pToElement));
+        return new SerializableUnmodifiableTreeSet<E>(comparator(), super.subSet(pFromElement, pToElement));
     }
 
 
@@ -253,7 +313,7 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
     @Override
     public SerializableSortedSet<E> headSet(final E pToElement)
     {
-        return new SerializableUnmodifiableTreeSet<E>(super.headSet(pToElement));
+        return new SerializableUnmodifiableTreeSet<E>(comparator(), super.headSet(pToElement));
     }
 
 
@@ -261,7 +321,7 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
     @Override
     public SerializableSortedSet<E> tailSet(final E pFromElement)
     {
-        return new SerializableUnmodifiableTreeSet<E>(super.tailSet(pFromElement));
+        return new SerializableUnmodifiableTreeSet<E>(comparator(), super.tailSet(pFromElement));
     }
 
 
@@ -272,4 +332,48 @@ public final class SerializableUnmodifiableTreeSet<E extends Serializable>
     {
         return (SerializableComparator<? super E>) super.comparator();
     }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The hash code is computed on first use and then cached, because the contents of this set never change.
+     */
+    @Override
+    public int hashCode()
+    {
+        int result = ourHashCode;
+        if (result == 0) {
+            result = super.hashCode();
+            ourHashCode = result;
+        }
+        return result;
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, size());
+    }
 }
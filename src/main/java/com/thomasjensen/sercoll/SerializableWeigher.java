@@ -0,0 +1,40 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.Serializable;
+import javax.annotation.Nullable;
+
+
+/**
+ * Determines the weight of a map entry, for example its approximate memory footprint. The implementation is declared
+ * to be {@link java.io.Serializable}, so that it can be serialized along with the map that uses it.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ * @see SerializableLruMap
+ */
+public interface SerializableWeigher<K, V>
+    extends Serializable
+{
+    /**
+     * Determine the weight of an entry. The weight of an entry must not change while the entry is in the map.
+     *
+     * @param pKey the key
+     * @param pValue the value
+     * @return the weight of the entry, which must not be negative
+     */
+    long weigh(@Nullable K pKey, @Nullable V pValue);
+}
@@ -0,0 +1,130 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.beans.ConstructorProperties;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Snapshot of the serialization statistics of one collection class, as collected by
+ * {@link SerializationStatistics}. Instances are immutable.
+ *
+ * @author Thomas Jensen
+ */
+public final class SerializationClassStatistics
+{
+    private final String iClassName;
+
+    private final long iWriteCount;
+
+    private final long iWriteElements;
+
+    private final long iWriteNanos;
+
+    private final long[] iWriteLatencyHistogram;
+
+    private final long iReadCount;
+
+    private final long iReadElements;
+
+
+
+    /**
+     * Constructor.
+     *
+     * @param pClassName the fully qualified name of the collection class
+     * @param pWriteCount number of instances written
+     * @param pWriteElements total number of elements written
+     * @param pWriteNanos total time spent writing, in nanoseconds
+     * @param pWriteLatencyHistogram number of writes per latency bucket, see
+     * {@link SerializationStatisticsMXBean#getLatencyBucketBoundsMicros()}
+     * @param pReadCount number of instances read
+     * @param pReadElements total number of elements read
+     */
+    @ConstructorProperties({"className", "writeCount", "writeElements", "writeNanos", "writeLatencyHistogram",
+        "readCount", "readElements"})
+    public SerializationClassStatistics(@Nonnull final String pClassName, final long pWriteCount,
+        final long pWriteElements, final long pWriteNanos, @Nonnull final long[] pWriteLatencyHistogram,
+        final long pReadCount, final long pReadElements)
+    {
+        iClassName = pClassName;
+        iWriteCount = pWriteCount;
+        iWriteElements = pWriteElements;
+        iWriteNanos = pWriteNanos;
+        iWriteLatencyHistogram = pWriteLatencyHistogram.clone();
+        iReadCount = pReadCount;
+        iReadElements = pReadElements;
+    }
+
+
+
+    @Nonnull
+    public String getClassName()
+    {
+        return iClassName;
+    }
+
+
+
+    public long getWriteCount()
+    {
+        return iWriteCount;
+    }
+
+
+
+    public long getWriteElements()
+    {
+        return iWriteElements;
+    }
+
+
+
+    public long getWriteNanos()
+    {
+        return iWriteNanos;
+    }
+
+
+
+    @Nonnull
+    public long[] getWriteLatencyHistogram()
+    {
+        return iWriteLatencyHistogram.clone();
+    }
+
+
+
+    public long getReadCount()
+    {
+        return iReadCount;
+    }
+
+
+
+    public long getReadElements()
+    {
+        return iReadElements;
+    }
+
+
+
+    @Override
+    public String toString()
+    {
+        return iClassName + "{writeCount=" + iWriteCount + ", writeElements=" + iWriteElements + ", writeNanos="
+            + iWriteNanos + ", readCount=" + iReadCount + ", readElements=" + iReadElements + '}';
+    }
+}
@@ -0,0 +1,49 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import javax.annotation.Nonnull;
+
+
+/**
+ * Receives notifications about sercoll collections being serialized or deserialized, while the
+ * {@link SerializationMonitor} is enabled.
+ * <p/>
+ * Notifications are delivered synchronously on the thread which is running the serialization, so implementations
+ * must be fast and thread-safe. Exceptions thrown by a listener are propagated to the stream.
+ *
+ * @author Thomas Jensen
+ * @see SerializationMonitor#addListener
+ */
+public interface SerializationListener
+{
+    /**
+     * Called after a sercoll collection has been written to an object stream.
+     *
+     * @param pClass the class of the collection
+     * @param pElementCount the number of elements (or map entries) written
+     * @param pNanos the time spent writing the collection including its elements, in nanoseconds
+     */
+    void written(@Nonnull Class<?> pClass, int pElementCount, long pNanos);
+
+
+
+    /**
+     * Called after a sercoll collection has been read from an object stream.
+     *
+     * @param pClass the class of the collection
+     * @param pElementCount the number of elements (or map entries) read
+     */
+    void read(@Nonnull Class<?> pClass, int pElementCount);
+}
@@ -0,0 +1,303 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+/**
+ * Opt-in instrumentation of the serialization of sercoll collections.
+ * <p/>
+ * The concrete collection classes of this library report to this class when they are written to or read from an
+ * object stream. As long as the monitor is disabled (the default), this costs a single read of a volatile field per
+ * collection. When enabled, every registered {@link SerializationListener} is notified. The built-in
+ * {@link SerializationStatistics} are always registered; they can be published as a platform MBean by calling
+ * {@link #registerMBean()}.
+ * <p/>
+ * Write latency is measured from the moment the stream starts writing a collection until its last element has been
+ * written, so the time of nested collections is included in the time of the enclosing collection. The number of
+ * bytes is not available to the collection, because object streams do not reveal their position. When byte counts
+ * are needed, count the bytes of the underlying stream, or use {@link SerializableCollections#estimateSerializedSize}.
+ * Reads are counted, but not timed, because the JDK superclass has read its data before a sercoll class is called.
+ *
+ * @author Thomas Jensen
+ */
+public final class SerializationMonitor
+{
+    /** the object name under which the statistics are registered with the platform MBean server */
+    public static final String MBEAN_NAME = "com.thomasjensen.sercoll:type=SerializationStatistics";
+
+    /** maximum number of nested writes tracked per thread, so that aborted writes cannot accumulate */
+    private static final int MAX_DEPTH = 64;
+
+    private static final SerializationStatistics STATISTICS = new SerializationStatistics();
+
+    private static final List<SerializationListener> LISTENERS = new CopyOnWriteArrayList<SerializationListener>();
+
+    /** the collections currently being written by a thread, innermost last; identified without being referenced */
+    private static final ThreadLocal<List<PendingWrite>> PENDING_WRITES = new ThreadLocal<List<PendingWrite>>();
+
+    private static volatile boolean sEnabled = false;
+
+
+
+    static {
+        LISTENERS.add(STATISTICS);
+    }
+
+
+
+    private SerializationMonitor()
+    {
+        super();
+    }
+
+
+
+    /**
+     * Determine whether the instrumentation is enabled.
+     *
+     * @return <code>true</code> if listeners are notified
+     */
+    public static boolean isEnabled()
+    {
+        return sEnabled;
+    }
+
+
+
+    /**
+     * Enable or disable the instrumentation. It is disabled by default.
+     *
+     * @param pEnabled <code>true</code> to start notifying listeners, <code>false</code> to stop
+     */
+    public static void setEnabled(final boolean pEnabled)
+    {
+        sEnabled = pEnabled;
+    }
+
+
+
+    /**
+     * Register a listener. A listener which is already registered is not added again.
+     *
+     * @param pListener the listener
+     */
+    public static void addListener(@Nonnull final SerializationListener pListener)
+    {
+        if (pListener == null) {
+            throw new IllegalArgumentException("pListener was null");
+        }
+        if (!LISTENERS.contains(pListener)) {
+            LISTENERS.add(pListener);
+        }
+    }
+
+
+
+    /**
+     * Unregister a listener.
+     *
+     * @param pListener the listener
+     */
+    public static void removeListener(@Nonnull final SerializationListener pListener)
+    {
+        LISTENERS.remove(pListener);
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the built-in statistics, which are collected while the monitor is enabled
+     */
+    @Nonnull
+    public static SerializationStatistics getStatistics()
+    {
+        return STATISTICS;
+    }
+
+
+
+    /**
+     * Register the built-in statistics with the platform MBean server under {@link #MBEAN_NAME}. Nothing happens if
+     * they are already registered.
+     *
+     * @return the object name of the MBean
+     * @throws IllegalStateException registration failed
+     */
+    @Nonnull
+    public static ObjectName registerMBean()
+    {
+        try {
+            final ObjectName name = new ObjectName(MBEAN_NAME);
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            synchronized (STATISTICS) {
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(STATISTICS, name);
+                }
+            }
+            return name;
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("failed to register MBean " + MBEAN_NAME, e);
+        }
+    }
+
+
+
+    /**
+     * Remove the built-in statistics from the platform MBean server. Nothing happens if they are not registered.
+     *
+     * @throws IllegalStateException unregistration failed
+     */
+    public static void unregisterMBean()
+    {
+        try {
+            final ObjectName name = new ObjectName(MBEAN_NAME);
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            synchronized (STATISTICS) {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            }
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("failed to unregister MBean " + MBEAN_NAME, e);
+        }
+    }
+
+
+
+    /**
+     * Called by a collection when the stream is about to write it.
+     *
+     * @param pCollection the collection
+     */
+    static void writeStarted(@Nonnull final Object pCollection)
+    {
+        if (sEnabled) {
+            List<PendingWrite> pending = PENDING_WRITES.get();
+            if (pending == null) {
+                pending = new ArrayList<PendingWrite>();
+                PENDING_WRITES.set(pending);
+            }
+            else if (pending.size() >= MAX_DEPTH) {
+                pending.remove(0);
+            }
+            pending.add(new PendingWrite(pCollection, System.nanoTime()));
+        }
+    }
+
+
+
+    /**
+     * Called by a collection when the stream has written it completely.
+     *
+     * @param pCollection the collection
+     * @param pElementCount number of elements written
+     */
+    static void writeFinished(@Nonnull final Object pCollection, final int pElementCount)
+    {
+        if (sEnabled) {
+            final List<PendingWrite> pending = PENDING_WRITES.get();
+            if (pending != null) {
+                for (int i = pending.size() - 1; i >= 0; i--) {
+                    final PendingWrite write = pending.get(i);
+                    if (write.isFor(pCollection)) {
+                        final long nanos = System.nanoTime() - write.getStartNanos();
+                        // writes above this one in the stack were aborted by an exception
+                        pending.subList(i, pending.size()).clear();
+                        if (pending.isEmpty()) {
+                            PENDING_WRITES.remove();
+                        }
+                        for (SerializationListener listener : LISTENERS) {
+                            listener.written(pCollection.getClass(), pElementCount, nanos);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+
+
+    /**
+     * Called by a collection when it has been read from a stream.
+     *
+     * @param pCollection the collection
+     * @param pElementCount number of elements read
+     */
+    static void readFinished(@Nonnull final Object pCollection, final int pElementCount)
+    {
+        if (sEnabled) {
+            for (SerializationListener listener : LISTENERS) {
+                listener.read(pCollection.getClass(), pElementCount);
+            }
+        }
+    }
+
+
+
+    /**
+     * A write which has started, but not finished.
+     * <p/>
+     * The collection is identified by its identity hash code and class name, not referenced, so that an entry which
+     * is left behind by an aborted write does not keep the collection or its class loader reachable from the thread.
+     * An entry could match another collection of the same class with the same identity hash code, which would only
+     * affect the measured time.
+     */
+    private static final class PendingWrite
+    {
+        private final int iIdentityHashCode;
+
+        @Nonnull
+        private final String iClassName;
+
+        private final long iStartNanos;
+
+
+
+        PendingWrite(@Nonnull final Object pCollection, final long pStartNanos)
+        {
+            iIdentityHashCode = System.identityHashCode(pCollection);
+            iClassName = pCollection.getClass().getName();
+            iStartNanos = pStartNanos;
+        }
+
+
+
+        boolean isFor(@Nonnull final Object pCollection)
+        {
+            return iIdentityHashCode == System.identityHashCode(pCollection)
+                && iClassName.equals(pCollection.getClass().getName());
+        }
+
+
+
+        long getStartNanos()
+        {
+            return iStartNanos;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The built-in {@link SerializationListener}, which collects per-class counts, element counts and write latency
+ * histograms. It is available via {@link SerializationMonitor#getStatistics()}, and can be published as a platform
+ * MBean.
+ * <p/>
+ * Latencies are recorded in a histogram with buckets whose bounds are powers of two microseconds: the first bucket
+ * counts writes shorter than 1&micro;s, bucket <i>k</i> counts writes of at least 2<sup>k-1</sup> and less than
+ * 2<sup>k</sup>&micro;s, and the last bucket counts everything longer. Updates are lock-free.
+ *
+ * @author Thomas Jensen
+ */
+public final class SerializationStatistics
+    implements SerializationListener, SerializationStatisticsMXBean
+{
+    /** number of buckets of the write latency histograms */
+    public static final int HISTOGRAM_BUCKETS = 32;
+
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    private final ConcurrentMap<Class<?>, Counters> iCounters = new ConcurrentHashMap<Class<?>, Counters>();
+
+
+
+    /**
+     * Constructor. Only the {@link SerializationMonitor} creates an instance.
+     */
+    SerializationStatistics()
+    {
+        super();
+    }
+
+
+
+    @Override
+    public void written(@Nonnull final Class<?> pClass, final int pElementCount, final long pNanos)
+    {
+        final Counters counters = getCounters(pClass);
+        counters.writeCount.incrementAndGet();
+        counters.writeElements.addAndGet(pElementCount);
+        counters.writeNanos.addAndGet(pNanos);
+        counters.writeLatencyHistogram.incrementAndGet(bucketOf(pNanos));
+    }
+
+
+
+    @Override
+    public void read(@Nonnull final Class<?> pClass, final int pElementCount)
+    {
+        final Counters counters = getCounters(pClass);
+        counters.readCount.incrementAndGet();
+        counters.readElements.addAndGet(pElementCount);
+    }
+
+
+
+    static int bucketOf(final long pNanos)
+    {
+        final long micros = Math.max(0L, pNanos) / NANOS_PER_MICRO;
+        return Math.min(HISTOGRAM_BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(micros));
+    }
+
+
+
+    @Nonnull
+    private Counters getCounters(@Nonnull final Class<?> pClass)
+    {
+        Counters result = iCounters.get(pClass);
+        if (result == null) {
+            final Counters newCounters = new Counters();
+            result = iCounters.putIfAbsent(pClass, newCounters);
+            if (result == null) {
+                result = newCounters;
+            }
+        }
+        return result;
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @param pClass a collection class
+     * @return the statistics of the given class, or <code>null</code> if no instance of the class was serialized or
+     * deserialized since the last reset
+     */
+    @CheckForNull
+    public SerializationClassStatistics getClassStatistics(@Nonnull final Class<?> pClass)
+    {
+        final Counters counters = iCounters.get(pClass);
+        return counters != null ? counters.snapshot(pClass.getName()) : null;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Map<String, SerializationClassStatistics> getClassStatistics()
+    {
+        final Map<String, SerializationClassStatistics> result = new TreeMap<String, SerializationClassStatistics>();
+        for (Map.Entry<Class<?>, Counters> entry : iCounters.entrySet()) {
+            final String className = entry.getKey().getName();
+            result.put(className, entry.getValue().snapshot(className));
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @Nonnull
+    public long[] getLatencyBucketBoundsMicros()
+    {
+        final long[] result = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < HISTOGRAM_BUCKETS - 1; i++) {
+            result[i] = 1L << i;
+        }
+        result[HISTOGRAM_BUCKETS - 1] = Long.MAX_VALUE;
+        return result;
+    }
+
+
+
+    @Override
+    public boolean isEnabled()
+    {
+        return SerializationMonitor.isEnabled();
+    }
+
+
+
+    @Override
+    public void setEnabled(final boolean pEnabled)
+    {
+        SerializationMonitor.setEnabled(pEnabled);
+    }
+
+
+
+    @Override
+    public void reset()
+    {
+        iCounters.clear();
+    }
+
+
+
+    /**
+     * The counters of one collection class.
+     */
+    private static final class Counters
+    {
+        private final AtomicLong writeCount = new AtomicLong();
+
+        private final AtomicLong writeElements = new AtomicLong();
+
+        private final AtomicLong writeNanos = new AtomicLong();
+
+        private final AtomicLongArray writeLatencyHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+        private final AtomicLong readCount = new AtomicLong();
+
+        private final AtomicLong readElements = new AtomicLong();
+
+
+
+        @Nonnull
+        SerializationClassStatistics snapshot(@Nonnull final String pClassName)
+        {
+            final long[] histogram = new long[HISTOGRAM_BUCKETS];
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                histogram[i] = writeLatencyHistogram.get(i);
+            }
+            return new SerializationClassStatistics(pClassName, writeCount.get(), writeElements.get(),
+                writeNanos.get(), histogram, readCount.get(), readElements.get());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.Map;
+
+
+/**
+ * Management interface of the {@link SerializationStatistics}, published by
+ * {@link SerializationMonitor#registerMBean()}.
+ *
+ * @author Thomas Jensen
+ */
+public interface SerializationStatisticsMXBean
+{
+    /**
+     * Determine whether the instrumentation is enabled.
+     *
+     * @return <code>true</code> if statistics are currently being collected
+     * @see SerializationMonitor#isEnabled()
+     */
+    boolean isEnabled();
+
+
+
+    /**
+     * Enable or disable the instrumentation.
+     *
+     * @param pEnabled <code>true</code> to start collecting statistics, <code>false</code> to stop
+     * @see SerializationMonitor#setEnabled(boolean)
+     */
+    void setEnabled(boolean pEnabled);
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the statistics of every collection class which was serialized or deserialized since the last reset,
+     * keyed by class name
+     */
+    Map<String, SerializationClassStatistics> getClassStatistics();
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the upper bound (exclusive) of each bucket of the write latency histograms, in microseconds; the last
+     * bucket has no upper bound and is reported as {@link Long#MAX_VALUE}
+     */
+    long[] getLatencyBucketBoundsMicros();
+
+
+
+    /**
+     * Discard all statistics collected so far.
+     */
+    void reset();
+}
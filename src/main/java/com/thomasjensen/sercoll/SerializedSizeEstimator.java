@@ -0,0 +1,435 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * Estimates the number of bytes which an {@link ObjectOutputStream} would produce for a collection, without actually
+ * serializing the entire collection.
+ * <p/>
+ * Small collections are simply serialized into a counting stream, which gives the exact result. For larger
+ * collections, the size of strings, boxed primitives, enum constants and <code>null</code> is calculated exactly, based
+ * on the Java Object Serialization Stream Protocol, including back references to instances which occur more than once.
+ * The size of all other elements is extrapolated from a sample of evenly distributed elements. The overhead of the
+ * collection object itself is measured by serializing an empty instance of its class with the same settings, such as
+ * the capacity or the bounds.
+ * <p/>
+ * Some collections do not write their elements one after the other, for example because they encode them in a form
+ * of their own. Such collections are always serialized completely, see {@link #hasOwnForm}.
+ * <p/>
+ * An instance of this class is used for one estimation only. It is not thread-safe.
+ *
+ * @author Thomas Jensen
+ */
+final class SerializedSizeEstimator
+{
+    /** Collections with up to this many elements (or map entries) are serialized completely */
+    static final int EXACT_THRESHOLD = 64;
+
+    /** Maximum number of elements whose size is sampled by serializing them */
+    static final int SAMPLE_SIZE = 64;
+
+    /** Size of the stream header (magic number and version) */
+    private static final int STREAM_HEADER_SIZE = 4;
+
+    /** Size of a back reference to a previously written object (<code>TC_REFERENCE</code> plus handle) */
+    private static final int REFERENCE_SIZE = 5;
+
+    /** Largest string length which is still written as <code>TC_STRING</code> with a two-byte length */
+    private static final int MAX_SHORT_STRING_LENGTH = 0xFFFF;
+
+    /** Size of a string's type code and length field if the string is written as <code>TC_STRING</code> */
+    private static final int SHORT_STRING_HEADER_SIZE = 3;
+
+    /** Size of a string's type code and length field if the string is written as <code>TC_LONGSTRING</code> */
+    private static final int LONG_STRING_HEADER_SIZE = 9;
+
+    /** Last character which is encoded in one byte by modified UTF-8 */
+    private static final char MAX_ONE_BYTE_CHAR = '\u007f';
+
+    /** Last character which is encoded in two bytes by modified UTF-8 */
+    private static final char MAX_TWO_BYTE_CHAR = '\u07ff';
+
+    /** Size of a boxed primitive whose class descriptor was already written, without the primitive value */
+    private static final int BOXED_OVERHEAD = 1 + REFERENCE_SIZE;
+
+    /** instances of which the exact size was already accounted for, so that the next occurrence is a back reference */
+    private final IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+
+    /** classes of boxed primitives of which the class descriptor was already accounted for */
+    private final Set<Class<?>> seenClasses = new HashSet<Class<?>>();
+
+    /** counts the bytes written to the probe stream */
+    private final CountingOutputStream probeCounter = new CountingOutputStream();
+
+    /** stream used to measure class descriptors and samples; it keeps track of the descriptors already written */
+    private final ObjectOutputStream probe;
+
+    private long exactBytes = 0L;
+
+    private int otherCount = 0;
+
+    private int sampleCount = 0;
+
+    private long firstSampleBytes = 0L;
+
+    private long furtherSampleBytes = 0L;
+
+
+
+    private SerializedSizeEstimator()
+        throws IOException
+    {
+        probe = new ObjectOutputStream(probeCounter);
+    }
+
+
+
+    /**
+     * Estimate the serialized size of the given collection.
+     *
+     * @param pCollection the collection
+     * @return the estimated number of bytes written by {@link ObjectOutputStream#writeObject} when the collection is
+     * the only object written to a new stream, including the stream header
+     * @throws IllegalArgumentException the collection or one of its elements is not serializable
+     */
+    static long estimate(@Nonnull final Collection<?> pCollection)
+    {
+        try {
+            if (pCollection.size() <= EXACT_THRESHOLD || hasOwnForm(pCollection)) {
+                return serializedSize(pCollection);
+            }
+            final SerializedSizeEstimator estimator = new SerializedSizeEstimator();
+            final int stride = Math.max(1, pCollection.size() / SAMPLE_SIZE);
+            int index = 0;
+            for (final Object element : pCollection) {
+                estimator.add(element, index++ % stride == 0);
+            }
+            long result = estimator.getElementBytes() + containerOverhead(pCollection);
+            if (pCollection instanceof SortedSet) {
+                result += comparatorBytes(((SortedSet<?>) pCollection).comparator());
+            }
+            return result;
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("collection is not serializable: " + e.getMessage(), e);
+        }
+    }
+
+
+
+    /**
+     * Estimate the serialized size of the given map.
+     *
+     * @param pMap the map
+     * @return the estimated number of bytes written by {@link ObjectOutputStream#writeObject} when the map is the only
+     * object written to a new stream, including the stream header
+     * @throws IllegalArgumentException the map or one of its keys or values is not serializable
+     */
+    static long estimate(@Nonnull final Map<?, ?> pMap)
+    {
+        try {
+            if (pMap.size() <= EXACT_THRESHOLD || hasOwnForm(pMap)) {
+                return serializedSize(pMap);
+            }
+            final SerializedSizeEstimator estimator = new SerializedSizeEstimator();
+            final int stride = Math.max(1, pMap.size() / SAMPLE_SIZE);
+            int index = 0;
+            for (final Map.Entry<?, ?> entry : pMap.entrySet()) {
+                final boolean sample = index++ % stride == 0;
+                estimator.add(entry.getKey(), sample);
+                estimator.add(entry.getValue(), sample);
+            }
+            long result = estimator.getElementBytes() + containerOverhead(pMap);
+            if (pMap instanceof SortedMap) {
+                result += comparatorBytes(((SortedMap<?, ?>) pMap).comparator());
+            }
+            return result;
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("map is not serializable: " + e.getMessage(), e);
+        }
+    }
+
+
+
+    /**
+     * Determine whether the serialized form of a collection is something other than its elements written one after
+     * the other, so that its size cannot be derived from the sizes of its elements.
+     *
+     * @param pContainer a collection or map
+     * @return <code>true</code> if the collection must be serialized completely in order to determine its size
+     */
+    private static boolean hasOwnForm(@Nonnull final Object pContainer)
+    {
+        return pContainer instanceof SerializableRoaringBitmap     // containers of 16 bit values, not Integers
+            || pContainer instanceof SerializableLazyArrayList     // each element as an embedded stream
+            || pContainer instanceof SerializableExpiringMap       // an expiry time with each entry
+            || (pContainer instanceof SerializableLruMap           // possibly only the most recently used entries
+            && ((SerializableLruMap<?, ?>) pContainer).getSerializedEntryLimit() < ((Map<?, ?>) pContainer).size());
+    }
+
+
+
+    private void add(@Nullable final Object pElement, final boolean pSample)
+        throws IOException
+    {
+        if (pElement == null) {
+            exactBytes++;  // TC_NULL
+        }
+        else if (seen.containsKey(pElement)) {
+            exactBytes += REFERENCE_SIZE;
+        }
+        else if (pElement instanceof String) {
+            seen.put(pElement, Boolean.TRUE);
+            exactBytes += stringSize((String) pElement);
+        }
+        else if (pElement instanceof Enum<?>) {
+            seen.put(pElement, Boolean.TRUE);
+            exactBytes += probeSize(pElement);  // also writes the name string and possibly the class descriptor
+        }
+        else if (isBoxedPrimitive(pElement)) {
+            seen.put(pElement, Boolean.TRUE);
+            if (seenClasses.add(pElement.getClass())) {
+                exactBytes += probeSize(pElement);
+            }
+            else {
+                exactBytes += BOXED_OVERHEAD + primitiveSize(pElement);
+            }
+        }
+        else {
+            otherCount++;
+            if (pSample) {
+                final long size = probeSize(pElement);
+                if (sampleCount == 0) {
+                    firstSampleBytes = size;
+                }
+                else {
+                    furtherSampleBytes += size;
+                }
+                sampleCount++;
+            }
+        }
+    }
+
+
+
+    private long getElementBytes()
+    {
+        long result = exactBytes;
+        if (sampleCount == 1) {
+            result += firstSampleBytes * otherCount;
+        }
+        else if (sampleCount > 1) {
+            // the first sample includes the class descriptors, which are written only once
+            final double average = (double) furtherSampleBytes / (sampleCount - 1);
+            result += firstSampleBytes + Math.round(average * (otherCount - 1));
+        }
+        return result;
+    }
+
+
+
+    private long probeSize(@Nonnull final Object pObject)
+        throws IOException
+    {
+        probe.flush();
+        final long before = probeCounter.getCount();
+        probe.writeObject(pObject);
+        probe.flush();
+        return probeCounter.getCount() - before;
+    }
+
+
+
+    /**
+     * Compute the number of bytes written for a string which is not a back reference.
+     *
+     * @param pString the string
+     * @return size of the string in the stream, including type code and length field
+     */
+    static long stringSize(@Nonnull final String pString)
+    {
+        long utfLength = 0L;
+        for (int i = 0; i < pString.length(); i++) {
+            final char c = pString.charAt(i);
+            if (c != 0 && c <= MAX_ONE_BYTE_CHAR) {
+                utfLength++;
+            }
+            else if (c <= MAX_TWO_BYTE_CHAR) {
+                utfLength += 2;
+            }
+            else {
+                utfLength += 3;
+            }
+        }
+        return utfLength + (utfLength <= MAX_SHORT_STRING_LENGTH ? SHORT_STRING_HEADER_SIZE : LONG_STRING_HEADER_SIZE);
+    }
+
+
+
+    private static boolean isBoxedPrimitive(@Nonnull final Object pObject)
+    {
+        return pObject instanceof Integer || pObject instanceof Long || pObject instanceof Double
+            || pObject instanceof Float || pObject instanceof Short || pObject instanceof Byte
+            || pObject instanceof Character || pObject instanceof Boolean;
+    }
+
+
+
+    private static int primitiveSize(@Nonnull final Object pObject)
+    {
+        int result = 0;
+        if (pObject instanceof Integer || pObject instanceof Float) {
+            result = Integer.SIZE / Byte.SIZE;
+        }
+        else if (pObject instanceof Long || pObject instanceof Double) {
+            result = Long.SIZE / Byte.SIZE;
+        }
+        else if (pObject instanceof Short || pObject instanceof Character) {
+            result = Short.SIZE / Byte.SIZE;
+        }
+        else if (pObject instanceof Byte || pObject instanceof Boolean) {
+            result = 1;
+        }
+        return result;
+    }
+
+
+
+    private static long containerOverhead(@Nonnull final Object pContainer)
+        throws IOException
+    {
+        return serializedSize(emptyCopy(pContainer));
+    }
+
+
+
+    /**
+     * Create an empty collection which has the same settings as the given one, so that their serialized forms differ
+     * only by the elements. Comparators of sorted collections are not copied, see {@link #comparatorBytes}.
+     *
+     * @param pContainer a collection or map
+     * @return an empty collection or map
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private static Object emptyCopy(@Nonnull final Object pContainer)
+    {
+        Object result = null;
+        if (pContainer instanceof SerializablePriorityQueue) {
+            final SerializablePriorityQueue<?> queue = (SerializablePriorityQueue<?>) pContainer;
+            result = new SerializablePriorityQueue<Serializable>(queue.getArity(),
+                (SerializableComparator<Serializable>) queue.comparator(), queue.isIndexed());
+        }
+        else if (pContainer instanceof SerializableArrayBlockingQueue) {
+            result = new SerializableArrayBlockingQueue<Serializable>(
+                ((SerializableArrayBlockingQueue<?>) pContainer).getCapacity());
+        }
+        else if (pContainer instanceof SerializableLruMap) {
+            result = ((SerializableLruMap<?, ?>) pContainer).emptyCopy();
+        }
+        else if (pContainer instanceof SerializableIndexedSortedMap) {
+            result = new SerializableTreeMap<String, String>();  // its replacement in the stream
+        }
+        else {
+            try {
+                result = pContainer.getClass().getConstructor().newInstance();
+            }
+            catch (Exception e) {
+                // no public no-arg constructor, so we approximate using the closest sercoll class
+                result = pContainer instanceof Map ? new SerializableHashMap<String, String>()
+                    : new SerializableArrayList<String>();
+            }
+        }
+        return result;
+    }
+
+
+
+    private static long comparatorBytes(@CheckForNull final Object pComparator)
+        throws IOException
+    {
+        long result = 0L;
+        if (pComparator != null) {
+            result = serializedSize(pComparator) - STREAM_HEADER_SIZE - 1;  // replaces TC_NULL of the empty instance
+        }
+        return result;
+    }
+
+
+
+    private static long serializedSize(@Nonnull final Object pObject)
+        throws IOException
+    {
+        if (!(pObject instanceof Serializable)) {
+            throw new NotSerializableException(pObject.getClass().getName());
+        }
+        final CountingOutputStream counter = new CountingOutputStream();
+        final ObjectOutputStream oos = new ObjectOutputStream(counter);
+        oos.writeObject(pObject);
+        oos.close();
+        return counter.getCount();
+    }
+
+
+
+    /**
+     * Output stream which discards all data and only counts the number of bytes written.
+     */
+    private static final class CountingOutputStream
+        extends OutputStream
+    {
+        private long count = 0L;
+
+
+
+        @Override
+        public void write(final int pByte)
+        {
+            count++;
+        }
+
+
+
+        @Override
+        public void write(@Nonnull final byte[] pBuffer, final int pOffset, final int pLength)
+        {
+            count += pLength;
+        }
+
+
+
+        long getCount()
+        {
+            return count;
+        }
+    }
+}
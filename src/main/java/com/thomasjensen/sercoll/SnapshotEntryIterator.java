@@ -0,0 +1,122 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Weakly consistent iterator over the live entries of all segments of a {@link SerializableSnapshotHashMap}.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+final class SnapshotEntryIterator<K extends Serializable, V extends Serializable>
+    implements Iterator<Map.Entry<K, V>>
+{
+    private final SerializableSnapshotHashMap<K, V> iMap;
+
+    private int iSegmentIndex = -1;
+
+    private AtomicReferenceArray<SnapshotNode> iTable;
+
+    private int iBucketIndex;
+
+    private SnapshotNode iNext;
+
+    private SnapshotNode iLast;
+
+
+
+    SnapshotEntryIterator(@Nonnull final SerializableSnapshotHashMap<K, V> pMap)
+    {
+        iMap = pMap;
+        advance();
+    }
+
+
+
+    private void advance()
+    {
+        if (iNext != null) {
+            iNext = iNext.iNext;
+        }
+        while (iNext == null) {
+            if (iTable != null && iBucketIndex < iTable.length()) {
+                iNext = iTable.get(iBucketIndex++);
+            }
+            else if (iSegmentIndex + 1 < iMap.iSegments.length) {
+                iTable = iMap.iSegments[++iSegmentIndex].iTable;
+                iBucketIndex = 0;
+            }
+            else {
+                return;
+            }
+        }
+    }
+
+
+
+    @Override
+    public boolean hasNext()
+    {
+        return iNext != null;
+    }
+
+
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public Map.Entry<K, V> next()
+    {
+        if (iNext == null) {
+            throw new NoSuchElementException();
+        }
+        iLast = iNext;
+        advance();
+        return new AbstractMap.SimpleEntry<K, V>((K) iLast.iKey, (V) iLast.iValue)
+        {
+            private static final long serialVersionUID = 1L;
+
+
+
+            @Override
+            public V setValue(final V pValue)
+            {
+                iMap.put(getKey(), pValue);
+                return super.setValue(pValue);
+            }
+        };
+    }
+
+
+
+    @Override
+    public void remove()
+    {
+        if (iLast == null) {
+            throw new IllegalStateException();
+        }
+        iMap.remove(iLast.iKey);
+        iLast = null;
+    }
+}
@@ -0,0 +1,93 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * The live entry set of a {@link SerializableSnapshotHashMap}.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+final class SnapshotEntrySet<K extends Serializable, V extends Serializable>
+    extends AbstractSet<Map.Entry<K, V>>
+{
+    private final SerializableSnapshotHashMap<K, V> iMap;
+
+
+
+    SnapshotEntrySet(@Nonnull final SerializableSnapshotHashMap<K, V> pMap)
+    {
+        super();
+        iMap = pMap;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return iMap.size();
+    }
+
+
+
+    @Override
+    public boolean contains(@Nullable final Object pObject)
+    {
+        if (!(pObject instanceof Map.Entry)) {
+            return false;
+        }
+        final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) pObject;
+        final V value = iMap.get(entry.getKey());
+        return value != null && value.equals(entry.getValue());
+    }
+
+
+
+    @Override
+    public boolean remove(@Nullable final Object pObject)
+    {
+        if (!(pObject instanceof Map.Entry)) {
+            return false;
+        }
+        final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) pObject;
+        return iMap.remove(entry.getKey(), entry.getValue());
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        iMap.clear();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Iterator<Map.Entry<K, V>> iterator()
+    {
+        return new SnapshotEntryIterator<K, V>(iMap);
+    }
+}
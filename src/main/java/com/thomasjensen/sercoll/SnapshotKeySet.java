@@ -0,0 +1,118 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * The live key set of a {@link SerializableSnapshotHashMap}, which is serialized as a {@link SerializableHashSet}.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+final class SnapshotKeySet<K extends Serializable, V extends Serializable>
+    extends AbstractSet<K>
+    implements SerializableSet<K>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final transient SerializableSnapshotHashMap<K, V> iMap;
+
+
+
+    SnapshotKeySet(@Nonnull final SerializableSnapshotHashMap<K, V> pMap)
+    {
+        super();
+        iMap = pMap;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return iMap.size();
+    }
+
+
+
+    @Override
+    public boolean contains(@Nullable final Object pKey)
+    {
+        return iMap.containsKey(pKey);
+    }
+
+
+
+    @Override
+    public boolean remove(@Nullable final Object pKey)
+    {
+        return iMap.remove(pKey) != null;
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        iMap.clear();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Iterator<K> iterator()
+    {
+        final Iterator<Map.Entry<K, V>> iter = new SnapshotEntryIterator<K, V>(iMap);
+        return new Iterator<K>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return iter.hasNext();
+            }
+
+
+
+            @Override
+            public K next()
+            {
+                return iter.next().getKey();
+            }
+
+
+
+            @Override
+            public void remove()
+            {
+                iter.remove();
+            }
+        };
+    }
+
+
+
+    private Object writeReplace()
+    {
+        return new SerializableHashSet<K>(this);
+    }
+}
@@ -0,0 +1,42 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+
+/**
+ * An entry of a bucket chain of a {@link SerializableSnapshotHashMap}. Outside of snapshots, writers modify the value
+ * and the successor in place.
+ *
+ * @author Thomas Jensen
+ */
+final class SnapshotNode
+{
+    final int iHash;
+
+    final Object iKey;
+
+    volatile Object iValue;
+
+    volatile SnapshotNode iNext;
+
+
+
+    SnapshotNode(final int pHash, final Object pKey, final Object pValue, final SnapshotNode pNext)
+    {
+        iHash = pHash;
+        iKey = pKey;
+        iValue = pValue;
+        iNext = pNext;
+    }
+}
@@ -0,0 +1,113 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The state of a segment of a {@link SerializableSnapshotHashMap} when a snapshot was taken.
+ *
+ * @author Thomas Jensen
+ */
+final class SnapshotPin
+{
+    /** saved for a bucket which was empty when its table was pinned */
+    private static final SnapshotNode EMPTY_BUCKET = new SnapshotNode(0, null, null, null);
+
+    /** the table of the segment when it was pinned */
+    final AtomicReferenceArray<SnapshotNode> iTable;
+
+    /** the number of entries in the segment when it was pinned */
+    final int iCount;
+
+    /** copies of the buckets of the pinned table which writers have modified since; created on first use */
+    private volatile AtomicReferenceArray<SnapshotNode> iSaved;
+
+
+
+    SnapshotPin(final AtomicReferenceArray<SnapshotNode> pTable, final int pCount)
+    {
+        iTable = pTable;
+        iCount = pCount;
+    }
+
+
+
+    /**
+     * Save a copy of the given bucket before a writer modifies it for the first time. Called while holding the
+     * lock of the segment.
+     *
+     * @param pTable the current table of the segment
+     * @param pIndex the index of the bucket
+     */
+    void save(@Nonnull final AtomicReferenceArray<SnapshotNode> pTable, final int pIndex)
+    {
+        if (pTable != iTable) {
+            return;  // the pinned table has been replaced, and is no longer modified
+        }
+        AtomicReferenceArray<SnapshotNode> saved = iSaved;
+        if (saved == null) {
+            saved = new AtomicReferenceArray<SnapshotNode>(iTable.length());
+            iSaved = saved;
+        }
+        if (saved.get(pIndex) == null) {
+            SnapshotNode copy = null;
+            SnapshotNode last = null;
+            for (SnapshotNode node = iTable.get(pIndex); node != null; node = node.iNext) {
+                final SnapshotNode clone = new SnapshotNode(node.iHash, node.iKey, node.iValue, null);
+                if (last == null) {
+                    copy = clone;
+                }
+                else {
+                    last.iNext = clone;
+                }
+                last = clone;
+            }
+            saved.set(pIndex, copy != null ? copy : EMPTY_BUCKET);
+        }
+    }
+
+
+
+    /**
+     * Read a bucket as it was when the table was pinned. The live chain is read first, and discarded if a writer
+     * has saved the bucket in the meantime, because the writer may have modified the chain while it was read.
+     *
+     * @param pIndex the index of the bucket
+     * @param pKeysAndValues a list to reuse, which receives the keys and values of the bucket alternately
+     * @return the given list
+     */
+    @Nonnull
+    List<Object> readBucket(final int pIndex, @Nonnull final List<Object> pKeysAndValues)
+    {
+        pKeysAndValues.clear();
+        for (SnapshotNode node = iTable.get(pIndex); node != null; node = node.iNext) {
+            pKeysAndValues.add(node.iKey);
+            pKeysAndValues.add(node.iValue);
+        }
+        final AtomicReferenceArray<SnapshotNode> saved = iSaved;
+        final SnapshotNode copy = saved != null ? saved.get(pIndex) : null;
+        if (copy != null) {
+            pKeysAndValues.clear();
+            for (SnapshotNode node = copy; node != EMPTY_BUCKET && node != null; node = node.iNext) {
+                pKeysAndValues.add(node.iKey);
+                pKeysAndValues.add(node.iValue);
+            }
+        }
+        return pKeysAndValues;
+    }
+}
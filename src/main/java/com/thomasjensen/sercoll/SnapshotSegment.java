@@ -0,0 +1,217 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A hash table of a {@link SerializableSnapshotHashMap}, guarded by a lock.
+ *
+ * @author Thomas Jensen
+ */
+@SuppressWarnings("serial")
+final class SnapshotSegment
+    extends ReentrantLock
+{
+    /** the buckets; replaced as a whole when the table grows or is cleared */
+    volatile AtomicReferenceArray<SnapshotNode> iTable;
+
+    /** the number of entries; modified only while holding the lock */
+    volatile int iCount;
+
+    /** the pin of the snapshot being taken, or <code>null</code> */
+    volatile SnapshotPin iPin;
+
+
+
+    SnapshotSegment(final int pCapacity)
+    {
+        super();
+        iTable = new AtomicReferenceArray<SnapshotNode>(pCapacity);
+    }
+
+
+
+    @CheckForNull
+    SnapshotNode find(@Nonnull final Object pKey, final int pHash)
+    {
+        final AtomicReferenceArray<SnapshotNode> table = iTable;
+        for (SnapshotNode node = table.get(pHash & (table.length() - 1)); node != null; node = node.iNext) {
+            if (node.iHash == pHash && (node.iKey == pKey || pKey.equals(node.iKey))) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+
+
+    /**
+     * Prepare the bucket with the given index for modification.
+     *
+     * @param pTable the current table
+     * @param pIndex the index of the bucket in the table
+     */
+    private void beforeWrite(@Nonnull final AtomicReferenceArray<SnapshotNode> pTable, final int pIndex)
+    {
+        final SnapshotPin pin = iPin;
+        if (pin != null) {
+            pin.save(pTable, pIndex);
+        }
+    }
+
+
+
+    @CheckForNull
+    Object put(@Nonnull final Object pKey, final int pHash, @Nonnull final Object pValue,
+        final boolean pOnlyIfAbsent)
+    {
+        lock();
+        try {
+            AtomicReferenceArray<SnapshotNode> table = iTable;
+            int index = pHash & (table.length() - 1);
+            for (SnapshotNode node = table.get(index); node != null; node = node.iNext) {
+                if (node.iHash == pHash && (node.iKey == pKey || pKey.equals(node.iKey))) {
+                    final Object result = node.iValue;
+                    if (!pOnlyIfAbsent) {
+                        beforeWrite(table, index);
+                        node.iValue = pValue;
+                    }
+                    return result;
+                }
+            }
+            if (iCount + 1 > (int) (table.length() * SerializableSnapshotHashMap.LOAD_FACTOR)
+                && table.length() < SerializableSnapshotHashMap.MAX_SEGMENT_CAPACITY)
+            {
+                table = grow(table);
+                index = pHash & (table.length() - 1);
+            }
+            beforeWrite(table, index);
+            table.set(index, new SnapshotNode(pHash, pKey, pValue, table.get(index)));
+            iCount++;
+            return null;
+        }
+        finally {
+            unlock();
+        }
+    }
+
+
+
+    /**
+     * Replace the table by one of twice the size. The nodes are copied rather than moved, so that the old table,
+     * which may be pinned by a snapshot or still be read by other threads, remains unchanged.
+     *
+     * @param pTable the current table
+     * @return the new table
+     */
+    @Nonnull
+    private AtomicReferenceArray<SnapshotNode> grow(@Nonnull final AtomicReferenceArray<SnapshotNode> pTable)
+    {
+        final AtomicReferenceArray<SnapshotNode> result = new AtomicReferenceArray<SnapshotNode>(pTable.length() << 1);
+        final int mask = result.length() - 1;
+        for (int i = 0; i < pTable.length(); i++) {
+            for (SnapshotNode node = pTable.get(i); node != null; node = node.iNext) {
+                final int index = node.iHash & mask;
+                result.lazySet(index, new SnapshotNode(node.iHash, node.iKey, node.iValue, result.get(index)));
+            }
+        }
+        iTable = result;
+        return result;
+    }
+
+
+
+    @CheckForNull
+    Object remove(@Nonnull final Object pKey, final int pHash, @Nullable final Object pExpectedValue)
+    {
+        lock();
+        try {
+            final AtomicReferenceArray<SnapshotNode> table = iTable;
+            final int index = pHash & (table.length() - 1);
+            SnapshotNode previous = null;
+            for (SnapshotNode node = table.get(index); node != null; node = node.iNext) {
+                if (node.iHash == pHash && (node.iKey == pKey || pKey.equals(node.iKey))) {
+                    final Object result = node.iValue;
+                    if (pExpectedValue != null && !pExpectedValue.equals(result)) {
+                        return null;
+                    }
+                    beforeWrite(table, index);
+                    if (previous == null) {
+                        table.set(index, node.iNext);
+                    }
+                    else {
+                        previous.iNext = node.iNext;
+                    }
+                    iCount--;
+                    return result;
+                }
+                previous = node;
+            }
+            return null;
+        }
+        finally {
+            unlock();
+        }
+    }
+
+
+
+    @CheckForNull
+    Object replace(@Nonnull final Object pKey, final int pHash, @Nullable final Object pExpectedValue,
+        @Nonnull final Object pValue)
+    {
+        lock();
+        try {
+            final AtomicReferenceArray<SnapshotNode> table = iTable;
+            final int index = pHash & (table.length() - 1);
+            for (SnapshotNode node = table.get(index); node != null; node = node.iNext) {
+                if (node.iHash == pHash && (node.iKey == pKey || pKey.equals(node.iKey))) {
+                    final Object result = node.iValue;
+                    if (pExpectedValue != null && !pExpectedValue.equals(result)) {
+                        return null;
+                    }
+                    beforeWrite(table, index);
+                    node.iValue = pValue;
+                    return result;
+                }
+            }
+            return null;
+        }
+        finally {
+            unlock();
+        }
+    }
+
+
+
+    void clear()
+    {
+        lock();
+        try {
+            if (iCount > 0) {
+                iTable = new AtomicReferenceArray<SnapshotNode>(iTable.length());
+                iCount = 0;
+            }
+        }
+        finally {
+            unlock();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Moves a finished file into place, replacing the previous version of the file.
+ * <p/>
+ * This is the variant of the class used on Java 9 and later, as part of the multi-release JAR. The file is moved
+ * atomically, so readers see either the previous or the new version of the file, but never none. File systems which
+ * cannot move atomically fall back to a plain replacing move. Changes to the class must be applied to both variants.
+ *
+ * @author Thomas Jensen
+ */
+final class FileReplacer
+{
+    private FileReplacer()
+    {
+        super();
+    }
+
+
+
+    /**
+     * Renames the source file to the target file, replacing the target file if it exists.
+     *
+     * @param pSource the finished file
+     * @param pTarget the file to replace
+     * @throws IOException the file could not be renamed
+     */
+    static void replace(@Nonnull final File pSource, @Nonnull final File pTarget)
+        throws IOException
+    {
+        try {
+            Files.move(pSource.toPath(), pTarget.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(pSource.toPath(), pTarget.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
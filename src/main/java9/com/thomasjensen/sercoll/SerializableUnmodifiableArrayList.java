@@ -0,0 +1,423 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ListIterator;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * Same as an <em>unmodifiable</em> {@link ArrayList}, except that this class promises to be fully serializable.
+ * <p/>
+ * This is the variant of the class used on Java 9 and later, as part of the multi-release JAR. Changes to the
+ * class must be applied to both variants.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+public final class SerializableUnmodifiableArrayList<E extends Serializable>
+    extends ArrayList<E>
+    implements SerializableList<E>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** the hash code, computed on first use because the contents never change; <code>0</code> if not computed yet */
+    private transient int ourHashCode = 0;
+
+
+
+    /**
+     * Constructs an unmodifiable empty list.
+     */
+    public SerializableUnmodifiableArrayList()
+    {
+        super(1);
+    }
+
+
+
+    /**
+     * Constructs a Singleton collection.
+     *
+     * @param pSingleItem the single element ever contained in this collection
+     */
+    public SerializableUnmodifiableArrayList(@Nullable final E pSingleItem)
+    {
+        super(1);
+        super.add(pSingleItem);
+    }
+
+
+
+    /**
+     * Constructs an unmodifiable list containing the elements of the specified collection, in the order they are
+     * returned by the collection's iterator.
+     *
+     * @param pCollection the collection whose elements are to be placed into this list
+     * @throws NullPointerException if the specified collection is <code>null</code>
+     */
+    public SerializableUnmodifiableArrayList(@Nonnull final Collection<? extends E> pCollection)
+    {
+        super(pCollection);
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pIndex ignored parameter
+     * @param pElement ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    @CheckForNull
+    public E set(final int pIndex, @Nullable final E pElement)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pElement ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean add(@Nullable final E pElement)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pIndex ignored parameter
+     * @param pElement ignored parameter
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public void add(final int pIndex, @Nullable final E pElement)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pIndex ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    @CheckForNull
+    public E remove(final int pIndex)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pElement ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean remove(@Nullable final Object pElement)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public void clear()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pCollection ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean addAll(@Nonnull final Collection<? extends E> pCollection)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pIndex ignored parameter
+     * @param pCollection ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean addAll(final int pIndex, @Nonnull final Collection<? extends E> pCollection)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pFromIndex ignored parameter
+     * @param pToIndex ignored parameter
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    protected void removeRange(final int pFromIndex, final int pToIndex)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pCollection ignored parameter
+     * @return never
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean removeAll(@Nonnull final Collection<?> pCollection)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pCollection ignored parameter
+     * @return never
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean retainAll(@Nonnull final Collection<?> pCollection)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public ListIterator<E> listIterator()
+    {
+        return new UnmodifiableListIterator<E>(super.listIterator());
+    }
+
+
+
+    @Override
+    @Nonnull
+    public ListIterator<E> listIterator(final int pIndex)
+    {
+        return new UnmodifiableListIterator<E>(super.listIterator(pIndex));
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableList<E> subList(final int pFromIndex, final int pToIndex)
+    {
+        return new SerializableUnmodifiableArrayList<E>(super.subList(pFromIndex, pToIndex));
+    }
+
+
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public SerializableUnmodifiableArrayList<E> clone()
+    {
+        return (SerializableUnmodifiableArrayList<E>) super.clone();
+    }
+
+
+
+    /**
+     * Returns a spliterator which splits like the one of the backing JDK collection and additionally reports
+     * {@link Spliterator#IMMUTABLE}.
+     *
+     * @return a new spliterator over the elements of this collection
+     */
+    @Override
+    @Nonnull
+    public Spliterator<E> spliterator()
+    {
+        return new UnmodifiableSpliterator<E>(super.spliterator());
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pFilter ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean removeIf(@Nonnull final Predicate<? super E> pFilter)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pOperator ignored parameter
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public void replaceAll(@Nonnull final UnaryOperator<E> pOperator)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pComparator ignored parameter
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public void sort(@Nullable final Comparator<? super E> pComparator)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The hash code is computed on first use and then cached, because the contents of this list never change.
+     */
+    @Override
+    public int hashCode()
+    {
+        int result = ourHashCode;
+        if (result == 0) {
+            result = super.hashCode();
+            ourHashCode = result;
+        }
+        return result;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Another instance of this class is found to be unequal without comparing the elements if its size or its cached
+     * hash code differs.
+     */
+    @Override
+    public boolean equals(@Nullable final Object pOther)
+    {
+        if (pOther instanceof SerializableUnmodifiableArrayList && pOther != this) {
+            final SerializableUnmodifiableArrayList<?> other = (SerializableUnmodifiableArrayList<?>) pOther;
+            if (CachedHashCode.provesUnequal(size(), ourHashCode, other.size(), other.ourHashCode)) {
+                return false;
+            }
+        }
+        return super.equals(pOther);
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, size());
+    }
+}
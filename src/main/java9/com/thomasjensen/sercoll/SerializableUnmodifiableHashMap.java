@@ -0,0 +1,465 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * Same as an <em>unmodifiable</em> {@link HashMap}, except that this class promises to be fully serializable.
+ * <p/>
+ * The wrapped sets are stored locally in order to improve performance. This is <code>transient</code> in order to avoid
+ * double serialization. After deserialization, that local state is lazily reinitialized.
+ * <p/>
+ * The {@link #entrySet() entry set} holds its own unmodifiable copy of every entry. {@link #forEachEntry} and
+ * {@link #entryCursor()} traverse the map itself, without handing out entry objects.
+ * <p/>
+ * This is the variant of the class used on Java 9 and later, as part of the multi-release JAR. Changes to the
+ * class must be applied to both variants.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public final class SerializableUnmodifiableHashMap<K extends Serializable, V extends Serializable>
+    extends HashMap<K, V>
+    implements SerializableMap<K, V>, EntryTraversable<K, V>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** the hash code, computed on first use because the contents never change; <code>0</code> if not computed yet */
+    private transient int ourHashCode = 0;
+
+    private transient SerializableSet<K> ourKeySet = null;
+
+    private transient SerializableCollection<V> ourValueList = null;
+
+    private transient Set<Map.Entry<K, V>> ourEntrySet = null;
+
+
+
+    /**
+     * Constructor.
+     */
+    public SerializableUnmodifiableHashMap()
+    {
+        super(1);
+        ourKeySet = getSuperKeySet();
+        ourValueList = getSuperValues();
+        ourEntrySet = getSuperEntrySet();
+    }
+
+
+
+    /**
+     * Constructor of a Singleton map.
+     *
+     * @param pKey the sole key to be stored in the returned map
+     * @param pValue the value to which the returned map maps key
+     */
+    public SerializableUnmodifiableHashMap(@Nullable final K pKey, @Nullable final V pValue)
+    {
+        super(1, 1f);
+        super.put(pKey, pValue);
+        ourKeySet = getSuperKeySet();
+        ourValueList = getSuperValues();
+        ourEntrySet = getSuperEntrySet();
+    }
+
+
+
+    /**
+     * Constructor.
+     *
+     * @param pMap a different map
+     */
+    public SerializableUnmodifiableHashMap(final Map<K, V> pMap)
+    {
+        super(pMap);
+        ourKeySet = getSuperKeySet();
+        ourValueList = getSuperValues();
+        ourEntrySet = getSuperEntrySet();
+    }
+
+
+
+    @Override
+    public V put(final K pKey, final V pValue)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> pMap)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    public V remove(final Object pKey)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public SerializableUnmodifiableHashMap<K, V> clone()
+    {
+        return (SerializableUnmodifiableHashMap<K, V>) super.clone();
+    }
+
+
+
+    @Override
+    public SerializableSet<K> keySet()
+    {
+        if (ourKeySet == null) {
+            ourKeySet = getSuperKeySet();
+        }
+        return ourKeySet;
+    }
+
+
+
+    @Override
+    public SerializableCollection<V> values()
+    {
+        if (ourValueList == null) {
+            ourValueList = getSuperValues();
+        }
+        return ourValueList;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The resulting Set is serializable. Serializability cannot be declared, because Map.Entry is not declared
+     * serializable. However, the result of this method can safely be cast to something serializable.
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        if (ourEntrySet == null) {
+            ourEntrySet = getSuperEntrySet();
+        }
+        return ourEntrySet;
+    }
+
+
+
+    @Override
+    public void forEachEntry(@Nonnull final EntryVisitor<? super K, ? super V> pVisitor)
+    {
+        for (Map.Entry<K, V> entry : super.entrySet()) {
+            pVisitor.visit(entry.getKey(), entry.getValue());
+        }
+    }
+
+
+
+    @Override
+    @Nonnull
+    public EntryCursor<K, V> entryCursor()
+    {
+        return new IteratorEntryCursor<K, V>(super.entrySet().iterator());
+    }
+
+
+
+    private SerializableSet<K> getSuperKeySet()
+    {
+        SerializableSet<K> result = null;
+        if (size() > 0) {
+            result = new SerializableUnmodifiableHashSet<K>(super.keySet());
+        }
+        else {
+            result = new SerializableUnmodifiableHashSet<K>();
+        }
+        return result;
+    }
+
+
+
+    private SerializableCollection<V> getSuperValues()
+    {
+        SerializableCollection<V> result = null;
+        if (size() > 0) {
+            result = new SerializableUnmodifiableArrayList<V>(super.values());
+        }
+        else {
+            result = new SerializableUnmodifiableArrayList<V>();
+        }
+        return result;
+    }
+
+
+
+    private Set<Map.Entry<K, V>> getSuperEntrySet()
+    {
+        Set<Map.Entry<K, V>> result = null;
+        if (size() > 0) {
+            result = new SerializableUnmodifiableEntrySet<K, V>(super.entrySet());
+        }
+        else {
+            result = new SerializableUnmodifiableEntrySet<K, V>();
+        }
+        return result;
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pValue ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V putIfAbsent(final K pKey, final V pValue)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pValue ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean remove(final Object pKey, final Object pValue)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pOldValue ignored parameter
+     * @param pNewValue ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean replace(final K pKey, final V pOldValue, final V pNewValue)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pValue ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V replace(final K pKey, final V pValue)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pFunction ignored parameter
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public void replaceAll(final BiFunction<? super K, ? super V, ? extends V> pFunction)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pMappingFunction ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V computeIfAbsent(final K pKey, final Function<? super K, ? extends V> pMappingFunction)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pRemappingFunction ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V computeIfPresent(final K pKey,
+        final BiFunction<? super K, ? super V, ? extends V> pRemappingFunction)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pRemappingFunction ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V compute(final K pKey, final BiFunction<? super K, ? super V, ? extends V> pRemappingFunction)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pValue ignored parameter
+     * @param pRemappingFunction ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V merge(final K pKey, final V pValue,
+        final BiFunction<? super V, ? super V, ? extends V> pRemappingFunction)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The hash code is computed on first use and then cached, because the contents of this map never change.
+     */
+    @Override
+    public int hashCode()
+    {
+        int result = ourHashCode;
+        if (result == 0) {
+            result = super.hashCode();
+            ourHashCode = result;
+        }
+        return result;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Another instance of this class is found to be unequal without comparing the entries if its size or its cached
+     * hash code differs.
+     */
+    @Override
+    public boolean equals(@Nullable final Object pOther)
+    {
+        if (pOther instanceof SerializableUnmodifiableHashMap && pOther != this) {
+            final SerializableUnmodifiableHashMap<?, ?> other = (SerializableUnmodifiableHashMap<?, ?>) pOther;
+            if (CachedHashCode.provesUnequal(size(), ourHashCode, other.size(), other.ourHashCode)) {
+                return false;
+            }
+        }
+        return super.equals(pOther);
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, size());
+    }
+}
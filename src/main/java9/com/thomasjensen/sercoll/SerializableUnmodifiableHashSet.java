@@ -0,0 +1,261 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * Same as an <em>unmodifiable</em> {@link HashSet}, except that this class promises to be fully serializable.
+ * <p/>
+ * This is the variant of the class used on Java 9 and later, as part of the multi-release JAR. Changes to the
+ * class must be applied to both variants.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+public final class SerializableUnmodifiableHashSet<E extends Serializable>
+    extends HashSet<E>
+    implements SerializableSet<E>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** the hash code, computed on first use because the contents never change; <code>0</code> if not computed yet */
+    private transient int ourHashCode = 0;
+
+
+
+    /**
+     * Constructor.
+     */
+    public SerializableUnmodifiableHashSet()
+    {
+        super(1);
+    }
+
+
+
+    /**
+     * Constructor for a Singleton collection.
+     *
+     * @param pSingleItem the only element ever to be contained in this set
+     */
+    public SerializableUnmodifiableHashSet(@Nullable final E pSingleItem)
+    {
+        super(1, 1f);
+        super.add(pSingleItem);
+    }
+
+
+
+    /**
+     * Constructor.
+     *
+     * @param pCollection a collection (may contain <code>null</code> values)
+     */
+    public SerializableUnmodifiableHashSet(final Collection<? extends E> pCollection)
+    {
+        super();
+        for (E elem : pCollection) {
+            super.add(elem);
+        }
+    }
+
+
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        return new UnmodifiableIterator<E>(super.iterator());
+    }
+
+
+
+    @Override
+    public boolean add(final E pElement)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    public boolean remove(final Object pElement)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    public void clear()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    public boolean removeAll(final Collection<?> pCollection)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    public boolean addAll(final Collection<? extends E> pCollection)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    public boolean retainAll(final Collection<?> pCollection)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public SerializableUnmodifiableHashSet<E> clone()
+    {
+        return (SerializableUnmodifiableHashSet<E>) super.clone();
+    }
+
+
+
+    /**
+     * Returns a spliterator which splits like the one of the backing JDK collection and additionally reports
+     * {@link Spliterator#IMMUTABLE}.
+     *
+     * @return a new spliterator over the elements of this collection
+     */
+    @Override
+    @Nonnull
+    public Spliterator<E> spliterator()
+    {
+        return new UnmodifiableSpliterator<E>(super.spliterator());
+    }
+
+
+
+    /**
+     * Performs the given action for each element of this set. This is faster than the default implementation, because
+     * it iterates the backing JDK collection directly instead of going through the unmodifiable iterator.
+     *
+     * @param pAction the action to be performed for each element
+     */
+    @Override
+    public void forEach(@Nonnull final Consumer<? super E> pAction)
+    {
+        super.spliterator().forEachRemaining(pAction);
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable collection.
+     *
+     * @param pFilter ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean removeIf(@Nonnull final Predicate<? super E> pFilter)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The hash code is computed on first use and then cached, because the contents of this set never change.
+     */
+    @Override
+    public int hashCode()
+    {
+        int result = ourHashCode;
+        if (result == 0) {
+            result = super.hashCode();
+            ourHashCode = result;
+        }
+        return result;
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Another instance of this class is found to be unequal without comparing the elements if its size or its cached
+     * hash code differs.
+     */
+    @Override
+    public boolean equals(@Nullable final Object pOther)
+    {
+        if (pOther instanceof SerializableUnmodifiableHashSet && pOther != this) {
+            final SerializableUnmodifiableHashSet<?> other = (SerializableUnmodifiableHashSet<?>) pOther;
+            if (CachedHashCode.provesUnequal(size(), ourHashCode, other.size(), other.ourHashCode)) {
+                return false;
+            }
+        }
+        return super.equals(pOther);
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        SerializationMonitor.readFinished(this, size());
+    }
+}
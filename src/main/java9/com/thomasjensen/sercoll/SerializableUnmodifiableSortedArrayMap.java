@@ -0,0 +1,870 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * An immutable serializable sorted map, which keeps its keys and values in two parallel arrays sorted by key.
+ * <p/>
+ * Compared to an unmodifiable {@link SerializableTreeMap}, this map needs no tree node per entry, and lookups are
+ * binary searches in the key array. It is intended for static sorted reference data.
+ * <p/>
+ * {@link #subMap subMap()}, {@link #headMap headMap()} and {@link #tailMap tailMap()} return <em>views</em>, which
+ * share the arrays of this map. They are created in O(log n) time without copying, and are serializable maps of their
+ * own, whose serialized form contains only the entries in their range. Bounds which lie outside the range of a view
+ * are clamped to its range. The {@link #keySet()} is a {@link SerializableUnmodifiableSortedArraySet} on the key
+ * array, and the {@link #values()} are a view of the value array, which is serialized as a copy. Keys must not be
+ * <code>null</code>; values may be.
+ * <p/>
+ * The serialized form is the comparator, the number of entries, and the entries as pairs of key and value, in
+ * ascending key order.
+ * <p/>
+ * This is the variant of the class used on Java 9 and later, as part of the multi-release JAR. Changes to the
+ * class must be applied to both variants.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public final class SerializableUnmodifiableSortedArrayMap<K extends Serializable, V extends Serializable>
+    extends AbstractMap<K, V>
+    implements SerializableSortedMap<K, V>, Cloneable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    private static final Object[] EMPTY = new Object[0];
+
+    /** the ordering of the keys, or <code>null</code> for their natural ordering */
+    private SerializableComparator<? super K> iComparator;
+
+    /** the sorted keys, possibly shared with other views */
+    private transient Object[] iKeys;
+
+    /** the values, at the indexes of their keys */
+    private transient Object[] iValues;
+
+    /** index of the first entry of this map */
+    private transient int iFrom;
+
+    /** index after the last entry of this map */
+    private transient int iTo;
+
+    /** the hash code, computed on first use because the contents never change; <code>0</code> if not computed yet */
+    private transient int ourHashCode = 0;
+
+
+
+    /**
+     * Constructs the immutable empty map.
+     */
+    public SerializableUnmodifiableSortedArrayMap()
+    {
+        this(EMPTY, EMPTY, 0, 0, null);
+    }
+
+
+
+    /**
+     * Constructor which sorts the entries of the given map by the natural ordering of the keys.
+     *
+     * @param pMap a map
+     * @throws NullPointerException if the map contains a <code>null</code> key
+     * @throws ClassCastException if the keys are not mutually comparable
+     */
+    public SerializableUnmodifiableSortedArrayMap(@Nonnull final Map<? extends K, ? extends V> pMap)
+    {
+        this(pMap, null);
+    }
+
+
+
+    /**
+     * Constructor which copies the given sorted map, retaining its ordering.
+     *
+     * @param pMap the sorted map, which has a serializable comparator
+     */
+    public SerializableUnmodifiableSortedArrayMap(@Nonnull final SerializableSortedMap<K, ? extends V> pMap)
+    {
+        this(pMap, pMap.comparator());
+    }
+
+
+
+    private SerializableUnmodifiableSortedArrayMap(@Nonnull final Map<? extends K, ? extends V> pMap,
+        @Nullable final SerializableComparator<? super K> pComparator)
+    {
+        super();
+        iComparator = pComparator;
+        final Object[] entries = pMap.entrySet().toArray();
+        final boolean sorted = pMap instanceof SortedMap && equal(((SortedMap<?, ?>) pMap).comparator(), pComparator);
+        if (!sorted) {
+            final Comparator<Object> keyComparator = keyComparator();
+            Arrays.sort(entries, new Comparator<Object>()
+            {
+                @Override
+                public int compare(final Object pLeft, final Object pRight)
+                {
+                    return keyComparator.compare(((Map.Entry<?, ?>) pLeft).getKey(),
+                        ((Map.Entry<?, ?>) pRight).getKey());
+                }
+            });
+        }
+        iKeys = new Object[entries.length];
+        iValues = new Object[entries.length];
+        int count = 0;
+        for (final Object o : entries) {
+            final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            if (sorted || count == 0 || keyComparator().compare(iKeys[count - 1], entry.getKey()) != 0) {
+                iKeys[count] = entry.getKey();
+                iValues[count] = entry.getValue();
+                count++;
+            }
+        }
+        if (count < entries.length) {
+            iKeys = Arrays.copyOf(iKeys, count);
+            iValues = Arrays.copyOf(iValues, count);
+        }
+        iFrom = 0;
+        iTo = count;
+    }
+
+
+
+    private SerializableUnmodifiableSortedArrayMap(@Nonnull final Object[] pKeys, @Nonnull final Object[] pValues,
+        final int pFrom, final int pTo, @Nullable final SerializableComparator<? super K> pComparator)
+    {
+        super();
+        iKeys = pKeys;
+        iValues = pValues;
+        iFrom = pFrom;
+        iTo = pTo;
+        iComparator = pComparator;
+    }
+
+
+
+    private static boolean equal(@Nullable final Object pFirst, @Nullable final Object pSecond)
+    {
+        return pFirst == null ? pSecond == null : pFirst.equals(pSecond);
+    }
+
+
+
+    @Nonnull
+    private Comparator<Object> keyComparator()
+    {
+        return SerializableUnmodifiableSortedArraySet.naturalOrComparator(iComparator);
+    }
+
+
+
+    private int indexOf(final Object pKey)
+    {
+        return SerializableUnmodifiableSortedArraySet.binarySearch(iKeys, iFrom, iTo, pKey, keyComparator());
+    }
+
+
+
+    /**
+     * Find the index of the first key which is greater than (or equal to) the given key.
+     *
+     * @param pKey the key
+     * @param pInclusive <code>true</code> to include an equal key
+     * @return the index, which is {@link #iTo} if there is no such key
+     */
+    private int indexAbove(final Object pKey, final boolean pInclusive)
+    {
+        final int index = indexOf(pKey);
+        if (index >= 0) {
+            return pInclusive ? index : index + 1;
+        }
+        return -index - 1;
+    }
+
+
+
+    /**
+     * Find the index of the last key which is less than (or equal to) the given key.
+     *
+     * @param pKey the key
+     * @param pInclusive <code>true</code> to include an equal key
+     * @return the index, which is <code>iFrom - 1</code> if there is no such key
+     */
+    private int indexBelow(final Object pKey, final boolean pInclusive)
+    {
+        final int index = indexOf(pKey);
+        if (index >= 0) {
+            return pInclusive ? index : index - 1;
+        }
+        return -index - 2;
+    }
+
+
+
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    private K keyAt(final int pIndex)
+    {
+        return pIndex >= iFrom && pIndex < iTo ? (K) iKeys[pIndex] : null;
+    }
+
+
+
+    @Override
+    public int size()
+    {
+        return iTo - iFrom;
+    }
+
+
+
+    @Override
+    public boolean isEmpty()
+    {
+        return iTo == iFrom;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    @SuppressWarnings("unchecked")
+    public V get(@Nullable final Object pKey)
+    {
+        final int index = indexOf(pKey);
+        return index >= 0 ? (V) iValues[index] : null;
+    }
+
+
+
+    @Override
+    public boolean containsKey(@Nullable final Object pKey)
+    {
+        return indexOf(pKey) >= 0;
+    }
+
+
+
+    @Override
+    public boolean containsValue(@Nullable final Object pValue)
+    {
+        for (int i = iFrom; i < iTo; i++) {
+            if (equal(pValue, iValues[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+
+    /**
+     * Returns the least key greater than or equal to the given key, or <code>null</code> if there is no such key.
+     *
+     * @param pKey the key
+     * @return the least key greater than or equal to <code>pKey</code>, or <code>null</code> if there is no such key
+     */
+    @CheckForNull
+    public K ceilingKey(@Nonnull final K pKey)
+    {
+        return keyAt(indexAbove(pKey, true));
+    }
+
+
+
+    /**
+     * Returns the least key strictly greater than the given key, or <code>null</code> if there is no such key.
+     *
+     * @param pKey the key
+     * @return the least key greater than <code>pKey</code>, or <code>null</code> if there is no such key
+     */
+    @CheckForNull
+    public K higherKey(@Nonnull final K pKey)
+    {
+        return keyAt(indexAbove(pKey, false));
+    }
+
+
+
+    /**
+     * Returns the greatest key less than or equal to the given key, or <code>null</code> if there is no such key.
+     *
+     * @param pKey the key
+     * @return the greatest key less than or equal to <code>pKey</code>, or <code>null</code> if there is no such key
+     */
+    @CheckForNull
+    public K floorKey(@Nonnull final K pKey)
+    {
+        return keyAt(indexBelow(pKey, true));
+    }
+
+
+
+    /**
+     * Returns the greatest key strictly less than the given key, or <code>null</code> if there is no such key.
+     *
+     * @param pKey the key
+     * @return the greatest key less than <code>pKey</code>, or <code>null</code> if there is no such key
+     */
+    @CheckForNull
+    public K lowerKey(@Nonnull final K pKey)
+    {
+        return keyAt(indexBelow(pKey, false));
+    }
+
+
+
+    @Override
+    public K firstKey()
+    {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(iFrom);
+    }
+
+
+
+    @Override
+    public K lastKey()
+    {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return keyAt(iTo - 1);
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public SerializableComparator<? super K> comparator()
+    {
+        return iComparator;
+    }
+
+
+
+    @Nonnull
+    private SerializableUnmodifiableSortedArrayMap<K, V> view(final int pFrom, final int pTo)
+    {
+        return new SerializableUnmodifiableSortedArrayMap<K, V>(iKeys, iValues, pFrom, Math.max(pFrom, pTo),
+            iComparator);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableUnmodifiableSortedArrayMap<K, V> subMap(final K pFromKey, final K pToKey)
+    {
+        if (keyComparator().compare(pFromKey, pToKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return view(indexAbove(pFromKey, true), indexBelow(pToKey, false) + 1);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableUnmodifiableSortedArrayMap<K, V> headMap(final K pToKey)
+    {
+        return view(iFrom, indexBelow(pToKey, false) + 1);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableUnmodifiableSortedArrayMap<K, V> tailMap(final K pFromKey)
+    {
+        return view(indexAbove(pFromKey, true), iTo);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableUnmodifiableSortedArraySet<K> keySet()
+    {
+        return new SerializableUnmodifiableSortedArraySet<K>(iKeys, iFrom, iTo, iComparator);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public SerializableCollection<V> values()
+    {
+        return new Values<V>(iValues, iFrom, iTo);
+    }
+
+
+
+    @Override
+    @Nonnull
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<K, V>>()
+        {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator()
+            {
+                return new EntryIterator();
+            }
+
+
+
+            @Override
+            public int size()
+            {
+                return SerializableUnmodifiableSortedArrayMap.this.size();
+            }
+
+
+
+            @Override
+            public boolean removeIf(@Nonnull final Predicate<? super Map.Entry<K, V>> pFilter)
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pValue ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V put(final K pKey, final V pValue)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V remove(final Object pKey)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pMap ignored parameter
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> pMap)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public void clear()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pValue ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V putIfAbsent(final K pKey, final V pValue)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pValue ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean remove(final Object pKey, final Object pValue)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pOldValue ignored parameter
+     * @param pNewValue ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public boolean replace(final K pKey, final V pOldValue, final V pNewValue)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pValue ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V replace(final K pKey, final V pValue)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pFunction ignored parameter
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public void replaceAll(final BiFunction<? super K, ? super V, ? extends V> pFunction)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pMappingFunction ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V computeIfAbsent(final K pKey, final Function<? super K, ? extends V> pMappingFunction)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pRemappingFunction ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V computeIfPresent(final K pKey,
+        final BiFunction<? super K, ? super V, ? extends V> pRemappingFunction)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pRemappingFunction ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V compute(final K pKey, final BiFunction<? super K, ? super V, ? extends V> pRemappingFunction)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * This operation is not supported by the unmodifiable map.
+     *
+     * @param pKey ignored parameter
+     * @param pValue ignored parameter
+     * @param pRemappingFunction ignored parameter
+     * @return never
+     *
+     * @throws UnsupportedOperationException always thrown
+     */
+    @Override
+    public V merge(final K pKey, final V pValue,
+        final BiFunction<? super V, ? super V, ? extends V> pRemappingFunction)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The hash code is computed on first use and then cached, because the contents of this map never change.
+     */
+    @Override
+    public int hashCode()
+    {
+        int result = ourHashCode;
+        if (result == 0) {
+            for (int i = iFrom; i < iTo; i++) {
+                result += iKeys[i].hashCode() ^ (iValues[i] != null ? iValues[i].hashCode() : 0);
+            }
+            ourHashCode = result;
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public SerializableUnmodifiableSortedArrayMap<K, V> clone()
+    {
+        try {
+            return (SerializableUnmodifiableSortedArrayMap<K, V>) super.clone();  // immutable, so arrays are shared
+        }
+        catch (CloneNotSupportedException e) {
+            throw new InternalError(e.getMessage());  // cannot happen, we are Cloneable
+        }
+    }
+
+
+
+    private Object writeReplace()
+    {
+        SerializationMonitor.writeStarted(this);
+        return this;
+    }
+
+
+
+    private void writeObject(final ObjectOutputStream pOut)
+        throws IOException
+    {
+        pOut.defaultWriteObject();
+        pOut.writeInt(size());
+        for (int i = iFrom; i < iTo; i++) {
+            pOut.writeObject(iKeys[i]);
+            pOut.writeObject(iValues[i]);
+        }
+        SerializationMonitor.writeFinished(this, size());
+    }
+
+
+
+    private void readObject(final ObjectInputStream pIn)
+        throws IOException, ClassNotFoundException
+    {
+        pIn.defaultReadObject();
+        final int size = pIn.readInt();
+        if (size < 0) {
+            throw new InvalidObjectException("negative size: " + size);
+        }
+        final Comparator<Object> comparator = keyComparator();
+        final Object[] keys = new Object[size];
+        final Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = pIn.readObject();
+            values[i] = pIn.readObject();
+            if (i > 0 && comparator.compare(keys[i - 1], keys[i]) >= 0) {
+                throw new InvalidObjectException("keys not in ascending order");
+            }
+        }
+        iKeys = keys;
+        iValues = values;
+        iFrom = 0;
+        iTo = size;
+        SerializationMonitor.readFinished(this, size());
+    }
+
+
+
+    /**
+     * Iterates over the entries in key order.
+     */
+    private final class EntryIterator
+        implements Iterator<Map.Entry<K, V>>
+    {
+        private int iNext = iFrom;
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iNext < iTo;
+        }
+
+
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next()
+        {
+            if (iNext >= iTo) {
+                throw new NoSuchElementException();
+            }
+            final int index = iNext++;
+            return new SimpleImmutableEntry<K, V>((K) iKeys[index], (V) iValues[index]);
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+
+
+    /**
+     * A read-only view of a range of the value array. It is serialized as a copy, which is a
+     * {@link SerializableUnmodifiableArrayList}.
+     *
+     * @param <V> value type
+     */
+    private static final class Values<V extends Serializable>
+        extends AbstractCollection<V>
+        implements SerializableCollection<V>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] iValues;
+
+        private final int iFrom;
+
+        private final int iTo;
+
+
+
+        Values(@Nonnull final Object[] pValues, final int pFrom, final int pTo)
+        {
+            super();
+            iValues = pValues;
+            iFrom = pFrom;
+            iTo = pTo;
+        }
+
+
+
+        @Override
+        @Nonnull
+        public Iterator<V> iterator()
+        {
+            return new SerializableUnmodifiableSortedArraySet.ArrayIterator<V>(iValues, iFrom, iTo, 1);
+        }
+
+
+
+        @Override
+        public int size()
+        {
+            return iTo - iFrom;
+        }
+
+
+
+        @Override
+        public boolean removeIf(@Nonnull final Predicate<? super V> pFilter)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+
+
+        private Object writeReplace()
+        {
+            return new SerializableUnmodifiableArrayList<V>(this);
+        }
+    }
+}
@@ -0,0 +1,949 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * A synchronized wrapper around a {@link SerializableMap} which persists the map to a file in the background.
+ * <p/>
+ * Changes are applied to the wrapped map immediately, and only counted. A background task writes a snapshot of the
+ * whole map to the file when the flush interval has passed and there were changes, or as soon as the number of
+ * changes reaches the dirty threshold. Any number of changes to the map is thus coalesced into a single write, and no
+ * file I/O ever happens on the threads which use the map. The lock of the map is held only while the entries are
+ * copied into an array; serialization and writing happen outside of the lock.
+ * <p/>
+ * The snapshot is written to a temporary file next to the target file, forced to the storage device, and then
+ * renamed to the target file, so that the file always contains a complete snapshot, even after a crash. When the map
+ * is constructed and the file exists, its contents are loaded into the wrapped map.
+ * <p/>
+ * The progress of the persistence can be monitored via {@link #getLagMillis()}, which is the age of the oldest change
+ * not yet written, and {@link #getLastFlushNanos()}, which is the duration of the last write. Failed writes are
+ * retried on the next flush; the last failure is available from {@link #getLastFailure()}. {@link #close()} writes
+ * the remaining changes and stops the background task.
+ * <p/>
+ * Like in {@link java.util.Collections#synchronizedMap(Map)}, all methods synchronize on the map, including the default
+ * methods which Java 8 added to <code>Map</code>, and iteration over the entry set must be synchronized on the map by
+ * the caller. Like in {@link SerializableHashMap}, the key set and the values are serializable copies. When this map
+ * is serialized, a {@link SerializableHashMap} copy of its entries is written; the file and the background task are
+ * not part of the serialized form.
+ * <p/>
+ * This is the variant of the class used on Java 9 and later, as part of the multi-release JAR. Changes to the
+ * class must be applied to both variants.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author Thomas Jensen
+ */
+public final class SerializableWriteBehindMap<K extends Serializable, V extends Serializable>
+    extends AbstractMap<K, V>
+    implements SerializableMap<K, V>, Closeable
+{
+    /** serialVersionUID */
+    private static final long serialVersionUID = 1L;
+
+    /** suffix of the temporary file a snapshot is written to before it replaces the target file */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    @Nonnull
+    private final SerializableMap<K, V> iDelegate;
+
+    @Nonnull
+    private final File iFile;
+
+    @Nonnull
+    private final File iTempFile;
+
+    private final long iDirtyThreshold;
+
+    @Nonnull
+    private final ScheduledExecutorService iExecutor;
+
+    /** whether the executor was created by this map, and must be shut down when the map is closed */
+    private final boolean iOwnExecutor;
+
+    @Nonnull
+    private final ScheduledFuture<?> iPeriodicFlush;
+
+    @Nonnull
+    private final Runnable iFlushTask = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            try {
+                flush();
+            }
+            catch (IOException e) {
+                // already recorded as the last failure, retried by the next flush
+            }
+            catch (RuntimeException e) {
+                // must not escape, or the periodic flush would be cancelled
+                iLastFailure = e;
+            }
+        }
+    };
+
+    /** guards against two flushes writing at the same time; never held while waiting for the lock of the map */
+    @Nonnull
+    private final Object iFlushMutex = new Object();
+
+    /** the number of snapshots copied so far; guarded by the lock of the map */
+    private long iSnapshotCount = 0L;
+
+    /** the number of the last snapshot which was written to the file; guarded by {@link #iFlushMutex} */
+    private long iWrittenSnapshot = 0L;
+
+    /** the number of changes which have not yet been written */
+    @Nonnull
+    private final AtomicLong iDirty = new AtomicLong();
+
+    /** the value of {@link System#nanoTime()} at the oldest change which has not yet been written */
+    private volatile long iDirtySinceNanos;
+
+    /** whether a flush has been submitted because the dirty threshold was reached, and has not yet started */
+    @Nonnull
+    private final AtomicBoolean iFlushRequested = new AtomicBoolean();
+
+    private volatile boolean iClosed = false;
+
+    private volatile long iFlushCount = 0L;
+
+    private volatile long iFailureCount = 0L;
+
+    private volatile long iLastFlushNanos = 0L;
+
+    private volatile long iLastFlushTimeMillis = 0L;
+
+    @CheckForNull
+    private volatile Exception iLastFailure = null;
+
+
+
+    /**
+     * Constructor. The map is written by a daemon thread owned by this map.
+     *
+     * @param pDelegate the map to wrap; it should not be accessed directly afterwards
+     * @param pFile the file to persist the map to; if it exists, its contents are loaded into the wrapped map
+     * @param pFlushInterval the interval in which changes are written
+     * @param pUnit the unit of the flush interval
+     * @param pDirtyThreshold the number of changes which triggers a write before the interval has passed
+     * @throws IOException the file exists, but cannot be read
+     * @throws IllegalArgumentException the flush interval or the dirty threshold is not positive
+     */
+    public SerializableWriteBehindMap(@Nonnull final SerializableMap<K, V> pDelegate, @Nonnull final File pFile,
+        final long pFlushInterval, @Nonnull final TimeUnit pUnit, final long pDirtyThreshold)
+        throws IOException
+    {
+        this(pDelegate, pFile, pFlushInterval, pUnit, pDirtyThreshold, newExecutor(pFile), true);
+    }
+
+
+
+    /**
+     * Constructor.
+     *
+     * @param pDelegate the map to wrap; it should not be accessed directly afterwards
+     * @param pFile the file to persist the map to; if it exists, its contents are loaded into the wrapped map
+     * @param pFlushInterval the interval in which changes are written
+     * @param pUnit the unit of the flush interval
+     * @param pDirtyThreshold the number of changes which triggers a write before the interval has passed
+     * @param pExecutor the executor which runs the writes; it is not shut down by {@link #close()}
+     * @throws IOException the file exists, but cannot be read
+     * @throws IllegalArgumentException the flush interval or the dirty threshold is not positive
+     */
+    public SerializableWriteBehindMap(@Nonnull final SerializableMap<K, V> pDelegate, @Nonnull final File pFile,
+        final long pFlushInterval, @Nonnull final TimeUnit pUnit, final long pDirtyThreshold,
+        @Nonnull final ScheduledExecutorService pExecutor)
+        throws IOException
+    {
+        this(pDelegate, pFile, pFlushInterval, pUnit, pDirtyThreshold, pExecutor, false);
+    }
+
+
+
+    private SerializableWriteBehindMap(@Nonnull final SerializableMap<K, V> pDelegate, @Nonnull final File pFile,
+        final long pFlushInterval, @Nonnull final TimeUnit pUnit, final long pDirtyThreshold,
+        @Nonnull final ScheduledExecutorService pExecutor, final boolean pOwnExecutor)
+        throws IOException
+    {
+        super();
+        if (pFlushInterval <= 0) {
+            throw new IllegalArgumentException("flush interval must be positive: " + pFlushInterval);
+        }
+        if (pDirtyThreshold <= 0) {
+            throw new IllegalArgumentException("dirty threshold must be positive: " + pDirtyThreshold);
+        }
+        iDelegate = pDelegate;
+        iFile = pFile;
+        iTempFile = new File(pFile.getPath() + TEMP_SUFFIX);
+        iDirtyThreshold = pDirtyThreshold;
+        iExecutor = pExecutor;
+        iOwnExecutor = pOwnExecutor;
+        try {
+            load();
+        }
+        catch (IOException e) {
+            shutDownExecutor();
+            throw e;
+        }
+        iPeriodicFlush = pExecutor.scheduleWithFixedDelay(iFlushTask, pFlushInterval, pFlushInterval, pUnit);
+    }
+
+
+
+    @Nonnull
+    private static ScheduledExecutorService newExecutor(@Nonnull final File pFile)
+    {
+        final String threadName = "sercoll-write-behind-" + pFile.getName();
+        return Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(@Nonnull final Runnable pRunnable)
+            {
+                final Thread result = new Thread(pRunnable, threadName);
+                result.setDaemon(true);
+                return result;
+            }
+        });
+    }
+
+
+
+    private void shutDownExecutor()
+    {
+        if (iOwnExecutor) {
+            iExecutor.shutdown();
+        }
+    }
+
+
+
+    @SuppressWarnings("unchecked")
+    private void load()
+        throws IOException
+    {
+        if (!iFile.exists()) {
+            return;
+        }
+        final ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(iFile)));
+        try {
+            final int size = ois.readInt();
+            if (size < 0) {
+                throw new InvalidObjectException("negative size in " + iFile + ": " + size);
+            }
+            for (int i = 0; i < size; i++) {
+                final K key = (K) ois.readObject();
+                final V value = (V) ois.readObject();
+                iDelegate.put(key, value);
+            }
+        }
+        catch (ClassNotFoundException e) {
+            final InvalidObjectException ioe = new InvalidObjectException("unknown class in " + iFile);
+            ioe.initCause(e);
+            throw ioe;
+        }
+        finally {
+            ois.close();
+        }
+    }
+
+
+
+    /**
+     * Writes the map to the file now, on the calling thread, if there were changes since the last write. If a write
+     * is already running, this waits for it to finish first.
+     * <p/>
+     * The entries are copied under the lock of the map before the flush mutex is taken, and the flush mutex is never
+     * held while waiting for the lock of the map. A caller which holds the lock of the map, for example while
+     * iterating, may thus call this method or {@link #close()} without risk of a deadlock with the background task.
+     * A snapshot which is older than the last one written is skipped, as its changes have already been written.
+     *
+     * @return <code>true</code> if the changes were written, <code>false</code> if there were no changes
+     * @throws IOException the map could not be written; the changes remain pending
+     */
+    public boolean flush()
+        throws IOException
+    {
+        final long start = System.nanoTime();
+        final long dirtySince;
+        final long dirty;
+        final long snapshot;
+        final Object[] entries;
+        synchronized (this) {
+            iFlushRequested.set(false);
+            dirtySince = iDirtySinceNanos;
+            dirty = iDirty.getAndSet(0L);
+            if (dirty == 0L) {
+                return false;
+            }
+            entries = copyEntries();
+            snapshot = ++iSnapshotCount;
+        }
+        synchronized (iFlushMutex) {
+            if (snapshot < iWrittenSnapshot) {
+                return true;   // a newer snapshot, which contains these changes, has already been written
+            }
+            try {
+                write(entries);
+            }
+            catch (IOException e) {
+                restoreDirty(dirty, dirtySince, e);
+                throw e;
+            }
+            catch (RuntimeException e) {
+                restoreDirty(dirty, dirtySince, e);
+                throw e;
+            }
+            iWrittenSnapshot = snapshot;
+            iLastFlushNanos = System.nanoTime() - start;
+            iLastFlushTimeMillis = System.currentTimeMillis();
+            iFlushCount++;
+            return true;
+        }
+    }
+
+
+
+    @Nonnull
+    private Object[] copyEntries()
+    {
+        final Object[] result = new Object[iDelegate.size() * 2];
+        int i = 0;
+        for (final Map.Entry<K, V> entry : iDelegate.entrySet()) {
+            result[i++] = entry.getKey();
+            result[i++] = entry.getValue();
+        }
+        return result;
+    }
+
+
+
+    private void write(@Nonnull final Object[] pKeysAndValues)
+        throws IOException
+    {
+        final FileOutputStream fos = new FileOutputStream(iTempFile);
+        try {
+            final ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(fos));
+            oos.writeInt(pKeysAndValues.length / 2);
+            for (final Object keyOrValue : pKeysAndValues) {
+                oos.writeObject(keyOrValue);
+            }
+            oos.flush();
+            fos.getFD().sync();
+        }
+        finally {
+            fos.close();
+        }
+        FileReplacer.replace(iTempFile, iFile);
+    }
+
+
+
+    private void restoreDirty(final long pDirty, final long pDirtySince, @Nonnull final Exception pFailure)
+    {
+        if (iDirty.getAndAdd(pDirty) == 0L || pDirtySince - iDirtySinceNanos < 0L) {
+            iDirtySinceNanos = pDirtySince;
+        }
+        iFailureCount++;
+        iLastFailure = pFailure;
+    }
+
+
+
+    private void markDirty()
+    {
+        final long dirty = iDirty.incrementAndGet();
+        if (dirty == 1L) {
+            iDirtySinceNanos = System.nanoTime();
+        }
+        if (dirty >= iDirtyThreshold && !iClosed && iFlushRequested.compareAndSet(false, true)) {
+            try {
+                iExecutor.execute(iFlushTask);
+            }
+            catch (RejectedExecutionException e) {
+                iFlushRequested.set(false);
+            }
+        }
+    }
+
+
+
+    /**
+     * Writes the remaining changes to the file and stops the background writes. The map remains usable, but further
+     * changes are not persisted. Calling this method on a closed map has no effect.
+     *
+     * @throws IOException the remaining changes could not be written
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        if (iClosed) {
+            return;
+        }
+        iClosed = true;
+        iPeriodicFlush.cancel(false);
+        shutDownExecutor();
+        flush();
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the file the map is persisted to
+     */
+    @Nonnull
+    public File getFile()
+    {
+        return iFile;
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the number of changes which have not yet been written
+     */
+    public long getPendingChanges()
+    {
+        return iDirty.get();
+    }
+
+
+
+    /**
+     * Determines how far the file lags behind the map.
+     *
+     * @return the time since the oldest change which has not yet been written, in milliseconds, or <code>0</code> if
+     * the file is up to date
+     */
+    public long getLagMillis()
+    {
+        final long dirtySince = iDirtySinceNanos;
+        if (iDirty.get() == 0L) {
+            return 0L;
+        }
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - dirtySince));
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the number of successful writes of the map
+     */
+    public long getFlushCount()
+    {
+        return iFlushCount;
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the number of failed writes of the map
+     */
+    public long getFailureCount()
+    {
+        return iFailureCount;
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the duration of the last successful write, including the copying of the entries, in nanoseconds, or
+     * <code>0</code> if the map was not written yet
+     */
+    public long getLastFlushNanos()
+    {
+        return iLastFlushNanos;
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the system time of the end of the last successful write, or <code>0</code> if the map was not written
+     * yet
+     */
+    public long getLastFlushTimeMillis()
+    {
+        return iLastFlushTimeMillis;
+    }
+
+
+
+    /**
+     * Getter.
+     *
+     * @return the exception which caused the last write to fail, or <code>null</code> if no write has failed yet
+     */
+    @CheckForNull
+    public Exception getLastFailure()
+    {
+        return iLastFailure;
+    }
+
+
+
+    @Override
+    public synchronized int size()
+    {
+        return iDelegate.size();
+    }
+
+
+
+    @Override
+    public synchronized boolean isEmpty()
+    {
+        return iDelegate.isEmpty();
+    }
+
+
+
+    @Override
+    public synchronized boolean containsKey(@Nullable final Object pKey)
+    {
+        return iDelegate.containsKey(pKey);
+    }
+
+
+
+    @Override
+    public synchronized boolean containsValue(@Nullable final Object pValue)
+    {
+        return iDelegate.containsValue(pValue);
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public synchronized V get(@Nullable final Object pKey)
+    {
+        return iDelegate.get(pKey);
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public synchronized V put(@Nullable final K pKey, @Nullable final V pValue)
+    {
+        final V result = iDelegate.put(pKey, pValue);
+        markDirty();
+        return result;
+    }
+
+
+
+    @Override
+    public synchronized void putAll(@Nonnull final Map<? extends K, ? extends V> pMap)
+    {
+        if (!pMap.isEmpty()) {
+            iDelegate.putAll(pMap);
+            markDirty();
+        }
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public synchronized V remove(@Nullable final Object pKey)
+    {
+        if (!iDelegate.containsKey(pKey)) {
+            return null;
+        }
+        final V result = iDelegate.remove(pKey);
+        markDirty();
+        return result;
+    }
+
+
+
+    @Override
+    public synchronized void clear()
+    {
+        if (!iDelegate.isEmpty()) {
+            iDelegate.clear();
+            markDirty();
+        }
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public synchronized V getOrDefault(@Nullable final Object pKey, @Nullable final V pDefaultValue)
+    {
+        return iDelegate.getOrDefault(pKey, pDefaultValue);
+    }
+
+
+
+    @Override
+    public synchronized void forEach(@Nonnull final BiConsumer<? super K, ? super V> pAction)
+    {
+        iDelegate.forEach(pAction);
+    }
+
+
+
+    @Override
+    public synchronized void replaceAll(@Nonnull final BiFunction<? super K, ? super V, ? extends V> pFunction)
+    {
+        if (!iDelegate.isEmpty()) {
+            iDelegate.replaceAll(pFunction);
+            markDirty();
+        }
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public synchronized V putIfAbsent(@Nullable final K pKey, @Nullable final V pValue)
+    {
+        final V result = iDelegate.putIfAbsent(pKey, pValue);
+        if (result == null) {
+            markDirty();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public synchronized boolean remove(@Nullable final Object pKey, @Nullable final Object pValue)
+    {
+        final boolean result = iDelegate.remove(pKey, pValue);
+        if (result) {
+            markDirty();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    public synchronized boolean replace(@Nullable final K pKey, @Nullable final V pOldValue,
+        @Nullable final V pNewValue)
+    {
+        final boolean result = iDelegate.replace(pKey, pOldValue, pNewValue);
+        if (result) {
+            markDirty();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public synchronized V replace(@Nullable final K pKey, @Nullable final V pValue)
+    {
+        if (!iDelegate.containsKey(pKey)) {
+            return null;
+        }
+        final V result = iDelegate.replace(pKey, pValue);
+        markDirty();
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public synchronized V computeIfAbsent(@Nullable final K pKey,
+        @Nonnull final Function<? super K, ? extends V> pMappingFunction)
+    {
+        final V oldValue = iDelegate.get(pKey);
+        final V result = iDelegate.computeIfAbsent(pKey, pMappingFunction);
+        if (result != oldValue) {
+            markDirty();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public synchronized V computeIfPresent(@Nullable final K pKey,
+        @Nonnull final BiFunction<? super K, ? super V, ? extends V> pRemappingFunction)
+    {
+        final boolean present = iDelegate.get(pKey) != null;
+        final V result = iDelegate.computeIfPresent(pKey, pRemappingFunction);
+        if (present) {
+            markDirty();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public synchronized V compute(@Nullable final K pKey,
+        @Nonnull final BiFunction<? super K, ? super V, ? extends V> pRemappingFunction)
+    {
+        final boolean present = iDelegate.containsKey(pKey);
+        final V result = iDelegate.compute(pKey, pRemappingFunction);
+        if (present || result != null) {
+            markDirty();
+        }
+        return result;
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public synchronized V merge(@Nullable final K pKey, @Nonnull final V pValue,
+        @Nonnull final BiFunction<? super V, ? super V, ? extends V> pRemappingFunction)
+    {
+        final V result = iDelegate.merge(pKey, pValue, pRemappingFunction);
+        markDirty();
+        return result;
+    }
+
+
+
+    @Override
+    public synchronized boolean equals(@Nullable final Object pOther)
+    {
+        return pOther == this || iDelegate.equals(pOther);
+    }
+
+
+
+    @Override
+    public synchronized int hashCode()
+    {
+        return iDelegate.hashCode();
+    }
+
+
+
+    @Override
+    @Nonnull
+    public synchronized String toString()
+    {
+        return iDelegate.toString();
+    }
+
+
+
+    /**
+     * The entry set of this map. Iteration must be synchronized on the map. Removals via the iterator and changes
+     * via {@link Map.Entry#setValue(Object) setValue()} are counted as changes of the map.
+     *
+     * @return the entry set
+     */
+    @Override
+    @Nonnull
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<K, V>>()
+        {
+            @Override
+            @Nonnull
+            public Iterator<Map.Entry<K, V>> iterator()
+            {
+                return new EntryIterator(iDelegate.entrySet().iterator());
+            }
+
+
+
+            @Override
+            public int size()
+            {
+                return SerializableWriteBehindMap.this.size();
+            }
+
+
+
+            @Override
+            public void clear()
+            {
+                SerializableWriteBehindMap.this.clear();
+            }
+        };
+    }
+
+
+
+    @Override
+    @Nonnull
+    public synchronized SerializableSet<K> keySet()
+    {
+        return new SerializableHashSet<K>(iDelegate.keySet());
+    }
+
+
+
+    @Override
+    @Nonnull
+    public synchronized SerializableCollection<V> values()
+    {
+        return new SerializableArrayList<V>(iDelegate.values());
+    }
+
+
+
+    /**
+     * Serializes a copy of the entries instead of this map, because the file and the background task cannot be
+     * serialized.
+     *
+     * @return a {@link SerializableHashMap} with the entries of this map
+     */
+    @Nonnull
+    private synchronized Object writeReplace()
+    {
+        return new SerializableHashMap<K, V>(iDelegate);
+    }
+
+
+
+    private final class EntryIterator
+        implements Iterator<Map.Entry<K, V>>
+    {
+        @Nonnull
+        private final Iterator<Map.Entry<K, V>> iIterator;
+
+
+
+        EntryIterator(@Nonnull final Iterator<Map.Entry<K, V>> pIterator)
+        {
+            iIterator = pIterator;
+        }
+
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return iIterator.hasNext();
+        }
+
+
+
+        @Override
+        @Nonnull
+        public Map.Entry<K, V> next()
+        {
+            final Map.Entry<K, V> entry = iIterator.next();
+            return new Map.Entry<K, V>()
+            {
+                @Override
+                public K getKey()
+                {
+                    return entry.getKey();
+                }
+
+
+
+                @Override
+                public V getValue()
+                {
+                    return entry.getValue();
+                }
+
+
+
+                @Override
+                public V setValue(final V pValue)
+                {
+                    final V result = entry.setValue(pValue);
+                    markDirty();
+                    return result;
+                }
+
+
+
+                @Override
+                public boolean equals(@Nullable final Object pOther)
+                {
+                    return entry.equals(pOther);
+                }
+
+
+
+                @Override
+                public int hashCode()
+                {
+                    return entry.hashCode();
+                }
+
+
+
+                @Override
+                public String toString()
+                {
+                    return entry.toString();
+                }
+            };
+        }
+
+
+
+        @Override
+        public void remove()
+        {
+            iIterator.remove();
+            markDirty();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Spliterator of an unmodifiable collection. It delegates to the spliterator of the JDK collection the unmodifiable
+ * class is derived from, so splitting stays balanced and all characteristics of the wrapped spliterator are
+ * retained. In addition, {@link Spliterator#IMMUTABLE} is reported.
+ * <p/>
+ * Only present in the Java 9 layer of the multi-release JAR.
+ *
+ * @param <E> element type
+ * @author Thomas Jensen
+ */
+final class UnmodifiableSpliterator<E>
+    implements Spliterator<E>
+{
+    @Nonnull
+    private final Spliterator<E> delegate;
+
+
+
+    /**
+     * Constructor.
+     *
+     * @param pDelegate the spliterator of the backing JDK collection
+     */
+    UnmodifiableSpliterator(@Nonnull final Spliterator<E> pDelegate)
+    {
+        delegate = pDelegate;
+    }
+
+
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super E> pAction)
+    {
+        return delegate.tryAdvance(pAction);
+    }
+
+
+
+    @Override
+    public void forEachRemaining(final Consumer<? super E> pAction)
+    {
+        delegate.forEachRemaining(pAction);
+    }
+
+
+
+    @Override
+    @CheckForNull
+    public Spliterator<E> trySplit()
+    {
+        final Spliterator<E> prefix = delegate.trySplit();
+        return prefix != null ? new UnmodifiableSpliterator<E>(prefix) : null;
+    }
+
+
+
+    @Override
+    public long estimateSize()
+    {
+        return delegate.estimateSize();
+    }
+
+
+
+    @Override
+    public long getExactSizeIfKnown()
+    {
+        return delegate.getExactSizeIfKnown();
+    }
+
+
+
+    @Override
+    public int characteristics()
+    {
+        return (delegate.characteristics() | Spliterator.IMMUTABLE) & ~Spliterator.CONCURRENT;
+    }
+
+
+
+    @Override
+    public Comparator<? super E> getComparator()
+    {
+        return delegate.getComparator();
+    }
+}
@@ -0,0 +1,34 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+
+/**
+ * A comparator which is inconsistent with <code>equals()</code>, because it ignores case.
+ *
+ * @author Thomas Jensen
+ */
+final class CaseInsensitiveComparator
+    implements SerializableComparator<String>
+{
+    private static final long serialVersionUID = 1L;
+
+
+
+    @Override
+    public int compare(final String pLeft, final String pRight)
+    {
+        return pLeft.compareToIgnoreCase(pRight);
+    }
+}
@@ -0,0 +1,226 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * The samples stored as golden serialized files in <code>src/test/resources/golden/&lt;version&gt;</code>, and the
+ * generator of those files.
+ * <p/>
+ * When a version is released, run {@link #main} <em>with that version of sercoll on the classpath</em> in order to
+ * create a new directory of golden files, and add the version to {@link #VERSIONS}. Existing golden files must never
+ * be regenerated, because they document what earlier versions wrote.
+ *
+ * @author Thomas Jensen
+ */
+public final class GoldenFiles
+{
+    /** the versions for which golden files exist, oldest first */
+    public static final String[] VERSIONS = {"1.0.0-SNAPSHOT"};
+
+    /** number of elements in each sample */
+    public static final int SIZE = 500;
+
+
+
+    private GoldenFiles()
+    {
+        super();
+    }
+
+
+
+    /**
+     * Build the samples. The contents are deterministic, so that the samples read from golden files can be compared to
+     * a fresh instance.
+     *
+     * @return map from file name (without extension) to sample object
+     */
+    public static Map<String, Serializable> createSamples()
+    {
+        final SerializableArrayList<String> list = new SerializableArrayList<String>();
+        final SerializableHashMap<String, Integer> map = new SerializableHashMap<String, Integer>();
+        for (int i = 0; i < SIZE; i++) {
+            final String element = "element" + i;
+            list.add(i % 100 == 0 ? null : element);
+            map.put(element, i % 50 == 0 ? null : Integer.valueOf(i));
+        }
+        final SerializableEnumMap<TestEnum, String> enumMap = new SerializableEnumMap<TestEnum, String>(TestEnum.class);
+        enumMap.put(TestEnum.foo, "Frodo");
+        enumMap.put(TestEnum.bar, null);
+        final SerializableTreeSet<String> reverseTreeSet = new SerializableTreeSet<String>(new ReverseComparator());
+        reverseTreeSet.addAll(map.keySet());
+        final SerializableUnmodifiableHashMap<String, Integer> unmodifiableMap =
+            new SerializableUnmodifiableHashMap<String, Integer>(map);
+        final SerializableLruMap<String, Integer> lruMap = new SerializableLruMap<String, Integer>(SIZE);
+        lruMap.putAll(map);
+        final SerializableExpiringMap<String, Integer> expiringMap =
+            new SerializableExpiringMap<String, Integer>(60000L, new FixedClock());
+        expiringMap.putAll(map);
+        final SerializableListMultimap<String, Integer> listMultimap = new SerializableListMultimap<String, Integer>();
+        for (int i = 0; i < SIZE; i++) {
+            listMultimap.put("group" + (i % (SIZE / 3)), Integer.valueOf(i % 7));
+        }
+        final SerializableBiMap<String, Integer> biMap = new SerializableBiMap<String, Integer>();
+        for (int i = 0; i < SIZE; i++) {
+            biMap.put("element" + i, Integer.valueOf(i));
+        }
+        final SerializableArrayDeque<String> arrayDeque = new SerializableArrayDeque<String>();
+        for (int i = 0; i < SIZE; i++) {
+            arrayDeque.addLast("element" + i);
+            if (i % 3 == 0) {
+                arrayDeque.addFirst(arrayDeque.pollLast());  // make the buffer wrap around
+            }
+        }
+        final SerializablePriorityQueue<String> priorityQueue =
+            new SerializablePriorityQueue<String>(2, new ReverseComparator(), true);
+        for (int i = 0; i < SIZE; i++) {
+            priorityQueue.add("element" + (i * 7 % SIZE));
+        }
+        final SerializableConcurrentLinkedQueue<String> concurrentLinkedQueue =
+            new SerializableConcurrentLinkedQueue<String>();
+        for (int i = 0; i < SIZE; i++) {
+            concurrentLinkedQueue.offer("element" + i);
+        }
+        final SerializableArrayBlockingQueue<String> arrayBlockingQueue =
+            new SerializableArrayBlockingQueue<String>(SIZE);
+        for (int i = 0; i < SIZE + SIZE / 3; i++) {
+            arrayBlockingQueue.offer("element" + i);
+            if (i % 3 == 0) {
+                arrayBlockingQueue.poll();  // make the buffer wrap around
+            }
+        }
+        final SerializableSnapshotHashMap<String, Integer> snapshotHashMap =
+            new SerializableSnapshotHashMap<String, Integer>();
+        for (int i = 0; i < SIZE; i++) {
+            snapshotHashMap.put("element" + i, Integer.valueOf(i));
+        }
+        final SerializableRoaringBitmap roaringBitmap = new SerializableRoaringBitmap();
+        for (int i = 0; i < SIZE; i++) {
+            roaringBitmap.add(-i * 1000);             // array containers
+            roaringBitmap.add(100000 + i);            // a run
+            roaringBitmap.add(1000000 + i * 7);       // array container
+        }
+
+        final Map<String, Serializable> result = new LinkedHashMap<String, Serializable>();
+        result.put("SerializableArrayList", list);
+        result.put("SerializableLazyArrayList", new SerializableLazyArrayList<String>(list));
+        result.put("SerializableArrayDeque", arrayDeque);
+        result.put("SerializablePriorityQueue", priorityQueue);
+        result.put("SerializableConcurrentLinkedQueue", concurrentLinkedQueue);
+        result.put("SerializableArrayBlockingQueue", arrayBlockingQueue);
+        result.put("SerializableHashSet", new SerializableHashSet<String>(map.keySet()));
+        result.put("SerializableLinkedHashSet", new SerializableLinkedHashSet<String>(list));
+        result.put("SerializableTreeSet", new SerializableTreeSet<String>(map.keySet()));
+        result.put("SerializableTreeSet-comparator", reverseTreeSet);
+        result.put("SerializableHashMap", map);
+        result.put("SerializableTreeMap", new SerializableTreeMap<String, Integer>(map));
+        result.put("SerializableEnumMap", enumMap);
+        result.put("SerializableEnumSet", SerializableEnumSet.allOf(TestEnum.class));
+        result.put("SerializableLruMap", lruMap);
+        result.put("SerializableExpiringMap", expiringMap);
+        result.put("SerializableUnmodifiableArrayList", new SerializableUnmodifiableArrayList<String>(list));
+        result.put("SerializableUnmodifiableHashSet", new SerializableUnmodifiableHashSet<String>(map.keySet()));
+        result.put("SerializableUnmodifiableTreeSet", new SerializableUnmodifiableTreeSet<String>(map.keySet()));
+        result.put("SerializableOrderStatisticTreeSet", new SerializableOrderStatisticTreeSet<String>(map.keySet()));
+        result.put("SerializableUnmodifiableSortedArraySet",
+            new SerializableUnmodifiableSortedArraySet<String>(map.keySet()));
+        result.put("SerializableUnmodifiableSortedArrayMap",
+            new SerializableUnmodifiableSortedArrayMap<String, Integer>(map));
+        result.put("SerializableBiMap", biMap);
+        result.put("SerializableSnapshotHashMap", snapshotHashMap);
+        result.put("SerializableListMultimap", listMultimap);
+        result.put("SerializableSetMultimap", new SerializableSetMultimap<String, Integer>(listMultimap));
+        result.put("SerializableRoaringBitmap", roaringBitmap);
+        result.put("SerializableUnmodifiableHashMap", unmodifiableMap);
+        result.put("SerializableUnmodifiableEntrySet", (Serializable) unmodifiableMap.entrySet());
+        return result;
+    }
+
+
+
+    /**
+     * Write the golden files of the sercoll version on the classpath.
+     *
+     * @param pArgs the target directory, usually <code>src/test/resources/golden/&lt;version&gt;</code>
+     * @throws IOException writing failed
+     */
+    public static void main(final String[] pArgs)
+        throws IOException
+    {
+        final File dir = new File(pArgs[0]);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("failed to create directory " + dir);
+        }
+        for (final Map.Entry<String, Serializable> entry : createSamples().entrySet()) {
+            final ObjectOutputStream oos =
+                new ObjectOutputStream(new FileOutputStream(new File(dir, entry.getKey() + ".ser")));
+            try {
+                oos.writeObject(entry.getValue());
+            }
+            finally {
+                oos.close();
+            }
+        }
+    }
+
+
+
+    /**
+     * Comparator which reverses the natural ordering of strings.
+     */
+    static final class ReverseComparator
+        implements SerializableComparator<String>
+    {
+        private static final long serialVersionUID = 1L;
+
+
+
+        @Override
+        public int compare(final String pLeft, final String pRight)
+        {
+            return pRight.compareTo(pLeft);
+        }
+    }
+
+
+
+    /**
+     * Clock which always returns the same time, so that the entries of expiring maps neither expire nor change their
+     * serialized form.
+     */
+    static final class FixedClock
+        implements SerializableExpiringMap.Clock
+    {
+        private static final long serialVersionUID = 1L;
+
+        private static final long NOW = 1420070400000L;
+
+
+
+        @Override
+        public long currentTimeMillis()
+        {
+            return NOW;
+        }
+    }
+}
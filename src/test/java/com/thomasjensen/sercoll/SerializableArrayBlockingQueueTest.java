@@ -0,0 +1,240 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableArrayBlockingQueue}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableArrayBlockingQueueTest
+{
+    private static final int PRODUCERS = 3;
+
+    private static final int CONSUMERS = 3;
+
+    private static final int ELEMENTS_PER_PRODUCER = 50000;
+
+
+
+    @Test
+    public void testBounded()
+    {
+        SerializableArrayBlockingQueue<Integer> queue = new SerializableArrayBlockingQueue<Integer>(5);
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 10; round++) {
+            while (queue.offer(Integer.valueOf(next))) {
+                next++;
+            }
+            Assert.assertEquals(5, queue.size());
+            Assert.assertEquals(0, queue.remainingCapacity());
+            Assert.assertEquals(Integer.valueOf(expected), queue.peek());
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(Integer.valueOf(expected++), queue.poll());
+            }
+        }
+        Assert.assertEquals(Arrays.asList(Integer.valueOf(expected), Integer.valueOf(expected + 1)),
+            new ArrayList<Integer>(queue));
+        List<Integer> target = new ArrayList<Integer>();
+        Assert.assertEquals(2, queue.drainTo(target));
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.poll());
+        Assert.assertNull(queue.peek());
+    }
+
+
+
+    @Test
+    public void testTimeouts()
+        throws InterruptedException
+    {
+        SerializableArrayBlockingQueue<String> queue = new SerializableArrayBlockingQueue<String>(1);
+        Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(queue.offer("a", 10, TimeUnit.MILLISECONDS));
+        Assert.assertFalse(queue.offer("b", 10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals("a", queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+
+
+    @Test
+    public void testRemove()
+    {
+        SerializableArrayBlockingQueue<String> queue = new SerializableArrayBlockingQueue<String>(3);
+        queue.addAll(Arrays.asList("a", "b", "c"));
+        Assert.assertFalse(queue.remove("x"));
+        Assert.assertTrue(queue.remove("b"));
+        Assert.assertFalse(queue.remove("b"));
+        Assert.assertEquals(2, queue.size());
+        Assert.assertEquals(Arrays.asList("a", "c"), new ArrayList<String>(queue));
+
+        // the slot of a removed element is freed when it reaches the head
+        Assert.assertEquals(0, queue.remainingCapacity());
+        Assert.assertFalse(queue.offer("d"));
+        Assert.assertEquals("a", queue.poll());
+        Assert.assertEquals(2, queue.remainingCapacity());
+        Assert.assertEquals("c", queue.peek());
+        Assert.assertTrue(queue.offer("d"));
+
+        // removing the head frees its slot immediately
+        Assert.assertTrue(queue.remove("c"));
+        Assert.assertEquals(2, queue.remainingCapacity());
+        Assert.assertEquals(Arrays.asList("d"), new ArrayList<String>(queue));
+        Assert.assertEquals("d", queue.poll());
+        Assert.assertNull(queue.poll());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+
+
+    @Test
+    public void testBulkRemove()
+    {
+        SerializableArrayBlockingQueue<String> queue = new SerializableArrayBlockingQueue<String>(5);
+        queue.addAll(Arrays.asList("a", "b", "c", "d", "e"));
+        Assert.assertTrue(queue.removeAll(Arrays.asList("b", "d")));
+        Assert.assertTrue(queue.retainAll(Arrays.asList("c", "e")));
+        Assert.assertEquals(Arrays.asList("c", "e"), new ArrayList<String>(queue));
+        Assert.assertEquals(2, queue.remainingCapacity());
+
+        final Iterator<String> iter = queue.iterator();
+        Assert.assertEquals("c", iter.next());
+        iter.remove();
+        Assert.assertEquals("e", iter.next());
+        Assert.assertFalse(iter.hasNext());
+        Assert.assertEquals(Arrays.asList("e"), new ArrayList<String>(queue));
+        Assert.assertEquals(4, queue.remainingCapacity());
+
+        queue.clear();
+        Assert.assertEquals(0, queue.size());
+        Assert.assertEquals(5, queue.remainingCapacity());
+    }
+
+
+
+    @Test(expected = IllegalStateException.class)
+    public void testIteratorRemoveTwice()
+    {
+        SerializableArrayBlockingQueue<String> queue = new SerializableArrayBlockingQueue<String>(3);
+        queue.add("a");
+        final Iterator<String> iter = queue.iterator();
+        iter.next();
+        iter.remove();
+        iter.remove();
+    }
+
+
+
+    @Test
+    public void testSnapshotWhileRunning()
+        throws Exception
+    {
+        final SerializableArrayBlockingQueue<Long> queue = new SerializableArrayBlockingQueue<Long>(100);
+        final AtomicLong consumedSum = new AtomicLong();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            final long base = p * (long) ELEMENTS_PER_PRODUCER;
+            threads.add(new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try {
+                        for (int i = 0; i < ELEMENTS_PER_PRODUCER; i++) {
+                            queue.put(Long.valueOf(base + i));
+                        }
+                    }
+                    catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+        for (int c = 0; c < CONSUMERS; c++) {
+            threads.add(new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try {
+                        for (int i = 0; i < ELEMENTS_PER_PRODUCER * PRODUCERS / CONSUMERS; i++) {
+                            consumedSum.addAndGet(queue.take().longValue());
+                        }
+                    }
+                    catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        int snapshots = 0;
+        while (threads.get(threads.size() - 1).isAlive() || snapshots == 0) {
+            SerializableArrayBlockingQueue<Long> copy = SerializationTestUtil.roundTrip(queue);
+            Assert.assertEquals(100, copy.getCapacity());
+            long[] lastPerProducer = new long[PRODUCERS];
+            Arrays.fill(lastPerProducer, -1L);
+            for (Long value : copy) {
+                int producer = (int) (value.longValue() / ELEMENTS_PER_PRODUCER);
+                Assert.assertTrue(value.longValue() > lastPerProducer[producer]);
+                lastPerProducer[producer] = value.longValue();
+            }
+            snapshots++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long total = (long) ELEMENTS_PER_PRODUCER * PRODUCERS;
+        Assert.assertEquals(total * (total - 1) / 2, consumedSum.get());
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertTrue(snapshots > 0);
+    }
+
+
+
+    @Test
+    public void testRoundTrip()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableArrayBlockingQueue<String> queue = new SerializableArrayBlockingQueue<String>(7);
+        for (int i = 0; i < 20; i++) {
+            queue.offer("element" + i);
+            if (i % 2 == 0) {
+                queue.poll();
+            }
+        }
+        SerializableArrayBlockingQueue<String> copy = SerializationTestUtil.roundTrip(queue);
+        Assert.assertEquals(new ArrayList<String>(queue), new ArrayList<String>(copy));
+        Assert.assertEquals(queue.remainingCapacity(), copy.remainingCapacity());
+        Assert.assertFalse(copy.offer("full"));
+    }
+}
@@ -0,0 +1,174 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableArrayDeque}, which compare it to a <code>java.util.ArrayDeque</code>.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableArrayDequeTest
+{
+    private static <E> List<E> descending(final Iterator<E> pIter)
+    {
+        List<E> result = new ArrayList<E>();
+        while (pIter.hasNext()) {
+            result.add(pIter.next());
+        }
+        return result;
+    }
+
+
+
+    @Test
+    public void testAgainstArrayDeque()
+    {
+        Random random = new Random(7);
+        ArrayDeque<Integer> expected = new ArrayDeque<Integer>();
+        SerializableArrayDeque<Integer> deque = new SerializableArrayDeque<Integer>();
+        for (int i = 0; i < 10000; i++) {
+            Integer value = Integer.valueOf(random.nextInt(50));
+            switch (random.nextInt(8)) {
+                case 0:
+                    expected.addFirst(value);
+                    deque.addFirst(value);
+                    break;
+                case 1:
+                case 2:
+                    expected.addLast(value);
+                    deque.addLast(value);
+                    break;
+                case 3:
+                    Assert.assertEquals(expected.pollFirst(), deque.pollFirst());
+                    break;
+                case 4:
+                    Assert.assertEquals(expected.pollLast(), deque.pollLast());
+                    break;
+                case 5:
+                    Assert.assertEquals(expected.removeFirstOccurrence(value), deque.removeFirstOccurrence(value));
+                    break;
+                case 6:
+                    Assert.assertEquals(expected.removeLastOccurrence(value), deque.removeLastOccurrence(value));
+                    break;
+                default:
+                    Assert.assertEquals(expected.peekFirst(), deque.peekFirst());
+                    Assert.assertEquals(expected.peekLast(), deque.peekLast());
+                    Assert.assertEquals(expected.contains(value), deque.contains(value));
+                    break;
+            }
+            Assert.assertEquals(expected.size(), deque.size());
+        }
+        Assert.assertEquals(new ArrayList<Integer>(expected), new ArrayList<Integer>(deque));
+        Assert.assertEquals(Arrays.asList(expected.toArray()), Arrays.asList(deque.toArray()));
+        Assert.assertEquals(descending(expected.descendingIterator()), descending(deque.descendingIterator()));
+    }
+
+
+
+    @Test
+    public void testIteratorRemove()
+    {
+        ArrayDeque<Integer> expected = new ArrayDeque<Integer>();
+        SerializableArrayDeque<Integer> deque = new SerializableArrayDeque<Integer>(4);
+        for (int i = 0; i < 40; i++) {
+            expected.addFirst(Integer.valueOf(i));
+            deque.addFirst(Integer.valueOf(i));
+        }
+        for (Iterator<Integer> iter = deque.iterator(); iter.hasNext();) {
+            if (iter.next().intValue() % 3 == 0) {
+                iter.remove();
+            }
+        }
+        for (Iterator<Integer> iter = deque.descendingIterator(); iter.hasNext();) {
+            if (iter.next().intValue() % 2 == 0) {
+                iter.remove();
+            }
+        }
+        for (Iterator<Integer> iter = expected.iterator(); iter.hasNext();) {
+            int value = iter.next().intValue();
+            if (value % 3 == 0 || value % 2 == 0) {
+                iter.remove();
+            }
+        }
+        Assert.assertEquals(new ArrayList<Integer>(expected), new ArrayList<Integer>(deque));
+    }
+
+
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testFailFast()
+    {
+        SerializableArrayDeque<String> deque = new SerializableArrayDeque<String>(Arrays.asList("a", "b"));
+        Iterator<String> iter = deque.iterator();
+        iter.next();
+        deque.pollFirst();
+        iter.next();
+    }
+
+
+
+    @Test
+    public void testDrainTo()
+    {
+        SerializableArrayDeque<Integer> deque = new SerializableArrayDeque<Integer>();
+        for (int i = 0; i < 20; i++) {
+            deque.addLast(Integer.valueOf(i));
+        }
+        List<Integer> target = new ArrayList<Integer>();
+        Assert.assertEquals(5, deque.drainTo(target, 5));
+        Assert.assertEquals(Arrays.asList(Integer.valueOf(0), Integer.valueOf(1), Integer.valueOf(2),
+            Integer.valueOf(3), Integer.valueOf(4)), target);
+        Assert.assertEquals(Integer.valueOf(5), deque.peek());
+        Assert.assertEquals(15, deque.drainTo(target));
+        Assert.assertTrue(deque.isEmpty());
+        Assert.assertEquals(20, target.size());
+        Assert.assertEquals(0, deque.drainTo(target));
+    }
+
+
+
+    @Test
+    public void testRoundTrip()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableArrayDeque<String> deque = new SerializableArrayDeque<String>(1000);
+        for (int i = 0; i < 10; i++) {
+            deque.push("element" + i);
+        }
+        deque.addLast("last");
+        SerializableArrayDeque<String> copy = SerializationTestUtil.roundTrip(deque);
+        Assert.assertEquals(new ArrayList<String>(deque), new ArrayList<String>(copy));
+        Assert.assertEquals("element9", copy.pop());
+        Assert.assertEquals("last", copy.pollLast());
+
+        SerializableArrayList<String> list = new SerializableArrayList<String>(deque);
+        Assert.assertTrue(SerializationTestUtil.serialize(deque).length < SerializationTestUtil.serialize(list).length);
+        Assert.assertEquals(new ArrayList<String>(deque), new ArrayList<String>(deque.clone()));
+    }
+}
@@ -0,0 +1,134 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableBiMap}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableBiMapTest
+{
+    private static SerializableBiMap<Integer, String> createBiMap()
+    {
+        SerializableBiMap<Integer, String> result = new SerializableBiMap<Integer, String>();
+        for (int i = 0; i < 100; i++) {
+            result.put(Integer.valueOf(i), "name" + i);
+        }
+        return result;
+    }
+
+
+
+    @Test
+    public void testInverse()
+    {
+        SerializableBiMap<Integer, String> biMap = createBiMap();
+        SerializableBiMap<String, Integer> inverse = biMap.inverse();
+        Assert.assertSame(biMap, inverse.inverse());
+        Assert.assertEquals(Integer.valueOf(42), inverse.get("name42"));
+        Assert.assertTrue(biMap.containsValue("name99"));
+
+        inverse.put("other", Integer.valueOf(200));
+        Assert.assertEquals("other", biMap.get(Integer.valueOf(200)));
+        biMap.put(Integer.valueOf(200), "changed");
+        Assert.assertFalse(inverse.containsKey("other"));
+        Assert.assertEquals(Integer.valueOf(200), inverse.get("changed"));
+        biMap.remove(Integer.valueOf(1));
+        Assert.assertFalse(inverse.containsKey("name1"));
+        Assert.assertEquals(biMap.size(), inverse.size());
+        Assert.assertEquals(biMap.values(), inverse.keySet());
+    }
+
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUniqueValues()
+    {
+        createBiMap().put(Integer.valueOf(1000), "name5");
+    }
+
+
+
+    @Test
+    public void testForcePut()
+    {
+        SerializableBiMap<Integer, String> biMap = createBiMap();
+        Assert.assertEquals("name5", biMap.put(Integer.valueOf(5), "name5"));
+        Assert.assertNull(biMap.forcePut(Integer.valueOf(1000), "name5"));
+        Assert.assertFalse(biMap.containsKey(Integer.valueOf(5)));
+        Assert.assertEquals(Integer.valueOf(1000), biMap.inverse().get("name5"));
+        Assert.assertEquals(100, biMap.size());
+    }
+
+
+
+    @Test
+    public void testViews()
+    {
+        SerializableBiMap<Integer, String> biMap = createBiMap();
+        for (Iterator<Map.Entry<Integer, String>> iter = biMap.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<Integer, String> entry = iter.next();
+            if (entry.getKey().intValue() % 2 == 0) {
+                iter.remove();
+            }
+            else if (entry.getKey().intValue() == 3) {
+                entry.setValue("three");
+            }
+        }
+        Assert.assertEquals(50, biMap.size());
+        Assert.assertEquals(Integer.valueOf(3), biMap.inverse().get("three"));
+        Assert.assertFalse(biMap.inverse().containsKey("name3"));
+        Assert.assertTrue(biMap.values().remove("name7"));
+        Assert.assertFalse(biMap.containsKey(Integer.valueOf(7)));
+        Assert.assertTrue(biMap.keySet().remove(Integer.valueOf(9)));
+        Assert.assertFalse(biMap.inverse().containsKey("name9"));
+        Assert.assertEquals(48, biMap.inverse().size());
+    }
+
+
+
+    @Test
+    public void testRoundTrip()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableBiMap<Integer, String> biMap = createBiMap();
+        biMap.put(null, null);
+        SerializableBiMap<Integer, String> copy = SerializationTestUtil.roundTrip(biMap);
+        Assert.assertEquals(biMap, copy);
+        Assert.assertEquals(biMap.inverse(), copy.inverse());
+        Assert.assertNull(copy.inverse().get(null));
+        Assert.assertTrue(copy.inverse().containsKey(null));
+
+        Object inverseCopy = SerializationTestUtil.roundTrip(biMap.inverse());
+        Assert.assertEquals(biMap.inverse(), inverseCopy);
+
+        SerializableHashMap<Integer, String> forward = new SerializableHashMap<Integer, String>(biMap);
+        SerializableHashMap<String, Integer> backward = new SerializableHashMap<String, Integer>(biMap.inverse());
+        final int size = SerializationTestUtil.serialize(biMap).length;
+        Assert.assertTrue(size * 3 < SerializationTestUtil.serialize(new Object[]{forward, backward}).length * 2);
+        Assert.assertEquals(new HashMap<Integer, String>(biMap), copy.clone());
+    }
+}
@@ -0,0 +1,83 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableConcurrentLinkedQueue}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableConcurrentLinkedQueueTest
+{
+    @Test
+    public void testSnapshotWhileRunning()
+        throws Exception
+    {
+        final SerializableConcurrentLinkedQueue<Integer> queue = new SerializableConcurrentLinkedQueue<Integer>();
+        Thread worker = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < 200000; i++) {
+                    queue.offer(Integer.valueOf(i));
+                    if (i % 3 != 0) {
+                        queue.poll();
+                    }
+                }
+            }
+        };
+        worker.start();
+        do {
+            SerializableConcurrentLinkedQueue<Integer> copy = SerializationTestUtil.roundTrip(queue);
+            int last = -1;
+            for (Integer value : copy) {
+                Assert.assertTrue(value.intValue() > last);
+                last = value.intValue();
+            }
+        }
+        while (worker.isAlive());
+        worker.join();
+
+        SerializableConcurrentLinkedQueue<Integer> copy = SerializationTestUtil.roundTrip(queue);
+        Assert.assertEquals(new ArrayList<Integer>(queue), new ArrayList<Integer>(copy));
+    }
+
+
+
+    @Test
+    public void testDrainTo()
+    {
+        SerializableConcurrentLinkedQueue<String> queue = new SerializableConcurrentLinkedQueue<String>();
+        for (int i = 0; i < 10; i++) {
+            queue.add("element" + i);
+        }
+        List<String> target = new ArrayList<String>();
+        Assert.assertEquals(4, queue.drainTo(target, 4));
+        Assert.assertEquals("element4", queue.peek());
+        Assert.assertEquals(6, queue.drainTo(target));
+        Assert.assertEquals(10, target.size());
+        Assert.assertTrue(queue.isEmpty());
+    }
+}
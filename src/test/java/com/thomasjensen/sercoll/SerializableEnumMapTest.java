@@ -0,0 +1,97 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.EnumMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of the serialized form of {@link SerializableEnumMap}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableEnumMapTest
+{
+    /** a subclass */
+    private static class Subclass
+        extends SerializableEnumMap<TestEnum, String>
+    {
+        private static final long serialVersionUID = 1L;
+
+
+
+        Subclass()
+        {
+            super(TestEnum.class);
+        }
+    }
+
+
+
+    @Test
+    public void testRoundTrip()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableEnumMap<SerializableEnumSetTest.Large, String> map =
+            new SerializableEnumMap<SerializableEnumSetTest.Large, String>(SerializableEnumSetTest.Large.class);
+        map.put(SerializableEnumSetTest.Large.C69, "last");
+        map.put(SerializableEnumSetTest.Large.C00, null);
+        map.put(SerializableEnumSetTest.Large.C63, "sixty-three");
+        Object copy = SerializationTestUtil.roundTrip(map);
+        Assert.assertEquals(SerializableEnumMap.class, copy.getClass());
+        Assert.assertEquals(map, copy);
+        Assert.assertEquals(map.keySet(), ((SerializableEnumMap<?, ?>) copy).keySet());
+
+        SerializableEnumMap<TestEnum, String> empty = new SerializableEnumMap<TestEnum, String>(TestEnum.class);
+        SerializableEnumMap<TestEnum, String> emptyCopy = SerializationTestUtil.roundTrip(empty);
+        Assert.assertTrue(emptyCopy.isEmpty());
+        Assert.assertEquals(TestEnum.class, emptyCopy.keySet().getElementType());
+        Assert.assertEquals(TestEnum.class, new SerializableEnumMap<TestEnum, String>(
+            new EnumMap<TestEnum, String>(TestEnum.class)).keySet().getElementType());
+    }
+
+
+
+    @Test
+    public void testSubclass()
+        throws IOException, ClassNotFoundException
+    {
+        Subclass map = new Subclass();
+        map.put(TestEnum.bar, "Bilbo");
+        Object copy = SerializationTestUtil.roundTrip(map);
+        Assert.assertEquals(Subclass.class, copy.getClass());
+        Assert.assertEquals(map, copy);
+        Assert.assertEquals(TestEnum.class, ((Subclass) copy).keySet().getElementType());
+    }
+
+
+
+    @Test
+    public void testValueRefersToMap()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableEnumMap<TestEnum, SerializableArrayList<Serializable>> map =
+            new SerializableEnumMap<TestEnum, SerializableArrayList<Serializable>>(TestEnum.class);
+        SerializableArrayList<Serializable> value = new SerializableArrayList<Serializable>();
+        value.add(map);
+        map.put(TestEnum.foo, value);
+        SerializableEnumMap<TestEnum, SerializableArrayList<Serializable>> copy = SerializationTestUtil.roundTrip(map);
+        Assert.assertSame(copy, copy.get(TestEnum.foo).get(0));
+    }
+}
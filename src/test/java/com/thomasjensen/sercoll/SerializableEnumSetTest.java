@@ -0,0 +1,190 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableEnumSet} and of the key set of {@link SerializableEnumMap}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableEnumSetTest
+{
+    /** an enum which needs more than one <code>long</code> */
+    enum Large
+    {
+        C00, C01, C02, C03, C04, C05, C06, C07, C08, C09, C10, C11, C12, C13, C14, C15, C16, C17, C18, C19, C20, C21,
+        C22, C23, C24, C25, C26, C27, C28, C29, C30, C31, C32, C33, C34, C35, C36, C37, C38, C39, C40, C41, C42, C43,
+        C44, C45, C46, C47, C48, C49, C50, C51, C52, C53, C54, C55, C56, C57, C58, C59, C60, C61, C62, C63, C64, C65,
+        C66, C67, C68, C69
+    }
+
+
+
+    @Test
+    public void testAddRemove()
+    {
+        SerializableEnumSet<Large> testee = new SerializableEnumSet<Large>(Large.class);
+        Assert.assertTrue(testee.isEmpty());
+        Assert.assertTrue(testee.add(Large.C65));
+        Assert.assertTrue(testee.add(Large.C03));
+        Assert.assertFalse(testee.add(Large.C03));
+        Assert.assertTrue(testee.add(Large.C63));
+        Assert.assertTrue(testee.add(Large.C64));
+        Assert.assertEquals(4, testee.size());
+        Assertions.assertThat(new ArrayList<Large>(testee)).containsExactly(Large.C03, Large.C63, Large.C64, Large.C65);
+        Assert.assertTrue(testee.contains(Large.C64));
+        Assert.assertFalse(testee.contains(Large.C62));
+        Assert.assertFalse(testee.contains(null));
+        Assert.assertFalse(testee.contains(TestEnum.foo));
+
+        Assert.assertTrue(testee.remove(Large.C63));
+        Assert.assertFalse(testee.remove(Large.C63));
+        Assert.assertFalse(testee.remove(TestEnum.foo));
+        Iterator<Large> iter = testee.iterator();
+        Assert.assertEquals(Large.C03, iter.next());
+        iter.remove();
+        Assertions.assertThat(new ArrayList<Large>(testee)).containsExactly(Large.C64, Large.C65);
+
+        testee.clear();
+        Assert.assertTrue(testee.isEmpty());
+        Assert.assertFalse(testee.iterator().hasNext());
+        Assert.assertEquals(Large.values().length, SerializableEnumSet.allOf(Large.class).size());
+    }
+
+
+
+    @Test(expected = NullPointerException.class)
+    public void testAddNull()
+    {
+        new SerializableEnumSet<TestEnum>(TestEnum.class).add(null);
+    }
+
+
+
+    @Test
+    public void testBulkOperations()
+    {
+        SerializableEnumSet<Large> testee = new SerializableEnumSet<Large>(Large.class,
+            Arrays.asList(Large.C01, Large.C02, Large.C66));
+        SerializableEnumSet<Large> other = new SerializableEnumSet<Large>(Large.class,
+            Arrays.asList(Large.C02, Large.C66, Large.C69));
+        Assert.assertFalse(testee.containsAll(other));
+        Assert.assertTrue(testee.addAll(other));
+        Assert.assertFalse(testee.addAll(other));
+        Assert.assertTrue(testee.containsAll(other));
+        Assert.assertTrue(testee.containsAll(Arrays.asList(Large.C01, Large.C69)));
+        Assert.assertTrue(testee.removeAll(new SerializableEnumSet<Large>(Large.class, Arrays.asList(Large.C66))));
+        Assert.assertTrue(testee.retainAll(other));
+        Assertions.assertThat(new ArrayList<Large>(testee)).containsExactly(Large.C02, Large.C69);
+
+        HashSet<Large> expected = new HashSet<Large>(Arrays.asList(Large.C02, Large.C69));
+        Assert.assertEquals(expected, testee);
+        Assert.assertEquals(testee, expected);
+        Assert.assertEquals(expected.hashCode(), testee.hashCode());
+        Assert.assertEquals(new SerializableEnumSet<Large>(Large.class, expected), testee);
+        Assert.assertFalse(testee.equals(other));
+        Assert.assertFalse(new SerializableEnumSet<TestEnum>(TestEnum.class).retainAll(testee));
+    }
+
+
+
+    @Test
+    public void testCloneAndSerialization()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableEnumSet<Large> testee = new SerializableEnumSet<Large>(Large.class,
+            Arrays.asList(Large.C00, Large.C68));
+        SerializableEnumSet<Large> clone = testee.clone();
+        clone.add(Large.C01);
+        Assert.assertEquals(2, testee.size());
+
+        SerializableEnumSet<Large> copy = SerializationTestUtil.roundTrip(testee);
+        Assert.assertEquals(testee, copy);
+        Assert.assertEquals(Large.class, copy.getElementType());
+        copy.add(Large.C69);
+        Assert.assertTrue(copy.contains(Large.C69));
+
+        // the bits are written, not the elements
+        Assert.assertEquals(SerializationTestUtil.serialize(new SerializableEnumSet<Large>(Large.class)).length,
+            SerializationTestUtil.serialize(SerializableEnumSet.allOf(Large.class)).length);
+    }
+
+
+
+    @Test
+    public void testEnumMapKeySet()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableEnumMap<Large, String> map = new SerializableEnumMap<Large, String>(Large.class);
+        SerializableEnumSet<Large> keys = map.keySet();
+        Assert.assertTrue(keys.isEmpty());
+        map.put(Large.C07, "seven");
+        map.put(Large.C67, null);
+        Assertions.assertThat(new ArrayList<Large>(keys)).containsExactly(Large.C07, Large.C67);
+        Assert.assertTrue(keys.contains(Large.C67));
+        Assert.assertEquals(new SerializableEnumSet<Large>(Large.class, Arrays.asList(Large.C07, Large.C67)), keys);
+
+        Assert.assertTrue(keys.remove(Large.C67));
+        Assert.assertFalse(map.containsKey(Large.C67));
+        map.put(Large.C08, "eight");
+        Assert.assertTrue(keys.retainAll(new SerializableEnumSet<Large>(Large.class, Arrays.asList(Large.C08))));
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals("eight", map.get(Large.C08));
+
+        SerializableEnumSet<Large> copy = keys.clone();
+        Object deserialized = SerializationTestUtil.roundTrip(keys);
+        map.clear();
+        Assert.assertTrue(keys.isEmpty());
+        Assert.assertEquals(SerializableEnumSet.class, copy.getClass());
+        Assert.assertEquals(SerializableEnumSet.class, deserialized.getClass());
+        Assertions.assertThat(new ArrayList<Large>(copy)).containsExactly(Large.C08);
+        Assert.assertEquals(copy, deserialized);
+    }
+
+
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testEnumMapKeySetAdd()
+    {
+        new SerializableEnumMap<TestEnum, String>(TestEnum.class).keySet().add(TestEnum.foo);
+    }
+
+
+
+    @Test
+    public void testEnumMapKeySetOfEmptyCopy()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableEnumMap<TestEnum, String> map = new SerializableEnumMap<TestEnum, String>(
+            new EnumMap<TestEnum, String>(TestEnum.class));
+        Assert.assertEquals(TestEnum.class, map.keySet().getElementType());
+
+        SerializableEnumMap<TestEnum, String> copy = SerializationTestUtil.roundTrip(map);
+        Assert.assertEquals(TestEnum.class, copy.keySet().getElementType());
+    }
+}
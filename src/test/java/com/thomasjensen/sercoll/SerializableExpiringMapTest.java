@@ -0,0 +1,163 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableExpiringMap}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableExpiringMapTest
+{
+    private static final long START = 1000000L;
+
+    private static volatile long sNow = START;
+
+
+
+    /**
+     * A clock which is set by the test. It survives serialization because its time is static.
+     */
+    private static final class TestClock
+        implements SerializableExpiringMap.Clock
+    {
+        private static final long serialVersionUID = 1L;
+
+
+
+        @Override
+        public long currentTimeMillis()
+        {
+            return sNow;
+        }
+    }
+
+
+
+    @Before
+    public void setUp()
+    {
+        sNow = START;
+    }
+
+
+
+    @Test
+    public void testExpiry()
+    {
+        SerializableExpiringMap<String, String> testee =
+            new SerializableExpiringMap<String, String>(100L, new TestClock());
+        testee.put("Frodo", "Baggins");
+        testee.put("Sam", "Gamgee", 5000L);
+        Assert.assertEquals(START + 100L, testee.getExpiryTime("Frodo"));
+
+        sNow = START + 99L;
+        Assertions.assertThat(testee).hasSize(2).containsKey("Frodo");
+        sNow = START + 100L;
+        Assert.assertNull(testee.get("Frodo"));
+        Assertions.assertThat(testee).hasSize(1).containsKey("Sam");
+        Assert.assertEquals(0L, testee.getExpiryTime("Frodo"));
+
+        Assert.assertEquals("Gamgee", testee.put("Sam", "Gardner", 10L));
+        sNow = START + 110L;
+        Assert.assertTrue(testee.isEmpty());
+    }
+
+
+
+    @Test
+    public void testTimerWheel()
+    {
+        SerializableExpiringMap<String, String> testee =
+            new SerializableExpiringMap<String, String>(100L, new TestClock());
+        Map<String, Long> expected = new HashMap<String, Long>();
+        Random random = new Random(42L);
+        for (int round = 0; round < 200; round++) {
+            for (int i = 0; i < 20; i++) {
+                final String key = "key" + random.nextInt(1000);
+                final long ttl = 1L + (long) Math.pow(2.0, random.nextInt(40)) + random.nextInt(100);
+                testee.put(key, key, ttl);
+                expected.put(key, Long.valueOf(sNow + ttl));
+            }
+            sNow += (long) Math.pow(2.0, random.nextInt(32));
+            for (Iterator<Long> iter = expected.values().iterator(); iter.hasNext();) {
+                if (iter.next().longValue() <= sNow) {
+                    iter.remove();
+                }
+            }
+            Assert.assertEquals(expected.keySet(), testee.keySet());
+            for (Map.Entry<String, Long> entry : expected.entrySet()) {
+                Assert.assertEquals(entry.getValue().longValue(), testee.getExpiryTime(entry.getKey()));
+            }
+        }
+    }
+
+
+
+    @Test
+    public void testRemove()
+    {
+        SerializableExpiringMap<String, String> testee =
+            new SerializableExpiringMap<String, String>(100L, new TestClock());
+        testee.put("Frodo", "Baggins");
+        testee.put("Sam", "Gamgee");
+        testee.put("Merry", "Brandybuck");
+        Assert.assertEquals("Gamgee", testee.remove("Sam"));
+        Iterator<Map.Entry<String, String>> iter = testee.entrySet().iterator();
+        iter.next();
+        iter.remove();
+        Assert.assertEquals(1, testee.size());
+
+        sNow = START + 100L;
+        Assert.assertTrue(testee.isEmpty());
+        testee.put("Frodo", "Baggins");
+        Assert.assertEquals(1, testee.size());
+    }
+
+
+
+    @Test
+    public void testSerialization()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableExpiringMap<String, String> testee =
+            new SerializableExpiringMap<String, String>(100L, new TestClock());
+        testee.put("Frodo", "Baggins", 10L);
+        testee.put("Sam", "Gamgee", 1000L);
+        testee.put("Merry", "Brandybuck", 2000L);
+
+        sNow = START + 10L;
+        final byte[] bytes = SerializationTestUtil.serialize(testee);
+        SerializableExpiringMap<String, String> copy = SerializationTestUtil.deserialize(bytes);
+        Assertions.assertThat(copy).hasSize(2).containsKey("Sam").containsKey("Merry");
+        Assert.assertEquals(START + 1000L, copy.getExpiryTime("Sam"));
+        Assert.assertEquals(100L, copy.getDefaultTtl());
+
+        sNow = START + 1500L;
+        copy = SerializationTestUtil.deserialize(bytes);
+        Assertions.assertThat(copy).hasSize(1).containsKey("Merry");
+    }
+}
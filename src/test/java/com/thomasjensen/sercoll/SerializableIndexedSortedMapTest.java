@@ -0,0 +1,174 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableIndexedSortedMap}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableIndexedSortedMapTest
+{
+    private static final int NUM_ENTRIES = 1000;
+
+
+
+    private static SerializableTreeMap<String, Integer> createMap(final SerializableComparator<String> pComparator)
+    {
+        SerializableTreeMap<String, Integer> result = new SerializableTreeMap<String, Integer>(pComparator);
+        for (int i = 0; i < NUM_ENTRIES; i++) {
+            result.put(String.format("key%04d", Integer.valueOf(2 * i)), Integer.valueOf(2 * i));
+        }
+        return result;
+    }
+
+
+
+    private static ByteBuffer writeIndexed(final SerializableTreeMap<String, Integer> pMap)
+        throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        pMap.writeIndexed(bos);
+        return ByteBuffer.wrap(bos.toByteArray());
+    }
+
+
+
+    @Test
+    public void testLookups()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableTreeMap<String, Integer> original = createMap(null);
+        SerializableIndexedSortedMap<String, Integer> testee =
+            SerializableIndexedSortedMap.open(writeIndexed(original));
+
+        Assert.assertEquals(NUM_ENTRIES, testee.size());
+        Assert.assertEquals(Integer.valueOf(0), testee.get("key0000"));
+        Assert.assertEquals(Integer.valueOf(1234), testee.get("key1234"));
+        Assert.assertEquals(Integer.valueOf(1998), testee.get("key1998"));
+        Assert.assertNull(testee.get("key1235"));
+        Assert.assertNull(testee.get("a"));
+        Assert.assertNull(testee.get("z"));
+        Assert.assertTrue(testee.containsKey("key0128"));
+        Assert.assertFalse(testee.containsKey("key0129"));
+        Assert.assertEquals("key0000", testee.firstKey());
+        Assert.assertEquals("key1998", testee.lastKey());
+        Assert.assertNull(testee.comparator());
+    }
+
+
+
+    @Test
+    public void testCeilingAndFloor()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableTreeMap<String, Integer> original = createMap(null);
+        SerializableIndexedSortedMap<String, Integer> testee =
+            SerializableIndexedSortedMap.open(writeIndexed(original));
+
+        for (String key : Arrays.asList("a", "key0000", "key0127", "key0128", "key0129", "key1999", "z")) {
+            Assert.assertEquals(key, original.ceilingKey(key), testee.ceilingKey(key));
+            Assert.assertEquals(key, original.floorKey(key), testee.floorKey(key));
+        }
+    }
+
+
+
+    @Test
+    public void testRanges()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableTreeMap<String, Integer> original = createMap(new GoldenFiles.ReverseComparator());
+        SerializableIndexedSortedMap<String, Integer> testee =
+            SerializableIndexedSortedMap.open(writeIndexed(original));
+
+        Assertions.assertThat(testee.comparator()).isInstanceOf(GoldenFiles.ReverseComparator.class);
+        Assert.assertEquals(original.subMap("key1500", "key0127"), testee.subMap("key1500", "key0127"));
+        Assert.assertEquals(original.subMap("key0128", "key0128"), testee.subMap("key0128", "key0128"));
+        Assert.assertEquals(original.headMap("key1000"), testee.headMap("key1000"));
+        Assert.assertEquals(original.tailMap("key0999"), testee.tailMap("key0999"));
+        Assert.assertEquals(original.keySet(), testee.keySet());
+        Assert.assertEquals(original, testee);
+        Assert.assertEquals(original.hashCode(), testee.hashCode());
+    }
+
+
+
+    @Test
+    public void testFileAndSerialization()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableTreeMap<String, Integer> original = createMap(null);
+        File file = File.createTempFile("sercoll", ".idx");
+        try {
+            FileOutputStream fos = new FileOutputStream(file);
+            try {
+                original.writeIndexed(fos);
+            }
+            finally {
+                fos.close();
+            }
+            SerializableIndexedSortedMap<String, Integer> testee = SerializableIndexedSortedMap.open(file);
+            Assert.assertEquals(Integer.valueOf(42), testee.get("key0042"));
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(bos);
+            oos.writeObject(testee);
+            oos.close();
+            Object copy = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())).readObject();
+            Assertions.assertThat(copy).isInstanceOf(SerializableTreeMap.class).isEqualTo(original);
+        }
+        finally {
+            Assert.assertTrue(file.delete() || !file.exists());
+        }
+    }
+
+
+
+    @Test
+    public void testEmptyAndInvalid()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableIndexedSortedMap<String, Integer> testee =
+            SerializableIndexedSortedMap.open(writeIndexed(new SerializableTreeMap<String, Integer>()));
+        Assert.assertTrue(testee.isEmpty());
+        Assert.assertNull(testee.get("key"));
+        Assert.assertNull(testee.ceilingKey("key"));
+        Assert.assertTrue(testee.subMap("a", "z").isEmpty());
+
+        try {
+            SerializableIndexedSortedMap.open(ByteBuffer.wrap(new byte[100]));
+            Assert.fail("expected StreamCorruptedException");
+        }
+        catch (StreamCorruptedException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableLazyArrayList}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableLazyArrayListTest
+{
+    @Test
+    public void testLazyAccess()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableLazyArrayList<Date> original =
+            new SerializableLazyArrayList<Date>(Arrays.asList(new Date(1L), null, new Date(3L), new Date(4L)));
+
+        SerializableLazyArrayList<Date> testee = SerializationTestUtil.roundTrip(original);
+
+        Assert.assertEquals(4, testee.size());
+        Assert.assertFalse(testee.isMaterialized(0));
+        Assert.assertTrue(testee.isMaterialized(1));
+        Assert.assertEquals(new Date(3L), testee.get(2));
+        Assert.assertTrue(testee.isMaterialized(2));
+        Assert.assertFalse(testee.isMaterialized(3));
+        Assert.assertSame(testee.get(2), testee.get(2));
+        Assert.assertEquals(original, testee);
+    }
+
+
+
+    @Test
+    public void testUntouchedElementsAreCopied()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableLazyArrayList<Date> original = new SerializableLazyArrayList<Date>();
+        for (long i = 0; i < 100; i++) {
+            original.add(new Date(i));
+        }
+        byte[] bytes = SerializationTestUtil.serialize(original);
+
+        SerializableLazyArrayList<Date> testee = SerializationTestUtil.deserialize(bytes);
+        testee.get(0);
+        byte[] bytesAgain = SerializationTestUtil.serialize(testee);
+
+        Assert.assertArrayEquals(bytes, bytesAgain);
+        SerializableLazyArrayList<Date> copy = SerializationTestUtil.deserialize(bytesAgain);
+        Assert.assertFalse(copy.isMaterialized(50));
+        Assert.assertEquals(original, copy);
+    }
+
+
+
+    @Test
+    public void testModification()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableLazyArrayList<Date> testee =
+            SerializationTestUtil.roundTrip(new SerializableLazyArrayList<Date>(
+                Arrays.asList(new Date(1L), new Date(2L))));
+
+        Assert.assertEquals(new Date(1L), testee.remove(0));
+        testee.add(new Date(5L));
+        Assert.assertEquals(new Date(2L), testee.set(0, new Date(7L)));
+
+        Assertions.assertThat(testee).containsExactly(new Date(7L), new Date(5L));
+        Assertions.assertThat(testee.subList(1, 2)).containsExactly(new Date(5L));
+    }
+
+
+
+    @Test(expected = NotSerializableException.class)
+    public void testElementReferencesList()
+        throws IOException
+    {
+        SerializableLazyArrayList<SerializableArrayList<Serializable>> testee =
+            new SerializableLazyArrayList<SerializableArrayList<Serializable>>();
+        SerializableArrayList<Serializable> element = new SerializableArrayList<Serializable>();
+        element.add(testee);
+        testee.add(element);
+
+        SerializationTestUtil.serialize(testee);
+    }
+
+
+
+    @Test
+    public void testElementsAreResolvedWithContextClassLoader()
+        throws IOException, ClassNotFoundException
+    {
+        byte[] bytes = SerializationTestUtil.serialize(
+            new SerializableLazyArrayList<Date>(Arrays.asList(new Date(1L), new Date(2L))));
+        RecordingClassLoader loader = new RecordingClassLoader(getClass().getClassLoader());
+        final Thread thread = Thread.currentThread();
+        final ClassLoader previous = thread.getContextClassLoader();
+        SerializableLazyArrayList<Date> testee;
+        thread.setContextClassLoader(loader);
+        try {
+            testee = SerializationTestUtil.deserialize(bytes);
+        }
+        finally {
+            thread.setContextClassLoader(previous);
+        }
+        Assert.assertFalse(loader.getRequested().contains(Date.class.getName()));
+
+        Assert.assertEquals(new Date(2L), testee.get(1));
+        Assert.assertTrue(loader.getRequested().contains(Date.class.getName()));
+    }
+
+
+
+    private static class RecordingClassLoader
+        extends ClassLoader
+    {
+        private final List<String> requested = new ArrayList<String>();
+
+
+
+        RecordingClassLoader(final ClassLoader pParent)
+        {
+            super(pParent);
+        }
+
+
+
+        @Override
+        protected synchronized Class<?> loadClass(final String pName, final boolean pResolve)
+            throws ClassNotFoundException
+        {
+            requested.add(pName);
+            return super.loadClass(pName, pResolve);
+        }
+
+
+
+        public List<String> getRequested()
+        {
+            return requested;
+        }
+    }
+}
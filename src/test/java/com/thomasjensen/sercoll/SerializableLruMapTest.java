@@ -0,0 +1,125 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableLruMap}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableLruMapTest
+{
+    private static final class LengthWeigher
+        implements SerializableWeigher<String, String>
+    {
+        private static final long serialVersionUID = 1L;
+
+
+
+        @Override
+        public long weigh(final String pKey, final String pValue)
+        {
+            return pValue.length();
+        }
+    }
+
+
+
+    @Test
+    public void testEvictionBySize()
+    {
+        SerializableLruMap<String, String> testee = new SerializableLruMap<String, String>(3);
+        testee.put("Frodo", "Baggins");
+        testee.put("Sam", "Gamgee");
+        testee.put("Merry", "Brandybuck");
+        Assert.assertEquals("Baggins", testee.get("Frodo"));
+        testee.put("Pippin", "Took");
+
+        Assertions.assertThat(new ArrayList<String>(testee.keySet())).containsOnly("Merry", "Frodo", "Pippin");
+        Assert.assertNull(testee.get("Sam"));
+        Assert.assertEquals(1L, testee.getHitCount());
+        Assert.assertEquals(1L, testee.getMissCount());
+        Assert.assertEquals(1L, testee.getEvictionCount());
+
+        Iterator<Map.Entry<String, String>> iter = testee.entrySet().iterator();
+        Assert.assertEquals("Merry", iter.next().getKey());
+        Assert.assertEquals("Frodo", iter.next().getKey());
+        Assert.assertEquals("Pippin", iter.next().getKey());
+        Assert.assertFalse(iter.hasNext());
+    }
+
+
+
+    @Test
+    public void testEvictionByWeight()
+    {
+        SerializableLruMap<String, String> testee = new SerializableLruMap<String, String>(20, new LengthWeigher());
+        testee.put("Frodo", "Baggins");
+        testee.put("Sam", "Gamgee");
+        Assert.assertEquals(13L, testee.getWeight());
+        testee.put("Frodo", "Underhill");
+        Assert.assertEquals(15L, testee.getWeight());
+
+        testee.put("Merry", "Brandybuck");
+        Assert.assertEquals(19L, testee.getWeight());
+        Assertions.assertThat(testee).hasSize(2).containsKey("Merry").containsKey("Frodo");
+        Assert.assertEquals(1L, testee.getEvictionCount());
+
+        testee.put("Gollum", "Smeagol, also known as Gollum");
+        Assert.assertTrue(testee.isEmpty());
+        Assert.assertEquals(0L, testee.getWeight());
+        Assert.assertEquals(4L, testee.getEvictionCount());
+
+        testee.put("Sam", "Gamgee");
+        Iterator<Map.Entry<String, String>> iter = testee.entrySet().iterator();
+        iter.next();
+        iter.remove();
+        Assert.assertEquals(0L, testee.getWeight());
+    }
+
+
+
+    @Test
+    public void testSerialization()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableLruMap<String, String> testee = new SerializableLruMap<String, String>(100, new LengthWeigher());
+        testee.put("Frodo", "Baggins");
+        testee.put("Sam", "Gamgee");
+        testee.put("Merry", "Brandybuck");
+        testee.get("Frodo");
+
+        SerializableLruMap<String, String> copy = SerializationTestUtil.roundTrip(testee);
+        Assert.assertEquals(0L, copy.getHitCount());
+        Assert.assertEquals(testee, copy);
+        Assert.assertEquals(testee.getWeight(), copy.getWeight());
+        Assert.assertEquals(100L, copy.getMaxWeight());
+
+        testee.setSerializedEntryLimit(2);
+        copy = SerializationTestUtil.roundTrip(testee);
+        Assertions.assertThat(copy).hasSize(2).containsKey("Merry").containsKey("Frodo");
+        Assert.assertEquals(3, testee.size());
+        Assert.assertEquals(2, copy.getSerializedEntryLimit());
+    }
+}
@@ -0,0 +1,207 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableListMultimap} and {@link SerializableSetMultimap}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableMultimapTest
+{
+    @Test
+    public void testListGroups()
+    {
+        SerializableListMultimap<String, Integer> multimap = new SerializableListMultimap<String, Integer>();
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < 20; i++) {
+            Assert.assertTrue(multimap.put("a", Integer.valueOf(i % 7)));
+            expected.add(Integer.valueOf(i % 7));
+            Assert.assertEquals(expected, multimap.get("a"));
+        }
+        multimap.put("b", Integer.valueOf(1));
+        Assert.assertEquals(21, multimap.size());
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("a", "b")), multimap.keySet());
+        Assert.assertTrue(multimap.containsEntry("a", Integer.valueOf(6)));
+        Assert.assertFalse(multimap.containsEntry("b", Integer.valueOf(6)));
+        Assert.assertTrue(multimap.containsValue(Integer.valueOf(6)));
+
+        List<Integer> view = multimap.get("c");
+        Assert.assertTrue(view.isEmpty());
+        view.add(Integer.valueOf(5));
+        view.add(0, Integer.valueOf(4));
+        Assert.assertEquals(Arrays.asList(Integer.valueOf(4), Integer.valueOf(5)), multimap.get("c"));
+        view.set(1, Integer.valueOf(6));
+        Assert.assertEquals(Integer.valueOf(4), view.remove(0));
+        Assert.assertEquals(Collections.singletonList(Integer.valueOf(6)), multimap.get("c"));
+        view.set(0, Integer.valueOf(7));
+        Assert.assertEquals(Collections.singletonList(Integer.valueOf(7)), multimap.get("c"));
+        view.clear();
+        Assert.assertFalse(multimap.containsKey("c"));
+
+        Assert.assertTrue(multimap.remove("a", Integer.valueOf(3)));
+        expected.remove(Integer.valueOf(3));
+        Assert.assertEquals(expected, multimap.get("a"));
+        Assert.assertEquals(expected, multimap.removeAll("a"));
+        Assert.assertFalse(multimap.containsKey("a"));
+        Assert.assertEquals(1, multimap.size());
+    }
+
+
+
+    @Test
+    public void testSetGroups()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableSetMultimap<String, Integer> multimap = new SerializableSetMultimap<String, Integer>();
+        LinkedHashSet<Integer> expected = new LinkedHashSet<Integer>();
+        for (int i = 0; i < 40; i++) {
+            Integer value = Integer.valueOf((i * 7) % 20);
+            Assert.assertEquals(expected.add(value), multimap.put("a", value));
+            Assert.assertEquals(expected, multimap.get("a"));
+        }
+        Assert.assertEquals(new ArrayList<Integer>(expected), new ArrayList<Integer>(multimap.get("a")));
+        for (int i = 0; i < 20; i += 2) {
+            Integer value = Integer.valueOf(i);
+            Assert.assertEquals(expected.remove(value), multimap.get("a").remove(value));
+            Assert.assertFalse(multimap.containsEntry("a", value));
+        }
+        Assert.assertEquals(expected, multimap.get("a"));
+        Assert.assertEquals(expected.size(), multimap.size());
+        SerializableSet<Integer> copy = SerializationTestUtil.roundTrip(multimap.get("a"));
+        Assert.assertEquals(SerializableLinkedHashSet.class, copy.getClass());
+        Assert.assertEquals(new ArrayList<Integer>(expected), new ArrayList<Integer>(copy));
+
+        for (Iterator<Integer> iter = multimap.get("a").iterator(); iter.hasNext();) {
+            iter.next();
+            iter.remove();
+        }
+        Assert.assertTrue(multimap.isEmpty());
+        Assert.assertTrue(multimap.keySet().isEmpty());
+    }
+
+
+
+    @Test
+    public void testKeySetRemove()
+    {
+        SerializableListMultimap<String, Integer> multimap = new SerializableListMultimap<String, Integer>();
+        multimap.putAll("a", Arrays.asList(Integer.valueOf(1), Integer.valueOf(2)));
+        multimap.put("b", Integer.valueOf(3));
+        for (Iterator<String> iter = multimap.keySet().iterator(); iter.hasNext();) {
+            if ("a".equals(iter.next())) {
+                iter.remove();
+            }
+        }
+        Assert.assertEquals(1, multimap.size());
+        Assert.assertTrue(multimap.keySet().remove("b"));
+        Assert.assertTrue(multimap.isEmpty());
+    }
+
+
+
+    @Test
+    public void testListIterator()
+    {
+        SerializableListMultimap<String, Integer> multimap = new SerializableListMultimap<String, Integer>();
+        multimap.putAll("a", Arrays.asList(Integer.valueOf(1), Integer.valueOf(2), Integer.valueOf(3)));
+        final ListIterator<Integer> iter = multimap.get("a").listIterator();
+        Assert.assertEquals(Integer.valueOf(1), iter.next());
+        iter.remove();
+        Assert.assertEquals(Integer.valueOf(2), iter.next());
+        iter.set(Integer.valueOf(4));
+        iter.add(Integer.valueOf(5));
+        Assert.assertEquals(Integer.valueOf(5), iter.previous());
+        Assert.assertEquals(Arrays.asList(Integer.valueOf(4), Integer.valueOf(5), Integer.valueOf(3)),
+            multimap.get("a"));
+
+        multimap.put("a", Integer.valueOf(6));
+        try {
+            iter.next();
+            Assert.fail("expected ConcurrentModificationException");
+        }
+        catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+
+
+
+    @Test
+    public void testRoundTrip()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableListMultimap<String, Integer> list = new SerializableListMultimap<String, Integer>();
+        for (int i = 0; i < 100; i++) {
+            list.put("key" + (i % 30), Integer.valueOf(i % 11));
+        }
+        list.put("key1", Integer.valueOf(1));
+        Object listCopy = SerializationTestUtil.roundTrip(list);
+        Assert.assertEquals(SerializableListMultimap.class, listCopy.getClass());
+        Assert.assertEquals(list, listCopy);
+        Assert.assertEquals(list.hashCode(), listCopy.hashCode());
+
+        SerializableSetMultimap<String, Integer> set = new SerializableSetMultimap<String, Integer>(list);
+        Assert.assertEquals(list.size() - 1, set.size());
+        Object setCopy = SerializationTestUtil.roundTrip(set);
+        Assert.assertEquals(set, setCopy);
+        Assert.assertFalse(set.equals(list));
+
+        Object view = SerializationTestUtil.roundTrip(list.get("key1"));
+        Assert.assertEquals(SerializableArrayList.class, view.getClass());
+        Assert.assertEquals(list.get("key1"), view);
+        Assert.assertEquals(list.keySet(), SerializationTestUtil.roundTrip(list.keySet()));
+
+        SerializableHashMap<String, SerializableArrayList<Integer>> nested =
+            new SerializableHashMap<String, SerializableArrayList<Integer>>();
+        for (String key : list.keySet()) {
+            nested.put(key, new SerializableArrayList<Integer>(list.get(key)));
+        }
+        final int size = SerializationTestUtil.serialize(list).length;
+        Assert.assertTrue(size < SerializationTestUtil.serialize(nested).length);
+    }
+
+
+
+    @Test
+    public void testClone()
+    {
+        SerializableSetMultimap<String, Integer> multimap = new SerializableSetMultimap<String, Integer>();
+        for (int i = 0; i < 20; i++) {
+            multimap.put("a", Integer.valueOf(i));
+        }
+        SerializableSetMultimap<String, Integer> clone = multimap.clone();
+        clone.remove("a", Integer.valueOf(5));
+        Assert.assertTrue(multimap.containsEntry("a", Integer.valueOf(5)));
+        Assert.assertFalse(clone.containsEntry("a", Integer.valueOf(5)));
+        Assert.assertEquals(19, clone.size());
+    }
+}
@@ -0,0 +1,181 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableOrderStatisticTreeSet}, which compare it to a <code>TreeSet</code>.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableOrderStatisticTreeSetTest
+{
+    private static final int MAX_VALUE = 500;
+
+
+
+    private static void assertSameOrderStatistics(final NavigableSet<Integer> pExpected,
+        final SerializableOrderStatisticTreeSet<Integer> pActual)
+    {
+        Assert.assertEquals(pExpected, pActual);
+        Assert.assertEquals(new ArrayList<Integer>(pExpected), new ArrayList<Integer>(pActual));
+        Assert.assertEquals(new ArrayList<Integer>(pExpected.descendingSet()),
+            new ArrayList<Integer>(pActual.descendingSet()));
+        TreeSet<Integer> unbounded = new TreeSet<Integer>(pExpected);
+        List<Integer> sorted = new ArrayList<Integer>(pExpected);
+        for (int i = 0; i < sorted.size(); i++) {
+            Assert.assertEquals(sorted.get(i), pActual.select(i));
+        }
+        for (int i = -1; i <= MAX_VALUE; i++) {
+            Integer probe = Integer.valueOf(i);
+            Assert.assertEquals(pExpected.contains(probe), pActual.contains(probe));
+            Assert.assertEquals(unbounded.headSet(probe, false).size(), pActual.rank(probe));
+            Assert.assertEquals(pExpected.lower(probe), pActual.lower(probe));
+            Assert.assertEquals(pExpected.floor(probe), pActual.floor(probe));
+            Assert.assertEquals(pExpected.ceiling(probe), pActual.ceiling(probe));
+            Assert.assertEquals(pExpected.higher(probe), pActual.higher(probe));
+        }
+    }
+
+
+
+    @Test
+    public void testAgainstTreeSet()
+    {
+        Random random = new Random(42);
+        TreeSet<Integer> expected = new TreeSet<Integer>();
+        SerializableOrderStatisticTreeSet<Integer> set = new SerializableOrderStatisticTreeSet<Integer>();
+        for (int i = 0; i < 5000; i++) {
+            Integer value = Integer.valueOf(random.nextInt(MAX_VALUE));
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(value), set.remove(value));
+            }
+            else {
+                Assert.assertEquals(expected.add(value), set.add(value));
+            }
+            Assert.assertEquals(expected.size(), set.size());
+        }
+        assertSameOrderStatistics(expected, set);
+        Assert.assertEquals(expected.pollFirst(), set.pollFirst());
+        Assert.assertEquals(expected.pollLast(), set.pollLast());
+        assertSameOrderStatistics(expected, set);
+    }
+
+
+
+    @Test
+    public void testRanges()
+    {
+        TreeSet<Integer> expected = new TreeSet<Integer>();
+        for (int i = 0; i < MAX_VALUE; i += 3) {
+            expected.add(Integer.valueOf(i));
+        }
+        SerializableOrderStatisticTreeSet<Integer> set = new SerializableOrderStatisticTreeSet<Integer>(expected);
+        for (int from = -1; from < 40; from++) {
+            for (int to = from; to < 40; to++) {
+                Integer f = Integer.valueOf(from);
+                Integer t = Integer.valueOf(to);
+                Assert.assertEquals(expected.subSet(f, true, t, true).size(), set.countInRange(f, true, t, true));
+                Assert.assertEquals(expected.subSet(f, false, t, false).size(), set.countInRange(f, false, t, false));
+            }
+        }
+        Integer from = Integer.valueOf(100);
+        Integer to = Integer.valueOf(300);
+        assertSameOrderStatistics(expected.subSet(from, false, to, true), set.subSet(from, false, to, true));
+        assertSameOrderStatistics(expected.headSet(from, true), set.headSet(from, true));
+        assertSameOrderStatistics(expected.tailSet(to, false), set.tailSet(to, false));
+
+        SerializableUnmodifiableSortedArraySet<Integer> array =
+            new SerializableUnmodifiableSortedArraySet<Integer>(set);
+        Assert.assertEquals(set.rank(from), array.rank(from));
+        Assert.assertEquals(set.select(10), array.select(10));
+        Assert.assertEquals(set.countInRange(from, false, to, true), array.countInRange(from, false, to, true));
+    }
+
+
+
+    @Test
+    public void testIteratorRemove()
+    {
+        TreeSet<Integer> expected = new TreeSet<Integer>();
+        SerializableOrderStatisticTreeSet<Integer> set = new SerializableOrderStatisticTreeSet<Integer>();
+        for (int i = 0; i < MAX_VALUE; i++) {
+            expected.add(Integer.valueOf(i));
+            set.add(Integer.valueOf(i));
+        }
+        for (Iterator<Integer> iter = set.iterator(); iter.hasNext();) {
+            Integer value = iter.next();
+            if (value.intValue() % 3 != 0) {
+                iter.remove();
+                expected.remove(value);
+            }
+        }
+        for (Iterator<Integer> iter = set.descendingIterator(); iter.hasNext();) {
+            Integer value = iter.next();
+            if (value.intValue() % 2 == 0) {
+                iter.remove();
+                expected.remove(value);
+            }
+        }
+        assertSameOrderStatistics(expected, set);
+    }
+
+
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void testFailFast()
+    {
+        SerializableOrderStatisticTreeSet<Integer> set = new SerializableOrderStatisticTreeSet<Integer>();
+        set.add(Integer.valueOf(1));
+        set.add(Integer.valueOf(2));
+        Iterator<Integer> iter = set.iterator();
+        iter.next();
+        set.add(Integer.valueOf(3));
+        iter.next();
+    }
+
+
+
+    @Test
+    public void testRoundTrip()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableOrderStatisticTreeSet<Integer> set = new SerializableOrderStatisticTreeSet<Integer>(
+            SerializableReverseComparator.<Integer>reverse(null));
+        TreeSet<Integer> expected = new TreeSet<Integer>(set.comparator());
+        for (int i = 0; i < MAX_VALUE; i += 7) {
+            set.add(Integer.valueOf(i));
+            expected.add(Integer.valueOf(i));
+        }
+        SerializableOrderStatisticTreeSet<Integer> copy = SerializationTestUtil.roundTrip(set);
+        assertSameOrderStatistics(expected, copy);
+        copy.add(Integer.valueOf(-1));
+        Assert.assertEquals(Integer.valueOf(-1), copy.last());
+        Assert.assertEquals(copy.size() - 1, copy.rank(Integer.valueOf(-1)));
+    }
+}
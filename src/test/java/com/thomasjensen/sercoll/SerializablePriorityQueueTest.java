@@ -0,0 +1,236 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializablePriorityQueue}, which compare it to a <code>java.util.PriorityQueue</code>.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializablePriorityQueueTest
+{
+    private static <E extends Serializable> List<E> drain(final SerializablePriorityQueue<E> pQueue)
+    {
+        List<E> result = new ArrayList<E>();
+        pQueue.drainTo(result);
+        return result;
+    }
+
+
+
+    /**
+     * A job with a mutable priority, whose identity is its name.
+     */
+    private static final class Job
+        implements Comparable<Job>, Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String iName;
+
+        private int iPriority;
+
+
+
+        Job(final String pName, final int pPriority)
+        {
+            iName = pName;
+            iPriority = pPriority;
+        }
+
+
+
+        @Override
+        public int compareTo(final Job pOther)
+        {
+            return iPriority < pOther.iPriority ? -1 : (iPriority == pOther.iPriority ? 0 : 1);
+        }
+
+
+
+        @Override
+        public boolean equals(final Object pOther)
+        {
+            return pOther instanceof Job && iName.equals(((Job) pOther).iName);
+        }
+
+
+
+        @Override
+        public int hashCode()
+        {
+            return iName.hashCode();
+        }
+    }
+
+
+
+    @Test
+    public void testAgainstPriorityQueue()
+    {
+        for (int arity = 2; arity <= 16; arity <<= 1) {
+            for (final boolean indexed : new boolean[]{false, true}) {
+                Random random = new Random(arity);
+                PriorityQueue<Integer> expected = new PriorityQueue<Integer>();
+                SerializablePriorityQueue<Integer> queue = new SerializablePriorityQueue<Integer>(arity, null, indexed);
+                for (int i = 0; i < 5000; i++) {
+                    Integer value = Integer.valueOf(random.nextInt(1000));
+                    switch (random.nextInt(5)) {
+                        case 0:
+                        case 1:
+                            if (!indexed || !expected.contains(value)) {
+                                Assert.assertTrue(expected.offer(value));
+                                Assert.assertTrue(queue.offer(value));
+                            }
+                            break;
+                        case 2:
+                            Assert.assertEquals(expected.poll(), queue.poll());
+                            break;
+                        case 3:
+                            Assert.assertEquals(expected.remove(value), queue.remove(value));
+                            break;
+                        default:
+                            Assert.assertEquals(expected.peek(), queue.peek());
+                            Assert.assertEquals(expected.contains(value), queue.contains(value));
+                            break;
+                    }
+                    Assert.assertEquals(expected.size(), queue.size());
+                }
+                List<Integer> sorted = new ArrayList<Integer>(queue);
+                Collections.sort(sorted);
+                Assert.assertEquals(sorted, drain(queue));
+            }
+        }
+    }
+
+
+
+    @Test
+    public void testDecreaseKey()
+    {
+        SerializablePriorityQueue<Job> queue = new SerializablePriorityQueue<Job>(8, null, true);
+        List<Job> jobs = new ArrayList<Job>();
+        for (int i = 0; i < 100; i++) {
+            Job job = new Job("job" + i, 1000 + i);
+            jobs.add(job);
+            queue.add(job);
+        }
+        Job job = jobs.get(77);
+        job.iPriority = 5;
+        Assert.assertTrue(queue.decreaseKey(job));
+        Assert.assertSame(job, queue.peek());
+        jobs.get(77).iPriority = 5000;
+        Assert.assertTrue(queue.decreaseKey(new Job("job77", 0)));
+        Assert.assertSame(jobs.get(0), queue.poll());
+        Assert.assertFalse(queue.decreaseKey(jobs.get(0)));
+
+        Assert.assertTrue(queue.remove(new Job("job50", 0)));
+        Assert.assertFalse(queue.contains(jobs.get(50)));
+        Job previous = queue.poll();
+        while (!queue.isEmpty()) {
+            Job next = queue.poll();
+            Assert.assertTrue(previous.iPriority <= next.iPriority);
+            previous = next;
+        }
+        Assert.assertSame(job, previous);
+    }
+
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIndexedRejectsDuplicates()
+    {
+        SerializablePriorityQueue<String> queue = new SerializablePriorityQueue<String>(4, null, true);
+        queue.add("a");
+        queue.add(new String("a"));
+    }
+
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testArityPowerOfTwo()
+    {
+        new SerializablePriorityQueue<String>(3, null, false);
+    }
+
+
+
+    @Test
+    public void testIteratorRemove()
+    {
+        SerializablePriorityQueue<Integer> queue = new SerializablePriorityQueue<Integer>(2, null, true);
+        Random random = new Random(3);
+        for (int i = 0; i < 500; i++) {
+            queue.offer(Integer.valueOf(i * 7919 % 1000));
+        }
+        List<Integer> kept = new ArrayList<Integer>();
+        int seen = 0;
+        for (Iterator<Integer> iter = queue.iterator(); iter.hasNext();) {
+            Integer value = iter.next();
+            seen++;
+            if (random.nextBoolean()) {
+                iter.remove();
+            }
+            else {
+                kept.add(value);
+            }
+        }
+        Assert.assertEquals(500, seen);
+        Collections.sort(kept);
+        Assert.assertEquals(kept, drain(queue));
+    }
+
+
+
+    @Test
+    public void testRoundTrip()
+        throws IOException, ClassNotFoundException
+    {
+        SerializablePriorityQueue<String> queue = new SerializablePriorityQueue<String>(16,
+            SerializableReverseComparator.reverse((SerializableComparator<String>) null), true);
+        for (int i = 0; i < 200; i++) {
+            queue.add("element" + (i * 37 % 200));
+        }
+        SerializablePriorityQueue<String> copy = SerializationTestUtil.roundTrip(queue);
+        Assert.assertEquals(new ArrayList<String>(queue), new ArrayList<String>(copy));
+        Assert.assertEquals(16, copy.getArity());
+        Assert.assertTrue(copy.isIndexed());
+        Assert.assertTrue(copy.remove("element100"));
+        Assert.assertFalse(copy.contains("element100"));
+
+        SerializablePriorityQueue<String> clone = queue.clone();
+        Assert.assertTrue(clone.remove("element42"));
+        Assert.assertTrue(queue.contains("element42"));
+        Assert.assertEquals("element99", clone.poll());
+
+        List<String> expected = drain(queue);
+        Assert.assertEquals("element99", expected.get(0));
+        Assert.assertEquals("element0", expected.get(expected.size() - 1));
+    }
+}
@@ -0,0 +1,213 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableRoaringBitmap}, which compare it to a <code>TreeSet</code>.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableRoaringBitmapTest
+{
+    private static final int NUM_VALUES = 20000;
+
+    private static final int CHUNK = 0x10000;
+
+
+
+    /**
+     * Creates values which fill array containers, bitmap containers, and runs, on both sides of zero.
+     *
+     * @param pSeed seed for the random values
+     * @return the values
+     */
+    private static List<Integer> mixedValues(final long pSeed)
+    {
+        final Random random = new Random(pSeed);
+        final List<Integer> result = new ArrayList<Integer>();
+        for (int i = 0; i < NUM_VALUES; i++) {
+            result.add(Integer.valueOf(random.nextInt()));                     // sparse
+            result.add(Integer.valueOf(3 * CHUNK + random.nextInt(CHUNK)));    // dense, becomes a bitmap
+            result.add(Integer.valueOf(-CHUNK + random.nextInt(CHUNK / 4)));   // array
+        }
+        for (int i = -2 * CHUNK; i < -CHUNK - CHUNK / 2; i++) {
+            result.add(Integer.valueOf(i));                                     // one long run
+        }
+        result.add(Integer.valueOf(Integer.MIN_VALUE));
+        result.add(Integer.valueOf(Integer.MAX_VALUE));
+        return result;
+    }
+
+
+
+    @Test
+    public void testAgainstTreeSet()
+    {
+        List<Integer> values = mixedValues(1L);
+        SerializableRoaringBitmap bitmap = new SerializableRoaringBitmap(values);
+        TreeSet<Integer> expected = new TreeSet<Integer>(values);
+        Assert.assertEquals(expected.size(), bitmap.size());
+        Assert.assertEquals(expected, bitmap);
+        Assert.assertEquals(bitmap, expected);
+        Assert.assertEquals(expected.hashCode(), bitmap.hashCode());
+        Assert.assertEquals(new ArrayList<Integer>(expected), new ArrayList<Integer>(bitmap));
+        Assert.assertEquals(new ArrayList<Integer>(expected.descendingSet()),
+            new ArrayList<Integer>(bitmap.descendingSet()));
+        Assert.assertEquals(expected.first(), bitmap.first());
+        Assert.assertEquals(expected.last(), bitmap.last());
+
+        Random random = new Random(2L);
+        for (int i = 0; i < NUM_VALUES; i++) {
+            Integer probe = values.get(random.nextInt(values.size()));
+            if (random.nextBoolean()) {
+                probe = Integer.valueOf(probe.intValue() + random.nextInt(5) - 2);
+            }
+            Assert.assertEquals(expected.contains(probe), bitmap.contains(probe));
+            Assert.assertEquals(expected.lower(probe), bitmap.lower(probe));
+            Assert.assertEquals(expected.floor(probe), bitmap.floor(probe));
+            Assert.assertEquals(expected.ceiling(probe), bitmap.ceiling(probe));
+            Assert.assertEquals(expected.higher(probe), bitmap.higher(probe));
+        }
+
+        for (int i = 0; i < NUM_VALUES; i++) {
+            Integer value = values.get(random.nextInt(values.size()));
+            Assert.assertEquals(expected.remove(value), bitmap.remove(value));
+        }
+        Assert.assertEquals(expected, bitmap);
+        Assert.assertEquals(expected.pollFirst(), bitmap.pollFirst());
+        Assert.assertEquals(expected.pollLast(), bitmap.pollLast());
+        Assert.assertEquals(expected, bitmap);
+    }
+
+
+
+    @Test
+    public void testIteratorRemove()
+    {
+        SerializableRoaringBitmap bitmap = new SerializableRoaringBitmap(mixedValues(3L));
+        TreeSet<Integer> expected = new TreeSet<Integer>(bitmap);
+        for (Iterator<Integer> iter = bitmap.iterator(); iter.hasNext();) {
+            if (iter.next().intValue() % 3 != 0) {
+                iter.remove();
+            }
+        }
+        for (Iterator<Integer> iter = expected.iterator(); iter.hasNext();) {
+            if (iter.next().intValue() % 3 != 0) {
+                iter.remove();
+            }
+        }
+        Assert.assertEquals(expected, bitmap);
+
+        for (Iterator<Integer> iter = bitmap.descendingIterator(); iter.hasNext();) {
+            iter.next();
+            iter.remove();
+        }
+        Assert.assertTrue(bitmap.isEmpty());
+    }
+
+
+
+    @Test
+    public void testSetOperations()
+    {
+        SerializableRoaringBitmap first = new SerializableRoaringBitmap(mixedValues(4L));
+        SerializableRoaringBitmap second = new SerializableRoaringBitmap(mixedValues(5L));
+        second.runOptimize();
+
+        TreeSet<Integer> expected = new TreeSet<Integer>(first);
+        expected.retainAll(second);
+        Assert.assertEquals(expected, SerializableRoaringBitmap.and(first, second));
+
+        expected = new TreeSet<Integer>(first);
+        expected.addAll(second);
+        Assert.assertEquals(expected, SerializableRoaringBitmap.or(first, second));
+
+        expected = new TreeSet<Integer>(first);
+        expected.removeAll(second);
+        SerializableRoaringBitmap difference = first.clone();
+        Assert.assertTrue(difference.removeAll(second));
+        Assert.assertEquals(expected, difference);
+        Assert.assertEquals(expected, SerializableRoaringBitmap.andNot(first, second));
+        Assert.assertTrue(first.containsAll(difference));
+        Assert.assertFalse(difference.containsAll(first));
+    }
+
+
+
+    @Test
+    public void testRanges()
+    {
+        SerializableRoaringBitmap bitmap = new SerializableRoaringBitmap(mixedValues(6L));
+        TreeSet<Integer> expected = new TreeSet<Integer>(bitmap);
+        Integer from = Integer.valueOf(-CHUNK - 17);
+        Integer to = Integer.valueOf(3 * CHUNK + 100);
+        Assert.assertEquals(expected.subSet(from, true, to, false), bitmap.subSet(from, true, to, false));
+        Assert.assertEquals(expected.subSet(from, false, to, true), bitmap.subSet(from, false, to, true));
+        Assert.assertEquals(expected.headSet(to), bitmap.headSet(to));
+        Assert.assertEquals(expected.tailSet(from, false), bitmap.tailSet(from, false));
+        Assert.assertEquals(expected.headSet(Integer.valueOf(Integer.MIN_VALUE), false),
+            bitmap.headSet(Integer.valueOf(Integer.MIN_VALUE), false));
+        Assert.assertEquals(expected.tailSet(Integer.valueOf(Integer.MAX_VALUE), false),
+            bitmap.tailSet(Integer.valueOf(Integer.MAX_VALUE), false));
+    }
+
+
+
+    @Test
+    public void testRoundTrip()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableRoaringBitmap bitmap = new SerializableRoaringBitmap(mixedValues(7L));
+        Object copy = SerializationTestUtil.roundTrip(bitmap);
+        Assert.assertEquals(SerializableRoaringBitmap.class, copy.getClass());
+        Assert.assertEquals(bitmap, copy);
+        Assert.assertEquals(new ArrayList<Integer>(bitmap), new ArrayList<Integer>((SerializableRoaringBitmap) copy));
+
+        SerializableRoaringBitmap modified = (SerializableRoaringBitmap) copy;
+        Assert.assertTrue(modified.add(Integer.valueOf(-2 * CHUNK - 1)));
+        Assert.assertTrue(modified.remove(Integer.valueOf(-CHUNK - CHUNK / 2 - 1)));
+        Assert.assertEquals(bitmap.size(), modified.size());
+        Assert.assertEquals(new SerializableRoaringBitmap(),
+            SerializationTestUtil.roundTrip(new SerializableRoaringBitmap()));
+    }
+
+
+
+    @Test
+    public void testCompactForm()
+        throws IOException
+    {
+        SerializableRoaringBitmap bitmap = new SerializableRoaringBitmap();
+        for (int i = 0; i < NUM_VALUES; i++) {
+            bitmap.add(i * 2);
+            bitmap.add(CHUNK * 100 + i);
+        }
+        final int size = SerializationTestUtil.serialize(bitmap).length;
+        final int treeSetSize = SerializationTestUtil.serialize(new SerializableTreeSet<Integer>(bitmap)).length;
+        Assert.assertTrue(size + " vs. " + treeSetSize, size * 10 < treeSetSize);
+    }
+}
@@ -0,0 +1,178 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableSnapshotHashMap}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableSnapshotHashMapTest
+{
+    /** the number of keys in the sliding window of the writer */
+    private static final int WINDOW = 1000;
+
+
+
+    @Test
+    public void testAgainstHashMap()
+    {
+        Random random = new Random(11);
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        SerializableSnapshotHashMap<Integer, Integer> map = new SerializableSnapshotHashMap<Integer, Integer>(3);
+        for (int i = 0; i < 20000; i++) {
+            Integer key = Integer.valueOf(random.nextInt(2000));
+            Integer value = Integer.valueOf(random.nextInt(3));
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    Assert.assertEquals(expected.put(key, value), map.put(key, value));
+                    break;
+                case 2:
+                    Integer present = expected.get(key);
+                    if (present == null) {
+                        expected.put(key, value);
+                    }
+                    Assert.assertEquals(present, map.putIfAbsent(key, value));
+                    break;
+                case 3:
+                    Assert.assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                case 4:
+                    boolean removed = value.equals(expected.get(key));
+                    if (removed) {
+                        expected.remove(key);
+                    }
+                    Assert.assertEquals(removed, map.remove(key, value));
+                    break;
+                default:
+                    Integer old = expected.get(key);
+                    if (old != null) {
+                        expected.put(key, value);
+                    }
+                    Assert.assertEquals(old, map.replace(key, value));
+                    break;
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+        Assert.assertEquals(expected, map);
+        Assert.assertEquals(map, expected);
+        Assert.assertEquals(expected, map.snapshot());
+
+        for (Iterator<Map.Entry<Integer, Integer>> iter = map.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<Integer, Integer> entry = iter.next();
+            if (entry.getValue().intValue() == 0) {
+                iter.remove();
+            }
+            else {
+                entry.setValue(Integer.valueOf(entry.getValue().intValue() * 10));
+            }
+        }
+        Assert.assertFalse(map.containsValue(Integer.valueOf(0)));
+        Assert.assertFalse(map.containsValue(Integer.valueOf(1)));
+        Assert.assertTrue(map.containsValue(Integer.valueOf(20)));
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+    }
+
+
+
+    /**
+     * Check that a snapshot is a point-in-time view of the sliding window: keys <code>w</code> to <code>w + n</code>,
+     * where n is the window size or one more, because the writer adds one key before it removes another.
+     *
+     * @param pSnapshot the snapshot
+     */
+    private static void assertWindow(final Map<Integer, Integer> pSnapshot)
+    {
+        List<Integer> keys = new ArrayList<Integer>(pSnapshot.keySet());
+        Collections.sort(keys);
+        Assert.assertTrue(keys.size() == WINDOW || keys.size() == WINDOW + 1);
+        for (int i = 1; i < keys.size(); i++) {
+            Assert.assertEquals(keys.get(i - 1).intValue() + 1, keys.get(i).intValue());
+        }
+        for (Map.Entry<Integer, Integer> entry : pSnapshot.entrySet()) {
+            Assert.assertEquals(entry.getKey(), entry.getValue());
+        }
+    }
+
+
+
+    @Test
+    public void testSnapshotWhileWriting()
+        throws Exception
+    {
+        final SerializableSnapshotHashMap<Integer, Integer> map = new SerializableSnapshotHashMap<Integer, Integer>();
+        for (int i = 0; i < WINDOW; i++) {
+            map.put(Integer.valueOf(i), Integer.valueOf(i));
+        }
+        Thread writer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = WINDOW; i < 300000; i++) {
+                    map.put(Integer.valueOf(i), Integer.valueOf(i));
+                    map.remove(Integer.valueOf(i - WINDOW));
+                }
+            }
+        };
+        writer.start();
+        int snapshots = 0;
+        do {
+            assertWindow(map.snapshot());
+            Map<Integer, Integer> copy = SerializationTestUtil.roundTrip(map);
+            assertWindow(copy);
+            snapshots++;
+        }
+        while (writer.isAlive());
+        writer.join();
+        Assert.assertTrue(snapshots > 1);
+        assertWindow(map);
+    }
+
+
+
+    @Test
+    public void testRoundTrip()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableSnapshotHashMap<String, Integer> map = new SerializableSnapshotHashMap<String, Integer>(1);
+        for (int i = 0; i < 500; i++) {
+            map.put("key" + i, Integer.valueOf(i));
+        }
+        SerializableSnapshotHashMap<String, Integer> copy = SerializationTestUtil.roundTrip(map);
+        Assert.assertEquals(map, copy);
+        copy.put("key500", Integer.valueOf(500));
+        Assert.assertEquals(501, copy.size());
+
+        Assert.assertEquals(map.keySet(), SerializationTestUtil.roundTrip(map.keySet()));
+        Assert.assertEquals(new ArrayList<Integer>(map.values()), SerializationTestUtil.roundTrip(map.values()));
+    }
+}
@@ -24,6 +24,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
@@ -246,6 +248,59 @@ public class SerializableUnmodifiableHashMapUTest
 
 
 
+    @Test
+    public void testCachedHashCode()
+        throws IOException, ClassNotFoundException
+    {
+        final SerializableMap<String, String> mapUnderTest = buildNewTestMap();
+        final Map<String, String> plainMap = new HashMap<String, String>(mapUnderTest);
+        Assert.assertEquals(plainMap.hashCode(), mapUnderTest.hashCode());
+        Assert.assertEquals(plainMap.hashCode(), mapUnderTest.hashCode());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(mapUnderTest);
+        oos.close();
+        Object resurrectedMap = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())).readObject();
+        Assert.assertEquals(mapUnderTest, resurrectedMap);
+        Assert.assertEquals(plainMap.hashCode(), resurrectedMap.hashCode());
+
+        plainMap.put("C", "cold");
+        final SerializableMap<String, String> otherMap = new SerializableUnmodifiableHashMap<String, String>(plainMap);
+        Assert.assertNotEquals(plainMap.hashCode(), mapUnderTest.hashCode());
+        Assert.assertFalse(mapUnderTest.equals(otherMap));
+        Assert.assertFalse(otherMap.equals(mapUnderTest));
+        plainMap.remove("C");
+        Assert.assertFalse(mapUnderTest.equals(new SerializableUnmodifiableHashMap<String, String>(plainMap)));
+        Assert.assertEquals(mapUnderTest, new HashMap<String, String>(mapUnderTest));
+    }
+
+
+
+    @Test
+    public void testSerializeEntrySet()
+        throws IOException, ClassNotFoundException
+    {
+        final Set<Map.Entry<String, String>> entrySet = buildNewTestMap().entrySet();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(entrySet);
+        IOUtils.closeQuietly(oos);
+
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        @SuppressWarnings("unchecked")
+        Set<Map.Entry<String, String>> resurrected = (Set<Map.Entry<String, String>>) ois.readObject();
+        IOUtils.closeQuietly(ois);
+
+        Assert.assertEquals(entrySet, resurrected);
+        for (Map.Entry<String, String> entry : resurrected) {
+            Assert.assertEquals(SerializableUnmodifiableEntry.class, entry.getClass());
+        }
+    }
+
+
+
     @Test
     public void testClone()
     {
@@ -320,4 +375,48 @@ public class SerializableUnmodifiableHashMapUTest
         Assert.assertNotSame(entry, myClone);
         Assert.assertEquals(entry, myClone);
     }
+
+
+
+    @Test
+    public void testForEachEntry()
+    {
+        final SerializableUnmodifiableHashMap<String, String> mapUnderTest =
+            (SerializableUnmodifiableHashMap<String, String>) buildNewTestMap();
+
+        final Map<String, String> visited = new HashMap<String, String>();
+        mapUnderTest.forEachEntry(new EntryVisitor<String, String>()
+        {
+            @Override
+            public void visit(final String pKey, final String pValue)
+            {
+                visited.put(pKey, pValue);
+            }
+        });
+        Assert.assertEquals(mapUnderTest, visited);
+    }
+
+
+
+    @Test
+    public void testEntryCursor()
+    {
+        final SerializableUnmodifiableHashMap<String, String> mapUnderTest =
+            (SerializableUnmodifiableHashMap<String, String>) buildNewTestMap();
+
+        final Map<String, String> visited = new HashMap<String, String>();
+        final EntryCursor<String, String> cursor = mapUnderTest.entryCursor();
+        while (cursor.advance()) {
+            visited.put(cursor.key(), cursor.value());
+        }
+        Assert.assertEquals(mapUnderTest, visited);
+
+        try {
+            cursor.key();
+            Assert.fail("expected exception was not thrown");
+        }
+        catch (NoSuchElementException e) {
+            // expected
+        }
+    }
 }
@@ -0,0 +1,140 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableUnmodifiableSortedArrayMap}, which compare it to a <code>TreeMap</code>.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableUnmodifiableSortedArrayMapTest
+{
+    private static final int NUM_ENTRIES = 200;
+
+
+
+    private static Map<Integer, String> entries()
+    {
+        Map<Integer, String> result = new HashMap<Integer, String>();
+        for (int i = 0; i < NUM_ENTRIES; i++) {
+            result.put(Integer.valueOf(i * 3), i % 10 == 0 ? null : "value" + i);
+        }
+        return result;
+    }
+
+
+
+    @Test
+    public void testAgainstTreeMap()
+    {
+        TreeMap<Integer, String> expected = new TreeMap<Integer, String>(entries());
+        SerializableUnmodifiableSortedArrayMap<Integer, String> map =
+            new SerializableUnmodifiableSortedArrayMap<Integer, String>(entries());
+        Assert.assertEquals(expected, map);
+        Assert.assertEquals(map, expected);
+        Assert.assertEquals(expected.hashCode(), map.hashCode());
+        Assert.assertEquals(new ArrayList<Integer>(expected.keySet()), new ArrayList<Integer>(map.keySet()));
+        Assert.assertEquals(new ArrayList<String>(expected.values()), new ArrayList<String>(map.values()));
+        Assert.assertEquals(expected.firstKey(), map.firstKey());
+        Assert.assertEquals(expected.lastKey(), map.lastKey());
+        Assert.assertTrue(map.containsValue(null));
+        Assert.assertTrue(map.containsValue("value1"));
+        for (int i = -1; i <= 3 * NUM_ENTRIES; i++) {
+            Integer key = Integer.valueOf(i);
+            Assert.assertEquals(expected.get(key), map.get(key));
+            Assert.assertEquals(expected.containsKey(key), map.containsKey(key));
+            Assert.assertEquals(expected.ceilingKey(key), map.ceilingKey(key));
+            Assert.assertEquals(expected.higherKey(key), map.higherKey(key));
+            Assert.assertEquals(expected.floorKey(key), map.floorKey(key));
+            Assert.assertEquals(expected.lowerKey(key), map.lowerKey(key));
+        }
+    }
+
+
+
+    @Test
+    public void testViews()
+        throws IOException, ClassNotFoundException
+    {
+        TreeMap<Integer, String> expected = new TreeMap<Integer, String>(entries());
+        SerializableUnmodifiableSortedArrayMap<Integer, String> map =
+            new SerializableUnmodifiableSortedArrayMap<Integer, String>(entries());
+        Integer from = Integer.valueOf(100);
+        Integer to = Integer.valueOf(301);
+        Assert.assertEquals(expected.subMap(from, to), map.subMap(from, to));
+        Assert.assertEquals(expected.headMap(from), map.headMap(from));
+        Assert.assertEquals(expected.tailMap(to), map.tailMap(to));
+        Assert.assertEquals(expected.subMap(from, to).keySet(), map.subMap(from, to).keySet());
+        Assert.assertEquals(expected.subMap(from, Integer.valueOf(200)), map.subMap(from, to).headMap(
+            Integer.valueOf(200)));
+
+        Object copy = SerializationTestUtil.roundTrip(map.subMap(from, to));
+        Assert.assertEquals(SerializableUnmodifiableSortedArrayMap.class, copy.getClass());
+        Assert.assertEquals(expected.subMap(from, to), copy);
+        Object values = SerializationTestUtil.roundTrip(map.values());
+        Assert.assertEquals(new ArrayList<String>(expected.values()), values);
+    }
+
+
+
+    @Test
+    public void testRoundTrip()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableTreeMap<Integer, String> treeMap = new SerializableTreeMap<Integer, String>(
+            SerializableReverseComparator.<Integer>reverse(null));
+        treeMap.putAll(entries());
+        SerializableUnmodifiableSortedArrayMap<Integer, String> map =
+            new SerializableUnmodifiableSortedArrayMap<Integer, String>(treeMap);
+        Assert.assertEquals(new ArrayList<Integer>(treeMap.navigableKeySet()), new ArrayList<Integer>(map.keySet()));
+
+        SerializableUnmodifiableSortedArrayMap<Integer, String> copy = SerializationTestUtil.roundTrip(map);
+        Assert.assertEquals(map, copy);
+        Assert.assertEquals(new ArrayList<Integer>(treeMap.navigableKeySet()), new ArrayList<Integer>(copy.keySet()));
+        Assert.assertTrue(copy.comparator() instanceof SerializableReverseComparator);
+    }
+
+
+
+    @Test
+    public void testEqualsWithComparatorInconsistentWithEquals()
+    {
+        SerializableTreeMap<String, String> frodo = new SerializableTreeMap<String, String>(
+            new CaseInsensitiveComparator());
+        frodo.put("Frodo", "Baggins");
+        SerializableTreeMap<String, String> upperFrodo = new SerializableTreeMap<String, String>(
+            new CaseInsensitiveComparator());
+        upperFrodo.put("FRODO", "Baggins");
+        SerializableUnmodifiableSortedArrayMap<String, String> testee =
+            new SerializableUnmodifiableSortedArrayMap<String, String>(frodo);
+        SerializableUnmodifiableSortedArrayMap<String, String> other =
+            new SerializableUnmodifiableSortedArrayMap<String, String>(upperFrodo);
+
+        Assert.assertTrue(testee.equals(other));
+        Assert.assertNotEquals(testee.hashCode(), other.hashCode());
+        Assert.assertTrue(testee.equals(other));
+    }
+}
@@ -0,0 +1,165 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableUnmodifiableSortedArraySet}, which compare it to a <code>TreeSet</code>.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableUnmodifiableSortedArraySetTest
+{
+    private static final int NUM_ELEMENTS = 200;
+
+
+
+    private static List<String> elements()
+    {
+        List<String> result = new ArrayList<String>();
+        for (int i = NUM_ELEMENTS - 1; i >= 0; i--) {
+            result.add(String.format("element%03d", Integer.valueOf(i * 2)));
+        }
+        result.add("element000");
+        return result;
+    }
+
+
+
+    private static void assertSameNavigation(final NavigableSet<String> pExpected, final NavigableSet<String> pActual)
+    {
+        Assert.assertEquals(pExpected, pActual);
+        Assert.assertEquals(pExpected.hashCode(), pActual.hashCode());
+        Assert.assertEquals(new ArrayList<String>(pExpected), new ArrayList<String>(pActual));
+        Assert.assertEquals(new ArrayList<String>(pExpected.descendingSet()),
+            new ArrayList<String>(pActual.descendingSet()));
+        for (int i = -1; i <= 2 * NUM_ELEMENTS; i++) {
+            String probe = String.format("element%03d", Integer.valueOf(i));
+            Assert.assertEquals(pExpected.contains(probe), pActual.contains(probe));
+            Assert.assertEquals(pExpected.lower(probe), pActual.lower(probe));
+            Assert.assertEquals(pExpected.floor(probe), pActual.floor(probe));
+            Assert.assertEquals(pExpected.ceiling(probe), pActual.ceiling(probe));
+            Assert.assertEquals(pExpected.higher(probe), pActual.higher(probe));
+        }
+    }
+
+
+
+    @Test
+    public void testAgainstTreeSet()
+    {
+        TreeSet<String> expected = new TreeSet<String>(elements());
+        SerializableUnmodifiableSortedArraySet<String> set =
+            new SerializableUnmodifiableSortedArraySet<String>(elements());
+        Assert.assertEquals(NUM_ELEMENTS, set.size());
+        Assert.assertEquals(expected.first(), set.first());
+        Assert.assertEquals(expected.last(), set.last());
+        assertSameNavigation(expected, set);
+    }
+
+
+
+    @Test
+    public void testViews()
+    {
+        TreeSet<String> expected = new TreeSet<String>(elements());
+        SerializableUnmodifiableSortedArraySet<String> set =
+            new SerializableUnmodifiableSortedArraySet<String>(elements());
+        assertSameNavigation(expected.subSet("element100", true, "element300", false),
+            set.subSet("element100", true, "element300", false));
+        assertSameNavigation(expected.subSet("element101", false, "element300", true),
+            set.subSet("element101", false, "element300", true));
+        assertSameNavigation(expected.headSet("element050", true), set.headSet("element050", true));
+        assertSameNavigation(expected.tailSet("element350", false), set.tailSet("element350", false));
+        assertSameNavigation(expected.subSet("element100", true, "element100", false),
+            set.subSet("element100", "element100"));
+
+        SerializableUnmodifiableSortedArraySet<String> view = set.subSet("element100", "element300");
+        Assert.assertEquals(expected.subSet("element100", "element200"), view.headSet("element200"));
+        Assert.assertEquals(expected.subSet("element100", "element300"), view.headSet("element400"));
+        Assert.assertTrue(view.tailSet("element500").isEmpty());
+    }
+
+
+
+    @Test
+    public void testComparator()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableComparator<String> reverse = SerializableReverseComparator.<String>reverse(null);
+        SerializableUnmodifiableSortedArraySet<String> set =
+            new SerializableUnmodifiableSortedArraySet<String>(elements(), reverse);
+        TreeSet<String> expected = new TreeSet<String>(reverse);
+        expected.addAll(elements());
+        assertSameNavigation(expected, set);
+        Assert.assertNull(((SerializableNavigableSet<String>) set.descendingSet()).comparator());
+
+        SerializableUnmodifiableSortedArraySet<String> copy = SerializationTestUtil.roundTrip(set);
+        Assert.assertEquals(new ArrayList<String>(set), new ArrayList<String>(copy));
+    }
+
+
+
+    @Test
+    public void testRoundTrip()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableUnmodifiableSortedArraySet<String> set =
+            new SerializableUnmodifiableSortedArraySet<String>(elements());
+        Object copy = SerializationTestUtil.roundTrip(set);
+        Assert.assertEquals(SerializableUnmodifiableSortedArraySet.class, copy.getClass());
+        Assert.assertEquals(set, copy);
+
+        SerializableUnmodifiableSortedArraySet<String> view = set.subSet("element100", "element110");
+        byte[] viewBytes = SerializationTestUtil.serialize(view);
+        Assert.assertEquals(Arrays.asList("element100", "element102", "element104", "element106", "element108"),
+            new ArrayList<String>(SerializationTestUtil.<NavigableSet<String>>deserialize(viewBytes)));
+        Assert.assertTrue(viewBytes.length * 10 < SerializationTestUtil.serialize(set).length);
+    }
+
+
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnmodifiable()
+    {
+        new SerializableUnmodifiableSortedArraySet<String>(elements()).add("foo");
+    }
+
+
+
+    @Test
+    public void testEqualsWithComparatorInconsistentWithEquals()
+    {
+        SerializableUnmodifiableSortedArraySet<String> testee = new SerializableUnmodifiableSortedArraySet<String>(
+            Arrays.asList("Frodo"), new CaseInsensitiveComparator());
+        SerializableUnmodifiableSortedArraySet<String> other = new SerializableUnmodifiableSortedArraySet<String>(
+            Arrays.asList("FRODO"), new CaseInsensitiveComparator());
+
+        Assert.assertTrue(testee.equals(other));
+        Assert.assertNotEquals(testee.hashCode(), other.hashCode());
+        Assert.assertTrue(testee.equals(other));
+    }
+}
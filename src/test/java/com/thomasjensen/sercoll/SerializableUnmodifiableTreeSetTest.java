@@ -0,0 +1,118 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.util.Arrays;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializableUnmodifiableTreeSet}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableUnmodifiableTreeSetTest
+{
+    @Test
+    public void testFromCollection()
+    {
+        SerializableUnmodifiableTreeSet<String> testee =
+            new SerializableUnmodifiableTreeSet<String>(Arrays.asList("Samweis", "Frodo", "Bilbo", "Frodo"));
+
+        Assertions.assertThat(testee).containsExactly("Bilbo", "Frodo", "Samweis");
+    }
+
+
+
+    @Test
+    public void testFromSortedSet()
+    {
+        SerializableTreeSet<String> sortedSet = new SerializableTreeSet<String>();
+        sortedSet.add("Pippin");
+        sortedSet.add("Bilbo");
+
+        SerializableUnmodifiableTreeSet<String> testee = new SerializableUnmodifiableTreeSet<String>(sortedSet);
+
+        Assertions.assertThat(testee).containsExactly("Bilbo", "Pippin");
+    }
+
+
+
+    @Test
+    public void testViewsKeepOrdering()
+    {
+        SerializableUnmodifiableTreeSet<String> testee =
+            new SerializableUnmodifiableTreeSet<String>(Arrays.asList("b", "a", "c"));
+
+        Assertions.assertThat(testee.descendingSet()).containsExactly("c", "b", "a");
+        Assertions.assertThat(testee.descendingSet().descendingSet()).containsExactly("a", "b", "c");
+        Assertions.assertThat(testee.descendingSet().headSet("b", false)).containsExactly("c");
+        Assertions.assertThat(testee.descendingSet().tailSet("b", true)).containsExactly("b", "a");
+    }
+
+
+
+    @Test
+    public void testViewsKeepComparator()
+    {
+        SerializableTreeSet<String> sortedSet = new SerializableTreeSet<String>(new GoldenFiles.ReverseComparator());
+        sortedSet.addAll(Arrays.asList("Bilbo", "Frodo", "Pippin", "Samweis"));
+        SerializableUnmodifiableTreeSet<String> testee = new SerializableUnmodifiableTreeSet<String>(sortedSet);
+
+        Assertions.assertThat(testee.subSet("Pippin", "Bilbo")).containsExactly("Pippin", "Frodo");
+        Assertions.assertThat(testee.subSet("Pippin", false, "Bilbo", true)).containsExactly("Frodo", "Bilbo");
+        Assertions.assertThat(testee.headSet("Frodo")).containsExactly("Samweis", "Pippin");
+        Assertions.assertThat(testee.headSet("Frodo", true)).containsExactly("Samweis", "Pippin", "Frodo");
+        Assertions.assertThat(testee.tailSet("Frodo")).containsExactly("Frodo", "Bilbo");
+        Assertions.assertThat(testee.tailSet("Frodo", false)).containsExactly("Bilbo");
+        Assertions.assertThat(testee.descendingSet()).containsExactly("Bilbo", "Frodo", "Pippin", "Samweis");
+        Assert.assertSame(testee.comparator(), testee.headSet("Frodo").comparator());
+    }
+
+
+
+    @Test
+    public void testEqualsWithComparatorInconsistentWithEquals()
+    {
+        SerializableTreeSet<String> frodo = new SerializableTreeSet<String>(new CaseInsensitiveComparator());
+        frodo.add("Frodo");
+        SerializableTreeSet<String> upperFrodo = new SerializableTreeSet<String>(new CaseInsensitiveComparator());
+        upperFrodo.add("FRODO");
+        SerializableUnmodifiableTreeSet<String> testee = new SerializableUnmodifiableTreeSet<String>(frodo);
+        SerializableUnmodifiableTreeSet<String> other = new SerializableUnmodifiableTreeSet<String>(upperFrodo);
+
+        Assert.assertTrue(testee.equals(other));
+        Assert.assertNotEquals(testee.hashCode(), other.hashCode());
+        Assert.assertTrue(testee.equals(other));
+    }
+
+
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAdd()
+    {
+        new SerializableUnmodifiableTreeSet<String>("Frodo").add("Bilbo");
+    }
+
+
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testPollFirst()
+    {
+        new SerializableUnmodifiableTreeSet<String>("Frodo").pollFirst();
+    }
+}
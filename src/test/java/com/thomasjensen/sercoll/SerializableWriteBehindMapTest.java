@@ -0,0 +1,250 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Unit tests of {@link SerializableWriteBehindMap}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializableWriteBehindMapTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+
+    private static SerializableWriteBehindMap<Integer, String> open(final File pFile, final long pInterval,
+        final long pDirtyThreshold)
+        throws IOException
+    {
+        return new SerializableWriteBehindMap<Integer, String>(new SerializableHashMap<Integer, String>(), pFile,
+            pInterval, TimeUnit.MILLISECONDS, pDirtyThreshold);
+    }
+
+
+
+    private static void awaitFlushCount(final SerializableWriteBehindMap<?, ?> pMap, final long pExpected)
+        throws InterruptedException
+    {
+        final long deadline = System.currentTimeMillis() + 10000L;
+        while (pMap.getFlushCount() < pExpected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        Assert.assertEquals(pExpected, pMap.getFlushCount());
+    }
+
+
+
+    @Test
+    public void testReloadAfterClose()
+        throws IOException
+    {
+        File file = new File(folder.getRoot(), "map.ser");
+        SerializableWriteBehindMap<Integer, String> map = open(file, 3600000L, 1000000L);
+        for (int i = 0; i < 100; i++) {
+            map.put(Integer.valueOf(i), "value" + i);
+        }
+        map.put(null, null);
+        map.remove(Integer.valueOf(50));
+        Assert.assertFalse(file.exists());
+        Assert.assertEquals(102L, map.getPendingChanges());
+        map.close();
+        Assert.assertEquals(1L, map.getFlushCount());
+        Assert.assertEquals(0L, map.getPendingChanges());
+        Assert.assertTrue(file.exists());
+        Assert.assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        SerializableWriteBehindMap<Integer, String> reloaded = open(file, 3600000L, 1000000L);
+        Assert.assertEquals(map, reloaded);
+        Assert.assertTrue(reloaded.containsKey(null));
+        Assert.assertEquals(0L, reloaded.getPendingChanges());
+        reloaded.close();
+        Assert.assertEquals(0L, reloaded.getFlushCount());
+    }
+
+
+
+    @Test
+    public void testDirtyThreshold()
+        throws IOException, InterruptedException
+    {
+        File file = new File(folder.getRoot(), "map.ser");
+        SerializableWriteBehindMap<Integer, String> map = open(file, 3600000L, 10L);
+        for (int i = 0; i < 9; i++) {
+            map.put(Integer.valueOf(i), "value" + i);
+        }
+        Thread.sleep(20L);
+        Assert.assertEquals(0L, map.getFlushCount());
+        Assert.assertTrue(map.getLagMillis() > 0L);
+
+        map.put(Integer.valueOf(9), "value9");
+        awaitFlushCount(map, 1L);
+        Assert.assertEquals(0L, map.getPendingChanges());
+        Assert.assertEquals(0L, map.getLagMillis());
+        Assert.assertTrue(map.getLastFlushNanos() > 0L);
+        Assert.assertNull(map.getLastFailure());
+        map.close();
+        Assert.assertEquals(1L, map.getFlushCount());
+
+        SerializableWriteBehindMap<Integer, String> reloaded = open(file, 3600000L, 10L);
+        Assert.assertEquals(10, reloaded.size());
+        reloaded.close();
+    }
+
+
+
+    @Test
+    public void testFlushInterval()
+        throws IOException, InterruptedException
+    {
+        File file = new File(folder.getRoot(), "map.ser");
+        SerializableWriteBehindMap<Integer, String> map = open(file, 10L, 1000000L);
+        map.put(Integer.valueOf(1), "one");
+        awaitFlushCount(map, 1L);
+        Assert.assertTrue(file.exists());
+        Thread.sleep(50L);
+        Assert.assertEquals("flushed without changes", 1L, map.getFlushCount());
+        map.close();
+    }
+
+
+
+    @Test
+    public void testCoalescing()
+        throws IOException
+    {
+        File file = new File(folder.getRoot(), "map.ser");
+        SerializableWriteBehindMap<Integer, String> map = open(file, 3600000L, 1000000L);
+        for (int i = 0; i < 1000; i++) {
+            map.put(Integer.valueOf(i % 10), "value" + i);
+        }
+        Assert.assertTrue(map.flush());
+        Assert.assertFalse(map.flush());
+        Assert.assertEquals(1L, map.getFlushCount());
+        map.close();
+        Assert.assertEquals(1L, map.getFlushCount());
+
+        SerializableWriteBehindMap<Integer, String> reloaded = open(file, 3600000L, 1000000L);
+        Assert.assertEquals("value999", reloaded.get(Integer.valueOf(9)));
+        reloaded.close();
+    }
+
+
+
+    @Test
+    public void testFailureKeepsChanges()
+        throws IOException
+    {
+        File dir = new File(folder.getRoot(), "missing");
+        File file = new File(dir, "map.ser");
+        SerializableWriteBehindMap<Integer, String> map = open(file, 3600000L, 1000000L);
+        map.put(Integer.valueOf(1), "one");
+        map.put(Integer.valueOf(2), "two");
+        try {
+            map.flush();
+            Assert.fail("expected IOException");
+        }
+        catch (IOException e) {
+            Assert.assertSame(e, map.getLastFailure());
+        }
+        Assert.assertEquals(1L, map.getFailureCount());
+        Assert.assertEquals(2L, map.getPendingChanges());
+
+        Assert.assertTrue(dir.mkdir());
+        map.close();
+        Assert.assertEquals(1L, map.getFlushCount());
+        Assert.assertEquals(0L, map.getPendingChanges());
+        Assert.assertTrue(file.exists());
+    }
+
+
+
+    @Test(timeout = 30000L)
+    public void testFlushWhileHoldingLock()
+        throws IOException
+    {
+        File file = new File(folder.getRoot(), "map.ser");
+        SerializableWriteBehindMap<Integer, String> map = open(file, 1L, 1L);
+        for (int i = 0; i < 200; i++) {
+            synchronized (map) {
+                map.put(Integer.valueOf(i), "value" + i);
+                for (Map.Entry<Integer, String> entry : map.entrySet()) {
+                    Assert.assertNotNull(entry.getValue());
+                }
+                map.flush();
+            }
+        }
+        synchronized (map) {
+            map.put(Integer.valueOf(200), "value200");
+            map.close();
+        }
+        Assert.assertEquals(0L, map.getPendingChanges());
+
+        SerializableWriteBehindMap<Integer, String> reloaded = open(file, 3600000L, 1000000L);
+        Assert.assertEquals(map, reloaded);
+        reloaded.close();
+    }
+
+
+
+    @Test
+    public void testViews()
+        throws IOException, ClassNotFoundException
+    {
+        File file = new File(folder.getRoot(), "map.ser");
+        SerializableWriteBehindMap<Integer, String> map = open(file, 3600000L, 1000000L);
+        for (int i = 0; i < 10; i++) {
+            map.put(Integer.valueOf(i), "value" + i);
+        }
+        Assert.assertTrue(map.flush());
+
+        synchronized (map) {
+            for (Iterator<Map.Entry<Integer, String>> iter = map.entrySet().iterator(); iter.hasNext();) {
+                Map.Entry<Integer, String> entry = iter.next();
+                if (entry.getKey().intValue() % 2 == 0) {
+                    iter.remove();
+                }
+                else if (entry.getKey().intValue() == 3) {
+                    entry.setValue("three");
+                }
+            }
+        }
+        Assert.assertEquals(6L, map.getPendingChanges());
+        Assert.assertEquals(5, map.size());
+        Assert.assertEquals("three", map.get(Integer.valueOf(3)));
+
+        map.keySet().clear();
+        Assert.assertEquals("key set is a copy", 5, map.size());
+        Assert.assertNull(map.remove(Integer.valueOf(100)));
+        Assert.assertEquals(6L, map.getPendingChanges());
+
+        Object copy = SerializationTestUtil.roundTrip(map);
+        Assert.assertEquals(SerializableHashMap.class, copy.getClass());
+        Assert.assertEquals(map, copy);
+        map.close();
+    }
+}
@@ -0,0 +1,198 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.ObjectName;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializationMonitor} and {@link SerializationStatistics}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializationMonitorTest
+{
+    private final List<String> events = new ArrayList<String>();
+
+    private final SerializationListener listener = new SerializationListener()
+    {
+        @Override
+        public void written(final Class<?> pClass, final int pElementCount, final long pNanos)
+        {
+            events.add("written " + pClass.getSimpleName() + ' ' + pElementCount);
+        }
+
+
+
+        @Override
+        public void read(final Class<?> pClass, final int pElementCount)
+        {
+            events.add("read " + pClass.getSimpleName() + ' ' + pElementCount);
+        }
+    };
+
+
+
+    @Before
+    public void setUp()
+    {
+        SerializationMonitor.getStatistics().reset();
+        SerializationMonitor.addListener(listener);
+        SerializationMonitor.setEnabled(true);
+    }
+
+
+
+    @After
+    public void tearDown()
+    {
+        SerializationMonitor.setEnabled(false);
+        SerializationMonitor.removeListener(listener);
+        SerializationMonitor.getStatistics().reset();
+    }
+
+
+
+    @Test
+    public void testNestedCollections()
+        throws IOException, ClassNotFoundException
+    {
+        SerializableHashMap<String, SerializableArrayList<String>> map =
+            new SerializableHashMap<String, SerializableArrayList<String>>();
+        map.put("hobbits", new SerializableArrayList<String>(SerializableCollections.asList("Frodo", "Sam")));
+
+        Object copy = SerializationTestUtil.roundTrip(map);
+
+        Assert.assertEquals(map, copy);
+        Assertions.assertThat(events).containsExactly("written SerializableArrayList 2",
+            "written SerializableHashMap 1", "read SerializableArrayList 2", "read SerializableHashMap 1");
+
+        SerializationClassStatistics stats =
+            SerializationMonitor.getStatistics().getClassStatistics(SerializableHashMap.class);
+        Assert.assertNotNull(stats);
+        Assert.assertEquals(1L, stats.getWriteCount());
+        Assert.assertEquals(1L, stats.getWriteElements());
+        Assert.assertEquals(1L, stats.getReadCount());
+        long histogramTotal = 0L;
+        for (long count : stats.getWriteLatencyHistogram()) {
+            histogramTotal += count;
+        }
+        Assert.assertEquals(1L, histogramTotal);
+    }
+
+
+
+    @Test
+    public void testAbortedWriteIsNotRetained()
+        throws IOException, ClassNotFoundException, InterruptedException
+    {
+        SerializableArrayList<Serializable> list = new SerializableArrayList<Serializable>();
+        list.add(new Unwritable());
+        WeakReference<Object> ref = new WeakReference<Object>(list);
+        try {
+            SerializationTestUtil.serialize(list);
+            Assert.fail("expected NotSerializableException");
+        }
+        catch (NotSerializableException e) {
+            // expected
+        }
+        list = null;
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10L);
+        }
+        Assert.assertNull("aborted write is still referenced", ref.get());
+
+        SerializationTestUtil.roundTrip(new SerializableArrayList<String>(SerializableCollections.asList("Frodo")));
+        Assertions.assertThat(events).containsExactly("written SerializableArrayList 1",
+            "read SerializableArrayList 1");
+    }
+
+
+
+    @Test
+    public void testDisabled()
+        throws IOException, ClassNotFoundException
+    {
+        SerializationMonitor.setEnabled(false);
+        SerializationTestUtil.roundTrip(new SerializableUnmodifiableHashSet<String>("Frodo"));
+
+        Assertions.assertThat(events).isEmpty();
+        Assertions.assertThat(SerializationMonitor.getStatistics().getClassStatistics()).isEmpty();
+    }
+
+
+
+    @Test
+    public void testBucketOf()
+    {
+        Assert.assertEquals(0, SerializationStatistics.bucketOf(999L));
+        Assert.assertEquals(1, SerializationStatistics.bucketOf(1000L));
+        Assert.assertEquals(2, SerializationStatistics.bucketOf(3999L));
+        Assert.assertEquals(SerializationStatistics.HISTOGRAM_BUCKETS - 1,
+            SerializationStatistics.bucketOf(Long.MAX_VALUE));
+    }
+
+
+
+    @Test
+    public void testMBean()
+        throws Exception
+    {
+        ObjectName name = SerializationMonitor.registerMBean();
+        try {
+            SerializationTestUtil.roundTrip(new SerializableTreeMap<String, String>());
+            Object enabled = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Enabled");
+            Assert.assertEquals(Boolean.TRUE, enabled);
+            Object stats = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "ClassStatistics");
+            Assertions.assertThat(String.valueOf(stats)).contains(SerializableTreeMap.class.getName());
+        }
+        finally {
+            SerializationMonitor.unregisterMBean();
+        }
+    }
+
+
+
+    /**
+     * An element whose serialization always fails.
+     */
+    private static final class Unwritable
+        implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+
+
+        private void writeObject(final ObjectOutputStream pOut)
+            throws IOException
+        {
+            throw new NotSerializableException("unwritable");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+
+/**
+ * Serialization helpers shared by the unit tests.
+ *
+ * @author Thomas Jensen
+ */
+final class SerializationTestUtil
+{
+    private SerializationTestUtil()
+    {
+        super();
+    }
+
+
+
+    /**
+     * Write the given objects to one object stream.
+     *
+     * @param pObjects the objects to write, in order
+     * @return the serialized bytes
+     * @throws IOException writing failed
+     */
+    static byte[] serialize(final Object... pObjects)
+        throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        for (Object object : pObjects) {
+            oos.writeObject(object);
+        }
+        oos.close();
+        return bos.toByteArray();
+    }
+
+
+
+    /**
+     * Read the first object from the given bytes.
+     *
+     * @param pBytes bytes written by {@link #serialize}
+     * @param <T> the expected type of the object
+     * @return the deserialized object
+     * @throws IOException reading failed
+     * @throws ClassNotFoundException a class of the serialized object graph is missing
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T deserialize(final byte[] pBytes)
+        throws IOException, ClassNotFoundException
+    {
+        return (T) new ObjectInputStream(new ByteArrayInputStream(pBytes)).readObject();
+    }
+
+
+
+    /**
+     * Serialize the given object and read it back.
+     *
+     * @param pObject the object to copy
+     * @param <T> the type of the object
+     * @return the deserialized copy
+     * @throws IOException writing or reading failed
+     * @throws ClassNotFoundException a class of the serialized object graph is missing
+     */
+    static <T> T roundTrip(final T pObject)
+        throws IOException, ClassNotFoundException
+    {
+        return SerializationTestUtil.<T>deserialize(serialize(pObject));
+    }
+
+
+
+    /**
+     * Determine the number of bytes the given object occupies when written to a fresh object stream.
+     *
+     * @param pObject the object to measure
+     * @return the number of bytes written, including the stream header
+     * @throws IOException writing failed
+     */
+    static long serializedSize(final Object pObject)
+        throws IOException
+    {
+        return serialize(pObject).length;
+    }
+}
@@ -0,0 +1,98 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Checks that the current code reads the golden serialized files written by all earlier versions of sercoll.
+ *
+ * @author Thomas Jensen
+ * @see GoldenFiles
+ */
+public class SerializedFormCompatibilityTest
+{
+    private static InputStream openGoldenFile(final String pVersion, final String pName)
+    {
+        return SerializedFormCompatibilityTest.class.getResourceAsStream("/golden/" + pVersion + '/' + pName + ".ser");
+    }
+
+
+
+    @Test
+    public void testLatestVersionCoversAllSamples()
+        throws IOException
+    {
+        final String latest = GoldenFiles.VERSIONS[GoldenFiles.VERSIONS.length - 1];
+        final List<String> missing = new ArrayList<String>();
+        for (final String name : GoldenFiles.createSamples().keySet()) {
+            final InputStream is = openGoldenFile(latest, name);
+            if (is == null) {
+                missing.add(name);
+            }
+            else {
+                is.close();
+            }
+        }
+        Assert.assertTrue("golden files missing for version " + latest + ": " + missing, missing.isEmpty());
+    }
+
+
+
+    @Test
+    public void testReadGoldenFiles()
+        throws IOException, ClassNotFoundException
+    {
+        final Map<String, Serializable> samples = GoldenFiles.createSamples();
+        int filesRead = 0;
+        for (final String version : GoldenFiles.VERSIONS) {
+            for (final Map.Entry<String, Serializable> sample : samples.entrySet()) {
+                final InputStream is = openGoldenFile(version, sample.getKey());
+                if (is == null) {
+                    continue;  // the class did not exist yet in this version
+                }
+                final ObjectInputStream ois = new ObjectInputStream(is);
+                try {
+                    final Object actual = ois.readObject();
+                    final String message = version + '/' + sample.getKey();
+                    Assert.assertEquals(message, sample.getValue().getClass(), actual.getClass());
+                    if (actual instanceof Queue) {
+                        // queues have identity equality, so compare their elements in iteration order
+                        Assert.assertEquals(message, new ArrayList<Object>((Queue<?>) sample.getValue()),
+                            new ArrayList<Object>((Queue<?>) actual));
+                    }
+                    else {
+                        Assert.assertEquals(message, sample.getValue(), actual);
+                    }
+                }
+                finally {
+                    ois.close();
+                }
+                filesRead++;
+            }
+        }
+        Assert.assertTrue(filesRead >= samples.size());
+    }
+}
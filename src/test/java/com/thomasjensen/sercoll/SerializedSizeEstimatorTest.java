@@ -0,0 +1,141 @@
+package com.thomasjensen.sercoll;
+/*
+ * sercoll - Java Collections declared Serializable
+ * Copyright (c) 2015 Thomas Jensen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the License for
+ * the specific language governing permissions and limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+/**
+ * Unit tests of {@link SerializedSizeEstimator}, via {@link SerializableCollections#estimateSerializedSize}.
+ *
+ * @author Thomas Jensen
+ */
+public class SerializedSizeEstimatorTest
+{
+    private static final int NUM_ELEMENTS = 5000;
+
+
+
+    @Test
+    public void testSmallCollection()
+        throws IOException
+    {
+        SerializableList<String> list = SerializableCollections.asList("Frodo", "Bilbo", null);
+        Assert.assertEquals(SerializationTestUtil.serializedSize(list),
+            SerializableCollections.estimateSerializedSize(list));
+    }
+
+
+
+    @Test
+    public void testStrings()
+        throws IOException
+    {
+        SerializableArrayList<String> list = new SerializableArrayList<String>();
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            list.add("Element " + i + (i % 10 == 0 ? " ä中\u0000" : ""));
+        }
+        list.add(list.get(42));
+        list.add(null);
+        Assert.assertEquals(SerializationTestUtil.serializedSize(list),
+            SerializableCollections.estimateSerializedSize(list));
+    }
+
+
+
+    @Test
+    public void testBoxedPrimitivesAndEnums()
+        throws IOException
+    {
+        SerializableHashMap<Integer, Serializable> map = new SerializableHashMap<Integer, Serializable>();
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            map.put(Integer.valueOf(i), i % 3 == 0 ? Long.valueOf(i % 200) : TestEnum.values()[i % 2]);
+        }
+        Assert.assertEquals(SerializationTestUtil.serializedSize(map),
+            SerializableCollections.estimateSerializedSize(map));
+    }
+
+
+
+    @Test
+    public void testSampledElements()
+        throws IOException
+    {
+        SerializableTreeMap<String, Date> map = new SerializableTreeMap<String, Date>();
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            map.put("key" + i, new Date(i));
+        }
+        final long expected = SerializationTestUtil.serializedSize(map);
+        final long actual = SerializableCollections.estimateSerializedSize(map);
+        Assert.assertTrue("estimate " + actual + " too far off " + expected,
+            Math.abs(expected - actual) < expected / 20);
+    }
+
+
+
+    @Test
+    public void testCollectionsWithOwnForm()
+        throws IOException
+    {
+        SerializableRoaringBitmap bitmap = new SerializableRoaringBitmap();
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            bitmap.add(i);
+        }
+        Assert.assertEquals(SerializationTestUtil.serializedSize(bitmap),
+            SerializableCollections.estimateSerializedSize(bitmap));
+
+        SerializableArrayList<String> list = new SerializableArrayList<String>();
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            list.add("Element " + i);
+        }
+        SerializableLazyArrayList<String> lazyList = new SerializableLazyArrayList<String>(list);
+        Assert.assertEquals(SerializationTestUtil.serializedSize(lazyList),
+            SerializableCollections.estimateSerializedSize(lazyList));
+
+        SerializableExpiringMap<String, Integer> expiringMap = new SerializableExpiringMap<String, Integer>(60000L);
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            expiringMap.put("key" + i, Integer.valueOf(i));
+        }
+        Assert.assertEquals(SerializationTestUtil.serializedSize(expiringMap),
+            SerializableCollections.estimateSerializedSize(expiringMap));
+    }
+
+
+
+    @Test
+    public void testGoldenSamples()
+        throws IOException
+    {
+        for (final Map.Entry<String, Serializable> entry : GoldenFiles.createSamples().entrySet()) {
+            final Serializable sample = entry.getValue();
+            final long estimate;
+            if (sample instanceof SerializableCollection) {
+                estimate = SerializableCollections.estimateSerializedSize((SerializableCollection<?>) sample);
+            }
+            else if (sample instanceof SerializableMap) {
+                estimate = SerializableCollections.estimateSerializedSize((SerializableMap<?, ?>) sample);
+            }
+            else {
+                continue;  // the multimaps are neither collections nor maps
+            }
+            Assert.assertEquals(entry.getKey(), SerializationTestUtil.serializedSize(sample), estimate);
+        }
+    }
+}